@@ -0,0 +1,307 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services;
+
+import android.content.Context;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.cryptowallet.assets.bitcoin.wallet.BitcoinTransaction;
+import com.cryptowallet.assets.bitcoin.wallet.BitcoinWallet;
+import com.cryptowallet.assets.bitcoin.wallet.exceptions.BitcoinDustException;
+import com.cryptowallet.assets.bitcoin.wallet.exceptions.BitcoinOverflowException;
+import com.cryptowallet.wallet.Recipient;
+import com.cryptowallet.wallet.exceptions.InsufficientBalanceException;
+
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.LegacyAddress;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutPoint;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.params.TestNet3Params;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.wallet.Wallet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Prueba la creación de pagos a varios destinatarios con una billetera sincronizada contra un
+ * servidor local.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class BatchPaymentTest {
+
+    /**
+     * Nombre del archivo de la billetera.
+     */
+    private static final String WALLET_FILENAME = "wallet.bitcoin";
+
+    /**
+     * Altura de la punta de la cadena.
+     */
+    private static final int TIP_HEIGHT = 100;
+
+    /**
+     * Comisión por KB utilizada en las pruebas.
+     */
+    private static final long FEE_BY_KB = 20480;
+
+    /**
+     * Tiempo máximo de espera de la sincronización en segundos.
+     */
+    private static final long SYNC_TIMEOUT = 30;
+
+    /**
+     * Parámetros de la red.
+     */
+    private final NetworkParameters mNetwork = TestNet3Params.get();
+
+    /**
+     * Directorio de datos de la prueba, separado del de la aplicación.
+     */
+    @Rule
+    public final TemporaryFolder mDataDir = new TemporaryFolder();
+
+    /**
+     * Servidor local.
+     */
+    private StandInBackend mBackend;
+
+    /**
+     * Billetera a probar.
+     */
+    private BitcoinWallet mWallet;
+
+    /**
+     * Configuración inicial, crea una billetera con tres salidas confirmadas por un total de
+     * 1 BTC.
+     */
+    @Before
+    public void setUp() throws IOException, ExecutionException, InterruptedException,
+            TimeoutException {
+        final Context context = new TestWalletContext(
+                InstrumentationRegistry.getInstrumentation().getTargetContext(),
+                mDataDir.getRoot());
+        final Wallet wallet = Wallet.createDeterministic(mNetwork, Script.ScriptType.P2PKH);
+
+        wallet.saveToFile(new File(mDataDir.getRoot(), WALLET_FILENAME));
+
+        mBackend = new StandInBackend();
+        mBackend.start();
+        mBackend.setTipHeight(TIP_HEIGHT);
+
+        final Address address = wallet.currentReceiveAddress();
+
+        addPayment(address, Coin.CENT.multiply(50), 90);
+        addPayment(address, Coin.CENT.multiply(30), 91);
+        addPayment(address, Coin.CENT.multiply(20), 92);
+
+        mWallet = new BitcoinWallet(context);
+        BitcoinProvider.setInstance(new BitcoinProvider(mWallet, mBackend.getUrl()));
+
+        mWallet.loadWallet();
+        mWallet.getSynchronizer().start().get(SYNC_TIMEOUT, TimeUnit.SECONDS);
+
+        assertEquals(Coin.COIN.value, mWallet.getBalance());
+    }
+
+    /**
+     * Elimina la billetera y detiene el servidor local.
+     */
+    @After
+    public void tearDown() throws IOException {
+        BitcoinProvider.setInstance(null);
+        mWallet.delete();
+        mBackend.stop();
+    }
+
+    /**
+     * Prueba que el pago incluya una salida por destinatario y las comisiones de la billetera, y
+     * que sus entradas provengan de una sola selección.
+     */
+    @Test
+    public void createBatchTx() {
+        final Address first = newAddress();
+        final Address second = newAddress();
+        final Address third = newAddress();
+
+        final BitcoinTransaction tx = (BitcoinTransaction) mWallet.createBatchTx(Arrays.asList(
+                new Recipient(first.toString(), Coin.CENT.multiply(25).value),
+                new Recipient(second.toString(), Coin.CENT.multiply(15).value),
+                new Recipient(third.toString(), Coin.CENT.multiply(30).value)), FEE_BY_KB);
+
+        final Transaction wtx = tx.getTx();
+
+        assertEquals(Coin.CENT.multiply(25), getPaidTo(wtx, first));
+        assertEquals(Coin.CENT.multiply(15), getPaidTo(wtx, second));
+        assertEquals(Coin.CENT.multiply(30), getPaidTo(wtx, third));
+
+        int feeOutputs = 0;
+        int changeOutputs = 0;
+
+        for (TransactionOutput output : wtx.getOutputs()) {
+            final Address address = output.getScriptPubKey().getToAddress(mNetwork);
+
+            if (mWallet.isFeeWallet(address))
+                feeOutputs++;
+            else if (!address.equals(first) && !address.equals(second)
+                    && !address.equals(third))
+                changeOutputs++;
+        }
+
+        assertEquals(2, feeOutputs);
+        assertTrue(changeOutputs <= 1);
+        assertEquals(3 + feeOutputs + changeOutputs, wtx.getOutputs().size());
+
+        final Set<TransactionOutPoint> outPoints = new HashSet<>();
+
+        for (TransactionInput input : wtx.getInputs())
+            assertTrue(outPoints.add(input.getOutpoint()));
+
+        assertTrue(wtx.getInputs().size() >= 2);
+        assertTrue(wtx.getFee().isPositive());
+        assertEquals(wtx.getInputSum(), wtx.getOutputSum().add(wtx.getFee()));
+    }
+
+    /**
+     * Prueba que se rechace un destinatario con una cantidad considerada polvo.
+     */
+    @Test(expected = BitcoinDustException.class)
+    public void rejectsDustRecipient() {
+        mWallet.createBatchTx(Arrays.asList(
+                new Recipient(newAddress().toString(), Coin.CENT.value),
+                new Recipient(newAddress().toString(), Transaction.MIN_NONDUST_OUTPUT.value)),
+                FEE_BY_KB);
+    }
+
+    /**
+     * Prueba que se rechace un destinatario con una cantidad mayor al máximo de la red.
+     */
+    @Test(expected = BitcoinOverflowException.class)
+    public void rejectsOverflowRecipient() {
+        mWallet.createBatchTx(Arrays.asList(
+                new Recipient(newAddress().toString(), Coin.CENT.value),
+                new Recipient(newAddress().toString(), mNetwork.getMaxMoney().value + 1)),
+                FEE_BY_KB);
+    }
+
+    /**
+     * Prueba que se rechace el pago si la suma de las cantidades supera el máximo de la red,
+     * aunque cada cantidad sea válida.
+     */
+    @Test(expected = BitcoinOverflowException.class)
+    public void rejectsOverflowTotal() {
+        final long half = mNetwork.getMaxMoney().value / 2 + 1;
+
+        mWallet.createBatchTx(Arrays.asList(
+                new Recipient(newAddress().toString(), half),
+                new Recipient(newAddress().toString(), half)), FEE_BY_KB);
+    }
+
+    /**
+     * Prueba que se rechace el pago si la suma de las cantidades supera el saldo, aunque cada
+     * cantidad sea cubierta por el saldo.
+     */
+    @Test
+    public void rejectsInsufficientTotal() {
+        final List<Recipient> recipients = Arrays.asList(
+                new Recipient(newAddress().toString(), Coin.CENT.multiply(60).value),
+                new Recipient(newAddress().toString(), Coin.CENT.multiply(60).value));
+
+        try {
+            mWallet.createBatchTx(recipients, FEE_BY_KB);
+            fail();
+        } catch (InsufficientBalanceException e) {
+            assertTrue(e.getAmount() >= Coin.CENT.multiply(120).value);
+        }
+    }
+
+    /**
+     * Registra en el servidor un pago confirmado a la dirección especificada.
+     *
+     * @param address Dirección de la billetera.
+     * @param amount  Cantidad del pago.
+     * @param height  Altura del bloque que lo incluye.
+     */
+    private void addPayment(Address address, Coin amount, int height) {
+        final Transaction funding = new Transaction(mNetwork);
+        funding.addInput(new TransactionInput(mNetwork, funding, new byte[0],
+                new TransactionOutPoint(mNetwork, height, Sha256Hash.ZERO_HASH)));
+        funding.addOutput(amount.multiply(2), newAddress());
+
+        mBackend.addTransaction(funding, mBackend.getBlockHash(height - 1), height - 1, 0);
+
+        final Transaction payment = new Transaction(mNetwork);
+        payment.addInput(new TransactionInput(mNetwork, payment, new byte[0],
+                new TransactionOutPoint(mNetwork, 0, funding)));
+        payment.addOutput(amount, address);
+
+        mBackend.addTransaction(payment, mBackend.getBlockHash(height), height, 0);
+    }
+
+    /**
+     * Obtiene la cantidad pagada a la dirección en la transacción.
+     *
+     * @param tx      Transacción.
+     * @param address Dirección destino.
+     * @return Cantidad pagada.
+     */
+    private Coin getPaidTo(Transaction tx, Address address) {
+        Coin paid = Coin.ZERO;
+
+        for (TransactionOutput output : tx.getOutputs())
+            if (address.equals(output.getScriptPubKey().getToAddress(mNetwork)))
+                paid = paid.add(output.getValue());
+
+        return paid;
+    }
+
+    /**
+     * Crea una dirección ajena a la billetera.
+     *
+     * @return Dirección nueva.
+     */
+    private Address newAddress() {
+        return LegacyAddress.fromKey(mNetwork, new ECKey());
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.cryptowallet.assets.bitcoin.wallet.BitcoinTransaction;
+import com.cryptowallet.assets.bitcoin.wallet.BitcoinWallet;
+import com.cryptowallet.services.network.CircuitBreaker;
+import com.cryptowallet.services.network.RequestEngine;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.Sha256Hash;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Prueba la descarga de transacciones por lotes contra un servidor local.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class BitcoinProviderBatchTest {
+
+    /**
+     * Transacciones a registrar en el servidor local.
+     */
+    private static final int TRANSACTIONS = 5;
+
+    /**
+     * Servidor local.
+     */
+    private StandInBackend mBackend;
+
+    /**
+     * Proveedor de billetera.
+     */
+    private BitcoinProvider mProvider;
+
+    /**
+     * Identificadores de las transacciones registradas.
+     */
+    private List<Sha256Hash> mTxids;
+
+    /**
+     * Configuración inicial.
+     */
+    @Before
+    public void setUp() throws IOException {
+        mBackend = new StandInBackend();
+        mBackend.start();
+        mTxids = new ArrayList<>();
+
+        for (int i = 0; i < TRANSACTIONS; i++)
+            mTxids.add(mBackend.addPayment(new ECKey(), 100, i).getTxId());
+
+        mProvider = new BitcoinProvider(new BitcoinWallet(InstrumentationRegistry
+                .getInstrumentation().getTargetContext()), mBackend.getUrl());
+        mProvider.setTransactionsPerRequest(2);
+    }
+
+    /**
+     * Detiene el servidor local.
+     */
+    @After
+    public void tearDown() throws IOException {
+        mBackend.stop();
+    }
+
+    /**
+     * Prueba que las transacciones sean solicitadas en bloques del tamaño configurado.
+     */
+    @Test
+    public void getTransactionsInChunks() throws ExecutionException, InterruptedException {
+        final Map<String, BitcoinTransaction> transactions = mProvider.getTransactions(getTxids());
+
+        assertNotNull(transactions);
+        assertEquals(TRANSACTIONS, transactions.size());
+
+        for (Sha256Hash txid : mTxids)
+            assertTrue(transactions.containsKey(txid.toString()));
+
+        assertEquals(3, mBackend.getRequestCount("txs"));
+        assertEquals(0, mBackend.getRequestCount("tx"));
+    }
+
+    /**
+     * Prueba que las transacciones sean solicitadas una a una si el servidor no provee el
+     * endpoint de lotes.
+     */
+    @Test
+    public void getTransactionsFallback() throws ExecutionException, InterruptedException {
+        mBackend.setBatchEnabled(false);
+
+        final Map<String, BitcoinTransaction> transactions = mProvider.getTransactions(getTxids());
+
+        assertNotNull(transactions);
+        assertEquals(TRANSACTIONS, transactions.size());
+        assertEquals(TRANSACTIONS, mBackend.getRequestCount("tx"));
+    }
+
+    /**
+     * Prueba que el proveedor recuerde que el servidor no provee el endpoint de lotes y no vuelva
+     * a consultarlo en las siguientes peticiones.
+     */
+    @Test
+    public void getTransactionsFallbackRemembered()
+            throws ExecutionException, InterruptedException {
+        mBackend.setBatchEnabled(false);
+
+        assertNotNull(mProvider.getTransactions(getTxids()));
+
+        final int probes = mBackend.getRequestCount("txs");
+
+        assertTrue(probes >= 1);
+
+        final Map<String, BitcoinTransaction> transactions = mProvider.getTransactions(getTxids());
+
+        assertNotNull(transactions);
+        assertEquals(TRANSACTIONS, transactions.size());
+        assertEquals(probes, mBackend.getRequestCount("txs"));
+    }
+
+    /**
+     * Prueba que las transacciones sean decodificadas del formato binario cuando es solicitado y
+     * el servidor lo soporta.
+     */
+    @Test
+    public void getTransactionsBinary() throws ExecutionException, InterruptedException {
+        mBackend.setBinaryEnabled(true);
+        mProvider.setBinaryFormatEnabled(true);
+
+        final Map<String, BitcoinTransaction> transactions = mProvider.getTransactions(getTxids());
+
+        assertNotNull(transactions);
+        assertEquals(TRANSACTIONS, transactions.size());
+        assertEquals(3, mBackend.getBinaryResponseCount());
+
+        final BitcoinTransaction tx = mProvider.getTransactionByTxID(getTxids().get(0));
+
+        assertNotNull(tx);
+        assertEquals(mTxids.get(0).toString(), tx.getID());
+        assertEquals(4, mBackend.getBinaryResponseCount());
+    }
+
+    /**
+     * Prueba que las respuestas sean decodificadas como json si el servidor no soporta el formato
+     * binario.
+     */
+    @Test
+    public void getTransactionsBinaryFallback() throws ExecutionException, InterruptedException {
+        mProvider.setBinaryFormatEnabled(true);
+
+        final Map<String, BitcoinTransaction> transactions = mProvider.getTransactions(getTxids());
+
+        assertNotNull(transactions);
+        assertEquals(TRANSACTIONS, transactions.size());
+        assertEquals(0, mBackend.getBinaryResponseCount());
+    }
+
+    /**
+     * Prueba que cancelar la tarea asíncrona cancele las llamadas en curso y libere el motor de
+     * peticiones sin esperar la respuesta del servidor.
+     */
+    @Test
+    public void getTransactionsAsyncCancel() throws InterruptedException {
+        mBackend.setResponseDelay(3000);
+
+        final ListenableFuture<Map<String, BitcoinTransaction>> task
+                = mProvider.getTransactionsAsync(getTxids());
+        final RequestEngine engine = mProvider.getRequestEngine();
+
+        while (mBackend.getRequestCount("txs") < 3)
+            Thread.sleep(10);
+
+        final long cancelledAt = System.currentTimeMillis();
+
+        assertTrue(task.cancel(true));
+
+        while (engine.getRunningCount() > 0)
+            Thread.sleep(10);
+
+        assertTrue(System.currentTimeMillis() - cancelledAt < 1000);
+        assertTrue(task.isCancelled());
+        assertEquals(3, mBackend.getRequestCount("txs"));
+        assertEquals(CircuitBreaker.State.CLOSED,
+                mProvider.getRetrier().getCircuitBreaker("txs").getState());
+    }
+
+    /**
+     * Obtiene los identificadores en el orden de bytes que espera la api.
+     *
+     * @return Lista de identificadores.
+     */
+    private List<byte[]> getTxids() {
+        final List<byte[]> txids = new ArrayList<>();
+
+        for (Sha256Hash txid : mTxids)
+            txids.add(txid.getReversedBytes());
+
+        return txids;
+    }
+}
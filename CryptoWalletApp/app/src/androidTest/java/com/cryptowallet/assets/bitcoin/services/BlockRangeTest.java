@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.cryptowallet.assets.bitcoin.wallet.BitcoinTransaction;
+import com.cryptowallet.assets.bitcoin.wallet.BitcoinWallet;
+
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.params.TestNet3Params;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Prueba la recuperación de un rango de bloques contra un servidor local.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class BlockRangeTest {
+
+    /**
+     * Altura del último bloque conocido por la billetera.
+     */
+    private static final int LAST_HEIGHT = 100;
+
+    /**
+     * Altura de la punta de la cadena.
+     */
+    private static final int TIP_HEIGHT = 105;
+
+    /**
+     * Alturas de las transacciones registradas. Las que se encuentran fuera del rango no deben
+     * formar parte del resultado.
+     */
+    private static final int[] HEIGHTS = {99, 100, 101, 103, 105, 106};
+
+    /**
+     * Servidor local.
+     */
+    private StandInBackend mBackend;
+
+    /**
+     * Proveedor de billetera.
+     */
+    private BitcoinProvider mProvider;
+
+    /**
+     * Clave de la dirección consultada.
+     */
+    private ECKey mKey;
+
+    /**
+     * Configuración inicial.
+     */
+    @Before
+    public void setUp() throws IOException {
+        mBackend = new StandInBackend();
+        mBackend.start();
+        mKey = new ECKey();
+
+        for (int height : HEIGHTS)
+            mBackend.addPayment(mKey, height, 0);
+
+        mProvider = new BitcoinProvider(new BitcoinWallet(InstrumentationRegistry
+                .getInstrumentation().getTargetContext()), mBackend.getUrl());
+    }
+
+    /**
+     * Detiene el servidor local.
+     */
+    @After
+    public void tearDown() throws IOException {
+        mBackend.stop();
+    }
+
+    /**
+     * Prueba que el rango contenga las cabeceras y las transacciones de los bloques posteriores al
+     * último bloque conocido en una sola petición.
+     */
+    @Test
+    public void getBlockRange() throws ExecutionException, InterruptedException {
+        final BlockRange range = mProvider.getBlockRange(serialize(), LAST_HEIGHT, TIP_HEIGHT);
+
+        assertNotNull(range);
+        assertEquals(TIP_HEIGHT - LAST_HEIGHT + 1, range.getHeaders().size());
+        assertEquals(TIP_HEIGHT, range.getTip().getHeight());
+        assertEquals(mBackend.getBlockHash(TIP_HEIGHT).toString(), range.getTip().getHash());
+        assertTrue(range.isContinuationOf(mBackend.getBlockHash(LAST_HEIGHT).toString(),
+                LAST_HEIGHT));
+
+        final Set<Long> heights = new HashSet<>();
+
+        for (BitcoinTransaction tx : range.getTransactions())
+            heights.add(tx.getBlockHeight());
+
+        assertEquals(3, range.getTransactions().size());
+        assertTrue(heights.contains(101L));
+        assertTrue(heights.contains(103L));
+        assertTrue(heights.contains(105L));
+        assertEquals(1, mBackend.getRequestCount("blocks"));
+        assertEquals(0, mBackend.getRequestCount("history"));
+    }
+
+    /**
+     * Prueba que el rango no continúe el último bloque conocido si la cadena fue reorganizada.
+     */
+    @Test
+    public void detectReorganization() throws ExecutionException, InterruptedException {
+        final String lastHash = mBackend.getBlockHash(LAST_HEIGHT).toString();
+
+        mBackend.setForkHeight(LAST_HEIGHT);
+
+        final BlockRange range = mProvider.getBlockRange(serialize(), LAST_HEIGHT, TIP_HEIGHT);
+
+        assertNotNull(range);
+        assertFalse(range.isContinuationOf(lastHash, LAST_HEIGHT));
+        assertFalse(range.isContinuationOf(lastHash, LAST_HEIGHT - 1));
+    }
+
+    /**
+     * Serializa la dirección consultada con el byte de versión de la red de pruebas.
+     *
+     * @return Dirección serializada.
+     */
+    private byte[] serialize() {
+        final byte[] address = new byte[21];
+        final byte[] hash = mKey.getPubKeyHash();
+
+        address[0] = (byte) TestNet3Params.get().getAddressHeader();
+        System.arraycopy(hash, 0, address, 1, hash.length);
+
+        return address;
+    }
+}
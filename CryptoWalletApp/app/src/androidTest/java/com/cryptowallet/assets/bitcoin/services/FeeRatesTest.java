@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.cryptowallet.assets.bitcoin.wallet.BitcoinWallet;
+import com.cryptowallet.wallet.IFees;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Prueba la estimación de comisiones contra el endpoint de tasas de un servidor local.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class FeeRatesTest {
+
+    /**
+     * Altura del bloque más reciente.
+     */
+    private static final int TIP_HEIGHT = 110;
+
+    /**
+     * Directorio temporal.
+     */
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    /**
+     * Servidor local.
+     */
+    private StandInBackend mBackend;
+
+    /**
+     * Proveedor de billetera.
+     */
+    private BitcoinProvider mProvider;
+
+    /**
+     * Configuración inicial.
+     */
+    @Before
+    public void setUp() throws IOException {
+        mBackend = new StandInBackend();
+        mBackend.start();
+
+        for (int height = 100; height < TIP_HEIGHT; height++)
+            mBackend.addFeeRates(height, 1, 99 * 1024, 6, 99 * 1024);
+
+        mBackend.addFeeRates(TIP_HEIGHT - 1, 1, 60 * 1024, 6, 12 * 1024);
+        mBackend.addFeeRates(TIP_HEIGHT, 1, 30 * 1024, 6, 12 * 1024);
+
+        mProvider = new BitcoinProvider(new BitcoinWallet(InstrumentationRegistry
+                .getInstrumentation().getTargetContext()), mBackend.getUrl());
+    }
+
+    /**
+     * Detiene el servidor local.
+     */
+    @After
+    public void tearDown() throws IOException {
+        mBackend.stop();
+    }
+
+    /**
+     * Prueba que las tasas se ordenen del bloque más reciente al más antiguo y que las consultas
+     * se sirvan desde memoria hasta ser invalidadas.
+     */
+    @Test
+    public void cachesRatesUntilInvalidated() throws ExecutionException, InterruptedException {
+        final FeeRates rates = mProvider.getFeeRatesAsync().get();
+
+        assertNotNull(rates);
+        assertEquals(TIP_HEIGHT, rates.getHeight());
+        assertEquals(6, rates.getBlocks());
+
+        mProvider.getFeeRatesAsync().get();
+        assertEquals(1, mBackend.getRequestCount("fees"));
+
+        mProvider.invalidateFeeRates();
+        mProvider.getFeeRatesAsync().get();
+        assertEquals(2, mBackend.getRequestCount("fees"));
+    }
+
+    /**
+     * Prueba que el estimador suavice las tasas del servidor y que sin conexión conserve la
+     * última estimación conocida.
+     */
+    @Test
+    public void estimatesAndFallsBack() throws ExecutionException, InterruptedException {
+        final File file = new File(mFolder.getRoot(), "wallet.fees");
+        final FeeEstimator estimator = new FeeEstimator(mProvider::getFeeRatesAsync, file);
+
+        final IFees fees = estimator.refreshAsync().get();
+        final double smoothed = (30 + 60 * 0.5 + 99 * (0.25 + 0.125 + 0.0625 + 0.03125))
+                / (1 + 0.5 + 0.25 + 0.125 + 0.0625 + 0.03125);
+
+        assertEquals((long) Math.ceil(smoothed) * 1024, fees.getFaster());
+        assertEquals(FeeEstimator.DEFAULT_AVERAGE_TARGET, fees.getAverageTarget());
+
+        mBackend.setFeesEnabled(false);
+        mProvider.invalidateFeeRates();
+
+        assertEquals(fees.getFaster(), estimator.refreshAsync().get().getFaster());
+        assertEquals(fees.getAverage(),
+                new FeeEstimator(mProvider::getFeeRatesAsync, file).refreshAsync().get()
+                        .getAverage());
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.cryptowallet.assets.bitcoin.wallet.BitcoinTransaction;
+import com.cryptowallet.assets.bitcoin.wallet.BitcoinWallet;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.params.TestNet3Params;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Prueba el escaneo de direcciones con bloques en curso simultáneos contra un servidor local.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class HistoryScannerTest {
+
+    /**
+     * Direcciones por bloque.
+     */
+    private static final int BLOCK_SIZE = 4;
+
+    /**
+     * Bloques consecutivos sin actividad que finalizan el escaneo.
+     */
+    private static final int GAP_BLOCKS = 3;
+
+    /**
+     * Indices de las direcciones con actividad. La última se encuentra después del límite y no
+     * debe formar parte del resultado.
+     */
+    private static final int[] ACTIVE = {0, 3, 12, 13, 31};
+
+    /**
+     * Indice siguiente a la última dirección escaneada de forma secuencial.
+     */
+    private static final int EXPECTED_NEXT_INDEX = 28;
+
+    /**
+     * Transacciones esperadas en el resultado.
+     */
+    private static final int EXPECTED_TRANSACTIONS = 4;
+
+    /**
+     * Servidor local.
+     */
+    private StandInBackend mBackend;
+
+    /**
+     * Proveedor de billetera.
+     */
+    private BitcoinProvider mProvider;
+
+    /**
+     * Claves de la cadena de direcciones.
+     */
+    private List<ECKey> mKeys;
+
+    /**
+     * Configuración inicial.
+     */
+    @Before
+    public void setUp() throws IOException {
+        mBackend = new StandInBackend();
+        mBackend.start();
+        mKeys = new ArrayList<>();
+
+        for (int i = 0; i < 64; i++)
+            mKeys.add(new ECKey());
+
+        for (int i = 0; i < ACTIVE.length; i++)
+            mBackend.addPayment(mKeys.get(ACTIVE[i]), 100, i);
+
+        mProvider = new BitcoinProvider(new BitcoinWallet(InstrumentationRegistry
+                .getInstrumentation().getTargetContext()), mBackend.getUrl());
+    }
+
+    /**
+     * Detiene el servidor local.
+     */
+    @After
+    public void tearDown() throws IOException {
+        mBackend.stop();
+    }
+
+    /**
+     * Prueba que el escaneo secuencial se detenga al encontrar el límite de bloques sin actividad.
+     */
+    @Test
+    public void scanSequential() throws ExecutionException, InterruptedException {
+        final Set<String> found = new HashSet<>();
+        final int nextIndex = scan(1, found);
+
+        assertEquals(EXPECTED_NEXT_INDEX, nextIndex);
+        assertEquals(EXPECTED_TRANSACTIONS, found.size());
+        assertEquals(EXPECTED_NEXT_INDEX / BLOCK_SIZE, mBackend.getRequestCount("history"));
+    }
+
+    /**
+     * Prueba que el escaneo con varios bloques en curso produzca el mismo resultado que el
+     * secuencial, descartando los bloques especulativos posteriores al límite.
+     */
+    @Test
+    public void scanPipelinedMatchesSequential() throws ExecutionException, InterruptedException {
+        final Set<String> sequential = new HashSet<>();
+        final int sequentialNext = scan(1, sequential);
+
+        for (int window = 2; window <= 8; window++) {
+            final Set<String> pipelined = new HashSet<>();
+
+            assertEquals(sequentialNext, scan(window, pipelined));
+            assertEquals(sequential, pipelined);
+        }
+    }
+
+    /**
+     * Prueba que el escaneo mantenga varios bloques en curso cuando el servidor tarda en
+     * responder.
+     */
+    @Test
+    public void scanPipelinedOverlapsRequests() throws ExecutionException, InterruptedException {
+        mBackend.setResponseDelay(200);
+
+        final long start = System.currentTimeMillis();
+        final int nextIndex = scan(4, new HashSet<>());
+        final long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(EXPECTED_NEXT_INDEX, nextIndex);
+        assertTrue(elapsed < 200 * EXPECTED_NEXT_INDEX / BLOCK_SIZE);
+    }
+
+    /**
+     * Prueba que un escaneo continuado desde cualquier avance notificado produzca el mismo
+     * resultado que el escaneo sin interrupciones.
+     */
+    @Test
+    public void scanResumesFromProgress() throws ExecutionException, InterruptedException {
+        final List<int[]> progress = new ArrayList<>();
+        final List<Set<String>> staged = new ArrayList<>();
+        final Set<String> sequential = new HashSet<>();
+        final HistoryScanner scanner = new HistoryScanner(mProvider, this::serialize, BLOCK_SIZE,
+                GAP_BLOCKS, 4);
+        final int sequentialNext = scanner.scan(0, 0, (BitcoinTransaction tx) -> {
+            synchronized (sequential) {
+                sequential.add(tx.getID());
+            }
+        }, (transactions, nextIndex, inactiveBlocks) -> {
+            final Set<String> found = new HashSet<>(staged.isEmpty()
+                    ? new HashSet<>() : staged.get(staged.size() - 1));
+
+            for (BitcoinTransaction tx : transactions)
+                found.add(tx.getID());
+
+            progress.add(new int[]{nextIndex, inactiveBlocks});
+            staged.add(found);
+        }).get();
+
+        assertEquals(EXPECTED_NEXT_INDEX / BLOCK_SIZE, progress.size());
+
+        for (int i = 0; i < progress.size(); i++) {
+            final Set<String> resumed = new HashSet<>(staged.get(i));
+            final int nextIndex = scanner.scan(progress.get(i)[0], progress.get(i)[1],
+                    (BitcoinTransaction tx) -> {
+                        synchronized (resumed) {
+                            resumed.add(tx.getID());
+                        }
+                    }, null).get();
+
+            assertEquals(sequentialNext, nextIndex);
+            assertEquals(sequential, resumed);
+        }
+    }
+
+    /**
+     * Escanea la cadena de direcciones de prueba.
+     *
+     * @param window Bloques máximos en curso.
+     * @param found  Identificadores de las transacciones encontradas.
+     * @return Indice siguiente a la última dirección escaneada.
+     */
+    private int scan(int window, Set<String> found)
+            throws ExecutionException, InterruptedException {
+        final HistoryScanner scanner = new HistoryScanner(mProvider, this::serialize, BLOCK_SIZE,
+                GAP_BLOCKS, window);
+        final ListenableFuture<Integer> task = scanner.scan(0, (BitcoinTransaction tx) -> {
+            synchronized (found) {
+                found.add(tx.getID());
+            }
+        });
+
+        return task.get();
+    }
+
+    /**
+     * Serializa las direcciones del bloque con el byte de versión de la red de pruebas.
+     *
+     * @param fromIndex Indice de la primera dirección.
+     * @param size      Cantidad de direcciones.
+     * @return Direcciones serializadas.
+     */
+    private byte[] serialize(int fromIndex, int size) {
+        final byte[] addresses = new byte[size * 21];
+
+        for (int i = 0; i < size; i++) {
+            final int index = fromIndex + i;
+            final byte[] hash = index < mKeys.size()
+                    ? mKeys.get(index).getPubKeyHash()
+                    : new ECKey().getPubKeyHash();
+
+            addresses[i * 21] = (byte) TestNet3Params.get().getAddressHeader();
+            System.arraycopy(hash, 0, addresses, i * 21 + 1, hash.length);
+        }
+
+        return addresses;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.cryptowallet.assets.bitcoin.wallet.BitcoinWallet;
+import com.cryptowallet.assets.bitcoin.wallet.BlockWindow;
+
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.LegacyAddress;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutPoint;
+import org.bitcoinj.params.TestNet3Params;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Prueba la detección de reorganizaciones de la cadena contra un servidor local.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class ReorganizationTest {
+
+    /**
+     * Altura del bloque más antiguo de la ventana.
+     */
+    private static final int LOWEST_HEIGHT = 90;
+
+    /**
+     * Altura del último bloque conocido por la billetera.
+     */
+    private static final int LAST_HEIGHT = 100;
+
+    /**
+     * Servidor local.
+     */
+    private StandInBackend mBackend;
+
+    /**
+     * Proveedor de billetera.
+     */
+    private BitcoinProvider mProvider;
+
+    /**
+     * Ventana de bloques recientes construida con la cadena original.
+     */
+    private BlockWindow mWindow;
+
+    /**
+     * Configuración inicial.
+     */
+    @Before
+    public void setUp() throws IOException, ExecutionException, InterruptedException {
+        mBackend = new StandInBackend();
+        mBackend.start();
+        mProvider = new BitcoinProvider(new BitcoinWallet(InstrumentationRegistry
+                .getInstrumentation().getTargetContext()), mBackend.getUrl());
+        mWindow = new BlockWindow(LAST_HEIGHT - LOWEST_HEIGHT + 1);
+
+        for (BlockRange.Header header : requestHeaders(LOWEST_HEIGHT, LAST_HEIGHT).getHeaders())
+            mWindow.add(header.getHeight(), Sha256Hash.wrap(header.getHash()), header.getTime());
+    }
+
+    /**
+     * Detiene el servidor local.
+     */
+    @After
+    public void tearDown() throws IOException {
+        mBackend.stop();
+    }
+
+    /**
+     * Prueba que el punto de separación se encuentre en la ventana y que solo se soliciten las
+     * transacciones de los bloques posteriores a este.
+     */
+    @Test
+    public void findForkPointAndRequestRange() throws ExecutionException, InterruptedException {
+        final NetworkParameters network = TestNet3Params.get();
+        final ECKey key = new ECKey();
+        final int forkHeight = 97;
+
+        mBackend.setForkHeight(forkHeight);
+
+        final Transaction tx = new Transaction(network);
+        tx.addInput(new TransactionInput(network, tx, new byte[0],
+                new TransactionOutPoint(network, 0, Sha256Hash.ZERO_HASH)));
+        tx.addOutput(Coin.COIN, LegacyAddress.fromKey(network, key));
+
+        mBackend.addTransaction(tx, mBackend.getBlockHash(forkHeight + 1), forkHeight + 1, 0);
+
+        final BlockRange last = requestHeaders(LAST_HEIGHT, LAST_HEIGHT);
+
+        assertNotNull(last);
+        assertNotEquals(mWindow.getHash(LAST_HEIGHT).toString(), last.getTip().getHash());
+
+        final int forkPoint = mWindow.findForkPoint(toChain(requestHeaders(LOWEST_HEIGHT,
+                LAST_HEIGHT - 1)));
+
+        assertEquals(forkHeight - 1, forkPoint);
+
+        final byte[] address = new byte[21];
+        address[0] = (byte) network.getAddressHeader();
+        System.arraycopy(key.getPubKeyHash(), 0, address, 1, 20);
+
+        final BlockRange range = mProvider.getBlockRange(address, forkPoint, LAST_HEIGHT + 2);
+
+        assertNotNull(range);
+        assertTrue(range.isContinuationOf(mWindow.getHash(forkPoint).toString(), forkPoint));
+        assertEquals(1, range.getTransactions().size());
+        assertEquals(tx.getTxId().toString(), range.getTransactions().get(0).getID());
+    }
+
+    /**
+     * Prueba que no se encuentre el punto de separación si la reorganización es más profunda que
+     * la ventana.
+     */
+    @Test
+    public void forkDeeperThanWindow() throws ExecutionException, InterruptedException {
+        mBackend.setForkHeight(LOWEST_HEIGHT - 10);
+
+        assertEquals(-1, mWindow.findForkPoint(toChain(requestHeaders(LOWEST_HEIGHT,
+                LAST_HEIGHT - 1))));
+    }
+
+    /**
+     * Prueba que el punto de separación sea el último bloque si la cadena no fue reorganizada.
+     */
+    @Test
+    public void noReorganization() throws ExecutionException, InterruptedException {
+        assertEquals(LAST_HEIGHT, mWindow.findForkPoint(toChain(requestHeaders(LOWEST_HEIGHT,
+                LAST_HEIGHT))));
+    }
+
+    /**
+     * Solicita únicamente las cabeceras de los bloques del rango.
+     *
+     * @param fromHeight Altura del primer bloque.
+     * @param toHeight   Altura del último bloque.
+     * @return Rango de bloques sin transacciones.
+     */
+    private BlockRange requestHeaders(int fromHeight, int toHeight)
+            throws ExecutionException, InterruptedException {
+        final BlockRange range = mProvider.getBlockRange(new byte[0], fromHeight, toHeight);
+
+        assertNotNull(range);
+        assertEquals(0, range.getTransactions().size());
+
+        return range;
+    }
+
+    /**
+     * Indexa el hash de las cabeceras del rango por su altura.
+     *
+     * @param range Rango de bloques.
+     * @return Hash de los bloques indexados por su altura.
+     */
+    private static Map<Integer, Sha256Hash> toChain(BlockRange range) {
+        final Map<Integer, Sha256Hash> chain = new HashMap<>();
+
+        for (BlockRange.Header header : range.getHeaders())
+            chain.put(header.getHeight(), Sha256Hash.wrap(header.getHash()));
+
+        return chain;
+    }
+}
@@ -0,0 +1,698 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services;
+
+import androidx.annotation.NonNull;
+
+import com.cryptowallet.assets.bitcoin.services.retrofit.TxDataFormat;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.LegacyAddress;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutPoint;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.params.TestNet3Params;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.script.ScriptPattern;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.GzipSource;
+import okio.Okio;
+
+/**
+ * Servidor local que sustituye a la api de Bitcoin durante las pruebas. Responde a partir de las
+ * transacciones registradas en memoria.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+class StandInBackend extends Dispatcher {
+
+    /**
+     * Prefijo de los endpoints de la red de pruebas.
+     */
+    private static final String PREFIX = "/v1/btc/testnet/";
+
+    /**
+     * Transacciones registradas indexadas por su identificador en orden de bytes invertido.
+     */
+    private final Map<String, TxEntry> mTransactions = new LinkedHashMap<>();
+
+    /**
+     * Servidor web.
+     */
+    private final MockWebServer mServer = new MockWebServer();
+
+    /**
+     * Contador de peticiones por endpoint.
+     */
+    private final Map<String, AtomicInteger> mRequests = new LinkedHashMap<>();
+
+    /**
+     * Indica si el servidor expone el endpoint de transacciones por lote.
+     */
+    private boolean mBatchEnabled = true;
+
+    /**
+     * Indica si el servidor responde en formato binario cuando es solicitado.
+     */
+    private boolean mBinaryEnabled;
+
+    /**
+     * Cantidad de respuestas enviadas en formato binario.
+     */
+    private int mBinaryResponses;
+
+    /**
+     * Retraso de las respuestas en milisegundos.
+     */
+    private long mResponseDelay;
+
+    /**
+     * Altura a partir de la cual los bloques pertenecen a una rama alterna o -1 si no la hay.
+     */
+    private int mForkHeight = -1;
+
+    /**
+     * Tasas de comisión por objetivo de cada bloque indexadas por altura.
+     */
+    private final Map<Integer, Map<Integer, Long>> mFeeRates = new LinkedHashMap<>();
+
+    /**
+     * Indica si el endpoint de tasas de comisión está disponible.
+     */
+    private boolean mFeesEnabled = true;
+
+    /**
+     * Indica si el endpoint de rangos de bloques está disponible.
+     */
+    private boolean mBlocksEnabled = true;
+
+    /**
+     * Altura de la punta de la cadena.
+     */
+    private int mTipHeight;
+
+    /**
+     * Cantidad de pagos sintéticos registrados, cada uno gasta una salida distinta.
+     */
+    private int mPayments;
+
+    /**
+     * Inicia el servidor local.
+     */
+    void start() throws IOException {
+        mServer.setDispatcher(this);
+        mServer.start();
+    }
+
+    /**
+     * Detiene el servidor local.
+     */
+    void stop() throws IOException {
+        mServer.shutdown();
+    }
+
+    /**
+     * Obtiene la url base de la api.
+     *
+     * @return Url de la api.
+     */
+    String getUrl() {
+        return mServer.url("/v1/").toString();
+    }
+
+    /**
+     * Habilita o deshabilita el endpoint de transacciones por lote.
+     *
+     * @param enabled True para habilitarlo.
+     */
+    void setBatchEnabled(boolean enabled) {
+        mBatchEnabled = enabled;
+    }
+
+    /**
+     * Habilita o deshabilita las respuestas en formato binario.
+     *
+     * @param enabled True para habilitarlas.
+     */
+    void setBinaryEnabled(boolean enabled) {
+        mBinaryEnabled = enabled;
+    }
+
+    /**
+     * Establece el retraso con el que se envían las cabeceras de cada respuesta.
+     *
+     * @param millis Retraso en milisegundos.
+     */
+    void setResponseDelay(long millis) {
+        mResponseDelay = millis;
+    }
+
+    /**
+     * Reorganiza la cadena a partir de la altura especificada, los bloques desde esa altura son
+     * reemplazados por los de una rama alterna.
+     *
+     * @param height Altura del primer bloque de la rama alterna.
+     */
+    synchronized void setForkHeight(int height) {
+        mForkHeight = height;
+    }
+
+    /**
+     * Registra las tasas de comisión de un bloque.
+     *
+     * @param height Altura del bloque.
+     * @param pairs  Pares de objetivo de confirmación y comisión por KB.
+     */
+    synchronized void addFeeRates(int height, long... pairs) {
+        final Map<Integer, Long> buckets = new LinkedHashMap<>();
+
+        for (int i = 0; i + 1 < pairs.length; i += 2)
+            buckets.put((int) pairs[i], pairs[i + 1]);
+
+        mFeeRates.put(height, buckets);
+    }
+
+    /**
+     * Habilita o deshabilita el endpoint de tasas de comisión, simulando la falta de conexión.
+     *
+     * @param enabled True para habilitarlo.
+     */
+    synchronized void setFeesEnabled(boolean enabled) {
+        mFeesEnabled = enabled;
+    }
+
+    /**
+     * Habilita o deshabilita el endpoint de rangos de bloques, simulando un servidor que no lo
+     * provee.
+     *
+     * @param enabled True para habilitarlo.
+     */
+    synchronized void setBlocksEnabled(boolean enabled) {
+        mBlocksEnabled = enabled;
+    }
+
+    /**
+     * Establece la altura de la punta de la cadena.
+     *
+     * @param height Altura del bloque.
+     */
+    synchronized void setTipHeight(int height) {
+        mTipHeight = height;
+    }
+
+    /**
+     * Obtiene el hash del bloque de la cadena activa a la altura especificada.
+     *
+     * @param height Altura del bloque.
+     * @return Hash del bloque.
+     */
+    synchronized Sha256Hash getBlockHash(int height) {
+        final String branch = mForkHeight >= 0 && height >= mForkHeight ? "fork" : "main";
+
+        return Sha256Hash.of((branch + height).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Obtiene la cantidad de respuestas enviadas en formato binario.
+     *
+     * @return Cantidad de respuestas.
+     */
+    synchronized int getBinaryResponseCount() {
+        return mBinaryResponses;
+    }
+
+    /**
+     * Registra una transacción confirmada.
+     *
+     * @param tx     Transacción.
+     * @param block  Hash del bloque.
+     * @param height Altura del bloque.
+     * @param index  Posición dentro del bloque.
+     */
+    void addTransaction(Transaction tx, Sha256Hash block, int height, int index) {
+        mTransactions.put(Hex.toHexString(tx.getTxId().getReversedBytes()),
+                new TxEntry(tx, block, height, index));
+    }
+
+    /**
+     * Registra un pago sintético de 1 BTC a la clave especificada, confirmado en el bloque de la
+     * cadena activa a la altura indicada.
+     *
+     * @param key    Clave que recibe el pago.
+     * @param height Altura del bloque.
+     * @param index  Posición dentro del bloque.
+     * @return Transacción del pago.
+     */
+    synchronized Transaction addPayment(ECKey key, int height, int index) {
+        final NetworkParameters network = TestNet3Params.get();
+        final Transaction tx = new Transaction(network);
+
+        tx.addInput(new TransactionInput(network, tx, new byte[0],
+                new TransactionOutPoint(network, mPayments++, Sha256Hash.ZERO_HASH)));
+        tx.addOutput(Coin.COIN, LegacyAddress.fromKey(network, key));
+
+        addTransaction(tx, getBlockHash(height), height, index);
+
+        return tx;
+    }
+
+    /**
+     * Obtiene las peticiones recibidas por el endpoint.
+     *
+     * @param endpoint Nombre del endpoint.
+     * @return Cantidad de peticiones.
+     */
+    int getRequestCount(String endpoint) {
+        AtomicInteger count = mRequests.get(endpoint);
+
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Atiende una petición.
+     *
+     * @param request Petición recibida.
+     * @return Respuesta del servidor.
+     */
+    @NonNull
+    @Override
+    public MockResponse dispatch(@NonNull RecordedRequest request) {
+        return route(request).setHeadersDelay(mResponseDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Atiende la petición según su endpoint.
+     *
+     * @param request Petición recibida.
+     * @return Respuesta del servidor.
+     */
+    private synchronized MockResponse route(RecordedRequest request) {
+        final String path = request.getPath() == null ? "" : request.getPath();
+
+        if (!path.startsWith(PREFIX))
+            return new MockResponse().setResponseCode(HttpURLConnection.HTTP_NOT_FOUND);
+
+        final String[] route = path.substring(PREFIX.length()).split("[/?]");
+        final String endpoint = route[0];
+
+        if (!mRequests.containsKey(endpoint))
+            mRequests.put(endpoint, new AtomicInteger());
+
+        mRequests.get(endpoint).incrementAndGet();
+
+        final String accept = request.getHeader("Accept");
+        final boolean binary = mBinaryEnabled && accept != null
+                && accept.contains(TxDataFormat.CONTENT_TYPE);
+
+        switch (endpoint) {
+            case "tx":
+                TxEntry entry = mTransactions.get(route[1]);
+
+                if (entry == null)
+                    return new MockResponse().setResponseCode(HttpURLConnection.HTTP_NOT_FOUND);
+
+                return respond(Collections.singletonList(entry), binary, false);
+            case "txs":
+                if (!mBatchEnabled)
+                    return new MockResponse().setResponseCode(HttpURLConnection.HTTP_NOT_FOUND);
+
+                final String txids = readField(request, "txids");
+                final List<TxEntry> entries = new ArrayList<>();
+
+                for (int i = 0; i + 64 <= txids.length(); i += 64) {
+                    TxEntry found = mTransactions.get(txids.substring(i, i + 64));
+
+                    if (found != null)
+                        entries.add(found);
+                }
+
+                return respond(entries, binary, true);
+            case "history":
+                final String height = readQuery(path, "height");
+                final List<TxEntry> history = new ArrayList<>();
+
+                for (TxEntry found : findHistory(readField(request, "addresses")))
+                    if (height.isEmpty() || found.mHeight >= Integer.parseInt(height))
+                        history.add(found);
+
+                return respond(history, binary, true);
+            case "chaininfo":
+                return respondChainInfo();
+            case "blocks":
+                if (!mBlocksEnabled)
+                    return new MockResponse().setResponseCode(HttpURLConnection.HTTP_NOT_FOUND);
+
+                return respondBlocks(readField(request, "addresses"),
+                        Integer.parseInt(readQuery(path, "from")),
+                        Integer.parseInt(readQuery(path, "to")));
+            case "fees":
+                if (!mFeesEnabled)
+                    return new MockResponse()
+                            .setResponseCode(HttpURLConnection.HTTP_UNAVAILABLE);
+
+                return respondFees(Integer.parseInt(readQuery(path, "blocks")));
+            default:
+                return new MockResponse().setResponseCode(HttpURLConnection.HTTP_NOT_FOUND);
+        }
+    }
+
+    /**
+     * Busca las transacciones que pagan a alguna de las direcciones.
+     *
+     * @param addresses Direcciones serializadas en hexadecimal, 21 bytes por dirección.
+     * @return Transacciones encontradas.
+     */
+    private List<TxEntry> findHistory(String addresses) {
+        final Set<String> hashes = new HashSet<>();
+        final List<TxEntry> entries = new ArrayList<>();
+
+        for (int i = 0; i + 42 <= addresses.length(); i += 42)
+            hashes.add(addresses.substring(i + 2, i + 42));
+
+        for (TxEntry entry : mTransactions.values())
+            for (TransactionOutput output : entry.mTx.getOutputs()) {
+                final Script script = output.getScriptPubKey();
+
+                if (ScriptPattern.isP2PKH(script) && hashes.contains(
+                        Hex.toHexString(ScriptPattern.extractHashFromP2PKH(script)))) {
+                    entries.add(entry);
+                    break;
+                }
+            }
+
+        return entries;
+    }
+
+    /**
+     * Crea la respuesta con las cabeceras de los bloques del rango y las transacciones de las
+     * direcciones incluidas en ellos.
+     *
+     * @param addresses  Direcciones serializadas en hexadecimal.
+     * @param fromHeight Altura del primer bloque.
+     * @param toHeight   Altura del último bloque.
+     * @return Respuesta del servidor.
+     */
+    private MockResponse respondBlocks(String addresses, int fromHeight, int toHeight) {
+        final JsonObject json = new JsonObject();
+        final JsonArray blocks = new JsonArray();
+        final JsonArray txs = new JsonArray();
+
+        for (int height = fromHeight; height <= toHeight; height++) {
+            final JsonObject header = new JsonObject();
+
+            header.addProperty("hash", getBlockHash(height).toString());
+            header.addProperty("prev", getBlockHash(height - 1).toString());
+            header.addProperty("height", height);
+            header.addProperty("time", getBlockTime(height));
+
+            blocks.add(header);
+        }
+
+        for (TxEntry entry : findHistory(addresses))
+            if (entry.mHeight > fromHeight && entry.mHeight <= toHeight)
+                txs.add(entry.toJson());
+
+        json.add("blocks", blocks);
+        json.add("txs", txs);
+
+        return json(json.toString());
+    }
+
+    /**
+     * Crea la respuesta con la información de la punta de la cadena.
+     *
+     * @return Respuesta del servidor.
+     */
+    private MockResponse respondChainInfo() {
+        final JsonObject json = new JsonObject();
+
+        json.addProperty("height", mTipHeight);
+        json.addProperty("hash", getBlockHash(mTipHeight).toString());
+        json.addProperty("time", getBlockTime(mTipHeight));
+        json.addProperty("txn", 0);
+        json.addProperty("status", "synchronized");
+        json.addProperty("network", "testnet");
+
+        return json(json.toString());
+    }
+
+    /**
+     * Crea la respuesta con las tasas de comisión de los bloques más recientes.
+     *
+     * @param count Cantidad de bloques.
+     * @return Respuesta del servidor.
+     */
+    private MockResponse respondFees(int count) {
+        final List<Integer> heights = new ArrayList<>(mFeeRates.keySet());
+        final JsonObject json = new JsonObject();
+        final JsonArray blocks = new JsonArray();
+
+        Collections.sort(heights);
+
+        for (Integer height : heights.subList(Math.max(0, heights.size() - count),
+                heights.size())) {
+            final JsonObject block = new JsonObject();
+            final JsonArray buckets = new JsonArray();
+
+            for (Map.Entry<Integer, Long> rate : mFeeRates.get(height).entrySet()) {
+                final JsonObject bucket = new JsonObject();
+
+                bucket.addProperty("target", rate.getKey());
+                bucket.addProperty("rate", rate.getValue());
+                buckets.add(bucket);
+            }
+
+            block.addProperty("height", height);
+            block.add("buckets", buckets);
+            blocks.add(block);
+        }
+
+        json.add("blocks", blocks);
+
+        return json(json.toString());
+    }
+
+    /**
+     * Obtiene la fecha y hora de un bloque en segundos.
+     *
+     * @param height Altura del bloque.
+     * @return Fecha y hora del bloque.
+     */
+    static int getBlockTime(int height) {
+        return 1600000000 + height * 600;
+    }
+
+    /**
+     * Obtiene el valor de un parámetro de la consulta de la petición.
+     *
+     * @param path  Ruta de la petición.
+     * @param param Nombre del parámetro.
+     * @return Valor del parámetro o una cadena vacía.
+     */
+    private static String readQuery(String path, String param) {
+        final int start = path.indexOf('?');
+
+        if (start < 0)
+            return "";
+
+        for (String pair : path.substring(start + 1).split("&")) {
+            String[] keyValue = pair.split("=", 2);
+
+            if (keyValue.length == 2 && keyValue[0].equals(param))
+                return keyValue[1];
+        }
+
+        return "";
+    }
+
+    /**
+     * Obtiene el valor de un campo del formulario de la petición.
+     *
+     * @param request Petición recibida.
+     * @param field   Nombre del campo.
+     * @return Valor del campo o una cadena vacía.
+     */
+    private static String readField(RecordedRequest request, String field) {
+        final String body;
+
+        if ("gzip".equals(request.getHeader("Content-Encoding")))
+            try (BufferedSource source = Okio.buffer(new GzipSource(request.getBody()))) {
+                body = source.readUtf8();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        else
+            body = request.getBody().readUtf8();
+
+        for (String pair : body.split("&")) {
+            String[] keyValue = pair.split("=", 2);
+
+            if (keyValue.length == 2 && keyValue[0].equals(field))
+                try {
+                    return URLDecoder.decode(keyValue[1], "UTF-8");
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+        }
+
+        return "";
+    }
+
+    /**
+     * Crea la respuesta con las transacciones en el formato solicitado.
+     *
+     * @param entries Transacciones a enviar.
+     * @param binary  True para responder en formato binario.
+     * @param isList  True si la respuesta json es una lista.
+     * @return Respuesta del servidor.
+     */
+    private MockResponse respond(List<TxEntry> entries, boolean binary, boolean isList) {
+        if (binary) {
+            final Buffer buffer = new Buffer();
+
+            for (TxEntry entry : entries)
+                try {
+                    TxDataFormat.write(buffer.outputStream(), entry.mTx.bitcoinSerialize(),
+                            entry.mBlock == null ? null : entry.mBlock.toString(),
+                            entry.mHeight, entry.getTime(), entry.mIndex);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+
+            mBinaryResponses++;
+
+            return new MockResponse()
+                    .setHeader("Content-Type", TxDataFormat.CONTENT_TYPE)
+                    .setBody(buffer);
+        }
+
+        if (!isList)
+            return json(entries.get(0).toJson().toString());
+
+        final JsonArray array = new JsonArray();
+
+        for (TxEntry entry : entries)
+            array.add(entry.toJson());
+
+        return json(array.toString());
+    }
+
+    /**
+     * Crea una respuesta json.
+     *
+     * @param body Cuerpo de la respuesta.
+     * @return Respuesta del servidor.
+     */
+    private static MockResponse json(String body) {
+        return new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody(body);
+    }
+
+    /**
+     * Transacción registrada en el servidor local.
+     */
+    private static class TxEntry {
+
+        /**
+         * Transacción.
+         */
+        private final Transaction mTx;
+
+        /**
+         * Hash del bloque.
+         */
+        private final Sha256Hash mBlock;
+
+        /**
+         * Altura del bloque.
+         */
+        private final int mHeight;
+
+        /**
+         * Posición dentro del bloque.
+         */
+        private final int mIndex;
+
+        /**
+         * Crea una nueva entrada.
+         */
+        TxEntry(Transaction tx, Sha256Hash block, int height, int index) {
+            mTx = tx;
+            mBlock = block;
+            mHeight = height;
+            mIndex = index;
+        }
+
+        /**
+         * Obtiene la fecha y hora del bloque en segundos.
+         *
+         * @return Fecha y hora del bloque.
+         */
+        int getTime() {
+            return getBlockTime(mHeight);
+        }
+
+        /**
+         * Obtiene la representación json de la transacción.
+         *
+         * @return Objeto json.
+         */
+        JsonObject toJson() {
+            final JsonObject json = new JsonObject();
+
+            json.addProperty("txid", mTx.getTxId().toString());
+            json.addProperty("data", Hex.toHexString(mTx.bitcoinSerialize()));
+            json.addProperty("block", mBlock == null ? null : mBlock.toString());
+            json.addProperty("time", getTime());
+            json.addProperty("height", mHeight);
+            json.addProperty("index", mIndex);
+
+            return json;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
+
+import java.io.File;
+
+/**
+ * Contexto de pruebas que ubica los archivos y las preferencias de la billetera en un directorio
+ * propio, de esta forma las pruebas no reemplazan ni eliminan la billetera de la aplicación.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+class TestWalletContext extends ContextWrapper {
+
+    /**
+     * Prefijo de los nombres de las preferencias de la prueba.
+     */
+    private static final String PREFERENCES_PREFIX = "test.";
+
+    /**
+     * Información de la aplicación con el directorio de datos de la prueba.
+     */
+    private final ApplicationInfo mApplicationInfo;
+
+    /**
+     * Crea el contexto de pruebas.
+     *
+     * @param base    Contexto de la aplicación.
+     * @param dataDir Directorio de datos de la prueba.
+     */
+    TestWalletContext(Context base, File dataDir) {
+        super(base);
+
+        mApplicationInfo = new ApplicationInfo(base.getApplicationInfo());
+        mApplicationInfo.dataDir = dataDir.getAbsolutePath();
+    }
+
+    /**
+     * Obtiene el contexto de la aplicación, el cual es este mismo contexto.
+     *
+     * @return Contexto de pruebas.
+     */
+    @Override
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    /**
+     * Obtiene la información de la aplicación con el directorio de datos de la prueba.
+     *
+     * @return Información de la aplicación.
+     */
+    @Override
+    public ApplicationInfo getApplicationInfo() {
+        return mApplicationInfo;
+    }
+
+    /**
+     * Obtiene las preferencias de la prueba, separadas de las preferencias de la aplicación.
+     *
+     * @param name Nombre de las preferencias.
+     * @param mode Modo de acceso.
+     * @return Preferencias de la prueba.
+     */
+    @Override
+    public SharedPreferences getSharedPreferences(String name, int mode) {
+        return super.getSharedPreferences(PREFERENCES_PREFIX + name, mode);
+    }
+}
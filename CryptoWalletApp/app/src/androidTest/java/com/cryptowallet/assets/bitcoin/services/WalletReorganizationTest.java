@@ -0,0 +1,332 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services;
+
+import android.content.Context;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.cryptowallet.assets.bitcoin.wallet.BitcoinWallet;
+import com.cryptowallet.wallet.ITransaction;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.LegacyAddress;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutPoint;
+import org.bitcoinj.params.TestNet3Params;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.wallet.Wallet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Prueba la recuperación de la billetera ante reorganizaciones de la cadena contra un servidor
+ * local.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class WalletReorganizationTest {
+
+    /**
+     * Nombre del archivo de la billetera.
+     */
+    private static final String WALLET_FILENAME = "wallet.bitcoin";
+
+    /**
+     * Altura de la punta en la sincronización inicial.
+     */
+    private static final int INITIAL_HEIGHT = 100;
+
+    /**
+     * Altura de la punta después de recuperar los bloques nuevos.
+     */
+    private static final int TIP_HEIGHT = 105;
+
+    /**
+     * Altura del bloque que incluye el pago en la cadena original.
+     */
+    private static final int PAYMENT_HEIGHT = 103;
+
+    /**
+     * Tiempo máximo de espera de una sincronización en segundos.
+     */
+    private static final long SYNC_TIMEOUT = 30;
+
+    /**
+     * Parámetros de la red.
+     */
+    private final NetworkParameters mNetwork = TestNet3Params.get();
+
+    /**
+     * Directorio de datos de la prueba, separado del de la aplicación.
+     */
+    @Rule
+    public final TemporaryFolder mDataDir = new TemporaryFolder();
+
+    /**
+     * Servidor local.
+     */
+    private StandInBackend mBackend;
+
+    /**
+     * Proveedor de datos de la billetera.
+     */
+    private BitcoinProvider mProvider;
+
+    /**
+     * Billetera a probar.
+     */
+    private BitcoinWallet mWallet;
+
+    /**
+     * Pago recibido por la billetera.
+     */
+    private Transaction mPayment;
+
+    /**
+     * Configuración inicial, crea una billetera sincronizada en la altura inicial.
+     */
+    @Before
+    public void setUp() throws IOException, ExecutionException, InterruptedException,
+            TimeoutException {
+        final Context context = new TestWalletContext(
+                InstrumentationRegistry.getInstrumentation().getTargetContext(),
+                mDataDir.getRoot());
+        final Wallet wallet = Wallet.createDeterministic(mNetwork, Script.ScriptType.P2PKH);
+
+        wallet.saveToFile(new File(mDataDir.getRoot(), WALLET_FILENAME));
+
+        mBackend = new StandInBackend();
+        mBackend.start();
+        mBackend.setTipHeight(INITIAL_HEIGHT);
+
+        mWallet = new BitcoinWallet(context);
+        mProvider = new BitcoinProvider(mWallet, mBackend.getUrl());
+        BitcoinProvider.setInstance(mProvider);
+
+        mWallet.loadWallet();
+
+        assertTrue(mWallet.isInitialized());
+
+        sync();
+
+        assertEquals(INITIAL_HEIGHT, mWallet.getLastBlockSeenHeight());
+
+        mPayment = createPayment(wallet.currentReceiveAddress());
+    }
+
+    /**
+     * Elimina la billetera y detiene el servidor local.
+     */
+    @After
+    public void tearDown() throws IOException {
+        BitcoinProvider.setInstance(null);
+        mWallet.delete();
+        mBackend.stop();
+    }
+
+    /**
+     * Prueba que una reorganización dentro de la ventana revierta el pago al punto de separación
+     * y lo vuelva a confirmar en el bloque de la rama nueva.
+     */
+    @Test
+    public void recoverFromShallowReorganization() {
+        catchUpPayment();
+
+        final AtomicInteger balanceChanges = new AtomicInteger();
+        mWallet.addBalanceChangedListener(MoreExecutors.directExecutor(),
+                wallet -> balanceChanges.incrementAndGet());
+
+        mBackend.setForkHeight(PAYMENT_HEIGHT - 1);
+        mBackend.addTransaction(mPayment, mBackend.getBlockHash(TIP_HEIGHT - 1),
+                TIP_HEIGHT - 1, 0);
+
+        requestTip();
+
+        assertEquals(TIP_HEIGHT, mWallet.getLastBlockSeenHeight());
+        assertEquals(Coin.COIN.value, mWallet.getBalance());
+        assertEquals(2, findPayment().getConfirmations());
+        assertTrue(balanceChanges.get() > 0);
+    }
+
+    /**
+     * Prueba que al notificar el bloque siguiente sobre una punta reemplazada, la billetera revierta
+     * el bloque huérfano antes de agregar el nuevo, de esta forma el pago que solo se incluyó en el
+     * bloque huérfano vuelve a estar pendiente.
+     */
+    @Test
+    public void rollBackReplacedTip() {
+        mBackend.addTransaction(mPayment, mBackend.getBlockHash(TIP_HEIGHT), TIP_HEIGHT, 0);
+
+        requestTip();
+
+        assertEquals(1, findPayment().getConfirmations());
+
+        mBackend.setForkHeight(TIP_HEIGHT);
+        mBackend.addTransaction(mPayment, mBackend.getBlockHash(TIP_HEIGHT + 2),
+                TIP_HEIGHT + 2, 0);
+        mBackend.setTipHeight(TIP_HEIGHT + 1);
+
+        mWallet.requestNewBlock(TIP_HEIGHT + 1,
+                mBackend.getBlockHash(TIP_HEIGHT + 1).toString(),
+                StandInBackend.getBlockTime(TIP_HEIGHT + 1), new String[0]);
+
+        assertEquals(TIP_HEIGHT + 1, mWallet.getLastBlockSeenHeight());
+        assertEquals(0, findPayment().getConfirmations());
+    }
+
+    /**
+     * Prueba que una reorganización más profunda que la ventana revierta el pago y vuelva a
+     * escanear el historial completo hasta la punta de la rama nueva.
+     */
+    @Test
+    public void rescanAfterDeepReorganization() throws ExecutionException, InterruptedException,
+            TimeoutException {
+        catchUpPayment();
+
+        mBackend.setForkHeight(INITIAL_HEIGHT - 10);
+        mBackend.addTransaction(mPayment, mBackend.getBlockHash(TIP_HEIGHT - 1),
+                TIP_HEIGHT - 1, 0);
+
+        requestTip();
+        sync();
+
+        assertEquals(TIP_HEIGHT, mWallet.getLastBlockSeenHeight());
+        assertEquals(Coin.COIN.value, mWallet.getBalance());
+        assertEquals(2, findPayment().getConfirmations());
+
+        final int history = mBackend.getRequestCount("history");
+
+        requestTip();
+        sync();
+
+        assertEquals(history, mBackend.getRequestCount("history"));
+    }
+
+    /**
+     * Prueba que la sincronización continúe sin verificar la reorganización si el servidor no
+     * provee las cabeceras de los bloques.
+     */
+    @Test
+    public void syncWithoutBlockHeaders() throws ExecutionException, InterruptedException,
+            TimeoutException {
+        mBackend.setBlocksEnabled(false);
+        mBackend.addTransaction(mPayment, mBackend.getBlockHash(PAYMENT_HEIGHT), PAYMENT_HEIGHT,
+                0);
+        mBackend.setTipHeight(TIP_HEIGHT);
+        mProvider.invalidateChainTip();
+
+        sync();
+
+        assertEquals(TIP_HEIGHT, mWallet.getLastBlockSeenHeight());
+        assertEquals(Coin.COIN.value, mWallet.getBalance());
+        assertTrue(mBackend.getRequestCount("blocks") > 0);
+    }
+
+    /**
+     * Agrega el pago a la cadena original y notifica los bloques nuevos, la billetera los recupera
+     * con una sola consulta de rango.
+     */
+    private void catchUpPayment() {
+        mBackend.addTransaction(mPayment, mBackend.getBlockHash(PAYMENT_HEIGHT), PAYMENT_HEIGHT,
+                0);
+
+        requestTip();
+
+        assertEquals(TIP_HEIGHT, mWallet.getLastBlockSeenHeight());
+        assertEquals(Coin.COIN.value, mWallet.getBalance());
+        assertEquals(TIP_HEIGHT - PAYMENT_HEIGHT + 1, findPayment().getConfirmations());
+    }
+
+    /**
+     * Notifica a la billetera la punta de la cadena activa del servidor local.
+     */
+    private void requestTip() {
+        mBackend.setTipHeight(TIP_HEIGHT);
+        mWallet.requestNewBlock(TIP_HEIGHT, mBackend.getBlockHash(TIP_HEIGHT).toString(),
+                StandInBackend.getBlockTime(TIP_HEIGHT), new String[0]);
+    }
+
+    /**
+     * Sincroniza la billetera y espera a que finalice.
+     */
+    private void sync() throws ExecutionException, InterruptedException, TimeoutException {
+        mProvider.invalidateChainTip();
+        mWallet.getSynchronizer().start().get(SYNC_TIMEOUT, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Busca el pago en el historial de la billetera.
+     *
+     * @return Transacción del pago.
+     */
+    private ITransaction findPayment() {
+        final List<ITransaction> transactions = mWallet.getTransactions();
+
+        for (ITransaction tx : transactions)
+            if (tx.getID().equals(mPayment.getTxId().toString()))
+                return tx;
+
+        throw new AssertionError("Payment not found");
+    }
+
+    /**
+     * Crea un pago a la dirección especificada y registra en el servidor la transacción que
+     * financia sus entradas.
+     *
+     * @param address Dirección de la billetera.
+     * @return Transacción del pago.
+     */
+    private Transaction createPayment(Address address) {
+        final Transaction funding = new Transaction(mNetwork);
+        funding.addInput(new TransactionInput(mNetwork, funding, new byte[0],
+                new TransactionOutPoint(mNetwork, 0, Sha256Hash.ZERO_HASH)));
+        funding.addOutput(Coin.COIN.multiply(2), LegacyAddress.fromKey(mNetwork, new ECKey()));
+
+        mBackend.addTransaction(funding, mBackend.getBlockHash(10), 10, 0);
+
+        final Transaction payment = new Transaction(mNetwork);
+        payment.addInput(new TransactionInput(mNetwork, payment, new byte[0],
+                new TransactionOutPoint(mNetwork, 0, funding)));
+        payment.addOutput(Coin.COIN, address);
+
+        return payment;
+    }
+}
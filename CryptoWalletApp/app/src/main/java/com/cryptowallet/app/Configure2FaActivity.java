@@ -145,6 +145,7 @@ public class Configure2FaActivity extends LockableActivity {
     @Override
     protected void onLeaveApp() {
         mOnPause = true;
+        getWalletService().onLeaveApp();
     }
 
     /**
@@ -169,6 +169,7 @@ public abstract class LockableActivity extends AppCompatActivity {
      */
     protected void onLeaveApp() {
         createLockTimer();
+        getWalletService().onLeaveApp();
     }
 
     /**
@@ -50,6 +50,7 @@ import com.cryptowallet.utils.Utils;
 import com.cryptowallet.utils.inputfilters.DecimalsFilter;
 import com.cryptowallet.utils.textwatchers.IAfterTextChangedListener;
 import com.cryptowallet.wallet.AbstractWallet;
+import com.cryptowallet.wallet.FeeQuote;
 import com.cryptowallet.wallet.IFees;
 import com.cryptowallet.wallet.ITransaction;
 import com.cryptowallet.wallet.SupportedAssets;
@@ -105,10 +106,30 @@ public class SendPaymentsActivity extends LockableActivity {
      * Permiso de la cámara.
      */
     private static final String[] PERMISSION_CAMERA = {Manifest.permission.CAMERA};
+    /**
+     * Tiempo de espera en milisegundos desde la última modificación antes de cotizar la comisión.
+     */
+    private static final long QUOTE_DELAY = 250;
     /**
      *
      */
     private final ExecutorService mSendExecutor;
+    /**
+     * Ejecutor de las cotizaciones de la comisión.
+     */
+    private final ExecutorService mQuoteExecutor = Executors.newSingleThreadExecutor();
+    /**
+     * Solicitud de la cotización pendiente.
+     */
+    private final Runnable mQuoteRequest = this::requestQuote;
+    /**
+     * Número de la última cotización solicitada, las respuestas anteriores se descartan.
+     */
+    private int mQuoteSequence;
+    /**
+     * Indica si hay una cotización en curso.
+     */
+    private boolean mQuotePending;
     /**
      * Tipo de comisión seleccionada.
      */
@@ -293,6 +314,10 @@ public class SendPaymentsActivity extends LockableActivity {
 
         mWallet.removeBalanceChangedListener(mOnBalanceChangedConsumer);
         unregisterReceiver(mPriceReceiver);
+
+        mQuoteSequence++;
+        mHandler.removeCallbacks(mQuoteRequest);
+        mQuoteExecutor.shutdownNow();
     }
 
     /**
@@ -372,44 +397,106 @@ public class SendPaymentsActivity extends LockableActivity {
     }
 
     /**
-     * Verifica si el saldo es suficiente para realizar el envío.
+     * Verifica si el saldo es suficiente para realizar el envío. La verificación se pospone hasta
+     * que el formulario deja de modificarse durante {@link #QUOTE_DELAY} milisegundos.
      */
     private void checkEnoughtBalance() {
+        mQuotePending = true;
+        mHandler.removeCallbacks(mQuoteRequest);
+        mHandler.postDelayed(mQuoteRequest, QUOTE_DELAY);
+
+        canPay();
+    }
+
+    /**
+     * Solicita la cotización de la comisión con los valores actuales del formulario. La
+     * cotización se calcula fuera del hilo principal y solo se muestra la respuesta de la última
+     * solicitud. Cualquier error de la cotización deshabilita el pago hasta la siguiente solicitud.
+     */
+    private void requestQuote() {
         final SupportedAssets asset = getCurrency();
+        final boolean isFiat = mIsFiat;
         final long cryptoAmount = parseToCrypto(mSendAmountText.getText().toString());
         final String address = mSendAddressText.getText().toString();
+        final long feeByKB = getFee();
+        final long lastPrice = getWalletService().getLastPrice(mWallet.getCryptoAsset());
+        final int sequence = ++mQuoteSequence;
 
-        try {
-            long fee = 0;
-            long total = 0;
-
-            if (cryptoAmount > 0 && mWallet.isValidAddress(address)) {
-                mWallet.isValidAmount(cryptoAmount, true);
+        mQuoteExecutor.execute(() -> {
+            try {
+                final FeeQuote quote = quoteFee(address, cryptoAmount, feeByKB);
 
-                fee = calculateTotalFee(address, cryptoAmount, getFee());
-                total = cryptoAmount + fee;
+                mHandler.post(() -> {
+                    if (sequence == mQuoteSequence)
+                        showQuote(asset, isFiat, lastPrice, quote);
+                });
+            } catch (InvalidAmountException ex) {
+                mHandler.post(() -> {
+                    if (sequence == mQuoteSequence)
+                        showQuoteError(ex);
+                });
+            } catch (RuntimeException ex) {
+                mHandler.post(() -> {
+                    if (sequence == mQuoteSequence)
+                        setQuoteFailure();
+                });
             }
+        });
+    }
 
-            mSendAmountLayout.setError(null);
-            mSendFeeCustomLayout.setError(null);
-            mHasEnoughtBalanceError = false;
+    /**
+     * Muestra la comisión y el total a pagar de la cotización.
+     *
+     * @param asset     Divisa visualizada en el formulario.
+     * @param isFiat    Indica si la divisa es fiduciaria.
+     * @param lastPrice Último precio del criptoactivo.
+     * @param quote     Cotización del pago.
+     */
+    private void showQuote(SupportedAssets asset, boolean isFiat, long lastPrice, FeeQuote quote) {
+        final long fee = quote.getFee();
+        final long total = quote.getTotal();
 
-            final long lastPrice = getWalletService().getLastPrice(mWallet.getCryptoAsset());
+        mSendAmountLayout.setError(null);
+        mSendFeeCustomLayout.setError(null);
+        mHasEnoughtBalanceError = false;
+        mQuotePending = false;
 
-            mSendTotalFeeText.setText(asset.toStringFriendly(
-                    mIsFiat ? Math.round((double) fee / mWallet.getCryptoAsset().getUnit() * lastPrice)
-                            : fee, false));
+        mSendTotalFeeText.setText(asset.toStringFriendly(
+                isFiat ? Math.round((double) fee / mWallet.getCryptoAsset().getUnit() * lastPrice)
+                        : fee, false));
 
-            mSendTotalPayText.setText(asset.toStringFriendly(
-                    mIsFiat ? Math.round((double) total / mWallet.getCryptoAsset().getUnit() * lastPrice)
-                            : total, false));
+        mSendTotalPayText.setText(asset.toStringFriendly(
+                isFiat ? Math.round((double) total / mWallet.getCryptoAsset().getUnit() * lastPrice)
+                        : total, false));
 
-        } catch (InvalidFeeException ex) {
+        canPay();
+    }
+
+    /**
+     * Muestra el error de la cotización en el cuadro de texto correspondiente.
+     *
+     * @param ex Causa del error.
+     */
+    private void showQuoteError(InvalidAmountException ex) {
+        mQuotePending = false;
+
+        if (ex instanceof InvalidFeeException) {
             mSendFeeCustomLayout.setError(ex.getMessageRes(getResources()));
             mHasEnoughtBalanceError = true;
-        } catch (InvalidAmountException ex) {
+        } else
             setEnoughtBalanceError(ex.getMessageRes(getResources()));
-        }
+
+        canPay();
+    }
+
+    /**
+     * Muestra que la cotización no pudo calcularse, por ejemplo, si alguna salida es polvo o la
+     * billetera no está lista.
+     */
+    private void setQuoteFailure() {
+        mQuotePending = false;
+        mSendFeeCustomLayout.setError(null);
+        setEnoughtBalanceError(getString(R.string.fail_to_quote_error));
 
         canPay();
     }
@@ -429,7 +516,7 @@ public class SendPaymentsActivity extends LockableActivity {
      */
     private void canPay() {
         this.requireView(R.id.mSendPayButton)
-                .setEnabled(!mHasEnoughtBalanceError && !mHasValidAddressError);
+                .setEnabled(!mHasEnoughtBalanceError && !mHasValidAddressError && !mQuotePending);
     }
 
     /**
@@ -546,23 +633,23 @@ public class SendPaymentsActivity extends LockableActivity {
     }
 
     /**
-     * Calcula la comisión de la transacción según el tipo especificado y el peso en KB de los datos.
+     * Cotiza la comisión de la transacción según el tipo especificado y el peso en KB de los
+     * datos, sin construir la transacción.
      *
      * @param address Dirección destino del envío.
      * @param amount  Cantidad a enviar.
      * @param feeByKB Comisión por kilobyte.
-     * @return Comisión por realizar la transacción.
+     * @return Cotización del pago, con comisión y total en cero si el pago no está completo.
+     * @throws InvalidAmountException Si la cantidad no es válida o el saldo no es suficiente.
      */
-    private long calculateTotalFee(String address, long amount, long feeByKB) {
-        if (Strings.isNullOrEmpty(address) || amount == 0)
-            return 0;
-
-        ITransaction tx = mWallet.createTx(address, amount, feeByKB);
+    private FeeQuote quoteFee(String address, long amount, long feeByKB)
+            throws InvalidAmountException {
+        if (amount <= 0 || !mWallet.isValidAddress(address))
+            return new FeeQuote(0, 0, 0);
 
-        if (tx == null)
-            return 0;
+        mWallet.isValidAmount(amount, true);
 
-        return tx.getFee();
+        return mWallet.quoteFee(address, amount, feeByKB);
     }
 
     /**
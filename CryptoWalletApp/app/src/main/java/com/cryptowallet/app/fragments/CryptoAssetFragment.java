@@ -130,6 +130,11 @@ public class CryptoAssetFragment extends Fragment {
      */
     private Consumer<ITransaction> mOnNewTransactionListener;
 
+    /**
+     * Escucha de las transacciones que alcanzan un umbral de confirmaciones.
+     */
+    private Consumer<ITransaction> mOnConfirmationListener;
+
     /**
      * Receptor del evento cambio de precio.
      */
@@ -182,6 +187,7 @@ public class CryptoAssetFragment extends Fragment {
 
         mOnBalanceChangedListener = this::onBalanceChange;
         mOnNewTransactionListener = this::onNewTransaction;
+        mOnConfirmationListener = tx -> mAdapter.notifyDataSetChanged();
         mWallet = walletService.get(asset);
         mLastPrice = WalletProvider.getInstance().getLastPrice(asset);
         mRoot = (CardView) inflater.inflate(R.layout.layout_cryptoasset, container,
@@ -202,6 +208,7 @@ public class CryptoAssetFragment extends Fragment {
 
         mWallet.addBalanceChangedListener(mHandler::post, mOnBalanceChangedListener);
         mWallet.addNewTransactionListener(mHandler::post, mOnNewTransactionListener);
+        mWallet.addConfirmationListener(mHandler::post, mOnConfirmationListener);
 
         mLastBalance = mWallet.getBalance();
         mAdapter = new LatestTransactionsAdapter(requireActivity());
@@ -317,6 +324,7 @@ public class CryptoAssetFragment extends Fragment {
 
         mWallet.removeBalanceChangedListener(mOnBalanceChangedListener);
         mWallet.removeNewTransactionListener(mOnNewTransactionListener);
+        mWallet.removeConfirmationListener(mOnConfirmationListener);
 
         requireContext().unregisterReceiver(mOnPriceChangedReceiver);
     }
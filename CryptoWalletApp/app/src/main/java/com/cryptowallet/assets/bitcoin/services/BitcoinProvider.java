@@ -20,28 +20,56 @@ package com.cryptowallet.assets.bitcoin.services;
 
 import android.util.Log;
 
+import androidx.annotation.VisibleForTesting;
+
 import com.cryptowallet.assets.bitcoin.services.retrofit.BitcoinApi;
+import com.cryptowallet.assets.bitcoin.services.retrofit.BlockRangeResponse;
 import com.cryptowallet.assets.bitcoin.services.retrofit.ChainInfoResponse;
+import com.cryptowallet.assets.bitcoin.services.retrofit.FeeRatesResponse;
 import com.cryptowallet.assets.bitcoin.services.retrofit.SuccessfulResponse;
+import com.cryptowallet.assets.bitcoin.services.retrofit.TxDataConverterFactory;
+import com.cryptowallet.assets.bitcoin.services.retrofit.TxDataFormatInterceptor;
 import com.cryptowallet.assets.bitcoin.services.retrofit.TxDataResponse;
+import com.cryptowallet.assets.bitcoin.services.retrofit.TxDataStreamReader;
 import com.cryptowallet.assets.bitcoin.wallet.BitcoinTransaction;
 import com.cryptowallet.assets.bitcoin.wallet.BitcoinWallet;
+import com.cryptowallet.services.network.CircuitOpenException;
+import com.cryptowallet.services.network.Clock;
+import com.cryptowallet.services.network.NetworkClient;
+import com.cryptowallet.services.network.RequestEngine;
+import com.cryptowallet.services.network.Retrier;
+import com.cryptowallet.services.network.RetryPolicy;
+import com.cryptowallet.services.network.SingleFlightCache;
+import com.cryptowallet.utils.Consumer;
 import com.cryptowallet.utils.Utils;
 import com.cryptowallet.wallet.ChainTipInfo;
-import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.TransactionInput;
 
 import org.bouncycastle.util.encoders.Hex;
 
-import java.net.ConnectException;
+import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.HttpException;
 import retrofit2.Response;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
@@ -56,50 +84,230 @@ import retrofit2.converter.gson.GsonConverterFactory;
 public class BitcoinProvider {
 
     /**
-     * Reintentos máximos para completar una petición.
+     * Etiqueta de log.
      */
-    private static final int MAX_ATTEMPS = 3;
+    private static final String LOG_TAG = "Bitcoin Provider";
 
     /**
-     * Etiqueta de log.
+     * Peticiones máximas en curso hacia la api.
      */
-    private static final String LOG_TAG = "Bitcoin Provider";
+    private static final int MAX_REQUESTS = 8;
+
+    /**
+     * Peticiones máximas en curso por endpoint de historial y dependencias.
+     */
+    private static final int MAX_HISTORY_REQUESTS = 4;
+
+    /**
+     * Peticiones máximas en curso por endpoint de transacciones.
+     */
+    private static final int MAX_TX_REQUESTS = 6;
+
+    /**
+     * Endpoint de historial de transacciones.
+     */
+    private static final String HISTORY_ENDPOINT = "history";
+
+    /**
+     * Transacciones solicitadas por petición de forma predeterminada.
+     */
+    private static final int TXS_PER_REQUEST = 100;
+
+    /**
+     * Tiempo de vida predeterminado de la información de la punta en milisegundos.
+     */
+    private static final long CHAIN_TIP_TTL = 10000;
+
+    /**
+     * Tiempo de vida predeterminado de las tasas de comisión en milisegundos.
+     */
+    private static final long FEE_RATES_TTL = 60000;
+
+    /**
+     * Bloques recientes de los que se solicitan las tasas de comisión.
+     */
+    private static final int FEE_RATES_BLOCKS = 6;
+
+    /**
+     * Confirmaciones mínimas para almacenar una transacción en el caché.
+     */
+    private static final int MIN_CACHE_CONFIRMATIONS = 6;
+
+    /**
+     * Transacciones máximas en el nivel en memoria del caché.
+     */
+    private static final int CACHE_MEMORY_ENTRIES = 1024;
+
+    /**
+     * Bytes máximos del nivel en disco del caché.
+     */
+    private static final long CACHE_DISK_BYTES = 32L * 1024 * 1024;
+
+    /**
+     * Endpoint de transacciones.
+     */
+    private static final String TX_ENDPOINT = "tx";
+
+    /**
+     * Endpoint de transacciones por lote.
+     */
+    private static final String TXS_ENDPOINT = "txs";
+
+    /**
+     * Endpoint de dependencias de transacciones.
+     */
+    private static final String TXDEPS_ENDPOINT = "txdeps";
+
+    /**
+     * Endpoint de información de la blockchain.
+     */
+    private static final String CHAININFO_ENDPOINT = "chaininfo";
+
+    /**
+     * Endpoint de propagación de transacciones.
+     */
+    private static final String BROADCAST_ENDPOINT = "broadcast";
+
+    /**
+     * Endpoint de subscripción de notificaciones.
+     */
+    private static final String SUBSCRIBE_ENDPOINT = "subscribe";
+
+    /**
+     * Endpoint de rangos de bloques.
+     */
+    private static final String BLOCKS_ENDPOINT = "blocks";
+
+    /**
+     * Nombre del endpoint de tasas de comisión.
+     */
+    private static final String FEES_ENDPOINT = "fees";
 
     /**
      * URL de la api.
      */
     private static final String WEBSERVICE_URL = "https://api.criptoactivo.innsytech.com/v1/";
 
+    /**
+     * Resultado del endpoint de lotes cuando el servidor no lo provee.
+     */
+    private static final Map<String, BitcoinTransaction> BATCH_UNSUPPORTED
+            = Collections.unmodifiableMap(new HashMap<>());
+
     /**
      * Instancia del singleton.
      */
     private static BitcoinProvider mInstance;
 
+    /**
+     * Llamada asociada a la petición que se ejecuta en el hilo actual.
+     */
+    private static final ThreadLocal<ActiveCall> mActiveCall = new ThreadLocal<>();
+
     /**
      * Instancia de los servicios de la api.
      */
     private final BitcoinApi mApi;
 
     /**
-     * Ejecutor de los servicios.
+     * Motor de peticiones de los servicios.
      */
-    private final ExecutorService mExecutor;
+    private final RequestEngine mEngine;
 
     /**
      * Parametros de la red.
      */
     private final BitcoinWallet mWallet;
 
+    /**
+     * Transacciones solicitadas por petición.
+     */
+    private int mTxsPerRequest;
+
+    /**
+     * Indica si el servidor respondió que no provee el endpoint de transacciones por lote.
+     */
+    private volatile boolean mBatchUnsupported;
+
+    /**
+     * Interceptor que solicita el formato binario de las transacciones.
+     */
+    private final TxDataFormatInterceptor mFormatInterceptor;
+
+    /**
+     * Ejecutor de reintentos con un circuito por endpoint.
+     */
+    private final Retrier mRetrier;
+
+    /**
+     * Caché de la información de la punta de la blockchain.
+     */
+    private final SingleFlightCache<ChainTipInfo> mChainTipCache;
+
+    /**
+     * Caché de las tasas de comisión.
+     */
+    private final SingleFlightCache<FeeRates> mFeeRatesCache;
+
+    /**
+     * Caché de transacciones confirmadas.
+     */
+    private final TxCache mTxCache;
+
     /**
      * Crea una nueva instancia del proveedor de datos.
      *
      * @param wallet Parametros de red.
      */
     private BitcoinProvider(BitcoinWallet wallet) {
+        this(wallet, WEBSERVICE_URL);
+    }
+
+    /**
+     * Crea una nueva instancia del proveedor de datos especificando la url de la api.
+     *
+     * @param wallet Parametros de red.
+     * @param url    Url de la api.
+     */
+    @VisibleForTesting
+    BitcoinProvider(BitcoinWallet wallet, String url) {
+        this(wallet, url, Clock.SYSTEM);
+    }
+
+    /**
+     * Crea una nueva instancia del proveedor de datos especificando la url de la api y el reloj
+     * utilizado por los reintentos.
+     *
+     * @param wallet Parametros de red.
+     * @param url    Url de la api.
+     * @param clock  Reloj utilizado por los reintentos.
+     */
+    @VisibleForTesting
+    BitcoinProvider(BitcoinWallet wallet, String url, Clock clock) {
         mWallet = wallet;
-        mExecutor = Executors.newSingleThreadExecutor();
+        mRetrier = new Retrier(new RetryPolicy.Builder().build(), clock);
+        mChainTipCache = new SingleFlightCache<>(clock, CHAIN_TIP_TTL);
+        mFeeRatesCache = new SingleFlightCache<>(clock, FEE_RATES_TTL);
+        mTxCache = new TxCache(wallet.getTxCacheDirectory(), CACHE_MEMORY_ENTRIES,
+                CACHE_DISK_BYTES);
+        mTxsPerRequest = TXS_PER_REQUEST;
+        mEngine = new RequestEngine(LOG_TAG, MAX_REQUESTS);
+        mEngine.setMaxRequestsPerEndpoint(HISTORY_ENDPOINT, MAX_HISTORY_REQUESTS);
+        mEngine.setMaxRequestsPerEndpoint(TXDEPS_ENDPOINT, MAX_HISTORY_REQUESTS);
+        mEngine.setMaxRequestsPerEndpoint(TX_ENDPOINT, MAX_TX_REQUESTS);
+        mEngine.setMaxRequestsPerEndpoint(TXS_ENDPOINT, MAX_HISTORY_REQUESTS);
+        mEngine.setMaxRequestsPerEndpoint(CHAININFO_ENDPOINT, 1);
+        mEngine.setMaxRequestsPerEndpoint(BROADCAST_ENDPOINT, 1);
+        mEngine.setMaxRequestsPerEndpoint(SUBSCRIBE_ENDPOINT, 1);
+        mEngine.setMaxRequestsPerEndpoint(BLOCKS_ENDPOINT, 1);
+        mEngine.setMaxRequestsPerEndpoint(FEES_ENDPOINT, 1);
+        mFormatInterceptor = new TxDataFormatInterceptor();
         mApi = new Retrofit.Builder()
-                .baseUrl(WEBSERVICE_URL)
+                .baseUrl(url)
+                .client(NetworkClient.get().newBuilder()
+                        .addInterceptor(mFormatInterceptor)
+                        .build())
+                .addConverterFactory(TxDataConverterFactory.create())
                 .addConverterFactory(GsonConverterFactory.create())
                 .build()
                 .create(BitcoinApi.class);
@@ -119,250 +327,849 @@ public class BitcoinProvider {
     }
 
     /**
-     * Intenta completar la acción o lo reintenta en {@link #MAX_ATTEMPS} ocasiones.
+     * Establece la instancia del singleton, permite dirigir las peticiones de la billetera a un
+     * servidor local.
      *
-     * @param request Acción a realizar.
-     * @param <T>     Tipo del valor a retornar.
-     * @return Resultado de la acción realiazda o un valor nulo si la operación falló más de
-     * {@link #MAX_ATTEMPS} intentos.
+     * @param provider Proveedor de datos.
      */
-    private <T> T tryDo(Callable<T> request) {
+    @VisibleForTesting
+    static void setInstance(BitcoinProvider provider) {
+        mInstance = provider;
+    }
+
+    /**
+     * Obtiene el motor de peticiones utilizado por el proveedor. Permite ajustar el paralelismo
+     * de las peticiones.
+     *
+     * @return Motor de peticiones.
+     */
+    public RequestEngine getRequestEngine() {
+        return mEngine;
+    }
+
+    /**
+     * Establece la cantidad de transacciones solicitadas por petición en
+     * {@link #getTransactions(Collection)}.
+     *
+     * @param txsPerRequest Transacciones por petición.
+     */
+    public void setTransactionsPerRequest(int txsPerRequest) {
+        if (txsPerRequest < 1)
+            throw new IllegalArgumentException("Requires at least one transaction per request");
+
+        mTxsPerRequest = txsPerRequest;
+    }
+
+    /**
+     * Establece si las transacciones se solicitan en el formato binario. Si el servidor no anuncia
+     * el formato en la respuesta, esta se decodifica como JSON.
+     *
+     * @param enabled True para solicitar el formato binario.
+     * @see com.cryptowallet.assets.bitcoin.services.retrofit.TxDataFormat
+     */
+    public void setBinaryFormatEnabled(boolean enabled) {
+        mFormatInterceptor.setEnabled(enabled);
+    }
+
+    /**
+     * Obtiene el caché de transacciones confirmadas.
+     *
+     * @return Caché de transacciones.
+     */
+    public TxCache getTxCache() {
+        return mTxCache;
+    }
+
+    /**
+     * Obtiene el ejecutor de reintentos del proveedor.
+     *
+     * @return Ejecutor de reintentos.
+     */
+    public Retrier getRetrier() {
+        return mRetrier;
+    }
+
+    /**
+     * Intenta completar la acción aplicando la política de reintentos y el circuito del endpoint.
+     * Las respuestas HTTP no exitosas deben notificarse con {@link HttpException} para ser
+     * clasificadas.
+     *
+     * @param endpoint Nombre del endpoint.
+     * @param request  Acción a realizar.
+     * @param <T>      Tipo del valor a retornar.
+     * @return Resultado de la acción realiazda o un valor nulo si la operación falló.
+     * @see RetryPolicy
+     */
+    private <T> T tryDo(String endpoint, Callable<T> request) {
         mWallet.propagateBitcoinJ();
 
-        int maxAttemps = MAX_ATTEMPS;
+        try {
+            return mRetrier.call(endpoint, request);
+        } catch (CircuitOpenException e) {
+            Log.w(LOG_TAG, "" + e.getMessage());
+        } catch (CancellationException e) {
+            Log.d(LOG_TAG, "Request was cancelled: " + endpoint);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            Log.e(LOG_TAG, "Unable to complete the request: " + e.getMessage());
+        } finally {
+            Thread.currentThread().setName("Bitcoin Provider");
+        }
+
+        return null;
+    }
+
+    /**
+     * Encola la petición en el motor aplicando la política de reintentos. Si la tarea devuelta es
+     * cancelada, la llamada HTTP en curso se cancela y no se realizan más intentos.
+     *
+     * @param endpoint Nombre del endpoint.
+     * @param name     Nombre de la operación utilizado por el hilo de la petición.
+     * @param request  Acción a realizar.
+     * @param <T>      Tipo del valor a retornar.
+     * @return Una tarea encargada de gestionar la petición.
+     */
+    private <T> ListenableFuture<T> submit(String endpoint, String name, Callable<T> request) {
+        final ActiveCall active = new ActiveCall();
+        final ListenableFuture<T> task = mEngine.submit(endpoint, () -> {
+            Thread.currentThread().setName("Bitcoin Provider " + name);
+            mActiveCall.set(active);
 
-        for (int attemp = 0; attemp < MAX_ATTEMPS; attemp++) {
             try {
-                T response = request.call();
-
-                if (response != null)
-                    return response;
-            } catch (ConnectException e) {
-                Log.e(LOG_TAG, "" + e.getMessage());
-                Utils.tryNotThrow(() -> Thread.sleep(5000));
-            } catch (Exception e) {
-                Log.e(LOG_TAG, "Unable to complete the request: " + e.getMessage());
-                Utils.tryNotThrow(() -> Thread.sleep(10000));
-                maxAttemps = maxAttemps > MAX_ATTEMPS ? maxAttemps : 10;
+                return tryDo(endpoint, request);
             } finally {
-                Thread.currentThread().setName("Bitcoin Provider");
+                mActiveCall.remove();
             }
-        }
+        });
 
-        return null;
+        task.addListener(() -> {
+            if (task.isCancelled())
+                active.cancel();
+        }, MoreExecutors.directExecutor());
+
+        return task;
+    }
+
+    /**
+     * Ejecuta la llamada asociándola a la petición en curso, de esta forma puede ser interrumpida
+     * al cancelar la tarea.
+     *
+     * @param call Llamada a ejecutar.
+     * @param <T>  Tipo del cuerpo de la respuesta.
+     * @return La respuesta de la llamada.
+     * @throws IOException           Si ocurre un error de comunicación.
+     * @throws CancellationException Si la tarea fue cancelada.
+     */
+    private <T> Response<T> execute(Call<T> call) throws IOException {
+        final ActiveCall active = mActiveCall.get();
+
+        if (active != null)
+            active.attach(call);
+
+        try {
+            return call.execute();
+        } catch (IOException e) {
+            if (call.isCanceled())
+                throw new CancellationException("Request was cancelled");
+
+            throw e;
+        }
     }
 
     /**
-     * Obtiene el historial de una dirección de forma asíncrona a través de un
-     * {@link ListenableFutureTask}.
+     * Obtiene el historial de una dirección.
      *
      * @param address Dirección en bytes.
-     * @return Una tarea encargada de gestionar la petición.
+     * @param height  Altura utilizada como punto de partida de la búsqueda.
+     * @return Lista de transacciones o null si la petición falló.
      */
     @SuppressWarnings({"SameParameterValue", "WeakerAccess"})
     public List<BitcoinTransaction> getHistoryByAddress(byte[] address, int height)
             throws ExecutionException, InterruptedException {
+        return getHistoryByAddressAsync(address, height).get();
+    }
+
+    /**
+     * Obtiene el historial de una dirección de forma asíncrona a través del motor de peticiones.
+     *
+     * @param address Dirección en bytes.
+     * @param height  Altura utilizada como punto de partida de la búsqueda.
+     * @return Una tarea encargada de gestionar la petición.
+     */
+    public ListenableFuture<List<BitcoinTransaction>> getHistoryByAddressAsync(byte[] address,
+                                                                               int height) {
         final String addressHex = Hex.toHexString(address);
-        final List<BitcoinTransaction> history = new ArrayList<>();
-        ListenableFutureTask<List<BitcoinTransaction>> task = ListenableFutureTask.create(() -> {
-            Thread.currentThread().setName("Bitcoin Provider getHistoryByAddress");
 
-            return tryDo(() -> {
-                history.clear();
-                Log.d(LOG_TAG, "Request history by address: " + addressHex);
-                String networkName = mWallet.getNetwork().getPaymentProtocolId() + "net";
-                Response<List<TxDataResponse>> response = mApi.getTxHistory(networkName, addressHex, height)
-                        .execute();
+        return submit(HISTORY_ENDPOINT, "getHistoryByAddress", () -> {
+            final List<BitcoinTransaction> history = new ArrayList<>();
+            Log.d(LOG_TAG, "Request history by address: " + addressHex);
+            String networkName = mWallet.getNetwork().getPaymentProtocolId() + "net";
+            Response<List<TxDataResponse>> response
+                    = execute(mApi.getTxHistory(networkName, addressHex, height));
 
-                if (!response.isSuccessful() || response.body() == null)
-                    return history;
+            if (!response.isSuccessful())
+                throw new HttpException(response);
 
-                List<TxDataResponse> historyData = response.body();
+            if (response.body() == null)
+                return history;
 
-                for (TxDataResponse data : historyData)
-                    history.add(BitcoinTransaction.fromTxData(data, mWallet));
+            List<TxDataResponse> historyData = response.body();
 
-                return history;
-            });
-        });
+            for (TxDataResponse data : historyData)
+                history.add(BitcoinTransaction.fromTxData(data, mWallet));
 
-        mExecutor.execute(task);
+            return history;
+        });
+    }
 
-        return task.get();
+    /**
+     * Obtiene la transacción especificando su identificador único.
+     *
+     * @param txid Identificador de la transacción en bytes.
+     * @return La transacción solicitada o null si la petición falló.
+     */
+    public BitcoinTransaction getTransactionByTxID(byte[] txid) throws ExecutionException, InterruptedException {
+        return getTransactionByTxIDAsync(txid).get();
     }
 
     /**
-     * Obtiene la transacción de forma asíncrona especificando su identificador único.
+     * Obtiene la transacción de forma asíncrona especificando su identificador único. La petición
+     * se realiza en paralelo a las demás peticiones en curso.
      *
      * @param txid Identificador de la transacción en bytes.
      * @return Una tarea encargada de gestionar la petición.
      */
-    public BitcoinTransaction getTransactionByTxID(byte[] txid) throws ExecutionException, InterruptedException {
+    public ListenableFuture<BitcoinTransaction> getTransactionByTxIDAsync(byte[] txid) {
+        final BitcoinTransaction cached = getFromCache(txid);
+
+        if (cached != null)
+            return Futures.immediateFuture(cached);
+
         String txidHex = Hex.toHexString(txid);
 
-        ListenableFutureTask<BitcoinTransaction> task = ListenableFutureTask.create(() -> {
-            Thread.currentThread().setName("Bitcoin Provider getTransactionByTxID");
-            return tryDo(() -> {
-                Log.d(LOG_TAG, "Request transaction: " + txidHex);
+        return submit(TX_ENDPOINT, "getTransactionByTxID", () -> {
+            Log.d(LOG_TAG, "Request transaction: " + txidHex);
+
+            String networkName = mWallet.getNetwork().getPaymentProtocolId() + "net";
+            Response<TxDataResponse> response = execute(mApi.getTx(networkName, txidHex));
+
+            if (!response.isSuccessful())
+                throw new HttpException(response);
+
+            if (response.body() == null)
+                return null;
+
+            return decode(response.body());
+        });
+    }
+
+    /**
+     * Obtiene las transacciones especificadas por sus identificadores.
+     *
+     * @param txids Identificadores de las transacciones en bytes.
+     * @return Un mapa de las transacciones indexadas por su identificador o null si alguna
+     * petición falló.
+     * @see #getTransactionsAsync(Collection)
+     */
+    public Map<String, BitcoinTransaction> getTransactions(Collection<byte[]> txids)
+            throws ExecutionException, InterruptedException {
+        return getTransactionsAsync(txids).get();
+    }
+
+    /**
+     * Obtiene las transacciones especificadas por sus identificadores de forma asíncrona. Los
+     * identificadores son divididos en bloques de {@link #setTransactionsPerRequest(int)} y cada
+     * bloque es solicitado en una sola petición, en paralelo a las demás. Si el servidor no provee
+     * el endpoint de lotes, se recuerda y las transacciones se solicitan una a una en paralelo.
+     * Cancelar la tarea cancela todas las peticiones en curso.
+     *
+     * @param txids Identificadores de las transacciones en bytes.
+     * @return Una tarea que devuelve un mapa de las transacciones indexadas por su identificador o
+     * null si alguna petición falló.
+     */
+    public ListenableFuture<Map<String, BitcoinTransaction>> getTransactionsAsync(
+            Collection<byte[]> txids) {
+        final List<ListenableFuture<Map<String, BitcoinTransaction>>> requests = new ArrayList<>();
+        final Map<String, BitcoinTransaction> transactions = new HashMap<>();
+        final List<byte[]> missing = new ArrayList<>();
+
+        for (byte[] txid : txids) {
+            final BitcoinTransaction cached = getFromCache(txid);
+
+            if (cached == null)
+                missing.add(txid);
+            else
+                transactions.put(cached.getID(), cached);
+        }
 
-                String networkName = mWallet.getNetwork().getPaymentProtocolId() + "net";
-                Response<TxDataResponse> response = mApi.getTx(networkName, txidHex).execute();
+        if (mBatchUnsupported)
+            requests.add(downloadTransactions(missing));
+        else
+            for (List<byte[]> chunk : Iterables.partition(missing, mTxsPerRequest))
+                requests.add(requestTransactions(chunk));
 
-                if (!response.isSuccessful() || response.body() == null)
+        return Futures.transform(Futures.allAsList(requests), chunks -> {
+            for (Map<String, BitcoinTransaction> chunk : chunks) {
+                if (chunk == null)
                     return null;
 
-                return BitcoinTransaction.fromTxData(response.body(), mWallet);
+                transactions.putAll(chunk);
+            }
+
+            return transactions;
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Solicita un bloque de transacciones en una sola petición. Si el servidor no provee el
+     * endpoint de lotes, se solicitan una a una.
+     *
+     * @param txids Identificadores de las transacciones en bytes.
+     * @return Una tarea encargada de gestionar la petición.
+     */
+    private ListenableFuture<Map<String, BitcoinTransaction>> requestTransactions(
+            List<byte[]> txids) {
+        return Futures.transformAsync(requestBatch(txids), transactions ->
+                        transactions == BATCH_UNSUPPORTED
+                                ? downloadTransactions(txids)
+                                : Futures.immediateFuture(transactions),
+                MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Solicita un bloque de transacciones al endpoint de lotes.
+     *
+     * @param txids Identificadores de las transacciones en bytes.
+     * @return Una tarea que devuelve las transacciones, {@link #BATCH_UNSUPPORTED} si el servidor
+     * no provee el endpoint o null si la petición falló.
+     */
+    private ListenableFuture<Map<String, BitcoinTransaction>> requestBatch(List<byte[]> txids) {
+        if (mBatchUnsupported)
+            return Futures.immediateFuture(BATCH_UNSUPPORTED);
+
+        final byte[] buffer = new byte[txids.size() * Sha256Hash.LENGTH];
+
+        for (int i = 0; i < txids.size(); i++)
+            System.arraycopy(txids.get(i), 0, buffer, i * Sha256Hash.LENGTH, Sha256Hash.LENGTH);
+
+        final String txidsHex = Hex.toHexString(buffer);
+
+        return submit(TXS_ENDPOINT, "getTransactions", () -> {
+            final Map<String, BitcoinTransaction> transactions = new HashMap<>();
+            Log.d(LOG_TAG, "Request transactions: " + txids.size());
+
+            String networkName = mWallet.getNetwork().getPaymentProtocolId() + "net";
+            Response<ResponseBody> response = execute(mApi.getTxs(networkName, txidsHex));
+
+            if (response.code() == HttpURLConnection.HTTP_NOT_FOUND) {
+                Log.w(LOG_TAG, "Batch endpoint is not available, requesting one by one");
+                mBatchUnsupported = true;
+
+                return BATCH_UNSUPPORTED;
+            }
+
+            if (!response.isSuccessful())
+                throw new HttpException(response);
+
+            if (response.body() == null)
+                return null;
+
+            TxDataStreamReader.read(response.body(), (data, block, height, time, index) -> {
+                BitcoinTransaction transaction = decode(data, block, height, time, index);
+                transactions.put(transaction.getID(), transaction);
             });
+
+            return transactions;
         });
+    }
 
-        mExecutor.execute(task);
+    /**
+     * Descarga las transacciones una a una. Cada transacción es una petición independiente del
+     * endpoint de transacciones, de esta forma se aplica su límite de peticiones concurrentes y
+     * solo se reintenta la transacción que falló.
+     *
+     * @param txids Identificadores de las transacciones en bytes.
+     * @return Una tarea que devuelve el mapa de transacciones o null si alguna de ellas no pudo
+     * ser descargada.
+     */
+    private ListenableFuture<Map<String, BitcoinTransaction>> downloadTransactions(
+            List<byte[]> txids) {
+        final List<ListenableFuture<BitcoinTransaction>> requests = new ArrayList<>();
 
-        return task.get();
+        for (byte[] txid : txids)
+            requests.add(getTransactionByTxIDAsync(txid));
+
+        return Futures.transform(Futures.allAsList(requests), downloaded -> {
+            final Map<String, BitcoinTransaction> transactions = new HashMap<>();
+
+            for (BitcoinTransaction transaction : downloaded) {
+                if (transaction == null)
+                    return null;
+
+                transactions.put(transaction.getID(), transaction);
+            }
+
+            return transactions;
+        }, MoreExecutors.directExecutor());
     }
 
     /**
      * Obtiene la información de la punta de la blockchain.
      *
-     * @return Una tarea encargada de gestionar la petición.
+     * @return La información de la punta o null si la petición falló.
      */
     public ChainTipInfo getChainTipInfo() throws ExecutionException, InterruptedException {
-        ListenableFutureTask<ChainTipInfo> task = ListenableFutureTask.create(() -> {
-            Thread.currentThread().setName("Bitcoin Provider getChainTipInfo");
-            return tryDo(() -> {
-                Log.d(LOG_TAG, "Request chaininfo");
+        return getChainTipInfoAsync().get();
+    }
 
-                String networkName = mWallet.getNetwork().getPaymentProtocolId() + "net";
-                Response<ChainInfoResponse> response = mApi.getChainInfo(networkName).execute();
+    /**
+     * Obtiene la información de la punta de la blockchain de forma asíncrona. Las consultas
+     * concurrentes comparten la misma petición y el resultado se sirve desde memoria durante el
+     * tiempo establecido en {@link #setChainTipTtl(long)}.
+     *
+     * @return Una tarea encargada de gestionar la petición.
+     */
+    public ListenableFuture<ChainTipInfo> getChainTipInfoAsync() {
+        try {
+            return mChainTipCache.get(this::requestChainTipInfo);
+        } catch (Exception e) {
+            return Futures.immediateFailedFuture(e);
+        }
+    }
 
-                if (!response.isSuccessful() || response.body() == null)
-                    return null;
+    /**
+     * Establece el tiempo que la información de la punta se sirve desde memoria.
+     *
+     * @param ttl Tiempo de vida en milisegundos.
+     */
+    public void setChainTipTtl(long ttl) {
+        mChainTipCache.setTtl(ttl);
+    }
 
-                ChainInfoResponse info = response.body();
+    /**
+     * Descarta la información de la punta almacenada en memoria. Debe invocarse al recibir la
+     * notificación de un nuevo bloque.
+     */
+    public void invalidateChainTip() {
+        mChainTipCache.invalidate();
+    }
 
-                return new ChainTipInfo.Builder()
-                        .setHash(info.getHash())
-                        .setHeight(info.getHeight())
-                        .setTxn(info.getTxn())
-                        .setTime(info.getTime())
-                        .setNetwork(info.getNetwork())
-                        .setStatus(info.getStatus())
-                        .build();
-            });
+    /**
+     * Solicita la información de la punta de la blockchain al servidor.
+     *
+     * @return Una tarea encargada de gestionar la petición.
+     */
+    private ListenableFuture<ChainTipInfo> requestChainTipInfo() {
+        return submit(CHAININFO_ENDPOINT, "getChainTipInfo", () -> {
+            Log.d(LOG_TAG, "Request chaininfo");
+
+            String networkName = mWallet.getNetwork().getPaymentProtocolId() + "net";
+            Response<ChainInfoResponse> response = execute(mApi.getChainInfo(networkName));
+
+            if (!response.isSuccessful())
+                throw new HttpException(response);
+
+            if (response.body() == null)
+                return null;
+
+            ChainInfoResponse info = response.body();
+
+            return new ChainTipInfo.Builder()
+                    .setHash(info.getHash())
+                    .setHeight(info.getHeight())
+                    .setTxn(info.getTxn())
+                    .setTime(info.getTime())
+                    .setNetwork(info.getNetwork())
+                    .setStatus(info.getStatus())
+                    .build();
         });
+    }
+
+    /**
+     * Obtiene las tasas de comisión de los bloques recientes de forma asíncrona. Las consultas
+     * concurrentes comparten la misma petición y el resultado se sirve desde memoria durante el
+     * tiempo establecido en {@link #setFeeRatesTtl(long)}.
+     *
+     * @return Una tarea encargada de gestionar la petición.
+     */
+    public ListenableFuture<FeeRates> getFeeRatesAsync() {
+        try {
+            return mFeeRatesCache.get(this::requestFeeRates);
+        } catch (Exception e) {
+            return Futures.immediateFailedFuture(e);
+        }
+    }
 
-        mExecutor.execute(task);
+    /**
+     * Establece el tiempo que las tasas de comisión se sirven desde memoria.
+     *
+     * @param ttl Tiempo de vida en milisegundos.
+     */
+    public void setFeeRatesTtl(long ttl) {
+        mFeeRatesCache.setTtl(ttl);
+    }
 
-        return task.get();
+    /**
+     * Descarta las tasas de comisión almacenadas en memoria. Debe invocarse al recibir la
+     * notificación de un nuevo bloque.
+     */
+    public void invalidateFeeRates() {
+        mFeeRatesCache.invalidate();
+    }
+
+    /**
+     * Solicita las tasas de comisión de los bloques recientes al servidor.
+     *
+     * @return Una tarea encargada de gestionar la petición.
+     */
+    private ListenableFuture<FeeRates> requestFeeRates() {
+        return submit(FEES_ENDPOINT, "getFeeRates", () -> {
+            Log.d(LOG_TAG, "Request fees");
+
+            String networkName = mWallet.getNetwork().getPaymentProtocolId() + "net";
+            Response<FeeRatesResponse> response
+                    = execute(mApi.getFeeRates(networkName, FEE_RATES_BLOCKS));
+
+            if (!response.isSuccessful())
+                throw new HttpException(response);
+
+            if (response.body() == null || response.body().getBlocks().isEmpty())
+                return null;
+
+            final List<FeeRatesResponse.BlockFeesResponse> blocks
+                    = new ArrayList<>(response.body().getBlocks());
+            final List<NavigableMap<Integer, Long>> rates = new ArrayList<>();
+
+            Collections.sort(blocks, (left, right)
+                    -> Integer.compare(right.getHeight(), left.getHeight()));
+
+            for (FeeRatesResponse.BlockFeesResponse block : blocks) {
+                final NavigableMap<Integer, Long> buckets = new TreeMap<>();
+
+                for (FeeRatesResponse.BucketResponse bucket : block.getBuckets())
+                    if (bucket.getTarget() > 0 && bucket.getRate() > 0)
+                        buckets.put(bucket.getTarget(), bucket.getRate());
+
+                rates.add(buckets);
+            }
+
+            return new FeeRates(blocks.get(0).getHeight(), rates);
+        });
     }
 
     /**
      * Propaga una nueva transacción por la red del cripto-activo.
      *
      * @param transaction Transacción a propagar.
-     * @return Una tarea encargada de gestionar la petición.
+     * @return Un true si la transacción fue propagada.
      */
     public Boolean broadcastTx(BitcoinTransaction transaction) {
+        final ListenableFuture<Boolean> task = broadcastTxAsync(transaction);
+
+        return Utils.tryReturnBoolean(task::get, false);
+    }
+
+    /**
+     * Propaga una nueva transacción por la red del cripto-activo de forma asíncrona.
+     *
+     * @param transaction Transacción a propagar.
+     * @return Una tarea que devuelve true si la transacción fue propagada.
+     */
+    public ListenableFuture<Boolean> broadcastTxAsync(BitcoinTransaction transaction) {
         if (transaction == null)
             throw new NullPointerException("Transaction is null");
 
         String hexTx = Hex.toHexString(transaction.serialize());
 
-        ListenableFutureTask<Boolean> task = ListenableFutureTask.create(() -> {
-            Thread.currentThread().setName("Bitcoin Provider broadcastTx");
-            return tryDo(() -> {
-                Log.d(LOG_TAG, "Request broadcast: " + hexTx);
+        return submit(BROADCAST_ENDPOINT, "broadcastTx", () -> {
+            Log.d(LOG_TAG, "Request broadcast: " + hexTx);
 
-                String networkName = mWallet.getNetwork().getPaymentProtocolId() + "net";
-                Response<SuccessfulResponse> response = mApi.broadcastTx(networkName, hexTx)
-                        .execute();
+            String networkName = mWallet.getNetwork().getPaymentProtocolId() + "net";
+            Response<SuccessfulResponse> response = execute(mApi.broadcastTx(networkName, hexTx));
 
-                if (!response.isSuccessful() || response.body() == null)
-                    return false;
+            if (!response.isSuccessful())
+                throw new HttpException(response);
 
-                return response.body().isSuccessful();
-            });
-        });
-
-        mExecutor.execute(task);
+            if (response.body() == null)
+                return false;
 
-        return Utils.tryReturnBoolean(task::get, false);
+            return response.body().isSuccessful();
+        });
     }
 
     /**
      * Obtiene las transacciones dependencia de la indicada por el identificador.
      *
      * @param txid Identificador de la transacción.
-     * @return Una tarea encargada de gestionar la petición.
+     * @return Un mapa de las dependencias indexadas por su identificador.
      */
     public Map<String, BitcoinTransaction> getDependencies(byte[] txid)
             throws ExecutionException, InterruptedException {
-        String txidHex = Hex.toHexString(txid);
+        return getDependenciesAsync(txid).get();
+    }
 
-        ListenableFutureTask<Map<String, BitcoinTransaction>> task = ListenableFutureTask.create(() -> {
-            Thread.currentThread().setName("Bitcoin Provider getDependencies");
-            final Map<String, BitcoinTransaction> deps = new HashMap<>();
-            return tryDo(() -> {
-                deps.clear();
-                Log.d(LOG_TAG, "Request dependencies: " + txidHex);
+    /**
+     * Obtiene las transacciones dependencia de la indicada por el identificador de forma
+     * asíncrona. Si la transacción y todas sus dependencias se encuentran en el caché, no se
+     * realiza ninguna petición.
+     *
+     * @param txid Identificador de la transacción.
+     * @return Una tarea que devuelve un mapa de las dependencias indexadas por su identificador.
+     */
+    public ListenableFuture<Map<String, BitcoinTransaction>> getDependenciesAsync(byte[] txid) {
+        final Map<String, BitcoinTransaction> cached = getDependenciesFromCache(txid);
 
-                String networkName = mWallet.getNetwork().getPaymentProtocolId() + "net";
-                Response<List<TxDataResponse>> response = mApi.getTxDeps(networkName, txidHex)
-                        .execute();
+        if (cached != null)
+            return Futures.immediateFuture(cached);
 
-                if (!response.isSuccessful() || response.body() == null)
-                    return deps;
+        String txidHex = Hex.toHexString(txid);
+
+        return submit(TXDEPS_ENDPOINT, "getDependencies", () -> {
+            final Map<String, BitcoinTransaction> deps = new HashMap<>();
+            Log.d(LOG_TAG, "Request dependencies: " + txidHex);
 
-                List<TxDataResponse> depsData = response.body();
+            String networkName = mWallet.getNetwork().getPaymentProtocolId() + "net";
+            Response<List<TxDataResponse>> response
+                    = execute(mApi.getTxDeps(networkName, txidHex));
 
-                for (TxDataResponse data : depsData) {
-                    BitcoinTransaction transaction = BitcoinTransaction.fromTxData(data, mWallet);
-                    deps.put(transaction.getID(), transaction);
-                }
+            if (!response.isSuccessful())
+                throw new HttpException(response);
 
+            if (response.body() == null)
                 return deps;
-            });
-        });
 
-        mExecutor.execute(task);
+            List<TxDataResponse> depsData = response.body();
+
+            for (TxDataResponse data : depsData) {
+                BitcoinTransaction transaction = decode(data);
+                deps.put(transaction.getID(), transaction);
+            }
 
-        return task.get();
+            return deps;
+        });
     }
 
     /**
      * Obtiene el historial de transacciones de multiples direcciones.
      *
      * @param addresses Direcciones a consultar.
-     * @return Un tarea encargada de gestionar la petición.
+     * @return Lista de transacciones o null si la petición falló.
      */
     public List<BitcoinTransaction> getHistory(byte[] addresses, int height)
             throws ExecutionException, InterruptedException {
+        return getHistoryAsync(addresses, height).get();
+    }
+
+    /**
+     * Obtiene el historial de transacciones de multiples direcciones de forma asíncrona. La
+     * petición se realiza en paralelo a las demás peticiones en curso.
+     *
+     * @param addresses Direcciones a consultar.
+     * @return Un tarea encargada de gestionar la petición.
+     */
+    public ListenableFuture<List<BitcoinTransaction>> getHistoryAsync(byte[] addresses, int height) {
+        final List<BitcoinTransaction> transactions = new ArrayList<>();
+
+        return Futures.transform(
+                getHistoryAsync(addresses, height, transactions::add, transactions::clear),
+                count -> count == null ? null : transactions,
+                MoreExecutors.directExecutor()
+        );
+    }
+
+    /**
+     * Obtiene el historial de transacciones de multiples direcciones de forma asíncrona. Cada
+     * transacción es decodificada directamente desde el flujo de la respuesta y entregada al
+     * consumidor conforme se recibe, sin conservar la lista completa en memoria.
+     * <p>
+     * El consumidor es invocado desde el hilo de la petición. Si la petición es reintentada, las
+     * transacciones recibidas en el intento fallido pueden ser entregadas nuevamente.
+     *
+     * @param addresses Direcciones a consultar.
+     * @param height    Altura utilizada como punto de partida de la búsqueda.
+     * @param consumer  Consumidor de las transacciones recibidas.
+     * @return Una tarea que devuelve la cantidad de transacciones recibidas o null si la petición
+     * falló.
+     */
+    public ListenableFuture<Integer> getHistoryAsync(byte[] addresses, int height,
+                                                     Consumer<BitcoinTransaction> consumer) {
+        return getHistoryAsync(addresses, height, consumer, null);
+    }
+
+    /**
+     * Obtiene el historial de transacciones de multiples direcciones de forma asíncrona,
+     * entregando cada transacción al consumidor conforme se decodifica.
+     *
+     * @param addresses Direcciones a consultar.
+     * @param height    Altura utilizada como punto de partida de la búsqueda.
+     * @param consumer  Consumidor de las transacciones recibidas.
+     * @param onRetry   Acción a ejecutar antes de cada intento o null.
+     * @return Una tarea que devuelve la cantidad de transacciones recibidas.
+     */
+    private ListenableFuture<Integer> getHistoryAsync(byte[] addresses, int height,
+                                                      Consumer<BitcoinTransaction> consumer,
+                                                      Runnable onRetry) {
         final String addressesHex = Hex.toHexString(addresses);
 
-        ListenableFutureTask<List<BitcoinTransaction>> task = ListenableFutureTask.create(() -> {
-            final List<BitcoinTransaction> transactions = new ArrayList<>();
-            Thread.currentThread().setName("Bitcoin Provider getHistory");
-            return tryDo(() -> {
-                Log.d(LOG_TAG, "Request history: " + addressesHex);
+        return submit(HISTORY_ENDPOINT, "getHistory", () -> {
+            if (onRetry != null)
+                onRetry.run();
 
-                String networkName = mWallet.getNetwork().getPaymentProtocolId() + "net";
-                Response<List<TxDataResponse>> response = mApi
-                        .getHistory(networkName, addressesHex, height).execute();
+            Log.d(LOG_TAG, "Request history: " + addressesHex);
 
-                if (!response.isSuccessful() || response.body() == null)
-                    return transactions;
+            String networkName = mWallet.getNetwork().getPaymentProtocolId() + "net";
+            Response<ResponseBody> response
+                    = execute(mApi.getHistory(networkName, addressesHex, height));
 
-                List<TxDataResponse> txData = response.body();
+            if (!response.isSuccessful())
+                throw new HttpException(response);
 
-                for (TxDataResponse data : txData)
-                    transactions.add(BitcoinTransaction.fromTxData(data, mWallet));
+            if (response.body() == null)
+                return 0;
 
-                return transactions;
-            });
+            return TxDataStreamReader.read(response.body(),
+                    (data, block, blockHeight, time, index) -> consumer.accept(BitcoinTransaction
+                            .fromRawData(data, block, blockHeight, time, index, mWallet)));
         });
+    }
 
-        mExecutor.execute(task);
+    /**
+     * Obtiene las cabeceras de los bloques posteriores al último bloque conocido y las
+     * transacciones de las direcciones incluidas en ellos, en una sola petición.
+     *
+     * @param addresses  Direcciones a consultar.
+     * @param fromHeight Altura del último bloque conocido.
+     * @param toHeight   Altura del último bloque del rango.
+     * @return El rango de bloques o null si la petición falló.
+     */
+    public BlockRange getBlockRange(byte[] addresses, int fromHeight, int toHeight)
+            throws ExecutionException, InterruptedException {
+        return getBlockRangeAsync(addresses, fromHeight, toHeight).get();
+    }
 
-        return task.get();
+    /**
+     * Obtiene las cabeceras de los bloques posteriores al último bloque conocido y las
+     * transacciones de las direcciones incluidas en ellos de forma asíncrona. La primera cabecera
+     * del rango corresponde a la altura inicial, lo que permite verificar con
+     * {@link BlockRange#isContinuationOf(String, int)} que la cadena no fue reorganizada.
+     *
+     * @param addresses  Direcciones a consultar.
+     * @param fromHeight Altura del último bloque conocido.
+     * @param toHeight   Altura del último bloque del rango.
+     * @return Una tarea encargada de gestionar la petición.
+     */
+    public ListenableFuture<BlockRange> getBlockRangeAsync(byte[] addresses, int fromHeight,
+                                                           int toHeight) {
+        final String addressesHex = Hex.toHexString(addresses);
+
+        return submit(BLOCKS_ENDPOINT, "getBlockRange", () -> {
+            Log.d(LOG_TAG, String.format("Request blocks from %d to %d", fromHeight, toHeight));
+
+            String networkName = mWallet.getNetwork().getPaymentProtocolId() + "net";
+            Response<BlockRangeResponse> response = execute(mApi.getBlockRange(networkName,
+                    addressesHex, fromHeight, toHeight));
+
+            if (!response.isSuccessful())
+                throw new HttpException(response);
+
+            if (response.body() == null)
+                return null;
+
+            final List<BlockRange.Header> headers = new ArrayList<>();
+            final List<BitcoinTransaction> transactions = new ArrayList<>();
+
+            for (BlockRangeResponse.HeaderResponse header : response.body().getBlocks())
+                headers.add(new BlockRange.Header(header.getHash(), header.getPrevious(),
+                        header.getHeight(), header.getTime()));
+
+            for (TxDataResponse data : response.body().getTxs())
+                transactions.add(decode(data));
+
+            return new BlockRange(headers, transactions);
+        });
+    }
+
+    /**
+     * Obtiene la transacción del caché.
+     *
+     * @param txid Identificador de la transacción en el orden de bytes de la api.
+     * @return La transacción o null si no se encuentra en el caché.
+     */
+    private BitcoinTransaction getFromCache(byte[] txid) {
+        final TxCache.Entry entry = mTxCache.get(Sha256Hash.wrapReversed(txid).toString());
+
+        if (entry == null)
+            return null;
+
+        return BitcoinTransaction.fromRawData(entry.getData(), entry.getBlock(),
+                entry.getHeight(), entry.getTime(), entry.getIndex(), mWallet);
+    }
+
+    /**
+     * Obtiene las dependencias de la transacción desde el caché. Solo se devuelven si la
+     * transacción y todas sus dependencias se encuentran en el caché.
+     *
+     * @param txid Identificador de la transacción en el orden de bytes de la api.
+     * @return Un mapa de las dependencias o null si alguna no se encuentra en el caché.
+     */
+    private Map<String, BitcoinTransaction> getDependenciesFromCache(byte[] txid) {
+        final BitcoinTransaction tx = getFromCache(txid);
+
+        if (tx == null)
+            return null;
+
+        final Map<String, BitcoinTransaction> deps = new HashMap<>();
+
+        for (TransactionInput input : tx.getTx().getInputs()) {
+            if (input.isCoinBase())
+                continue;
+
+            final BitcoinTransaction parent
+                    = getFromCache(input.getOutpoint().getHash().getReversedBytes());
+
+            if (parent == null)
+                return null;
+
+            deps.put(parent.getID(), parent);
+        }
+
+        return deps;
+    }
+
+    /**
+     * Crea la transacción a partir de la respuesta y la almacena en el caché si se encuentra
+     * confirmada.
+     *
+     * @param data Respuesta de la api.
+     * @return Una transacción de Bitcoin.
+     */
+    private BitcoinTransaction decode(TxDataResponse data) {
+        return decode(data.getDataAsBuffer(), data.getBlock(), data.getHeight(), data.getTime(),
+                data.getBlockIndex());
+    }
+
+    /**
+     * Crea la transacción y la almacena en el caché si tiene al menos
+     * {@link #MIN_CACHE_CONFIRMATIONS} confirmaciones respecto al último bloque visto por la
+     * billetera, de esta forma una reorganización no deja información obsoleta en el caché.
+     *
+     * @param data   Transacción serializada.
+     * @param block  Hash del bloque.
+     * @param height Altura del bloque.
+     * @param time   Fecha y hora del bloque en segundos.
+     * @param index  Posición de la transacción en el bloque.
+     * @return Una transacción de Bitcoin.
+     */
+    private BitcoinTransaction decode(byte[] data, String block, long height, int time,
+                                      int index) {
+        final BitcoinTransaction tx
+                = BitcoinTransaction.fromRawData(data, block, height, time, index, mWallet);
+        if (block != null && height >= 0
+                && mWallet.getLastBlockSeenHeight() - height + 1 >= MIN_CACHE_CONFIRMATIONS)
+            mTxCache.put(tx.getID(), data, block, height, time, index);
+
+        return tx;
     }
 
     /**
@@ -374,6 +1181,21 @@ public class BitcoinProvider {
      * @return Un true si la subscripción finalizó correctamente.
      */
     public boolean subscribe(String token, String walletId, byte[] addresses) {
+        final ListenableFuture<Boolean> task = subscribeAsync(token, walletId, addresses);
+
+        return Utils.tryReturnBoolean(task::get, false);
+    }
+
+    /**
+     * Registra el token en el servidor de forma asíncrona para poder recibir notificaciones.
+     *
+     * @param token     Token de notificaciones push (FCM)
+     * @param walletId  Identificador de la billetera.
+     * @param addresses Direcciones a registrar.
+     * @return Una tarea que devuelve true si la subscripción finalizó correctamente.
+     */
+    public ListenableFuture<Boolean> subscribeAsync(String token, String walletId,
+                                                    byte[] addresses) {
         if (walletId == null)
             throw new NullPointerException("WalletId is null");
 
@@ -383,24 +1205,62 @@ public class BitcoinProvider {
         if (addresses == null || addresses.length < 210)
             throw new IllegalArgumentException("Requires at least 100 address");
 
-        ListenableFutureTask<Boolean> task = ListenableFutureTask.create(() -> {
-            Thread.currentThread().setName("Bitcoin Provider subscribe");
-            return tryDo(() -> {
-                Log.d(LOG_TAG, "Request subscribe: " + walletId);
-                String networkName = mWallet.getNetwork().getPaymentProtocolId() + "net";
-                Response<SuccessfulResponse> response
-                        = mApi.subscribe(networkName, token, walletId, Hex.toHexString(addresses))
-                        .execute();
+        return submit(SUBSCRIBE_ENDPOINT, "subscribe", () -> {
+            Log.d(LOG_TAG, "Request subscribe: " + walletId);
+            String networkName = mWallet.getNetwork().getPaymentProtocolId() + "net";
+            Response<SuccessfulResponse> response = execute(
+                    mApi.subscribe(networkName, token, walletId, Hex.toHexString(addresses)));
 
-                if (!response.isSuccessful() || response.body() == null)
-                    return false;
+            if (!response.isSuccessful())
+                throw new HttpException(response);
 
-                return response.body().isSuccessful();
-            });
+            if (response.body() == null)
+                return false;
+
+            return response.body().isSuccessful();
         });
+    }
+
+    /**
+     * Llamada HTTP asociada a una petición en curso. Permite cancelar la llamada cuando la tarea de
+     * la petición es cancelada, incluso si la cancelación ocurre antes de iniciar la llamada.
+     *
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    private static final class ActiveCall {
+
+        /**
+         * Llamada en curso.
+         */
+        private Call<?> mCall;
+
+        /**
+         * Indica si la petición fue cancelada.
+         */
+        private boolean mCancelled;
+
+        /**
+         * Asocia la llamada a la petición. Si la petición fue cancelada, la llamada se cancela
+         * inmediatamente.
+         *
+         * @param call Llamada a asociar.
+         */
+        synchronized void attach(Call<?> call) {
+            mCall = call;
+
+            if (mCancelled)
+                call.cancel();
+        }
 
-        mExecutor.execute(task);
+        /**
+         * Cancela la llamada en curso y las llamadas posteriores.
+         */
+        synchronized void cancel() {
+            mCancelled = true;
 
-        return Utils.tryReturnBoolean(task::get, false);
+            if (mCall != null)
+                mCall.cancel();
+        }
     }
 }
@@ -0,0 +1,207 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services;
+
+import com.cryptowallet.assets.bitcoin.wallet.BitcoinTransaction;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Representa los bloques comprendidos entre el último bloque conocido por la billetera y la punta
+ * de la cadena, junto con las transacciones relevantes para la billetera incluidas en ellos.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ * @see BitcoinProvider#getBlockRangeAsync(byte[], int, int)
+ */
+public final class BlockRange {
+
+    /**
+     * Cabeceras de los bloques en orden ascendente de altura.
+     */
+    private final List<Header> mHeaders;
+
+    /**
+     * Transacciones incluidas en los bloques del rango.
+     */
+    private final List<BitcoinTransaction> mTransactions;
+
+    /**
+     * Crea un nuevo rango de bloques.
+     *
+     * @param headers      Cabeceras de los bloques en orden ascendente de altura.
+     * @param transactions Transacciones incluidas en los bloques.
+     */
+    BlockRange(List<Header> headers, List<BitcoinTransaction> transactions) {
+        mHeaders = Collections.unmodifiableList(headers);
+        mTransactions = Collections.unmodifiableList(transactions);
+    }
+
+    /**
+     * Obtiene las cabeceras de los bloques del rango.
+     *
+     * @return Cabeceras en orden ascendente de altura.
+     */
+    public List<Header> getHeaders() {
+        return mHeaders;
+    }
+
+    /**
+     * Obtiene las transacciones incluidas en los bloques del rango.
+     *
+     * @return Lista de transacciones.
+     */
+    public List<BitcoinTransaction> getTransactions() {
+        return mTransactions;
+    }
+
+    /**
+     * Obtiene la cabecera del último bloque del rango.
+     *
+     * @return Cabecera del último bloque o null si el rango está vacío.
+     */
+    public Header getTip() {
+        return mHeaders.isEmpty() ? null : mHeaders.get(mHeaders.size() - 1);
+    }
+
+    /**
+     * Determina si el rango continúa el bloque especificado. La primera cabecera debe corresponder
+     * a dicho bloque, cada cabecera debe enlazar con la anterior y cada transacción debe estar
+     * incluida en alguno de los bloques del rango. Si no se cumple, la cadena fue reorganizada o
+     * la respuesta no es consistente.
+     *
+     * @param hash   Hash del último bloque conocido.
+     * @param height Altura del último bloque conocido.
+     * @return Un true si el rango continúa el bloque.
+     */
+    public boolean isContinuationOf(String hash, int height) {
+        if (mHeaders.size() < 2)
+            return false;
+
+        final Header first = mHeaders.get(0);
+
+        if (first.mHeight != height || !hash.equalsIgnoreCase(first.mHash))
+            return false;
+
+        final Map<String, Integer> heights = new HashMap<>();
+        Header previous = first;
+
+        for (Header header : mHeaders.subList(1, mHeaders.size())) {
+            if (header.mHash == null || header.mHeight != previous.mHeight + 1
+                    || !previous.mHash.equalsIgnoreCase(header.mPrevious))
+                return false;
+
+            heights.put(header.mHash.toLowerCase(), header.mHeight);
+            previous = header;
+        }
+
+        for (BitcoinTransaction tx : mTransactions) {
+            final String block = tx.getBlockHash();
+            final Integer blockHeight = block == null ? null : heights.get(block.toLowerCase());
+
+            if (blockHeight == null || blockHeight != tx.getBlockHeight())
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Cabecera de un bloque del rango.
+     *
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    public static final class Header {
+
+        /**
+         * Hash del bloque.
+         */
+        private final String mHash;
+
+        /**
+         * Hash del bloque anterior.
+         */
+        private final String mPrevious;
+
+        /**
+         * Altura del bloque.
+         */
+        private final int mHeight;
+
+        /**
+         * Fecha y hora del bloque en segundos.
+         */
+        private final long mTime;
+
+        /**
+         * Crea una nueva cabecera.
+         *
+         * @param hash     Hash del bloque.
+         * @param previous Hash del bloque anterior.
+         * @param height   Altura del bloque.
+         * @param time     Fecha y hora del bloque en segundos.
+         */
+        Header(String hash, String previous, int height, long time) {
+            mHash = hash;
+            mPrevious = previous;
+            mHeight = height;
+            mTime = time;
+        }
+
+        /**
+         * Obtiene el hash del bloque.
+         *
+         * @return Hash del bloque.
+         */
+        public String getHash() {
+            return mHash;
+        }
+
+        /**
+         * Obtiene el hash del bloque anterior.
+         *
+         * @return Hash del bloque anterior.
+         */
+        public String getPrevious() {
+            return mPrevious;
+        }
+
+        /**
+         * Obtiene la altura del bloque.
+         *
+         * @return Altura del bloque.
+         */
+        public int getHeight() {
+            return mHeight;
+        }
+
+        /**
+         * Obtiene la fecha y hora del bloque.
+         *
+         * @return Fecha y hora expresada en segundos.
+         */
+        public long getTime() {
+            return mTime;
+        }
+    }
+}
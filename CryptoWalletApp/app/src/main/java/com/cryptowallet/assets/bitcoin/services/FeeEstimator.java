@@ -0,0 +1,467 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services;
+
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.cryptowallet.services.network.Clock;
+import com.cryptowallet.wallet.IFees;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+/**
+ * Estimador de las comisiones de la red a partir de las tasas de los bloques recientes. Las
+ * comisiones rápida y promedio corresponden a objetivos de confirmación configurables.
+ * <p>
+ * La consulta nunca bloquea: devuelve la última estimación conocida e inicia la actualización en
+ * segundo plano. Si la actualización falla, las consultas no vuelven a solicitar las tasas hasta
+ * que transcurre {@link #FAILURE_BACKOFF}. La última estimación se almacena en un archivo, de esta
+ * forma sin conexión se utiliza el último valor conocido y solo la primera ejecución recurre a
+ * valores predeterminados.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ * @see FeeRates
+ */
+public class FeeEstimator {
+
+    /**
+     * Etiqueta de la clase.
+     */
+    private static final String LOG_TAG = "Fee Estimator";
+
+    /**
+     * Objetivo de confirmación predeterminado de la comisión rápida.
+     */
+    public static final int DEFAULT_FASTER_TARGET = 2;
+
+    /**
+     * Objetivo de confirmación predeterminado de la comisión promedio.
+     */
+    public static final int DEFAULT_AVERAGE_TARGET = 6;
+
+    /**
+     * Comisión rápida utilizada antes de la primera estimación.
+     */
+    static final long DEFAULT_FASTER_FEE = 40960;
+
+    /**
+     * Comisión promedio utilizada antes de la primera estimación.
+     */
+    static final long DEFAULT_AVERAGE_FEE = 39936;
+
+    /**
+     * Comisión mínima por KB para ser propagada por la red.
+     */
+    static final long MIN_FEE_BY_KB = 1024;
+
+    /**
+     * Tiempo en milisegundos que las consultas utilizan la última estimación sin solicitar las
+     * tasas después de una actualización fallida.
+     */
+    static final long FAILURE_BACKOFF = 30000;
+
+    /**
+     * Identificador del formato del archivo.
+     */
+    private static final int MAGIC = 0x46454553;
+
+    /**
+     * Versión del formato del archivo.
+     */
+    private static final byte VERSION = 1;
+
+    /**
+     * Fuente de las tasas de comisión.
+     */
+    private final Callable<ListenableFuture<FeeRates>> mSource;
+
+    /**
+     * Archivo de la última estimación.
+     */
+    private final File mFile;
+
+    /**
+     * Reloj utilizado para la espera después de un fallo.
+     */
+    private final Clock mClock;
+
+    /**
+     * Objetivo de confirmación de la comisión rápida.
+     */
+    private int mFasterTarget = DEFAULT_FASTER_TARGET;
+
+    /**
+     * Objetivo de confirmación de la comisión promedio.
+     */
+    private int mAverageTarget = DEFAULT_AVERAGE_TARGET;
+
+    /**
+     * Últimas tasas recibidas o null si no se han recibido.
+     */
+    private FeeRates mRates;
+
+    /**
+     * Última estimación conocida.
+     */
+    private Estimate mEstimate;
+
+    /**
+     * Momento a partir del cual las consultas vuelven a solicitar las tasas.
+     */
+    private long mRetryAt;
+
+    /**
+     * Crea un nuevo estimador y carga la última estimación almacenada.
+     *
+     * @param source Fuente de las tasas de comisión.
+     * @param file   Archivo de la última estimación.
+     */
+    public FeeEstimator(Callable<ListenableFuture<FeeRates>> source, File file) {
+        this(source, file, Clock.SYSTEM);
+    }
+
+    /**
+     * Crea un nuevo estimador especificando el reloj utilizado para la espera después de un
+     * fallo.
+     *
+     * @param source Fuente de las tasas de comisión.
+     * @param file   Archivo de la última estimación.
+     * @param clock  Reloj utilizado para la espera.
+     */
+    @VisibleForTesting
+    FeeEstimator(Callable<ListenableFuture<FeeRates>> source, File file, Clock clock) {
+        mSource = source;
+        mFile = file;
+        mClock = clock;
+        mEstimate = load();
+    }
+
+    /**
+     * Establece los objetivos de confirmación de las comisiones. Si existen tasas, la estimación
+     * se recalcula con los nuevos objetivos.
+     *
+     * @param fasterTarget  Objetivo de la comisión rápida en bloques.
+     * @param averageTarget Objetivo de la comisión promedio en bloques.
+     */
+    public synchronized void setTargets(int fasterTarget, int averageTarget) {
+        if (fasterTarget < 1 || averageTarget < fasterTarget)
+            throw new IllegalArgumentException("Invalid confirmation targets");
+
+        mFasterTarget = fasterTarget;
+        mAverageTarget = averageTarget;
+
+        if (mRates != null)
+            mEstimate = estimate(mRates);
+    }
+
+    /**
+     * Obtiene el objetivo de confirmación de la comisión rápida.
+     *
+     * @return Cantidad de bloques.
+     */
+    public synchronized int getFasterTarget() {
+        return mFasterTarget;
+    }
+
+    /**
+     * Obtiene el objetivo de confirmación de la comisión promedio.
+     *
+     * @return Cantidad de bloques.
+     */
+    public synchronized int getAverageTarget() {
+        return mAverageTarget;
+    }
+
+    /**
+     * Obtiene las comisiones sin bloquear. Si la actualización ya terminó, se devuelve su
+     * resultado; en caso contrario, la última estimación conocida. Después de una actualización
+     * fallida, solo se devuelve la última estimación hasta que transcurre la espera.
+     *
+     * @return Comisiones de la red.
+     */
+    public IFees getFees() {
+        synchronized (this) {
+            if (mClock.currentTimeMillis() < mRetryAt)
+                return mEstimate;
+        }
+
+        final ListenableFuture<IFees> refresh = refreshAsync();
+
+        if (refresh.isDone())
+            return Futures.getUnchecked(refresh);
+
+        return getLastKnown();
+    }
+
+    /**
+     * Obtiene la última estimación conocida.
+     *
+     * @return Comisiones de la red.
+     */
+    public synchronized IFees getLastKnown() {
+        return mEstimate;
+    }
+
+    /**
+     * Elimina la estimación almacenada.
+     *
+     * @return Un true si el archivo fue eliminado o no existía.
+     */
+    public synchronized boolean delete() {
+        return !mFile.exists() || mFile.delete();
+    }
+
+    /**
+     * Actualiza la estimación a partir de las tasas de la fuente. Si la fuente falla, la tarea
+     * devuelve la última estimación conocida y las consultas esperan antes de volver a solicitar
+     * las tasas.
+     *
+     * @return Una tarea que devuelve las comisiones de la red.
+     */
+    public ListenableFuture<IFees> refreshAsync() {
+        final ListenableFuture<FeeRates> rates;
+
+        try {
+            rates = mSource.call();
+        } catch (Exception e) {
+            Log.w(LOG_TAG, "Unable to request fee rates: " + e.getMessage());
+            backOff();
+
+            return Futures.immediateFuture(getLastKnown());
+        }
+
+        final ListenableFuture<IFees> fees = Futures.transform(rates, this::update,
+                MoreExecutors.directExecutor());
+
+        return Futures.catching(fees, Exception.class, e -> {
+            Log.w(LOG_TAG, "Using last known fees: " + e.getMessage());
+            backOff();
+
+            return getLastKnown();
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Pospone la siguiente solicitud de las consultas después de una actualización fallida.
+     */
+    private synchronized void backOff() {
+        mRetryAt = mClock.currentTimeMillis() + FAILURE_BACKOFF;
+    }
+
+    /**
+     * Actualiza la estimación con las tasas recibidas y la almacena si cambió.
+     *
+     * @param rates Tasas de los bloques recientes o null si la fuente no pudo obtenerlas.
+     * @return Comisiones de la red.
+     */
+    private IFees update(FeeRates rates) {
+        final Estimate estimate;
+
+        synchronized (this) {
+            if (rates == null) {
+                backOff();
+                return mEstimate;
+            }
+
+            mRetryAt = 0;
+
+            if (rates.getBlocks() == 0 || rates == mRates)
+                return mEstimate;
+
+            mRates = rates;
+            estimate = estimate(rates);
+
+            if (estimate.mFaster == mEstimate.mFaster && estimate.mAverage == mEstimate.mAverage
+                    && estimate.mFasterTarget == mEstimate.mFasterTarget
+                    && estimate.mAverageTarget == mEstimate.mAverageTarget
+                    && estimate.mHeight == mEstimate.mHeight)
+                return mEstimate;
+
+            mEstimate = estimate;
+        }
+
+        Log.d(LOG_TAG, String.format("Estimated fees at %d: faster %d, average %d",
+                estimate.mHeight, estimate.mFaster, estimate.mAverage));
+
+        save(estimate);
+
+        return estimate;
+    }
+
+    /**
+     * Calcula la estimación de las tasas con los objetivos actuales. La comisión rápida nunca es
+     * menor que la promedio y ninguna es menor a la mínima de la red.
+     *
+     * @param rates Tasas de los bloques recientes.
+     * @return La estimación de las comisiones.
+     */
+    private Estimate estimate(FeeRates rates) {
+        final long average = Math.max(MIN_FEE_BY_KB, rates.getRate(mAverageTarget));
+        final long faster = Math.max(average, rates.getRate(mFasterTarget));
+
+        return new Estimate(faster, average, mFasterTarget, mAverageTarget, rates.getHeight());
+    }
+
+    /**
+     * Carga la última estimación almacenada.
+     *
+     * @return La estimación almacenada o la predeterminada si no existe o es inválida.
+     */
+    private Estimate load() {
+        final Estimate defaults = new Estimate(DEFAULT_FASTER_FEE, DEFAULT_AVERAGE_FEE,
+                mFasterTarget, mAverageTarget, 0);
+
+        if (!mFile.exists())
+            return defaults;
+
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(mFile)))) {
+            if (input.readInt() != MAGIC || input.readByte() != VERSION)
+                throw new IOException("Unknown format");
+
+            final long faster = input.readLong();
+            final long average = input.readLong();
+            final int fasterTarget = input.readInt();
+            final int averageTarget = input.readInt();
+            final int height = input.readInt();
+
+            if (average < MIN_FEE_BY_KB || faster < average)
+                throw new IOException("Invalid fees");
+
+            return new Estimate(faster, average, fasterTarget, averageTarget, height);
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Discarding " + mFile.getName() + ": " + e.getMessage());
+
+            return defaults;
+        }
+    }
+
+    /**
+     * Almacena la estimación reemplazando el archivo de forma atómica.
+     *
+     * @param estimate Estimación a almacenar.
+     */
+    private synchronized void save(Estimate estimate) {
+        final File temp = new File(mFile.getPath() + ".tmp");
+
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp)))) {
+            output.writeInt(MAGIC);
+            output.writeByte(VERSION);
+            output.writeLong(estimate.mFaster);
+            output.writeLong(estimate.mAverage);
+            output.writeInt(estimate.mFasterTarget);
+            output.writeInt(estimate.mAverageTarget);
+            output.writeInt(estimate.mHeight);
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Unable to save " + mFile.getName() + ": " + e.getMessage());
+
+            return;
+        }
+
+        if (!temp.renameTo(mFile))
+            Log.w(LOG_TAG, "Unable to replace " + mFile.getName());
+    }
+
+    /**
+     * Estimación de las comisiones de la red.
+     *
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    private static final class Estimate implements IFees {
+
+        /**
+         * Comisión rápida por KB.
+         */
+        private final long mFaster;
+
+        /**
+         * Comisión promedio por KB.
+         */
+        private final long mAverage;
+
+        /**
+         * Objetivo de confirmación de la comisión rápida.
+         */
+        private final int mFasterTarget;
+
+        /**
+         * Objetivo de confirmación de la comisión promedio.
+         */
+        private final int mAverageTarget;
+
+        /**
+         * Altura del bloque más reciente de las tasas o cero si es predeterminada.
+         */
+        private final int mHeight;
+
+        /**
+         * Crea una nueva estimación.
+         *
+         * @param faster        Comisión rápida por KB.
+         * @param average       Comisión promedio por KB.
+         * @param fasterTarget  Objetivo de confirmación de la comisión rápida.
+         * @param averageTarget Objetivo de confirmación de la comisión promedio.
+         * @param height        Altura del bloque más reciente de las tasas.
+         */
+        private Estimate(long faster, long average, int fasterTarget, int averageTarget,
+                         int height) {
+            mFaster = faster;
+            mAverage = average;
+            mFasterTarget = fasterTarget;
+            mAverageTarget = averageTarget;
+            mHeight = height;
+        }
+
+        @Override
+        public long getAverage() {
+            return mAverage;
+        }
+
+        @Override
+        public long getFaster() {
+            return mFaster;
+        }
+
+        @Override
+        public int getAverageTarget() {
+            return mAverageTarget;
+        }
+
+        @Override
+        public int getFasterTarget() {
+            return mFasterTarget;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * Tasas de comisión por objetivo de confirmación de los bloques recientes. La tasa de un objetivo
+ * se suaviza con un promedio exponencial de los bloques, de esta forma un bloque aislado con
+ * tasas altas o bajas no desplaza la estimación por completo.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ * @see BitcoinProvider#getFeeRatesAsync()
+ */
+public final class FeeRates {
+
+    /**
+     * Peso de cada bloque respecto al bloque siguiente.
+     */
+    private static final double DECAY = 0.5;
+
+    /**
+     * Bytes por KB.
+     */
+    private static final int KB = 1024;
+
+    /**
+     * Tasas por objetivo de cada bloque, del más reciente al más antiguo.
+     */
+    private final List<NavigableMap<Integer, Long>> mBlocks;
+
+    /**
+     * Altura del bloque más reciente.
+     */
+    private final int mHeight;
+
+    /**
+     * Crea las tasas de los bloques recientes.
+     *
+     * @param height Altura del bloque más reciente.
+     * @param blocks Tasas por objetivo de cada bloque, del más reciente al más antiguo.
+     */
+    FeeRates(int height, List<NavigableMap<Integer, Long>> blocks) {
+        mHeight = height;
+        mBlocks = Collections.unmodifiableList(new ArrayList<>(blocks));
+    }
+
+    /**
+     * Obtiene la altura del bloque más reciente.
+     *
+     * @return Altura del bloque.
+     */
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Obtiene la cantidad de bloques con tasas.
+     *
+     * @return Cantidad de bloques.
+     */
+    public int getBlocks() {
+        return mBlocks.size();
+    }
+
+    /**
+     * Estima la comisión por KB para confirmar dentro del objetivo especificado. Si un bloque no
+     * reporta el objetivo, se utiliza el objetivo menor más cercano, el cual requiere una tasa
+     * igual o mayor.
+     *
+     * @param target Objetivo de confirmación en bloques.
+     * @return Comisión por KB redondeada a satoshis completos por byte o cero si no hay tasas.
+     */
+    public long getRate(int target) {
+        double weight = 1;
+        double total = 0;
+        double weights = 0;
+
+        for (NavigableMap<Integer, Long> buckets : mBlocks) {
+            Map.Entry<Integer, Long> bucket = buckets.floorEntry(target);
+
+            if (bucket == null)
+                bucket = buckets.firstEntry();
+
+            if (bucket == null)
+                continue;
+
+            total += bucket.getValue() * weight;
+            weights += weight;
+            weight *= DECAY;
+        }
+
+        if (weights == 0)
+            return 0;
+
+        final long rate = (long) Math.ceil(total / weights);
+
+        return (rate + KB - 1) / KB * KB;
+    }
+}
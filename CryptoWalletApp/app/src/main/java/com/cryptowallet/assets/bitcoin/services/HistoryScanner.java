@@ -0,0 +1,358 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services;
+
+import com.cryptowallet.assets.bitcoin.wallet.BitcoinTransaction;
+import com.cryptowallet.utils.Consumer;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Escanea el historial de una cadena de direcciones hasta encontrar el límite de bloques
+ * consecutivos sin actividad. Mantiene varios bloques en curso de forma simultánea: mientras se
+ * espera la respuesta de un bloque, los siguientes ya fueron derivados y solicitados. Los
+ * resultados se confirman en el orden de los bloques y los bloques especulativos posteriores al
+ * límite son cancelados y descartados, de esta forma el resultado es idéntico al de un escaneo
+ * secuencial.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ * @see BitcoinProvider#getHistoryAsync(byte[], int)
+ */
+public class HistoryScanner {
+
+    /**
+     * Proveedor utilizado para solicitar el historial.
+     */
+    private final BitcoinProvider mProvider;
+
+    /**
+     * Fuente de las direcciones a escanear.
+     */
+    private final AddressSource mSource;
+
+    /**
+     * Direcciones por bloque.
+     */
+    private final int mBlockSize;
+
+    /**
+     * Bloques consecutivos sin actividad que finalizan el escaneo.
+     */
+    private final int mGapBlocks;
+
+    /**
+     * Bloques máximos en curso.
+     */
+    private final int mWindow;
+
+    /**
+     * Crea un nuevo escáner.
+     *
+     * @param provider  Proveedor utilizado para solicitar el historial.
+     * @param source    Fuente de las direcciones a escanear.
+     * @param blockSize Direcciones por bloque.
+     * @param gapBlocks Bloques consecutivos sin actividad que finalizan el escaneo.
+     * @param window    Bloques máximos en curso, 1 para un escaneo secuencial.
+     */
+    public HistoryScanner(BitcoinProvider provider, AddressSource source, int blockSize,
+                          int gapBlocks, int window) {
+        if (blockSize < 1 || gapBlocks < 1 || window < 1)
+            throw new IllegalArgumentException("Requires at least one address, block and request");
+
+        mProvider = provider;
+        mSource = source;
+        mBlockSize = blockSize;
+        mGapBlocks = gapBlocks;
+        mWindow = window;
+    }
+
+    /**
+     * Escanea la cadena a partir del indice especificado. Las transacciones de cada bloque se
+     * entregan al consumidor en el orden de los bloques, solo si el bloque forma parte del
+     * resultado del escaneo.
+     *
+     * @param fromIndex Indice de la primera dirección a escanear.
+     * @param consumer  Consumidor de las transacciones encontradas.
+     * @return Una tarea que devuelve el indice siguiente a la última dirección escaneada.
+     */
+    public ListenableFuture<Integer> scan(int fromIndex, Consumer<BitcoinTransaction> consumer) {
+        return scan(fromIndex, 0, consumer, null);
+    }
+
+    /**
+     * Continúa un escaneo previo a partir del indice especificado. El escaneo se reanuda con la
+     * cantidad de bloques sin actividad que tenía al detenerse, de esta forma el resultado es
+     * idéntico al de un escaneo sin interrupciones. Después de confirmar cada bloque se notifica
+     * su progreso, en el orden de los bloques.
+     *
+     * @param fromIndex      Indice de la primera dirección a escanear.
+     * @param inactiveBlocks Bloques consecutivos sin actividad previos al indice.
+     * @param consumer       Consumidor de las transacciones encontradas.
+     * @param listener       Escucha del progreso o null.
+     * @return Una tarea que devuelve el indice siguiente a la última dirección escaneada.
+     */
+    public ListenableFuture<Integer> scan(int fromIndex, int inactiveBlocks,
+                                          Consumer<BitcoinTransaction> consumer,
+                                          ProgressListener listener) {
+        if (inactiveBlocks >= mGapBlocks)
+            return Futures.immediateFuture(fromIndex);
+
+        final Scan scan = new Scan(fromIndex, inactiveBlocks, consumer, listener);
+
+        scan.launch();
+
+        return scan.mResult;
+    }
+
+    /**
+     * Fuente de las direcciones a escanear.
+     *
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    public interface AddressSource {
+
+        /**
+         * Obtiene las direcciones serializadas del bloque.
+         *
+         * @param fromIndex Indice de la primera dirección.
+         * @param size      Cantidad de direcciones.
+         * @return Direcciones serializadas.
+         */
+        byte[] getAddresses(int fromIndex, int size);
+    }
+
+    /**
+     * Escucha del progreso de un escaneo.
+     *
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    public interface ProgressListener {
+
+        /**
+         * Notifica que un bloque de direcciones forma parte del resultado del escaneo.
+         *
+         * @param transactions   Transacciones del bloque.
+         * @param nextIndex      Indice de la siguiente dirección a escanear.
+         * @param inactiveBlocks Bloques consecutivos sin actividad al final del bloque.
+         */
+        void onBlockScanned(List<BitcoinTransaction> transactions, int nextIndex,
+                            int inactiveBlocks);
+    }
+
+    /**
+     * Estado de un escaneo en curso.
+     */
+    private final class Scan {
+
+        /**
+         * Resultado del escaneo.
+         */
+        private final SettableFuture<Integer> mResult = SettableFuture.create();
+
+        /**
+         * Bloques en curso indexados por su número.
+         */
+        private final Map<Integer, ListenableFuture<List<BitcoinTransaction>>> mInFlight
+                = new HashMap<>();
+
+        /**
+         * Bloques completados pendientes de confirmar indexados por su número.
+         */
+        private final Map<Integer, List<BitcoinTransaction>> mCompleted = new HashMap<>();
+
+        /**
+         * Indice de la primera dirección.
+         */
+        private final int mFromIndex;
+
+        /**
+         * Consumidor de las transacciones encontradas.
+         */
+        private final Consumer<BitcoinTransaction> mConsumer;
+
+        /**
+         * Escucha del progreso o null.
+         */
+        private final ProgressListener mListener;
+
+        /**
+         * Siguiente bloque a solicitar.
+         */
+        private int mNextBlock;
+
+        /**
+         * Siguiente bloque a confirmar.
+         */
+        private int mNextCommit;
+
+        /**
+         * Bloques consecutivos sin actividad confirmados.
+         */
+        private int mInactive;
+
+        /**
+         * Indica si el escaneo finalizó, ya sea por alcanzar el límite o por un error.
+         */
+        private boolean mFinished;
+
+        /**
+         * Crea un nuevo escaneo.
+         *
+         * @param fromIndex      Indice de la primera dirección.
+         * @param inactiveBlocks Bloques consecutivos sin actividad previos al indice.
+         * @param consumer       Consumidor de las transacciones encontradas.
+         * @param listener       Escucha del progreso o null.
+         */
+        Scan(int fromIndex, int inactiveBlocks, Consumer<BitcoinTransaction> consumer,
+             ProgressListener listener) {
+            mFromIndex = fromIndex;
+            mInactive = inactiveBlocks;
+            mConsumer = consumer;
+            mListener = listener;
+            mResult.addListener(() -> {
+                if (mResult.isCancelled())
+                    cancelInFlight();
+            }, MoreExecutors.directExecutor());
+        }
+
+        /**
+         * Solicita los bloques siguientes mientras haya lugar en la ventana.
+         */
+        void launch() {
+            while (true) {
+                final int block;
+                final ListenableFuture<List<BitcoinTransaction>> request;
+
+                synchronized (this) {
+                    if (mFinished || mResult.isDone() || mInFlight.size() >= mWindow)
+                        return;
+
+                    block = mNextBlock++;
+                    request = mProvider.getHistoryAsync(
+                            mSource.getAddresses(mFromIndex + block * mBlockSize, mBlockSize), 0);
+                    mInFlight.put(block, request);
+                }
+
+                Futures.addCallback(request, new FutureCallback<List<BitcoinTransaction>>() {
+                    @Override
+                    public void onSuccess(List<BitcoinTransaction> history) {
+                        if (history == null)
+                            fail(new IOException("Fail to download history"));
+                        else
+                            complete(block, history);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        fail(t);
+                    }
+                }, MoreExecutors.directExecutor());
+            }
+        }
+
+        /**
+         * Registra el bloque completado y confirma los bloques disponibles en orden.
+         *
+         * @param block   Número del bloque.
+         * @param history Transacciones del bloque.
+         */
+        private void complete(int block, List<BitcoinTransaction> history) {
+            Integer nextIndex = null;
+
+            synchronized (this) {
+                if (mFinished)
+                    return;
+
+                mInFlight.remove(block);
+                mCompleted.put(block, history);
+
+                while (mCompleted.containsKey(mNextCommit)) {
+                    final List<BitcoinTransaction> committed = mCompleted.remove(mNextCommit++);
+
+                    for (BitcoinTransaction tx : committed)
+                        mConsumer.accept(tx);
+
+                    mInactive = committed.isEmpty() ? mInactive + 1 : 0;
+
+                    if (mListener != null)
+                        mListener.onBlockScanned(committed, mFromIndex + mNextCommit * mBlockSize,
+                                mInactive);
+
+                    if (mInactive >= mGapBlocks) {
+                        mFinished = true;
+                        mCompleted.clear();
+                        nextIndex = mFromIndex + mNextCommit * mBlockSize;
+                        break;
+                    }
+                }
+            }
+
+            if (nextIndex == null) {
+                launch();
+                return;
+            }
+
+            cancelInFlight();
+            mResult.set(nextIndex);
+        }
+
+        /**
+         * Finaliza el escaneo con error.
+         *
+         * @param error Error ocurrido.
+         */
+        private void fail(Throwable error) {
+            synchronized (this) {
+                if (mFinished)
+                    return;
+
+                mFinished = true;
+            }
+
+            cancelInFlight();
+            mResult.setException(error);
+        }
+
+        /**
+         * Cancela los bloques especulativos en curso.
+         */
+        private void cancelInFlight() {
+            final ListenableFuture<?>[] requests;
+
+            synchronized (this) {
+                requests = mInFlight.values().toArray(new ListenableFuture<?>[0]);
+                mInFlight.clear();
+            }
+
+            for (ListenableFuture<?> request : requests)
+                request.cancel(true);
+        }
+    }
+}
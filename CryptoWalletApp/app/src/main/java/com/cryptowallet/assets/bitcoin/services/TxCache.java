@@ -0,0 +1,471 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services;
+
+import android.util.Log;
+
+import com.cryptowallet.assets.bitcoin.services.retrofit.TxDataFormat;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché de transacciones confirmadas indexadas por su identificador. Se compone de un nivel en
+ * memoria y un nivel en disco, ambos con desalojo del elemento usado menos recientemente. Cada
+ * transacción se almacena en disco en un archivo con el formato de {@link TxDataFormat}, el cual
+ * incluye la transacción serializada y la información de su bloque.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class TxCache {
+
+    /**
+     * Etiqueta del log.
+     */
+    private static final String LOG_TAG = "TxCache";
+
+    /**
+     * Extensión de los archivos del caché.
+     */
+    private static final String EXTENSION = ".tx";
+
+    /**
+     * Directorio del nivel en disco.
+     */
+    private final File mDirectory;
+
+    /**
+     * Entradas máximas del nivel en memoria.
+     */
+    private final int mMaxMemoryEntries;
+
+    /**
+     * Bytes máximos del nivel en disco.
+     */
+    private final long mMaxDiskBytes;
+
+    /**
+     * Nivel en memoria ordenado por acceso.
+     */
+    private final LinkedHashMap<String, Entry> mMemory;
+
+    /**
+     * Índice del nivel en disco con el tamaño de cada archivo, ordenado por acceso.
+     */
+    private LinkedHashMap<String, Long> mDiskIndex;
+
+    /**
+     * Bytes ocupados en disco.
+     */
+    private long mDiskBytes;
+
+    /**
+     * Aciertos en memoria.
+     */
+    private long mMemoryHits;
+
+    /**
+     * Aciertos en disco.
+     */
+    private long mDiskHits;
+
+    /**
+     * Fallos del caché.
+     */
+    private long mMisses;
+
+    /**
+     * Crea un nuevo caché.
+     *
+     * @param directory        Directorio del nivel en disco.
+     * @param maxMemoryEntries Entradas máximas del nivel en memoria.
+     * @param maxDiskBytes     Bytes máximos del nivel en disco.
+     */
+    public TxCache(File directory, int maxMemoryEntries, long maxDiskBytes) {
+        mDirectory = directory;
+        mMaxMemoryEntries = maxMemoryEntries;
+        mMaxDiskBytes = maxDiskBytes;
+        mMemory = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Obtiene la transacción del caché.
+     *
+     * @param txid Identificador de la transacción.
+     * @return La entrada del caché o null si no se encuentra.
+     */
+    public synchronized Entry get(String txid) {
+        Entry entry = mMemory.get(txid);
+
+        if (entry != null) {
+            mMemoryHits++;
+
+            if (mDiskIndex != null)
+                mDiskIndex.get(txid); // Actualiza el orden de acceso
+
+            return entry;
+        }
+
+        entry = readFromDisk(txid);
+
+        if (entry == null) {
+            mMisses++;
+            return null;
+        }
+
+        mDiskHits++;
+        putInMemory(txid, entry);
+
+        return entry;
+    }
+
+    /**
+     * Agrega una transacción confirmada al caché.
+     *
+     * @param txid   Identificador de la transacción.
+     * @param data   Transacción serializada.
+     * @param block  Hash del bloque.
+     * @param height Altura del bloque.
+     * @param time   Fecha y hora del bloque en segundos.
+     * @param index  Posición de la transacción en el bloque.
+     */
+    public synchronized void put(String txid, byte[] data, String block, long height, int time,
+                                 int index) {
+        final Entry entry = new Entry(data, block, height, time, index);
+
+        putInMemory(txid, entry);
+        writeToDisk(txid, entry);
+    }
+
+    /**
+     * Obtiene la cantidad de aciertos en memoria.
+     *
+     * @return Aciertos en memoria.
+     */
+    public synchronized long getMemoryHitCount() {
+        return mMemoryHits;
+    }
+
+    /**
+     * Obtiene la cantidad de aciertos en disco.
+     *
+     * @return Aciertos en disco.
+     */
+    public synchronized long getDiskHitCount() {
+        return mDiskHits;
+    }
+
+    /**
+     * Obtiene la cantidad de aciertos de ambos niveles.
+     *
+     * @return Aciertos.
+     */
+    public synchronized long getHitCount() {
+        return mMemoryHits + mDiskHits;
+    }
+
+    /**
+     * Obtiene la cantidad de fallos.
+     *
+     * @return Fallos.
+     */
+    public synchronized long getMissCount() {
+        return mMisses;
+    }
+
+    /**
+     * Obtiene los bytes ocupados en disco.
+     *
+     * @return Bytes en disco.
+     */
+    public synchronized long getDiskBytes() {
+        ensureDiskIndex();
+
+        return mDiskBytes;
+    }
+
+    /**
+     * Elimina todas las entradas del caché.
+     */
+    public synchronized void clear() {
+        ensureDiskIndex();
+
+        for (String txid : mDiskIndex.keySet())
+            //noinspection ResultOfMethodCallIgnored
+            getFile(txid).delete();
+
+        mMemory.clear();
+        mDiskIndex.clear();
+        mDiskBytes = 0;
+    }
+
+    /**
+     * Agrega la entrada al nivel en memoria, desalojando la usada menos recientemente.
+     *
+     * @param txid  Identificador de la transacción.
+     * @param entry Entrada del caché.
+     */
+    private void putInMemory(String txid, Entry entry) {
+        mMemory.put(txid, entry);
+
+        final Iterator<String> iterator = mMemory.keySet().iterator();
+
+        while (mMemory.size() > mMaxMemoryEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Lee la entrada del nivel en disco.
+     *
+     * @param txid Identificador de la transacción.
+     * @return La entrada o null si no se encuentra.
+     */
+    private Entry readFromDisk(String txid) {
+        ensureDiskIndex();
+
+        if (!mDiskIndex.containsKey(txid))
+            return null;
+
+        final File file = getFile(txid);
+        final Entry[] entry = new Entry[1];
+
+        try (InputStream stream = new BufferedInputStream(new FileInputStream(file))) {
+            TxDataFormat.read(stream, (data, block, height, time, index) ->
+                    entry[0] = new Entry(data, block, height, time, index));
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Unable to read " + txid + ": " + e.getMessage());
+        }
+
+        if (entry[0] == null) {
+            removeFromDisk(txid);
+            return null;
+        }
+
+        mDiskIndex.get(txid); // Actualiza el orden de acceso
+        //noinspection ResultOfMethodCallIgnored
+        file.setLastModified(System.currentTimeMillis());
+
+        return entry[0];
+    }
+
+    /**
+     * Escribe la entrada en el nivel en disco, desalojando las usadas menos recientemente.
+     *
+     * @param txid  Identificador de la transacción.
+     * @param entry Entrada del caché.
+     */
+    private void writeToDisk(String txid, Entry entry) {
+        ensureDiskIndex();
+
+        if (mDiskIndex.containsKey(txid))
+            return;
+
+        final File file = getFile(txid);
+
+        try (OutputStream stream = new BufferedOutputStream(new FileOutputStream(file))) {
+            TxDataFormat.write(stream, entry.mData, entry.mBlock, entry.mHeight, entry.mTime,
+                    entry.mIndex);
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Unable to write " + txid + ": " + e.getMessage());
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+            return;
+        }
+
+        mDiskIndex.put(txid, file.length());
+        mDiskBytes += file.length();
+
+        final Iterator<Map.Entry<String, Long>> iterator = mDiskIndex.entrySet().iterator();
+
+        while (mDiskBytes > mMaxDiskBytes && iterator.hasNext()) {
+            final Map.Entry<String, Long> eldest = iterator.next();
+
+            if (eldest.getKey().equals(txid))
+                break;
+
+            mDiskBytes -= eldest.getValue();
+            iterator.remove();
+            //noinspection ResultOfMethodCallIgnored
+            getFile(eldest.getKey()).delete();
+        }
+    }
+
+    /**
+     * Elimina la entrada del nivel en disco.
+     *
+     * @param txid Identificador de la transacción.
+     */
+    private void removeFromDisk(String txid) {
+        final Long size = mDiskIndex.remove(txid);
+
+        if (size != null)
+            mDiskBytes -= size;
+
+        //noinspection ResultOfMethodCallIgnored
+        getFile(txid).delete();
+    }
+
+    /**
+     * Carga el índice del nivel en disco ordenando los archivos por su último acceso.
+     */
+    private void ensureDiskIndex() {
+        if (mDiskIndex != null)
+            return;
+
+        mDiskIndex = new LinkedHashMap<>(16, 0.75f, true);
+        mDiskBytes = 0;
+
+        if (!mDirectory.exists() && !mDirectory.mkdirs())
+            Log.w(LOG_TAG, "Unable to create " + mDirectory);
+
+        final File[] files = mDirectory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+
+        if (files == null)
+            return;
+
+        Arrays.sort(files, (left, right) -> Long.compare(left.lastModified(),
+                right.lastModified()));
+
+        for (File file : files) {
+            final String name = file.getName();
+
+            mDiskIndex.put(name.substring(0, name.length() - EXTENSION.length()), file.length());
+            mDiskBytes += file.length();
+        }
+    }
+
+    /**
+     * Obtiene el archivo de la transacción.
+     *
+     * @param txid Identificador de la transacción.
+     * @return Archivo de la transacción.
+     */
+    private File getFile(String txid) {
+        return new File(mDirectory, txid + EXTENSION);
+    }
+
+    /**
+     * Entrada del caché.
+     *
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    public static class Entry {
+
+        /**
+         * Transacción serializada.
+         */
+        private final byte[] mData;
+
+        /**
+         * Hash del bloque.
+         */
+        private final String mBlock;
+
+        /**
+         * Altura del bloque.
+         */
+        private final long mHeight;
+
+        /**
+         * Fecha y hora del bloque en segundos.
+         */
+        private final int mTime;
+
+        /**
+         * Posición de la transacción en el bloque.
+         */
+        private final int mIndex;
+
+        /**
+         * Crea una nueva entrada.
+         *
+         * @param data   Transacción serializada.
+         * @param block  Hash del bloque.
+         * @param height Altura del bloque.
+         * @param time   Fecha y hora del bloque en segundos.
+         * @param index  Posición de la transacción en el bloque.
+         */
+        Entry(byte[] data, String block, long height, int time, int index) {
+            mData = data;
+            mBlock = block;
+            mHeight = height;
+            mTime = time;
+            mIndex = index;
+        }
+
+        /**
+         * Obtiene la transacción serializada.
+         *
+         * @return Transacción serializada.
+         */
+        public byte[] getData() {
+            return mData;
+        }
+
+        /**
+         * Obtiene el hash del bloque.
+         *
+         * @return Hash del bloque.
+         */
+        public String getBlock() {
+            return mBlock;
+        }
+
+        /**
+         * Obtiene la altura del bloque.
+         *
+         * @return Altura del bloque.
+         */
+        public long getHeight() {
+            return mHeight;
+        }
+
+        /**
+         * Obtiene la fecha y hora del bloque en segundos.
+         *
+         * @return Fecha y hora del bloque.
+         */
+        public int getTime() {
+            return mTime;
+        }
+
+        /**
+         * Obtiene la posición de la transacción en el bloque.
+         *
+         * @return Posición en el bloque.
+         */
+        public int getIndex() {
+            return mIndex;
+        }
+    }
+}
@@ -18,8 +18,11 @@
 
 package com.cryptowallet.assets.bitcoin.services.retrofit;
 
+import com.cryptowallet.services.network.CompressedBody;
+
 import java.util.List;
 
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.Field;
 import retrofit2.http.FormUrlEncoded;
@@ -28,6 +31,7 @@ import retrofit2.http.POST;
 import retrofit2.http.PUT;
 import retrofit2.http.Path;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
 /**
  * Define los endpoints de la api Bitcoin que serán utilizados por {@link retrofit2.Retrofit}.
@@ -57,6 +61,7 @@ public interface BitcoinApi {
      * @return Una instancia que gestiona la llamada asíncrona a la API.
      */
     @GET("btc/{network}/txhistory/{address}")
+    @BinaryTxData
     Call<List<TxDataResponse>> getTxHistory(@Path("network") String network,
                                             @Path("address") String address,
                                             @Query("height") int height);
@@ -69,8 +74,25 @@ public interface BitcoinApi {
      * @return Una instancia que gestiona la llamada asíncrona de la API.
      */
     @GET("btc/{network}/tx/{txid}")
+    @BinaryTxData
     Call<TxDataResponse> getTx(@Path("network") String network, @Path("txid") String txid);
 
+    /**
+     * Obtiene las transacciones especificadas por sus TxID en una sola petición.
+     *
+     * @param network Tipo de red a la cual pertenecen las transacciones. Ej: mainnet o testnet.
+     * @param txids   Identificadores de las transacciones serializados en formato hexadecimal.
+     * @return Una instancia que gestiona la llamada asíncrona de la API. El cuerpo de la respuesta
+     * debe ser leído con {@link TxDataStreamReader}.
+     */
+    @POST("btc/{network}/txs")
+    @BinaryTxData
+    @FormUrlEncoded
+    @CompressedBody
+    @Streaming
+    Call<ResponseBody> getTxs(@Path("network") String network,
+                              @Field("txids") String txids);
+
     /**
      * Obtiene la información de la blockchain.
      *
@@ -80,6 +102,17 @@ public interface BitcoinApi {
     @GET("btc/{network}/chaininfo")
     Call<ChainInfoResponse> getChainInfo(@Path("network") String network);
 
+    /**
+     * Obtiene las tasas de comisión por objetivo de confirmación de los bloques recientes.
+     *
+     * @param network Tipo de red de la cual se requieren las tasas. Ej: mainnet o testnet.
+     * @param blocks  Cantidad de bloques recientes.
+     * @return Una instancia que gestiona la llamada asíncrona de la API.
+     */
+    @GET("btc/{network}/fees")
+    Call<FeeRatesResponse> getFeeRates(@Path("network") String network,
+                                       @Query("blocks") int blocks);
+
     /**
      * Obtiene las dependencias de la transacción especificada por el TxID.
      *
@@ -88,6 +121,7 @@ public interface BitcoinApi {
      * @return Una instancia que gestiona la llamada asíncrona de la API.
      */
     @GET("btc/{network}/txdeps/{txid}")
+    @BinaryTxData
     Call<List<TxDataResponse>> getTxDeps(@Path("network") String network,
                                          @Path("txid") String txid);
 
@@ -97,14 +131,37 @@ public interface BitcoinApi {
      * @param network   Tipo de red a la cual pertenecen las direcciones. Ej. mainnet o testnet.
      * @param addresses Direcciones a consultar.
      * @param height    Altura utilizada como punto de partida de la búsqueda.
-     * @return Una instancia que gesitona la llamada asíncrona de la API.
+     * @return Una instancia que gesitona la llamada asíncrona de la API. El cuerpo de la respuesta
+     * debe ser leído con {@link TxDataStreamReader}.
      */
     @POST("btc/{network}/history")
+    @BinaryTxData
     @FormUrlEncoded
-    Call<List<TxDataResponse>> getHistory(@Path("network") String network,
-                                          @Field("addresses") String addresses,
-                                          @Query("height") int height);
+    @CompressedBody
+    @Streaming
+    Call<ResponseBody> getHistory(@Path("network") String network,
+                                  @Field("addresses") String addresses,
+                                  @Query("height") int height);
 
+    /**
+     * Obtiene las cabeceras de los bloques comprendidos entre dos alturas y las transacciones de
+     * las direcciones especificadas incluidas en ellos. La primera cabecera corresponde a la
+     * altura inicial, de esta forma puede verificarse que el rango continúa el último bloque
+     * conocido. Si no se especifican direcciones, solo se devuelven las cabeceras.
+     *
+     * @param network    Tipo de red a la cual pertenecen las direcciones. Ej. mainnet o testnet.
+     * @param addresses  Direcciones a consultar.
+     * @param fromHeight Altura del último bloque conocido.
+     * @param toHeight   Altura del último bloque del rango.
+     * @return Una instancia que gestiona la llamada asíncrona de la API.
+     */
+    @POST("btc/{network}/blocks")
+    @FormUrlEncoded
+    @CompressedBody
+    Call<BlockRangeResponse> getBlockRange(@Path("network") String network,
+                                           @Field("addresses") String addresses,
+                                           @Query("from") int fromHeight,
+                                           @Query("to") int toHeight);
 
     /**
      * Subscribe una billetera al servicio de notificaciones.
@@ -117,6 +174,7 @@ public interface BitcoinApi {
      */
     @POST("btc/{network}/subscribe")
     @FormUrlEncoded
+    @CompressedBody
     Call<SuccessfulResponse> subscribe(@Path("network") String network,
                                        @Field("pushToken") String pushToken,
                                        @Field("walletId") String walletId,
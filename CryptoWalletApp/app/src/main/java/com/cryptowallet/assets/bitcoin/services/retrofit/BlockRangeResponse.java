@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services.retrofit;
+
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.SerializedName;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Define una estructura para las respuestas con los bloques de un rango de alturas y las
+ * transacciones de las direcciones consultadas incluidas en ellos.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ * @see BitcoinApi
+ * @see com.cryptowallet.assets.bitcoin.services.BitcoinProvider
+ */
+@SuppressWarnings("unused")
+public class BlockRangeResponse {
+
+    /**
+     * Cabeceras de los bloques del rango en orden ascendente de altura.
+     */
+    @SerializedName("blocks")
+    @Expose
+    private List<HeaderResponse> mBlocks;
+
+    /**
+     * Transacciones de las direcciones consultadas incluidas en los bloques del rango.
+     */
+    @SerializedName("txs")
+    @Expose
+    private List<TxDataResponse> mTxs;
+
+    /**
+     * Obtiene las cabeceras de los bloques del rango.
+     *
+     * @return Lista de cabeceras.
+     */
+    public List<HeaderResponse> getBlocks() {
+        return mBlocks == null ? Collections.emptyList() : mBlocks;
+    }
+
+    /**
+     * Obtiene las transacciones incluidas en los bloques del rango.
+     *
+     * @return Lista de transacciones.
+     */
+    public List<TxDataResponse> getTxs() {
+        return mTxs == null ? Collections.emptyList() : mTxs;
+    }
+
+    /**
+     * Define la estructura de la cabecera de un bloque.
+     *
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    public static class HeaderResponse {
+
+        /**
+         * Hash del bloque.
+         */
+        @SerializedName("hash")
+        @Expose
+        private String mHash;
+
+        /**
+         * Hash del bloque anterior.
+         */
+        @SerializedName("prev")
+        @Expose
+        private String mPrevious;
+
+        /**
+         * Altura del bloque.
+         */
+        @SerializedName("height")
+        @Expose
+        private int mHeight;
+
+        /**
+         * Fecha y hora del bloque en segundos.
+         */
+        @SerializedName("time")
+        @Expose
+        private int mTime;
+
+        /**
+         * Obtiene el hash del bloque.
+         *
+         * @return Hash del bloque.
+         */
+        public String getHash() {
+            return mHash;
+        }
+
+        /**
+         * Obtiene el hash del bloque anterior.
+         *
+         * @return Hash del bloque anterior.
+         */
+        public String getPrevious() {
+            return mPrevious;
+        }
+
+        /**
+         * Obtiene la altura del bloque.
+         *
+         * @return Altura del bloque.
+         */
+        public int getHeight() {
+            return mHeight;
+        }
+
+        /**
+         * Obtiene la fecha y hora del bloque.
+         *
+         * @return Fecha y hora expresada en segundos.
+         */
+        public int getTime() {
+            return mTime;
+        }
+    }
+}
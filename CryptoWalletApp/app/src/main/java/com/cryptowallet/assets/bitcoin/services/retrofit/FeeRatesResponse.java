@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services.retrofit;
+
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.SerializedName;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Define una estructura para las respuestas con las tasas de comisión de los bloques recientes.
+ * Por cada bloque se reporta la tasa mínima requerida para confirmar dentro de distintos
+ * objetivos de bloques.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ * @see BitcoinApi
+ * @see com.cryptowallet.assets.bitcoin.services.BitcoinProvider
+ */
+@SuppressWarnings("unused")
+public class FeeRatesResponse {
+
+    /**
+     * Tasas de los bloques recientes.
+     */
+    @SerializedName("blocks")
+    @Expose
+    private List<BlockFeesResponse> mBlocks;
+
+    /**
+     * Obtiene las tasas de los bloques recientes.
+     *
+     * @return Lista de bloques.
+     */
+    public List<BlockFeesResponse> getBlocks() {
+        return mBlocks == null ? Collections.emptyList() : mBlocks;
+    }
+
+    /**
+     * Define la estructura de las tasas de comisión de un bloque.
+     *
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    public static class BlockFeesResponse {
+
+        /**
+         * Altura del bloque.
+         */
+        @SerializedName("height")
+        @Expose
+        private int mHeight;
+
+        /**
+         * Tasas por objetivo de confirmación.
+         */
+        @SerializedName("buckets")
+        @Expose
+        private List<BucketResponse> mBuckets;
+
+        /**
+         * Obtiene la altura del bloque.
+         *
+         * @return Altura del bloque.
+         */
+        public int getHeight() {
+            return mHeight;
+        }
+
+        /**
+         * Obtiene las tasas por objetivo de confirmación.
+         *
+         * @return Lista de tasas.
+         */
+        public List<BucketResponse> getBuckets() {
+            return mBuckets == null ? Collections.emptyList() : mBuckets;
+        }
+    }
+
+    /**
+     * Define la estructura de la tasa de comisión de un objetivo de confirmación.
+     *
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    public static class BucketResponse {
+
+        /**
+         * Objetivo de confirmación en bloques.
+         */
+        @SerializedName("target")
+        @Expose
+        private int mTarget;
+
+        /**
+         * Comisión por KB en satoshis.
+         */
+        @SerializedName("rate")
+        @Expose
+        private long mRate;
+
+        /**
+         * Obtiene el objetivo de confirmación.
+         *
+         * @return Cantidad de bloques.
+         */
+        public int getTarget() {
+            return mTarget;
+        }
+
+        /**
+         * Obtiene la comisión por KB.
+         *
+         * @return Comisión en satoshis.
+         */
+        public long getRate() {
+            return mRate;
+        }
+    }
+}
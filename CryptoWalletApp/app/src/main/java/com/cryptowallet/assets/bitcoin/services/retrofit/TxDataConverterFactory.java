@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services.retrofit;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Fábrica de convertidores para las respuestas del tipo {@link TxDataResponse} y
+ * {@code List<TxDataResponse>}. Si la respuesta utiliza el formato binario de
+ * {@link TxDataFormat} se decodifica directamente, en otro caso se delega al siguiente convertidor
+ * registrado (JSON). Debe registrarse antes de {@code GsonConverterFactory}.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public final class TxDataConverterFactory extends Converter.Factory {
+
+    /**
+     * Crea una nueva instancia de la fábrica.
+     *
+     * @return Una fábrica de convertidores.
+     */
+    public static TxDataConverterFactory create() {
+        return new TxDataConverterFactory();
+    }
+
+    /**
+     * Crea una nueva instancia de la fábrica.
+     */
+    private TxDataConverterFactory() {
+    }
+
+    /**
+     * Obtiene el convertidor para el tipo especificado o null si el tipo no es soportado.
+     *
+     * @param type        Tipo de la respuesta.
+     * @param annotations Anotaciones del método.
+     * @param retrofit    Instancia de Retrofit.
+     * @return Un convertidor o null.
+     */
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations,
+                                                            Retrofit retrofit) {
+        final boolean isList;
+
+        if (type == TxDataResponse.class)
+            isList = false;
+        else if (type instanceof ParameterizedType
+                && getRawType(type) == List.class
+                && getParameterUpperBound(0, (ParameterizedType) type) == TxDataResponse.class)
+            isList = true;
+        else
+            return null;
+
+        final Converter<ResponseBody, ?> next
+                = retrofit.nextResponseBodyConverter(this, type, annotations);
+
+        return body -> {
+            if (!TxDataFormat.isBinary(body.contentType()))
+                return next.convert(body);
+
+            final List<TxDataResponse> transactions = readAll(body);
+
+            if (isList)
+                return transactions;
+
+            if (transactions.size() != 1)
+                throw new IOException("Expected one transaction, received "
+                        + transactions.size());
+
+            return transactions.get(0);
+        };
+    }
+
+    /**
+     * Lee todos los registros del cuerpo de la respuesta.
+     *
+     * @param body Cuerpo de la respuesta.
+     * @return Lista de transacciones.
+     * @throws IOException Si ocurre un error al leer la respuesta.
+     */
+    private static List<TxDataResponse> readAll(ResponseBody body) throws IOException {
+        final List<TxDataResponse> transactions = new ArrayList<>();
+
+        try (ResponseBody ignored = body) {
+            TxDataFormat.read(body.byteStream(), (data, block, height, time, index) ->
+                    transactions.add(new TxDataResponse(data, block, height, time, index)));
+        }
+
+        return transactions;
+    }
+}
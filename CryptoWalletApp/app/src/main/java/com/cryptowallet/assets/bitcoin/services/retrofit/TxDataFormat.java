@@ -0,0 +1,182 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services.retrofit;
+
+import org.bouncycastle.util.encoders.Hex;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import okhttp3.MediaType;
+
+/**
+ * Define el formato binario de las respuestas de transacciones. Cada registro se compone de los
+ * siguientes campos codificados en orden de red (big-endian):
+ * <pre>
+ * int32     Longitud de la transacción.
+ * byte[]    Transacción serializada.
+ * byte[32]  Hash del bloque, ceros si se encuentra en el pool de memoria.
+ * int32     Altura del bloque, -1 si se encuentra en el pool de memoria.
+ * int32     Fecha y hora del bloque o de llegada al pool de memoria en segundos.
+ * int32     Posición de la transacción en el bloque.
+ * </pre>
+ * Una respuesta contiene los registros de forma consecutiva hasta el final del cuerpo.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ * @see TxDataStreamReader
+ * @see TxDataConverterFactory
+ */
+public final class TxDataFormat {
+
+    /**
+     * Tipo de contenido del formato binario.
+     */
+    public static final String CONTENT_TYPE = "application/vnd.cryptowallet.txdata";
+
+    /**
+     * Valor de la cabecera Accept cuando se solicita el formato binario. El JSON permanece como
+     * alternativa en caso de que el servidor no soporte el formato.
+     */
+    static final String ACCEPT = CONTENT_TYPE + ", application/json;q=0.9";
+
+    /**
+     * Longitud del hash del bloque.
+     */
+    private static final int HASH_LENGTH = 32;
+
+    /**
+     * Longitud máxima de una transacción (peso máximo de un bloque).
+     */
+    private static final int MAX_TX_LENGTH = 4_000_000;
+
+    /**
+     * Hash utilizado cuando la transacción se encuentra en el pool de memoria.
+     */
+    private static final byte[] EMPTY_HASH = new byte[HASH_LENGTH];
+
+    /**
+     * No es posible crear instancias.
+     */
+    private TxDataFormat() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Determina si el tipo de contenido corresponde al formato binario.
+     *
+     * @param contentType Tipo de contenido de la respuesta.
+     * @return Un true si el contenido es binario.
+     */
+    public static boolean isBinary(MediaType contentType) {
+        return contentType != null && CONTENT_TYPE.equals(
+                contentType.type() + "/" + contentType.subtype());
+    }
+
+    /**
+     * Lee los registros del flujo y los entrega al receptor uno a uno.
+     *
+     * @param stream   Flujo de la respuesta.
+     * @param receiver Receptor de las transacciones.
+     * @return Cantidad de registros leídos.
+     * @throws IOException Si el flujo está truncado o no tiene el formato esperado.
+     */
+    public static int read(InputStream stream, TxDataStreamReader.TxDataReceiver receiver)
+            throws IOException {
+        final DataInputStream input = new DataInputStream(stream);
+        int count = 0;
+
+        while (readRecord(input, receiver))
+            count++;
+
+        return count;
+    }
+
+    /**
+     * Lee un solo registro del flujo y lo entrega al receptor.
+     *
+     * @param input    Flujo de datos.
+     * @param receiver Receptor de la transacción.
+     * @return Un true si se leyó un registro o false si el flujo terminó antes de iniciar uno.
+     * @throws IOException Si el registro está truncado o no tiene el formato esperado.
+     */
+    public static boolean readRecord(DataInputStream input,
+                                     TxDataStreamReader.TxDataReceiver receiver)
+            throws IOException {
+        final int length;
+
+        try {
+            length = input.readInt();
+        } catch (EOFException ignored) {
+            return false;
+        }
+
+        if (length <= 0 || length > MAX_TX_LENGTH)
+            throw new IOException("Invalid transaction length: " + length);
+
+        final byte[] data = new byte[length];
+        final byte[] hash = new byte[HASH_LENGTH];
+
+        input.readFully(data);
+        input.readFully(hash);
+
+        final int height = input.readInt();
+        final int time = input.readInt();
+        final int index = input.readInt();
+        final String block = Arrays.equals(hash, EMPTY_HASH) ? null : Hex.toHexString(hash);
+
+        receiver.onTransaction(data, block, height, time, index);
+
+        return true;
+    }
+
+    /**
+     * Escribe un registro en el flujo.
+     *
+     * @param stream Flujo de destino.
+     * @param data   Transacción serializada.
+     * @param block  Hash del bloque o null si se encuentra en el pool de memoria.
+     * @param height Altura del bloque o -1 si se encuentra en el pool de memoria.
+     * @param time   Fecha y hora del bloque o de llegada al pool de memoria en segundos.
+     * @param index  Posición de la transacción en el bloque.
+     * @throws IOException Si ocurre un error al escribir en el flujo.
+     */
+    public static void write(OutputStream stream, byte[] data, String block, long height,
+                             int time, int index) throws IOException {
+        final byte[] hash = block == null ? EMPTY_HASH : Hex.decode(block);
+
+        if (hash.length != HASH_LENGTH)
+            throw new IllegalArgumentException("Invalid block hash: " + block);
+
+        final DataOutputStream output = new DataOutputStream(stream);
+
+        output.writeInt(data.length);
+        output.write(data);
+        output.write(hash);
+        output.writeInt((int) height);
+        output.writeInt(time);
+        output.writeInt(index);
+        output.flush();
+    }
+}
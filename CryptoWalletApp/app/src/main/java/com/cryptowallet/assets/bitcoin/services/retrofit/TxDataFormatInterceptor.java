@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services.retrofit;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import retrofit2.Invocation;
+
+/**
+ * Interceptor que solicita el formato binario de {@link TxDataFormat} a los endpoints marcados con
+ * {@link BinaryTxData}. El servidor decide el formato de la respuesta, por lo que los
+ * convertidores deben admitir ambos formatos.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public final class TxDataFormatInterceptor implements Interceptor {
+
+    /**
+     * Indica si el formato binario es solicitado.
+     */
+    private volatile boolean mEnabled;
+
+    /**
+     * Establece si se solicita el formato binario.
+     *
+     * @param enabled True para solicitar el formato binario.
+     */
+    public void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+    }
+
+    /**
+     * Indica si se solicita el formato binario.
+     *
+     * @return Un true si el formato binario es solicitado.
+     */
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     * Agrega la cabecera Accept a las peticiones de los endpoints que admiten el formato binario.
+     *
+     * @param chain Cadena de la petición.
+     * @return La respuesta de la petición.
+     * @throws IOException Si ocurre un error en la petición.
+     */
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        final Request request = chain.request();
+        final Invocation invocation = request.tag(Invocation.class);
+
+        if (!mEnabled || invocation == null
+                || !invocation.method().isAnnotationPresent(BinaryTxData.class))
+            return chain.proceed(request);
+
+        return chain.proceed(request.newBuilder()
+                .header("Accept", TxDataFormat.ACCEPT)
+                .build());
+    }
+}
@@ -76,6 +76,36 @@ public class TxDataResponse {
     @Expose
     private Integer mIndex;
 
+    /**
+     * Data serializada de la transacción cuando se recibe en formato binario.
+     */
+    private transient byte[] mBuffer;
+
+    /**
+     * Crea una instancia vacía que será llenada por el convertidor JSON.
+     */
+    public TxDataResponse() {
+    }
+
+    /**
+     * Crea una instancia a partir de un registro en formato binario. El identificador de la
+     * transacción no forma parte del registro, por lo que {@link #getTxid()} devuelve null.
+     *
+     * @param data   Transacción serializada.
+     * @param block  Hash del bloque o null si se encuentra en el pool de memoria.
+     * @param height Altura del bloque o -1 si se encuentra en el pool de memoria.
+     * @param time   Fecha y hora del bloque o de llegada al pool de memoria en segundos.
+     * @param index  Posición de la transacción en el bloque.
+     * @see TxDataFormat
+     */
+    TxDataResponse(byte[] data, String block, long height, int time, int index) {
+        mBuffer = data;
+        mBlock = block;
+        mHeight = (int) height;
+        mTime = time;
+        mIndex = index;
+    }
+
     /**
      * Obtiene la posición de la transacción del bloque.
      *
@@ -100,6 +130,9 @@ public class TxDataResponse {
      * @return Transacción serializada.
      */
     public String getData() {
+        if (mData == null && mBuffer != null)
+            return Hex.toHexString(mBuffer);
+
         return mData;
     }
 
@@ -128,6 +161,9 @@ public class TxDataResponse {
      * @return Transacción serializada.
      */
     public byte[] getDataAsBuffer() {
+        if (mBuffer != null)
+            return mBuffer;
+
         return Hex.decode(this.getData());
     }
 
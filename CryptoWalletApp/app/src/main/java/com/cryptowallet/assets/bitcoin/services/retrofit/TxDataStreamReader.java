@@ -0,0 +1,154 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services.retrofit;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import org.bouncycastle.util.encoders.Hex;
+
+import java.io.IOException;
+
+import okhttp3.ResponseBody;
+
+/**
+ * Lector de respuestas que contienen una lista de transacciones con la estructura de
+ * {@link TxDataResponse}. Cada transacción es decodificada directamente desde el flujo de la
+ * respuesta y entregada al receptor, sin materializar la lista completa. Si la respuesta utiliza el
+ * formato binario definido en {@link TxDataFormat}, se decodifica con este; en otro caso se
+ * considera JSON.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ * @see BitcoinApi
+ */
+public final class TxDataStreamReader {
+
+    /**
+     * No es posible crear instancias.
+     */
+    private TxDataStreamReader() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Lee la lista de transacciones del cuerpo de la respuesta y la entrega al receptor una a una.
+     * El cuerpo de la respuesta es cerrado al finalizar.
+     *
+     * @param body     Cuerpo de la respuesta.
+     * @param receiver Receptor de las transacciones.
+     * @return Cantidad de transacciones leídas.
+     * @throws IOException Si ocurre un error al leer la respuesta.
+     */
+    public static int read(ResponseBody body, TxDataReceiver receiver) throws IOException {
+        if (TxDataFormat.isBinary(body.contentType()))
+            try (ResponseBody ignored = body) {
+                return TxDataFormat.read(body.byteStream(), receiver);
+            }
+
+        int count = 0;
+
+        try (JsonReader reader = new JsonReader(body.charStream())) {
+            reader.beginArray();
+
+            while (reader.hasNext()) {
+                readTransaction(reader, receiver);
+                count++;
+            }
+
+            reader.endArray();
+        }
+
+        return count;
+    }
+
+    /**
+     * Lee una transacción del flujo.
+     *
+     * @param reader   Lector del flujo.
+     * @param receiver Receptor de las transacciones.
+     * @throws IOException Si ocurre un error al leer la respuesta.
+     */
+    private static void readTransaction(JsonReader reader, TxDataReceiver receiver)
+            throws IOException {
+        byte[] data = null;
+        String block = null;
+        int time = 0;
+        long height = -1;
+        int index = 0;
+
+        reader.beginObject();
+
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case "data":
+                    data = Hex.decode(reader.nextString());
+                    break;
+                case "block":
+                    block = reader.nextString();
+                    break;
+                case "time":
+                    time = reader.nextInt();
+                    break;
+                case "height":
+                    height = reader.nextLong();
+                    break;
+                case "index":
+                    index = reader.nextInt();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+
+        reader.endObject();
+
+        if (data == null)
+            throw new IOException("Transaction without data");
+
+        receiver.onTransaction(data, block, height, time, index);
+    }
+
+    /**
+     * Receptor de las transacciones leídas del flujo.
+     *
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    public interface TxDataReceiver {
+
+        /**
+         * Recibe una transacción decodificada.
+         *
+         * @param data   Transacción serializada.
+         * @param block  Hash del bloque o null si se encuentra en el pool de memoria.
+         * @param height Altura del bloque o -1 si se encuentra en el pool de memoria.
+         * @param time   Fecha y hora del bloque o de llegada al pool de memoria en segundos.
+         * @param index  Posición de la transacción en el bloque.
+         */
+        void onTransaction(byte[] data, String block, long height, int time, int index);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet;
+
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.script.ScriptException;
+import org.bitcoinj.script.ScriptPattern;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Índice de la actividad de las direcciones. Relaciona el hash160 de cada dirección que recibe
+ * monedas con los identificadores de las transacciones que le pagan. Se construye conforme se
+ * reciben las transacciones del historial, de esta forma determinar si una dirección tiene
+ * actividad es una consulta directa, sin codificar direcciones ni recorrer las transacciones.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ * @see AddressIndex
+ */
+class AddressActivity {
+
+    /**
+     * Transacciones indexadas por el hash160 de las direcciones que reciben monedas.
+     */
+    private final Map<ByteBuffer, Set<String>> mTxids = new HashMap<>();
+
+    /**
+     * Agrega las salidas de la transacción al índice. Se indexan las salidas de pago a hash de
+     * clave pública, tanto legadas como segwit.
+     *
+     * @param txid Identificador de la transacción.
+     * @param tx   Transacción a indexar.
+     */
+    synchronized void add(String txid, Transaction tx) {
+        for (TransactionOutput output : tx.getOutputs()) {
+            final byte[] hash = extractHash(output);
+
+            if (hash == null)
+                continue;
+
+            final ByteBuffer key = ByteBuffer.wrap(hash);
+            Set<String> txids = mTxids.get(key);
+
+            if (txids == null) {
+                txids = new HashSet<>();
+                mTxids.put(key, txids);
+            }
+
+            txids.add(txid);
+        }
+    }
+
+    /**
+     * Determina si la dirección recibe monedas en alguna de las transacciones indexadas.
+     *
+     * @param hash Hash160 de la dirección.
+     * @return Un true si la dirección tiene actividad.
+     */
+    synchronized boolean hasActivity(byte[] hash) {
+        return mTxids.containsKey(ByteBuffer.wrap(hash));
+    }
+
+    /**
+     * Obtiene los identificadores de las transacciones que pagan a la dirección.
+     *
+     * @param hash Hash160 de la dirección.
+     * @return Conjunto de identificadores, vacío si la dirección no tiene actividad.
+     */
+    synchronized Set<String> getTxids(byte[] hash) {
+        final Set<String> txids = mTxids.get(ByteBuffer.wrap(hash));
+
+        return txids == null ? Collections.emptySet() : new HashSet<>(txids);
+    }
+
+    /**
+     * Obtiene la cantidad de direcciones con actividad.
+     *
+     * @return Cantidad de direcciones.
+     */
+    synchronized int size() {
+        return mTxids.size();
+    }
+
+    /**
+     * Obtiene el hash160 del destinatario de la salida.
+     *
+     * @param output Salida de la transacción.
+     * @return Hash160 o null si la salida no paga a un hash de clave pública.
+     */
+    private static byte[] extractHash(TransactionOutput output) {
+        try {
+            final Script script = output.getScriptPubKey();
+
+            if (ScriptPattern.isP2PKH(script))
+                return ScriptPattern.extractHashFromP2PKH(script);
+
+            if (ScriptPattern.isP2WPKH(script))
+                return ScriptPattern.extractHashFromP2WH(script);
+        } catch (ScriptException ignored) {
+            // Las salidas con scripts inválidos no pagan a ninguna dirección
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,456 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet;
+
+import android.util.Log;
+
+import org.bitcoinj.core.LegacyAddress;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.crypto.ChildNumber;
+import org.bitcoinj.crypto.DeterministicKey;
+import org.bitcoinj.crypto.HDKeyDerivation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Índice persistente de las direcciones de una cadena HD. Cada entrada almacena el índice de la
+ * clave, el tipo de script y el hash160 de la clave pública. El índice solo crece: las entradas
+ * nuevas se derivan a partir de la última clave derivada y se agregan al final del archivo, de
+ * esta forma las direcciones no se vuelven a derivar en cada sincronización.
+ * <p>
+ * El archivo se compone de una cabecera y de registros de longitud fija:
+ * <pre>
+ * int32     Número mágico.
+ * byte      Versión del formato.
+ * byte[20]  Hash160 de la clave pública de la cadena, identifica la semilla.
+ * registros:
+ *   int32     Índice de la clave.
+ *   byte      Tipo de script.
+ *   byte[20]  Hash160 de la clave pública.
+ * </pre>
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+class AddressIndex {
+
+    /**
+     * Tipo de script de pago a hash de clave pública.
+     */
+    static final byte SCRIPT_P2PKH = 0;
+
+    /**
+     * Etiqueta del log.
+     */
+    private static final String LOG_TAG = "AddressIndex";
+
+    /**
+     * Número mágico del archivo.
+     */
+    private static final int MAGIC = 0x41494458;
+
+    /**
+     * Versión del formato del archivo.
+     */
+    private static final byte VERSION = 1;
+
+    /**
+     * Longitud del hash160.
+     */
+    private static final int HASH_LENGTH = 20;
+
+    /**
+     * Longitud de la cabecera del archivo.
+     */
+    private static final int HEADER_LENGTH = 4 + 1 + HASH_LENGTH;
+
+    /**
+     * Longitud de cada registro del archivo.
+     */
+    private static final int RECORD_LENGTH = 4 + 1 + HASH_LENGTH;
+
+    /**
+     * Claves a partir de las cuales la derivación se distribuye entre los núcleos.
+     */
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    /**
+     * Capacidad inicial del índice.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Ejecutor de la derivación en paralelo.
+     */
+    private static ExecutorService mExecutor;
+
+    /**
+     * Clave pública de la cadena.
+     */
+    private final DeterministicKey mChainKey;
+
+    /**
+     * Parametros de la red.
+     */
+    private final NetworkParameters mNetwork;
+
+    /**
+     * Archivo del índice.
+     */
+    private final File mFile;
+
+    /**
+     * Hash160 de las claves derivadas, de forma consecutiva.
+     */
+    private byte[] mHashes;
+
+    /**
+     * Tipo de script de las claves derivadas.
+     */
+    private byte[] mTypes;
+
+    /**
+     * Cantidad de entradas del índice.
+     */
+    private int mSize;
+
+    /**
+     * Cantidad de claves derivadas por esta instancia.
+     */
+    private int mDerived;
+
+    /**
+     * Crea el índice de la cadena y carga las entradas previamente almacenadas.
+     *
+     * @param chainKey Clave de la cadena (m/0'/0 o m/0'/1).
+     * @param network  Parametros de la red.
+     * @param file     Archivo del índice.
+     */
+    AddressIndex(DeterministicKey chainKey, NetworkParameters network, File file) {
+        mChainKey = chainKey.dropPrivateBytes().dropParent();
+        mNetwork = network;
+        mFile = file;
+        mHashes = new byte[INITIAL_CAPACITY * HASH_LENGTH];
+        mTypes = new byte[INITIAL_CAPACITY];
+
+        load();
+    }
+
+    /**
+     * Obtiene la cantidad de entradas del índice.
+     *
+     * @return Cantidad de entradas.
+     */
+    synchronized int size() {
+        return mSize;
+    }
+
+    /**
+     * Obtiene la cantidad de claves derivadas por esta instancia, sin contar las cargadas del
+     * archivo.
+     *
+     * @return Claves derivadas.
+     */
+    synchronized int getDerivedCount() {
+        return mDerived;
+    }
+
+    /**
+     * Obtiene el hash160 de la clave del índice especificado, derivando las claves faltantes.
+     *
+     * @param index Índice de la clave.
+     * @return Hash160 de la clave pública.
+     */
+    synchronized byte[] getHash(int index) {
+        ensure(index + 1);
+
+        return Arrays.copyOfRange(mHashes, index * HASH_LENGTH, (index + 1) * HASH_LENGTH);
+    }
+
+    /**
+     * Obtiene la dirección del índice especificado, derivando las claves faltantes.
+     *
+     * @param index Índice de la clave.
+     * @return Dirección de la clave.
+     */
+    LegacyAddress getAddress(int index) {
+        return LegacyAddress.fromPubKeyHash(mNetwork, getHash(index));
+    }
+
+    /**
+     * Obtiene las direcciones serializadas como las espera la api: el byte de versión seguido del
+     * hash160 de cada dirección.
+     *
+     * @param fromIndex Índice de la primera dirección.
+     * @param size      Cantidad de direcciones.
+     * @return Direcciones serializadas.
+     */
+    synchronized byte[] getAddresses(int fromIndex, int size) {
+        ensure(fromIndex + size);
+
+        final byte[] addresses = new byte[size * (HASH_LENGTH + 1)];
+        final byte version = (byte) mNetwork.getAddressHeader();
+
+        for (int i = 0; i < size; i++) {
+            addresses[i * (HASH_LENGTH + 1)] = version;
+            System.arraycopy(mHashes, (fromIndex + i) * HASH_LENGTH, addresses,
+                    i * (HASH_LENGTH + 1) + 1, HASH_LENGTH);
+        }
+
+        return addresses;
+    }
+
+    /**
+     * Deriva las claves faltantes hasta alcanzar la cantidad especificada de entradas y las
+     * agrega al archivo.
+     *
+     * @param count Cantidad de entradas requeridas.
+     */
+    synchronized void ensure(int count) {
+        if (count <= mSize)
+            return;
+
+        final int from = mSize;
+        final byte[] hashes = derive(from, count - from);
+
+        grow(count);
+        System.arraycopy(hashes, 0, mHashes, from * HASH_LENGTH, hashes.length);
+        Arrays.fill(mTypes, from, count, SCRIPT_P2PKH);
+        mSize = count;
+        mDerived += count - from;
+
+        append(from, count);
+    }
+
+    /**
+     * Elimina el archivo del índice.
+     *
+     * @return Un true si el archivo fue eliminado.
+     */
+    synchronized boolean delete() {
+        mSize = 0;
+
+        return !mFile.exists() || mFile.delete();
+    }
+
+    /**
+     * Deriva las claves del rango especificado. Los rangos grandes se dividen entre los núcleos
+     * disponibles.
+     *
+     * @param from  Índice de la primera clave.
+     * @param count Cantidad de claves.
+     * @return Hash160 de las claves de forma consecutiva.
+     */
+    private byte[] derive(int from, int count) {
+        final byte[] hashes = new byte[count * HASH_LENGTH];
+        final int cores = Runtime.getRuntime().availableProcessors();
+
+        if (count < PARALLEL_THRESHOLD || cores < 2) {
+            deriveRange(hashes, from, 0, count);
+            return hashes;
+        }
+
+        final int slice = (count + cores - 1) / cores;
+        final List<Future<?>> tasks = new ArrayList<>();
+
+        for (int start = 0; start < count; start += slice) {
+            final int offset = start;
+            final int length = Math.min(slice, count - start);
+
+            tasks.add(getExecutor().submit(() -> deriveRange(hashes, from, offset, length)));
+        }
+
+        try {
+            for (Future<?> task : tasks)
+                task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+
+        return hashes;
+    }
+
+    /**
+     * Deriva un rango de claves y escribe su hash160 en el buffer.
+     *
+     * @param hashes Buffer de destino.
+     * @param from   Índice de la primera clave del buffer.
+     * @param offset Posición del rango dentro del buffer.
+     * @param length Cantidad de claves del rango.
+     */
+    private void deriveRange(byte[] hashes, int from, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            final DeterministicKey key
+                    = HDKeyDerivation.deriveChildKey(mChainKey, new ChildNumber(from + i));
+
+            System.arraycopy(key.getPubKeyHash(), 0, hashes, i * HASH_LENGTH, HASH_LENGTH);
+        }
+    }
+
+    /**
+     * Asegura la capacidad del índice.
+     *
+     * @param capacity Cantidad de entradas requeridas.
+     */
+    private void grow(int capacity) {
+        if (capacity <= mTypes.length)
+            return;
+
+        final int newCapacity = Math.max(capacity, mTypes.length * 2);
+
+        mHashes = Arrays.copyOf(mHashes, newCapacity * HASH_LENGTH);
+        mTypes = Arrays.copyOf(mTypes, newCapacity);
+    }
+
+    /**
+     * Carga las entradas almacenadas en el archivo. Si el archivo pertenece a otra cadena o tiene
+     * un formato desconocido, se descarta; si el último registro está incompleto, se trunca.
+     */
+    private void load() {
+        if (!mFile.exists())
+            return;
+
+        long validLength = 0;
+
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(mFile)))) {
+            final byte[] fingerprint = new byte[HASH_LENGTH];
+
+            if (input.readInt() != MAGIC || input.readByte() != VERSION)
+                throw new IOException("Unknown format");
+
+            input.readFully(fingerprint);
+
+            if (!Arrays.equals(fingerprint, mChainKey.getPubKeyHash()))
+                throw new IOException("The index belongs to another chain");
+
+            validLength = HEADER_LENGTH;
+
+            final byte[] hash = new byte[HASH_LENGTH];
+
+            while (true) {
+                final int index;
+                final byte type;
+
+                try {
+                    index = input.readInt();
+                    type = input.readByte();
+                    input.readFully(hash);
+                } catch (EOFException ignored) {
+                    break;
+                }
+
+                if (index != mSize)
+                    break;
+
+                grow(mSize + 1);
+                System.arraycopy(hash, 0, mHashes, mSize * HASH_LENGTH, HASH_LENGTH);
+                mTypes[mSize++] = type;
+                validLength += RECORD_LENGTH;
+            }
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Discarding " + mFile.getName() + ": " + e.getMessage());
+            mSize = 0;
+            validLength = 0;
+        }
+
+        if (validLength == mFile.length())
+            return;
+
+        if (validLength == 0) {
+            //noinspection ResultOfMethodCallIgnored
+            mFile.delete();
+            return;
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "rw")) {
+            file.setLength(validLength);
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Unable to truncate " + mFile.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Agrega las entradas del rango al final del archivo. Si el archivo no existe, se crea con la
+     * cabecera y todas las entradas del índice.
+     *
+     * @param from Índice de la primera entrada.
+     * @param to   Índice siguiente a la última entrada.
+     */
+    private void append(int from, int to) {
+        final boolean exists = mFile.exists();
+        final int start = exists ? from : 0;
+
+        try (FileOutputStream stream = new FileOutputStream(mFile, exists);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream))) {
+            if (!exists) {
+                output.writeInt(MAGIC);
+                output.writeByte(VERSION);
+                output.write(mChainKey.getPubKeyHash());
+            }
+
+            for (int i = start; i < to; i++) {
+                output.writeInt(i);
+                output.writeByte(mTypes[i]);
+                output.write(mHashes, i * HASH_LENGTH, HASH_LENGTH);
+            }
+
+            output.flush();
+            stream.getFD().sync();
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Unable to save " + mFile.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Obtiene el ejecutor de la derivación en paralelo.
+     *
+     * @return Ejecutor compartido por todos los índices.
+     */
+    private static synchronized ExecutorService getExecutor() {
+        if (mExecutor == null)
+            mExecutor = Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors(), runnable -> {
+                        final Thread thread = new Thread(runnable, "AddressIndex");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+
+        return mExecutor;
+    }
+}
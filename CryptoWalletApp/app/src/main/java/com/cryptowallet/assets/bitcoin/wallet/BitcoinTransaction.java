@@ -136,17 +136,38 @@ public class BitcoinTransaction implements ITransaction {
         if (wallet.getCryptoAsset() != SupportedAssets.BTC)
             throw new IllegalArgumentException("The wallet doesn't have the same cryptoasset");
 
-        final BitcoinTransaction tx = new BitcoinTransaction(
-                wallet,
-                data.getDataAsBuffer()
-        );
-
-        tx.setBlockInfo(
+        return fromRawData(
+                data.getDataAsBuffer(),
                 data.getBlock(),
                 data.getHeight(),
-                data.getTime() * 1000L,
-                data.getBlockIndex()
+                data.getTime(),
+                data.getBlockIndex(),
+                wallet
         );
+    }
+
+    /**
+     * Crea una transacción de Bitcoin a partir de la transacción serializada y la información de
+     * su bloque.
+     *
+     * @param payload Transacción serializada.
+     * @param block   Hash del bloque o null si se encuentra en el pool de memoria.
+     * @param height  Altura del bloque.
+     * @param time    Tiempo del bloque en segundos.
+     * @param index   Posición de la transacción en el bloque.
+     * @param wallet  Billetera que la contiene.
+     * @return Una transacción de Bitcoin.
+     * @see com.cryptowallet.assets.bitcoin.services.retrofit.TxDataStreamReader
+     */
+    public static BitcoinTransaction fromRawData(@NonNull byte[] payload, String block,
+                                                 long height, int time, int index,
+                                                 @NonNull BitcoinWallet wallet) {
+        Objects.requireNonNull(payload);
+        Objects.requireNonNull(wallet);
+
+        final BitcoinTransaction tx = new BitcoinTransaction(wallet, payload);
+
+        tx.setBlockInfo(block, height, time * 1000L, index);
 
         return tx;
     }
@@ -452,10 +473,13 @@ public class BitcoinTransaction implements ITransaction {
      */
     @Override
     public long getConfirmations() {
-        if (mTx.getConfidence(Context.getOrCreate(mWalletParent.getNetwork())).getConfidenceType()
-                != TransactionConfidence.ConfidenceType.BUILDING)
+        final TransactionConfidence confidence
+                = mTx.getConfidence(Context.getOrCreate(mWalletParent.getNetwork()));
+
+        if (confidence.getConfidenceType() != TransactionConfidence.ConfidenceType.BUILDING)
             return 0;
-        return this.mTx.getConfidence().getDepthInBlocks();
+
+        return mWalletParent.getDepth(confidence.getAppearedAtChainHeight());
     }
 
     /**
@@ -557,10 +581,8 @@ public class BitcoinTransaction implements ITransaction {
             }
 
             final long time = mTx.getUpdateTime().getTime();
-            final int depth = mTx.getConfidence().getDepthInBlocks();
 
             wtx.setBlockInfo(hash, height, time, index);
-            wtx.mTx.getConfidence().setDepthInBlocks(depth);
         }
 
         return wtx;
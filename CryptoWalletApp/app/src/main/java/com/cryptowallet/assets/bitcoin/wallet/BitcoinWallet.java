@@ -29,21 +29,35 @@ import androidx.annotation.Nullable;
 
 import com.cryptowallet.R;
 import com.cryptowallet.assets.bitcoin.services.BitcoinProvider;
+import com.cryptowallet.assets.bitcoin.services.BlockRange;
+import com.cryptowallet.assets.bitcoin.services.FeeEstimator;
+import com.cryptowallet.assets.bitcoin.services.HistoryScanner;
+import com.cryptowallet.assets.bitcoin.wallet.coinselection.CoinSelection;
+import com.cryptowallet.assets.bitcoin.wallet.coinselection.CoinSelectionEngine;
+import com.cryptowallet.assets.bitcoin.wallet.coinselection.SelectionTarget;
+import com.cryptowallet.assets.bitcoin.wallet.coinselection.SizeModel;
 import com.cryptowallet.assets.bitcoin.wallet.exceptions.BitcoinDustException;
 import com.cryptowallet.assets.bitcoin.wallet.exceptions.BitcoinOverflowException;
 import com.cryptowallet.services.WalletProvider;
 import com.cryptowallet.services.coinmarket.pricetrackers.BitfinexPriceTracker;
 import com.cryptowallet.services.coinmarket.pricetrackers.BitsoPriceTracker;
+import com.cryptowallet.utils.Consumer;
 import com.cryptowallet.utils.Utils;
 import com.cryptowallet.wallet.AbstractWallet;
 import com.cryptowallet.wallet.ChainTipInfo;
+import com.cryptowallet.wallet.FeeQuote;
 import com.cryptowallet.wallet.IFees;
 import com.cryptowallet.wallet.ITransaction;
+import com.cryptowallet.wallet.Recipient;
 import com.cryptowallet.wallet.SupportedAssets;
 import com.cryptowallet.wallet.exceptions.InsufficientBalanceException;
 import com.cryptowallet.wallet.exceptions.InvalidAmountException;
 import com.google.common.base.Strings;
-import com.google.common.collect.Lists;
+import com.google.common.primitives.Bytes;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.bitcoinj.core.AbstractBlockChain;
 import org.bitcoinj.core.Address;
@@ -62,8 +76,8 @@ import org.bitcoinj.core.TransactionInput;
 import org.bitcoinj.core.TransactionOutPoint;
 import org.bitcoinj.core.TransactionOutput;
 import org.bitcoinj.crypto.ChildNumber;
-import org.bitcoinj.crypto.DeterministicHierarchy;
 import org.bitcoinj.crypto.DeterministicKey;
+import org.bitcoinj.crypto.HDKeyDerivation;
 import org.bitcoinj.crypto.KeyCrypter;
 import org.bitcoinj.crypto.KeyCrypterScrypt;
 import org.bitcoinj.crypto.MnemonicException;
@@ -87,8 +101,10 @@ import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.util.encoders.Hex;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -98,8 +114,6 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
-import static org.bitcoinj.wallet.Wallet.BalanceType.AVAILABLE_SPENDABLE;
-
 /**
  * Define el controlador para una billetera de Bitcoin.
  *
@@ -131,10 +145,62 @@ public class BitcoinWallet extends AbstractWallet {
      * Cantidad máxima de direcciones inactivas a buscar.
      */
     private static final int MAX_INACTIVE_ADDRESS = 10;
+    /**
+     * Bloques de direcciones en curso por cadena durante el escaneo.
+     */
+    private static final int SCAN_WINDOW = 4;
+    /**
+     * Tamaño de una dirección serializada para la api: byte de versión y hash160.
+     */
+    private static final int SERIALIZED_ADDRESS_SIZE = 21;
     /**
      * Tiempo de espera para volver a sincronizar.
      */
     private static final long DELAY_TIME = 60 * 1000;
+    /**
+     * Cantidad máxima de ciclos consecutivos de una sincronización antes de esperar, cuando la
+     * punta avanza mientras se sincroniza.
+     */
+    private static final int MAX_SYNC_CYCLES = 8;
+    /**
+     * Cantidad máxima de fallos consecutivos de una sincronización.
+     */
+    private static final int MAX_SYNC_ATTEMPTS = 10;
+    /**
+     * Cantidad máxima de bloques que se recuperan con una sola consulta de rango. Si la billetera
+     * se encuentra más atrasada se realiza una sincronización completa.
+     */
+    private static final int MAX_CATCH_UP_BLOCKS = 144;
+    /**
+     * Direcciones posteriores a las emitidas que se incluyen en la consulta de un rango de
+     * bloques. Es menor al lookahead de bitcoinj, por lo que las direcciones que reciben pagos se
+     * marcan como utilizadas al recibir la transacción.
+     */
+    private static final int CATCH_UP_LOOKAHEAD = 20;
+    /**
+     * Cantidad de bloques recientes cuyo hash se conserva para detectar reorganizaciones.
+     */
+    private static final int BLOCK_WINDOW_SIZE = 100;
+    /**
+     * Tiempo de espera en milisegundos antes de guardar los cambios pendientes de la billetera.
+     */
+    private static final long SAVE_DELAY = 5 * 1000;
+    /**
+     * Longitud de la bitácora en bytes a partir de la cual se compacta en una instantánea.
+     */
+    private static final long JOURNAL_COMPACT_SIZE = 256 * 1024;
+    /**
+     * Extensión del archivo de la bitácora de cambios.
+     */
+    private static final String JOURNAL_SUFFIX = ".journal";
+    /**
+     * Extensión del archivo del punto de control de la descarga inicial.
+     */
+    private static final String SCAN_SUFFIX = ".scan";
+    /**
+     * Extensión del archivo de la última estimación de comisiones.
+     */
+    private static final String FEES_SUFFIX = ".fees";
     /**
      * Tamaño del hash de una dirección legada.
      */
@@ -154,11 +220,61 @@ public class BitcoinWallet extends AbstractWallet {
      */
     private final org.bitcoinj.core.Context mContextLib;
 
+    /**
+     * Bitácora de los cambios posteriores a la última instantánea.
+     */
+    private final WalletJournal mJournal;
+
+    /**
+     * Punto de control de la descarga inicial.
+     */
+    private final ScanCheckpoint mScanCheckpoint;
+
+    /**
+     * Estimador de las comisiones de la red.
+     */
+    private final FeeEstimator mFeeEstimator;
+
+    /**
+     * Programador del guardado de la billetera.
+     */
+    private final WalletPersister mPersister;
+
+    /**
+     * Seguimiento de los umbrales de confirmaciones de las transacciones.
+     */
+    private final ConfirmationTracker mConfirmations = new ConfirmationTracker();
+
+    /**
+     * Hashes de los últimos bloques observados, se guarda como extensión de la billetera.
+     */
+    private final BlockWindow mBlockWindow = new BlockWindow(BLOCK_WINDOW_SIZE);
+
+    /**
+     * Índice de las salidas sin gastar ordenadas por valor.
+     */
+    private final UtxoIndex mUtxoIndex = new UtxoIndex();
+
+    /**
+     * Motor de selección de las entradas de los pagos.
+     */
+    private final CoinSelectionEngine mCoinSelection = CoinSelectionEngine.createDefault();
+
     /**
      * Instancia de la billetera.
      */
     private org.bitcoinj.wallet.Wallet mBitcoinJWallet;
 
+    /**
+     * Índice de las direcciones de recepción.
+     */
+    private AddressIndex mReceiveIndex;
+
+    /**
+     * Índice de las direcciones de cambio.
+     */
+    private AddressIndex mChangeIndex;
+
     /**
      * Semilla de la billetera.
      */
@@ -170,15 +286,21 @@ public class BitcoinWallet extends AbstractWallet {
     private boolean mRestoring;
 
     /**
-     * Indica que la billetera se está sincronizando.
+     * Máquina de estados de la sincronización.
      */
-    private boolean mSynchronizing;
+    private final WalletSynchronizer<SyncCycle> mSynchronizer;
 
     /**
      * Indica si es la primera descarga de blockchain.
      */
     private boolean mInitialDownload;
 
+    /**
+     * Indica si una reorganización más profunda que la ventana de bloques requiere volver a
+     * descargar el historial completo de las direcciones.
+     */
+    private volatile boolean mRescanRequired;
+
     /**
      * Crea una nueva instancia.
      */
@@ -186,6 +308,14 @@ public class BitcoinWallet extends AbstractWallet {
         super(SupportedAssets.BTC, context, WALLET_FILENAME);
         mNetwork = TestNet3Params.get();
         mContextLib = new org.bitcoinj.core.Context(mNetwork);
+        mJournal = new WalletJournal(new File(getWalletFile().getPath() + JOURNAL_SUFFIX));
+        mScanCheckpoint = new ScanCheckpoint(new File(getWalletFile().getPath() + SCAN_SUFFIX));
+        mFeeEstimator = new FeeEstimator(() -> BitcoinProvider.get(this).getFeeRatesAsync(),
+                new File(getWalletFile().getPath() + FEES_SUFFIX));
+        mPersister = new WalletPersister(getWalletFile(),
+                stream -> mBitcoinJWallet.saveToFileStream(stream), mJournal, SAVE_DELAY);
+        mSynchronizer = new WalletSynchronizer<>(new SyncSteps(), DELAY_TIME, MAX_SYNC_CYCLES,
+                MAX_SYNC_ATTEMPTS);
 
         if (mNetwork.equals(TestNet3Params.get())) {
             FEE_DATA.add(Hex.decode(
@@ -234,9 +364,36 @@ public class BitcoinWallet extends AbstractWallet {
      */
     @Override
     public boolean delete() {
+        mPersister.discard();
+
         boolean deleted = super.delete();
+
+        if (!mJournal.delete())
+            Log.d(LOG_TAG, "No journal to delete");
+
+        if (!mScanCheckpoint.delete())
+            Log.d(LOG_TAG, "No scan checkpoint to delete");
+
+        BitcoinProvider.get(this).getTxCache().clear();
+
+        if (!mFeeEstimator.delete())
+            Log.d(LOG_TAG, "Unable to delete the fee estimate");
+
+        mBlockWindow.clear();
+        mUtxoIndex.clear();
+        mRescanRequired = false;
+
+        synchronized (this) {
+            for (ChildNumber purpose : new ChildNumber[]{ChildNumber.ZERO, ChildNumber.ONE})
+                if (!getAddressIndexFile(purpose).delete())
+                    Log.d(LOG_TAG, "No address index to delete: " + purpose);
+
+            mReceiveIndex = null;
+            mChangeIndex = null;
+        }
+
         if (deleted) {
-            mSynchronizing = false;
+            mSynchronizer.cancel();
             mRestoring = false;
             mSeed = null;
 
@@ -274,6 +431,8 @@ public class BitcoinWallet extends AbstractWallet {
                     Log.i(LOG_TAG, "Creating a new wallet");
                 }
 
+                mBitcoinJWallet.addOrGetExistingExtension(mBlockWindow);
+
                 generateWalletId(mBitcoinJWallet.getKeyChainSeed().getSeedBytes());
 
                 final String password = Hex.toHexString(authenticationToken);
@@ -281,7 +440,7 @@ public class BitcoinWallet extends AbstractWallet {
                         = new KeyCrypterScrypt(calculateIterations(password));
 
                 mBitcoinJWallet.encrypt(scrypt, scrypt.deriveKey(password));
-                mBitcoinJWallet.saveToFile(getWalletFile());
+                mPersister.save();
 
                 onUpdatePushToken(WalletProvider.getInstance().getPushToken());
             }
@@ -303,8 +462,14 @@ public class BitcoinWallet extends AbstractWallet {
 
         Utils.tryNotThrow(() -> {
             if (exists() && !isInitialized()) {
-                if (mBitcoinJWallet == null)
-                    mBitcoinJWallet = org.bitcoinj.wallet.Wallet.loadFromFile(getWalletFile());
+                if (mBitcoinJWallet == null) {
+                    mBitcoinJWallet = org.bitcoinj.wallet.Wallet.loadFromFile(getWalletFile(),
+                            mBlockWindow);
+                    mBitcoinJWallet.addOrGetExistingExtension(mBlockWindow);
+
+                    replayJournal();
+                    indexConfirmations();
+                }
 
                 configureListeners();
                 setInitialized(true);
@@ -377,90 +542,64 @@ public class BitcoinWallet extends AbstractWallet {
     }
 
     /**
-     * Descarga las transacciones relevantes para esta billetera.
+     * Descarga las transacciones relevantes para esta billetera. La sincronización se ejecuta en
+     * el hilo de {@link WalletSynchronizer}; si ya hay una en curso, no se inicia otra.
      */
     @Override
     public void syncWallet() {
-        propagateBitcoinJ();
-
-        if (mSynchronizing || mBitcoinJWallet == null) return;
-
-        Utils.tryNotThrow(() -> {
-            mSynchronizing = true;
-
-            final BitcoinProvider provider = BitcoinProvider.get(this);
-            ChainTipInfo tipInfo = provider.getChainTipInfo();
-
-            if (tipInfo != null && tipInfo.getStatus() == ChainTipInfo.NetworkStatus.SYNCHRONIZED) {
-
-                historyRequest(tipInfo);
-
-                mBitcoinJWallet.setLastBlockSeenHash(Sha256Hash.wrap(tipInfo.getHash()));
-                mBitcoinJWallet.setLastBlockSeenHeight(tipInfo.getHeight());
-                mBitcoinJWallet.setLastBlockSeenTimeSecs(tipInfo.getTime().getTime() / 1000L);
+        if (mBitcoinJWallet == null) return;
 
-                updateDepth(tipInfo.getHeight());
-
-                Utils.tryNotThrow(() -> mBitcoinJWallet.saveToFile(getWalletFile()));
-            }
-
-            mSynchronizing = false;
-
-            ChainTipInfo newChainInfo = provider.getChainTipInfo();
-
-            if (tipInfo == null || newChainInfo == null
-                    || tipInfo.getHeight() != newChainInfo.getHeight()) {
-
-                if (tipInfo == null || newChainInfo == null
-                        || tipInfo.getStatus() != ChainTipInfo.NetworkStatus.SYNCHRONIZED)
-                    Thread.sleep(DELAY_TIME);
-
-                syncWallet();
-            } else {
-                Log.i(LOG_TAG, "Sync is completed: current height "
-                        + mBitcoinJWallet.getLastBlockSeenHeight());
-
-                notifyFullSync();
-            }
-        });
+        mSynchronizer.start();
     }
 
     /**
-     * Actualiza la profundidad de cada bloque de cada transacción.
+     * Obtiene la máquina de estados de la sincronización, la cual expone la fase actual y la
+     * duración de cada fase.
      *
-     * @param height Nueva altura de la cadena.
+     * @return Sincronizador de la billetera.
      */
-    private void updateDepth(int height) {
-        for (WalletTransaction tx : mBitcoinJWallet.getWalletTransactions()) {
-            org.bitcoinj.core.Transaction wtx = tx.getTransaction();
-
-            TransactionConfidence confidence = wtx.getConfidence(org.bitcoinj.core.Context
-                    .getOrCreate(getNetwork()));
-
-            if (confidence.getConfidenceType() != TransactionConfidence.ConfidenceType.BUILDING)
-                continue;
-
-            int blockHeight = confidence.getAppearedAtChainHeight();
-
-            confidence.setDepthInBlocks(height - blockHeight + 1);
-        }
-
+    public WalletSynchronizer<?> getSynchronizer() {
+        return mSynchronizer;
     }
 
     /**
-     * Solicita el historial de las transacciones que representan envíos a esta billetera.
+     * Descarga el historial de las transacciones que representan envíos a esta billetera. Durante
+     * la descarga inicial, el escaneo continúa desde el punto de control y las transacciones
+     * registradas en él se incluyen en el historial.
      *
      * @param tipInfo Información de la punta de la cadena de bloques.
+     * @return Transacciones descargadas indexadas por su identificador.
      */
-    private void historyRequest(ChainTipInfo tipInfo)
-            throws ExecutionException, InterruptedException {
+    private Map<String, BitcoinTransaction> downloadHistory(ChainTipInfo tipInfo)
+            throws IOException, ExecutionException, InterruptedException {
+        rollBackIfReorganized();
+
         mInitialDownload = mBitcoinJWallet.getLastBlockSeenHeight() <= 0;
 
         if (mInitialDownload) {
-            Map<String, BitcoinTransaction> history = new HashMap<>();
+            final Map<String, BitcoinTransaction> history = new HashMap<>();
+
+            mScanCheckpoint.load(record -> {
+                final BitcoinTransaction tx = fromRecord(record);
+                history.put(tx.getID(), tx);
+            });
+
+            if (mScanCheckpoint.getTip() != null)
+                Log.i(LOG_TAG, String.format(
+                        "Resuming initial download at %d [%d transactions], indexes: %d, %d",
+                        mScanCheckpoint.getTip().getHeight(), history.size(),
+                        mScanCheckpoint.getNextIndex(0), mScanCheckpoint.getNextIndex(1)));
+
+            mScanCheckpoint.start(tipInfo);
 
-            final int receiveAddresses = scanAddresses(ChildNumber.ZERO, history);
-            final int changeAddresses = scanAddresses(ChildNumber.ONE, history);
+            final List<BitcoinTransaction> staged = new ArrayList<>(history.values());
+            final List<Integer> found = Futures.allAsList(
+                    scanAddressesAsync(ChildNumber.ZERO, history, staged),
+                    scanAddressesAsync(ChildNumber.ONE, history, staged)
+            ).get();
+
+            final int receiveAddresses = found.get(0);
+            final int changeAddresses = found.get(1);
 
             Log.d(LOG_TAG, String.format("New addresses with activity found: %d",
                     receiveAddresses + changeAddresses));
@@ -474,12 +613,15 @@ public class BitcoinWallet extends AbstractWallet {
             freshAddresses(KeyChain.KeyPurpose.CHANGE,
                     changeAddresses - totalInternal);
 
-            addTransactions(history);
+            return history;
+        }
 
-        } else if (tipInfo.getHeight() != mBitcoinJWallet.getLastBlockSeenHeight()
+        if (mRescanRequired || tipInfo.getHeight() != mBitcoinJWallet.getLastBlockSeenHeight()
                 || !tipInfo.getHash().equalsIgnoreCase(
                 Objects.requireNonNull(mBitcoinJWallet.getLastBlockSeenHash()).toString()))
-            historyRequestByAddresses();
+            return historyRequestByAddresses();
+
+        return new HashMap<>();
     }
 
     /**
@@ -497,75 +639,134 @@ public class BitcoinWallet extends AbstractWallet {
 
 
     /**
-     * Escanea las direcciones del tipo especificado.
+     * Escanea las direcciones del tipo especificado de forma asíncrona desde la posición del punto
+     * de control de la descarga inicial. Cada bloque de direcciones escaneado se registra en el
+     * punto de control.
      *
      * @param purpose Proposito de las direcciones a generar.
      * @param history Historial de transacciones.
-     * @return Cantidad de direcciones generadas.
+     * @param staged  Transacciones registradas en el punto de control.
+     * @return Una tarea que devuelve la cantidad de direcciones generadas.
      */
-    private int scanAddresses(ChildNumber purpose, Map<String, BitcoinTransaction> history)
-            throws ExecutionException, InterruptedException {
-        return scanAddresses(purpose, history, 0, MAX_INACTIVE_ADDRESS,
-                MAX_ADDRESS_PER_REQUEST);
+    private ListenableFuture<Integer> scanAddressesAsync(ChildNumber purpose,
+                                                         Map<String, BitcoinTransaction> history,
+                                                         List<BitcoinTransaction> staged) {
+        final int chain = purpose.num();
+
+        return scanAddressesAsync(purpose, history, 0, MAX_INACTIVE_ADDRESS,
+                MAX_ADDRESS_PER_REQUEST, staged, (transactions, nextIndex, inactiveBlocks) -> {
+                    final List<WalletJournal.TxRecord> records = new ArrayList<>();
+
+                    for (BitcoinTransaction tx : transactions)
+                        records.add(toRecord(tx));
+
+                    try {
+                        mScanCheckpoint.append(chain, nextIndex, inactiveBlocks, records);
+                    } catch (IOException e) {
+                        Log.w(LOG_TAG, "Unable to write the scan checkpoint: " + e.getMessage());
+                    }
+                });
     }
 
     /**
-     * Escanea las direcciones del tipo especificado.
+     * Escanea las direcciones del tipo especificado de forma asíncrona.
      *
-     * @param purpose Proposito de las direcciones a generar.
-     * @param history Historial de transacciones.
-     * @return Cantidad de direcciones generadas.
-     */
-    private int scanAddresses(ChildNumber purpose, Map<String, BitcoinTransaction> history, int fromIndex,
-                              int tries, int size)
-            throws ExecutionException, InterruptedException {
-        final Derivator derivator = new Derivator(purpose);
-        int index = fromIndex;
-        int inactiveAddress = 0;
-
-        while (inactiveAddress < tries) {
-            final Set<LegacyAddress> addresses = derivator
-                    .deriveAddresses(size, index);
-
-            List<BitcoinTransaction> txDecorators = BitcoinProvider.get(this)
-                    .getHistory(serializeAddressesList(addresses), 0);
+     * @param purpose   Proposito de las direcciones a generar.
+     * @param history   Historial de transacciones.
+     * @param fromIndex Indice de la primera dirección a escanear.
+     * @param tries     Bloques consecutivos sin actividad que finalizan el escaneo.
+     * @param size      Direcciones por bloque.
+     * @return Una tarea que devuelve la cantidad de direcciones generadas.
+     */
+    private ListenableFuture<Integer> scanAddressesAsync(ChildNumber purpose,
+                                                         Map<String, BitcoinTransaction> history,
+                                                         int fromIndex, int tries, int size) {
+        return scanAddressesAsync(purpose, history, fromIndex, tries, size,
+                Collections.emptyList(), null);
+    }
 
-            if (txDecorators.isEmpty())
-                inactiveAddress++;
-            else {
-                for (BitcoinTransaction tx : txDecorators)
-                    history.put(tx.getID(), tx);
+    /**
+     * Escanea las direcciones del tipo especificado de forma asíncrona. Se mantienen hasta
+     * {@link #SCAN_WINDOW} bloques de direcciones en curso y el resultado es idéntico al de un
+     * escaneo secuencial. El historial puede ser compartido por varios escaneos en curso.
+     *
+     * @param purpose   Proposito de las direcciones a generar.
+     * @param history   Historial de transacciones.
+     * @param fromIndex Indice de la primera dirección a escanear.
+     * @param tries     Bloques consecutivos sin actividad que finalizan el escaneo.
+     * @param size      Direcciones por bloque.
+     * @param staged    Transacciones encontradas por un escaneo previo interrumpido.
+     * @param listener  Escucha del avance del escaneo o null para escanear desde el índice
+     *                  especificado.
+     * @return Una tarea que devuelve la cantidad de direcciones generadas.
+     * @see HistoryScanner
+     */
+    private ListenableFuture<Integer> scanAddressesAsync(ChildNumber purpose,
+                                                         Map<String, BitcoinTransaction> history,
+                                                         int fromIndex, int tries, int size,
+                                                         List<BitcoinTransaction> staged,
+                                                         @Nullable HistoryScanner.ProgressListener listener) {
+        final AddressIndex addressIndex = getAddressIndex(purpose);
+        final AddressActivity activity = new AddressActivity();
+        final Consumer<BitcoinTransaction> collector = collectInto(history);
+        final HistoryScanner scanner = new HistoryScanner(BitcoinProvider.get(this),
+                addressIndex::getAddresses, size, tries, SCAN_WINDOW);
+
+        for (BitcoinTransaction tx : staged)
+            activity.add(tx.getID(), tx.getTx());
+
+        final int chain = purpose.num();
+        final int resumeIndex = listener == null ? fromIndex
+                : Math.max(fromIndex, mScanCheckpoint.getNextIndex(chain));
+        final int inactiveBlocks = listener == null ? 0 : mScanCheckpoint.getInactiveBlocks(chain);
+
+        return Futures.transform(
+                scanner.scan(resumeIndex, inactiveBlocks, tx -> {
+                    collector.accept(tx);
+                    activity.add(tx.getID(), tx.getTx());
+                }, listener),
+                index -> {
+                    final int queriedAddresses = index - tries * size - fromIndex;
+
+                    return queriedAddresses - computeSkippedAddress(activity, addressIndex,
+                            fromIndex, queriedAddresses);
+                },
+                MoreExecutors.directExecutor()
+        );
+    }
 
-                inactiveAddress = 0;
+    /**
+     * Crea un consumidor que agrega las transacciones al mapa. El consumidor puede ser invocado
+     * desde varios hilos de forma simultánea.
+     *
+     * @param transactions Mapa de transacciones.
+     * @return Un consumidor de transacciones.
+     */
+    private static Consumer<BitcoinTransaction> collectInto(
+            Map<String, BitcoinTransaction> transactions) {
+        return tx -> {
+            synchronized (transactions) {
+                transactions.put(tx.getID(), tx);
             }
-
-            index += size;
-        }
-
-        final int queriedAddresses = index - inactiveAddress * size - fromIndex;
-        final Set<LegacyAddress> generatedAddresses
-                = derivator.deriveAddresses(queriedAddresses, fromIndex);
-        final int skippedAddress = computeSkippedAddress(history, generatedAddresses);
-
-        return queriedAddresses - skippedAddress;
+        };
     }
 
     /**
-     * Determina cuantas de las últimas direcciones no tienen actividad.
+     * Determina cuantas de las últimas direcciones del rango no tienen actividad, recorriendo el
+     * rango desde la última dirección.
      *
-     * @param transactions Historial de transacciones.
-     * @param addresses    Direcciones a explorar.
+     * @param activity     Actividad de las direcciones del historial.
+     * @param addressIndex Índice de direcciones de la cadena.
+     * @param fromIndex    Índice de la primera dirección del rango.
+     * @param count        Cantidad de direcciones del rango.
      * @return Cantidad de direcciones sin actividad.
      */
-    private int computeSkippedAddress(Map<String, BitcoinTransaction> transactions,
-                                      Set<LegacyAddress> addresses) {
-        ArrayList<LegacyAddress> list = new ArrayList<>(addresses);
-        Collections.reverse(list);
-
+    private int computeSkippedAddress(AddressActivity activity, AddressIndex addressIndex,
+                                      int fromIndex, int count) {
         int skipped = 0;
 
-        for (LegacyAddress address : list) {
-            if (hasHistory(address, transactions))
+        for (int index = fromIndex + count - 1; index >= fromIndex; index--) {
+            if (activity.hasActivity(addressIndex.getHash(index)))
                 break;
             else
                 skipped++;
@@ -575,51 +776,36 @@ public class BitcoinWallet extends AbstractWallet {
     }
 
     /**
-     * Verifica si la dirección recibe monedas en alguna de las transacciones.
+     * Solicita las transacciones de las direcciones previamente derivadas. La descarga del
+     * historial de las direcciones conocidas y el escaneo de direcciones nuevas se realizan en
+     * paralelo.
      *
-     * @param address      Dirección a buscar.
-     * @param transactions Transacciones a explorar.
-     * @return True si recibe monedas la dirección.
-     */
-    private boolean hasHistory(LegacyAddress address, Map<String, BitcoinTransaction> transactions) {
-        for (BitcoinTransaction tx : transactions.values())
-            if (tx.getToAddress().contains(address.toBase58()))
-                return true;
-
-        return false;
-    }
-
-    /**
-     * Solicita las transacciones de las direcciones previamente derivadas.
+     * @return Transacciones descargadas indexadas por su identificador.
      */
-    private void historyRequestByAddresses() throws ExecutionException, InterruptedException {
-        final int height = mBitcoinJWallet.getLastBlockSeenHeight();
+    private Map<String, BitcoinTransaction> historyRequestByAddresses()
+            throws ExecutionException, InterruptedException {
+        final int height = mRescanRequired ? 0 : mBitcoinJWallet.getLastBlockSeenHeight();
         final int externalKeys = mBitcoinJWallet.getActiveKeyChain().getIssuedExternalKeys();
         final int internalKeys = mBitcoinJWallet.getActiveKeyChain().getIssuedInternalKeys();
 
-        Derivator external = new Derivator(ChildNumber.ZERO);
-        Derivator internal = new Derivator(ChildNumber.ONE);
-
-        Set<LegacyAddress> receiveAddresses = external.deriveAddresses(externalKeys, 0);
-        Set<LegacyAddress> changeAddresses = internal.deriveAddresses(internalKeys, 0);
-
-        Set<LegacyAddress> addresses = new HashSet<>();
-
-        addresses.addAll(receiveAddresses);
-        addresses.addAll(changeAddresses);
-
-        Map<String, BitcoinTransaction> transactions = new HashMap<>();
+        final byte[] addresses = Bytes.concat(
+                getAddressIndex(ChildNumber.ZERO).getAddresses(0, externalKeys),
+                getAddressIndex(ChildNumber.ONE).getAddresses(0, internalKeys));
 
-        downloadHistory(height, addresses, transactions);
+        final Map<String, BitcoinTransaction> transactions = new HashMap<>();
+        final Map<String, BitcoinTransaction> newTransactions = new HashMap<>();
 
-        addTransactions(transactions);
+        final ListenableFuture<Void> history = downloadHistoryAsync(height, addresses,
+                transactions);
+        final ListenableFuture<Integer> newExternal
+                = scanAddressesAsync(ChildNumber.ZERO, newTransactions, externalKeys, 1, 100);
+        final ListenableFuture<Integer> newInternal
+                = scanAddressesAsync(ChildNumber.ONE, newTransactions, internalKeys, 1, 100);
 
-        transactions.clear();
+        Futures.allAsList(history, newExternal, newInternal).get();
 
-        final int newExternalKeys
-                = scanAddresses(ChildNumber.ZERO, transactions, externalKeys, 1, 100);
-        final int newInternalKeys
-                = scanAddresses(ChildNumber.ONE, transactions, internalKeys, 1, 100);
+        final int newExternalKeys = newExternal.get();
+        final int newInternalKeys = newInternal.get();
 
         Log.d(LOG_TAG, String.format("New addresses with activity found: %d",
                 newExternalKeys + newInternalKeys));
@@ -627,7 +813,9 @@ public class BitcoinWallet extends AbstractWallet {
         freshAddresses(KeyChain.KeyPurpose.RECEIVE_FUNDS, newExternalKeys);
         freshAddresses(KeyChain.KeyPurpose.CHANGE, newInternalKeys);
 
-        addTransactions(transactions);
+        transactions.putAll(newTransactions);
+
+        return transactions;
     }
 
     /**
@@ -638,157 +826,340 @@ public class BitcoinWallet extends AbstractWallet {
      */
     private Map<String, BitcoinTransaction> downloadTransactions(String[] txs)
             throws ExecutionException, InterruptedException {
-        Map<String, BitcoinTransaction> map = new HashMap<>();
+        final List<byte[]> txids = new ArrayList<>();
 
-        for (String txid : txs) {
-            BitcoinTransaction tx = BitcoinProvider.get(this)
-                    .getTransactionByTxID(Sha256Hash.wrap(txid).getReversedBytes());
+        for (String txid : txs)
+            txids.add(Sha256Hash.wrap(txid).getReversedBytes());
 
-            if (tx == null)
-                throw new NullPointerException("Fail to download transaction: " + txid);
+        final Map<String, BitcoinTransaction> map = BitcoinProvider.get(this)
+                .getTransactions(txids);
 
-            map.put(tx.getID(), tx);
-        }
+        if (map == null)
+            throw new NullPointerException("Fail to download transactions");
+
+        for (String txid : txs)
+            if (!map.containsKey(Sha256Hash.wrap(txid).toString()))
+                throw new NullPointerException("Fail to download transaction: " + txid);
 
         return map;
     }
 
     /**
-     * Descarga las transacciones de un conjunto de transacciones.
+     * Descarga las transacciones de un conjunto de transacciones de forma asíncrona. Las
+     * direcciones son divididas en bloques de {@link #MAX_ADDRESS_PER_REQUEST} que se solicitan en
+     * paralelo.
      *
      * @param height       Altura de la cadena de bloques desde donde parte la búsqueda.
-     * @param addresses    Conjunto de direcciones.
+     * @param addresses    Direcciones serializadas.
      * @param transactions Transacciones descargadas.
+     * @return Una tarea que finaliza al recibir el historial de todos los bloques.
      */
-    private void downloadHistory(int height, Set<LegacyAddress> addresses,
-                                 Map<String, BitcoinTransaction> transactions)
-            throws ExecutionException, InterruptedException {
+    private ListenableFuture<Void> downloadHistoryAsync(int height, byte[] addresses,
+                                                        Map<String, BitcoinTransaction> transactions) {
+        final BitcoinProvider provider = BitcoinProvider.get(this);
+        final List<ListenableFuture<Integer>> requests = new ArrayList<>();
+        final Consumer<BitcoinTransaction> consumer = collectInto(transactions);
 
-        List<BitcoinTransaction> activity = BitcoinProvider.get(this)
-                .getHistory(serializeAddressesList(addresses), height);
+        final int blockLength = MAX_ADDRESS_PER_REQUEST * SERIALIZED_ADDRESS_SIZE;
 
-        if (!activity.isEmpty())
-            for (BitcoinTransaction tx : activity)
-                transactions.put(tx.getID(), tx);
+        for (int offset = 0; offset < addresses.length; offset += blockLength)
+            requests.add(provider.getHistoryAsync(Arrays.copyOfRange(addresses, offset,
+                    Math.min(offset + blockLength, addresses.length)), height, consumer));
+
+        return Futures.transformAsync(Futures.allAsList(requests), counts -> {
+            for (Integer received : counts)
+                if (received == null)
+                    throw new IOException("Fail to download history");
+
+            return Futures.immediateFuture(null);
+        }, MoreExecutors.directExecutor());
     }
 
     /**
-     * Serializa la dirección de bitcoin.
+     * Recibe las transacciones en la billetera, y desencadena los eventos.
      *
-     * @param address Dirección de Bitcoin
-     * @return Una matriz unidimensional de bytes que representa la dirección.
+     * @param transactions Transacciones a agregar a la billetera.
      */
-    private byte[] serializeAddress(Address address) {
-        final int version = ((LegacyAddress) address).getVersion();
-        final byte[] hash = Hex.decode(Hex.toHexString(new byte[]{(byte) version})
-                + Hex.toHexString(address.getHash()));
+    private void addTransactions(final Map<String, BitcoinTransaction> transactions) {
+        if (transactions.isEmpty()) return;
+
+        final List<BitcoinTransaction> orderedTx = sortTransactions(transactions);
+
+        final boolean added = Utils.tryNotThrow(() -> commit(applyTransactions(transactions,
+                orderedTx, new DependencyResolver(this).resolve(orderedTx))));
+
+        if (!added) {
+            mPersister.markDirty();
+            Utils.tryNotThrow(mPersister::flush);
 
-        if (hash.length != 21)
-            throw new RuntimeException();
+            throw new RuntimeException(
+                    new IOException("Unable to download dependencies from server"));
+        }
 
-        return hash;
+        Log.d(LOG_TAG, "New balance: "
+                + Coin.valueOf(mUtxoIndex.getSpendableTotal()).toFriendlyString());
     }
 
     /**
-     * Serializa la lista de las direcciones.
+     * Ordena las transacciones en el orden en que deben aplicarse en la billetera.
      *
-     * @param addresses Lista de direcciones.
-     * @return Matriz unidimensional de bytes.
+     * @param transactions Transacciones a ordenar.
+     * @return Lista ordenada de transacciones.
      */
-    private byte[] serializeAddressesList(Set<LegacyAddress> addresses) {
-        List<byte[]> binAddresses = new ArrayList<>();
+    private static List<BitcoinTransaction> sortTransactions(
+            Map<String, BitcoinTransaction> transactions) {
+        final List<BitcoinTransaction> orderedTx = new ArrayList<>(transactions.values());
+
+        Collections.sort(orderedTx);
+
+        return orderedTx;
+    }
 
-        for (LegacyAddress address : addresses)
-            binAddresses.add(serializeAddress(address));
+    /**
+     * Aplica las transacciones en la billetera y crea el lote de la bitácora que las registra. El
+     * lote debe agregarse a la bitácora con {@link #commit(WalletJournal.Batch)}.
+     *
+     * @param transactions Transacciones indexadas por su identificador.
+     * @param orderedTx    Transacciones ordenadas.
+     * @param dependencies Dependencias indexadas por su identificador.
+     * @return Lote de la bitácora.
+     */
+    private WalletJournal.Batch applyTransactions(Map<String, BitcoinTransaction> transactions,
+                                                  List<BitcoinTransaction> orderedTx,
+                                                  Map<String, BitcoinTransaction> dependencies) {
+        final WalletJournal.Batch batch = new WalletJournal.Batch();
 
-        final int size = Utils.Lists
-                .aggregate(binAddresses, (item, amount) -> amount + item.length, 0);
-        final byte[] bytes = new byte[size];
+        for (BitcoinTransaction dependency : dependencies.values())
+            if (!transactions.containsKey(dependency.getID()))
+                batch.addDependency(toRecord(dependency));
 
-        int lastPos = 0;
+        for (BitcoinTransaction tx : orderedTx)
+            batch.addTransaction(toRecord(tx));
 
-        for (int j = 0; j < binAddresses.size(); j++) {
-            System.arraycopy(binAddresses.get(j), 0, bytes, lastPos,
-                    binAddresses.get(j).length);
-            lastPos += binAddresses.get(j).length;
-        }
+        receiveTransactions(orderedTx, transactions, dependencies);
 
-        return bytes;
+        return batch;
     }
 
-
     /**
-     * Recibe las transacciones en la billetera, y desencadena los eventos.
+     * Aplica las transacciones en la billetera en el orden especificado. Las transacciones que ya
+     * existen en la billetera solo actualizan la información de su bloque, por lo que aplicar el
+     * mismo lote más de una vez no altera la billetera.
      *
-     * @param transactions Transacciones a agregar a la billetera.
+     * @param orderedTx    Transacciones ordenadas.
+     * @param transactions Transacciones indexadas por su identificador.
+     * @param dependencies Dependencias indexadas por su identificador.
      */
-    private void addTransactions(final Map<String, BitcoinTransaction> transactions) {
-        if (transactions.isEmpty()) return;
+    private void receiveTransactions(List<BitcoinTransaction> orderedTx,
+                                     Map<String, BitcoinTransaction> transactions,
+                                     Map<String, BitcoinTransaction> dependencies) {
+        for (BitcoinTransaction tx : orderedTx) {
+            BitcoinTransaction known = transactions.get(tx.getID());
 
-        List<BitcoinTransaction> orderedTx = new ArrayList<>(transactions.values());
+            if (known == null)
+                continue;
 
-        Collections.sort(orderedTx);
+            org.bitcoinj.core.Transaction wtx = mBitcoinJWallet.getTransaction(tx.getTx().getTxId());
 
-        if (!Utils.tryNotThrow(() -> {
-            for (BitcoinTransaction tx : orderedTx) {
-                BitcoinTransaction known = transactions.get(tx.getID());
+            if (wtx != null) {
+                final long height = known.getBlockHeight();
+                final Sha256Hash blockHash = height >= 0 && known.getBlockHash() != null ?
+                        Sha256Hash.wrap(known.getBlockHash()) : null;
 
-                if (known == null)
-                    continue;
+                final Integer index = blockHash != null
+                        && known.getTx().getAppearsInHashes() != null
+                        && known.getTx().getAppearsInHashes().containsKey(blockHash) ?
+                        known.getTx().getAppearsInHashes().get(blockHash) : -1;
 
-                org.bitcoinj.core.Transaction wtx = mBitcoinJWallet.getTransaction(tx.getTx().getTxId());
+                known = BitcoinTransaction.wrap(wtx, this);
 
-                if (wtx != null) {
-                    final Sha256Hash blockHash = known.isConfirm() ?
-                            Sha256Hash.wrap(known.getBlockHash()) : null;
+                if (blockHash != null && index != null) {
+                    known.getTx().addBlockAppearance(blockHash, index);
+                    known.getTx().getConfidence().setAppearedAtChainHeight((int) height);
+                }
 
-                    final Integer index = blockHash != null
-                            && known.getTx().getAppearsInHashes() != null
-                            && known.getTx().getAppearsInHashes().containsKey(blockHash) ?
-                            known.getTx().getAppearsInHashes().get(blockHash) : -1;
+                transactions.remove(known.getID());
+                transactions.put(known.getID(), known);
+            }
 
-                    known = BitcoinTransaction.wrap(wtx, this);
+            if (mBitcoinJWallet.getTransaction(known.getTx().getTxId()) == null)
+                if (!known.getTx().isPending()) {
+                    Log.d(LOG_TAG, "Receiving a commited transaction: " + known.getID());
+                    mBitcoinJWallet.receiveFromBlock(known.getTx(), null,
+                            AbstractBlockChain.NewBlockType.BEST_CHAIN, 0);
+                }
 
-                    if (blockHash != null && index != null)
-                        known.getTx().addBlockAppearance(blockHash, index);
+            if (known.requireDependencies()) {
+                if (known.getTx().isPending()) {
+                    Log.d(LOG_TAG, "Receiving a uncommit transaction: " + known.getID());
 
-                    transactions.remove(known.getID());
-                    transactions.put(known.getID(), known);
+                    mBitcoinJWallet.receivePending(known.getTx(),
+                            DependencyResolver.collect(known.getTx(), dependencies));
                 }
 
-                if (mBitcoinJWallet.getTransaction(known.getTx().getTxId()) == null)
-                    if (!known.getTx().isPending()) {
-                        Log.d(LOG_TAG, "Receiving a commited transaction: " + known.getID());
-                        mBitcoinJWallet.receiveFromBlock(known.getTx(), null,
-                                AbstractBlockChain.NewBlockType.BEST_CHAIN, 0);
-                    }
+                connectInputs(known.getTx(), dependencies);
+            }
 
-                if (known.requireDependencies()) {
-                    Map<String, BitcoinTransaction> dependencies = BitcoinProvider.get(this)
-                            .getDependencies(known.getTx().getTxId().getReversedBytes());
+            trackConfirmations(known.getTx());
+            indexTransaction(known.getTx());
+        }
+    }
 
-                    if (dependencies == null)
-                        throw new IOException("Fail to download dependencies: " + known.getID());
+    /**
+     * Agrega el lote a la bitácora y compacta la bitácora si supera el tamaño límite. Si no se
+     * logra escribir en la bitácora, se guarda la billetera completa.
+     *
+     * @param batch Lote de cambios.
+     */
+    private void commit(WalletJournal.Batch batch) {
+        try {
+            mJournal.append(batch);
 
-                    if (known.getTx().isPending()) {
-                        Log.d(LOG_TAG, "Receiving a uncommit transaction: " + known.getID());
+            if (mJournal.size() > JOURNAL_COMPACT_SIZE)
+                mPersister.compactAsync();
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Unable to append to journal: " + e.getMessage());
 
-                        List<Transaction> deps = Utils.Lists.map(
-                                Lists.newArrayList(dependencies.values()), BitcoinTransaction::getTx);
-                        mBitcoinJWallet.receivePending(known.getTx(), deps);
-                    }
+            mPersister.markDirty();
+            Utils.tryNotThrow(mPersister::flush);
+        }
+    }
+
+    /**
+     * Aplica sobre la instantánea cargada los lotes de la bitácora. Un lote que no se logra aplicar
+     * se omite; la siguiente sincronización descarga nuevamente sus transacciones.
+     */
+    private void replayJournal() {
+        final int batches = mJournal.replay(batch -> {
+            try {
+                final Map<String, BitcoinTransaction> transactions = new HashMap<>();
+                final Map<String, BitcoinTransaction> dependencies = new HashMap<>();
+                final List<BitcoinTransaction> orderedTx = new ArrayList<>();
+
+                for (WalletJournal.TxRecord record : batch.getDependencies()) {
+                    final BitcoinTransaction tx = fromRecord(record);
+                    dependencies.put(tx.getID(), tx);
+                }
+
+                for (WalletJournal.TxRecord record : batch.getTransactions()) {
+                    final BitcoinTransaction tx = fromRecord(record);
 
-                    connectInputs(known.getTx(), dependencies);
+                    orderedTx.add(tx);
+                    transactions.put(tx.getID(), tx);
+                    dependencies.put(tx.getID(), tx);
                 }
 
-                mBitcoinJWallet.saveToFile(getWalletFile());
+                receiveTransactions(orderedTx, transactions, dependencies);
+
+                if (batch.hasTip())
+                    setLastBlockSeen(batch.getTipHash(), batch.getTipHeight(), batch.getTipTime());
+            } catch (RuntimeException e) {
+                Log.w(LOG_TAG, "Unable to replay journal batch: " + e.getMessage());
             }
+        });
 
-        }))
-            throw new RuntimeException(
-                    new IOException("Unable to download dependencies from server"));
+        if (batches == 0)
+            return;
+
+        Log.i(LOG_TAG, String.format("Replayed %d journal batches [%d bytes]", batches,
+                mJournal.size()));
+
+        if (mJournal.size() > JOURNAL_COMPACT_SIZE)
+            mPersister.compactAsync();
+    }
+
+    /**
+     * Registra en el seguimiento de confirmaciones la altura de cada transacción confirmada de la
+     * billetera. Solo se realiza al cargar la billetera; después el índice se mantiene con cada
+     * transacción recibida.
+     */
+    private void indexConfirmations() {
+        for (WalletTransaction tx : mBitcoinJWallet.getWalletTransactions())
+            trackConfirmations(tx.getTransaction());
+    }
+
+    /**
+     * Registra la altura del bloque de la transacción si se encuentra confirmada.
+     *
+     * @param tx Transacción de la billetera.
+     */
+    private void trackConfirmations(Transaction tx) {
+        final TransactionConfidence confidence
+                = tx.getConfidence(org.bitcoinj.core.Context.getOrCreate(getNetwork()));
+
+        if (confidence.getConfidenceType() == TransactionConfidence.ConfidenceType.BUILDING)
+            mConfirmations.put(tx.getTxId(), confidence.getAppearedAtChainHeight());
+        else
+            mConfirmations.remove(tx.getTxId());
+    }
+
+    /**
+     * Notifica las transacciones que alcanzan un umbral de confirmaciones al avanzar la punta. En
+     * la descarga inicial no se notifica, ya que todo el historial alcanzaría los umbrales.
+     *
+     * @param fromHeight Altura anterior de la punta.
+     * @param toHeight   Altura nueva de la punta.
+     */
+    private void notifyConfirmations(int fromHeight, int toHeight) {
+        if (fromHeight <= 0)
+            return;
+
+        for (Map.Entry<Sha256Hash, Integer> entry
+                : mConfirmations.advance(fromHeight, toHeight).entrySet()) {
+            final Transaction tx = mBitcoinJWallet.getTransaction(entry.getKey());
+
+            if (tx == null) {
+                mConfirmations.remove(entry.getKey());
+                continue;
+            }
+
+            Log.d(LOG_TAG, String.format("Transaction %s reached %d confirmations",
+                    entry.getKey(), entry.getValue()));
+
+            notifyConfirmation(BitcoinTransaction.wrap(tx, this));
+        }
+    }
+
+    /**
+     * Establece el último bloque observado por la billetera.
+     *
+     * @param hash          Hash del bloque.
+     * @param height        Altura del bloque.
+     * @param timeInSeconds Fecha y hora del bloque en segundos.
+     */
+    private void setLastBlockSeen(String hash, int height, long timeInSeconds) {
+        mBlockWindow.add(height, Sha256Hash.wrap(hash), timeInSeconds);
+        mBitcoinJWallet.setLastBlockSeenHash(Sha256Hash.wrap(hash));
+        mBitcoinJWallet.setLastBlockSeenHeight(height);
+        mBitcoinJWallet.setLastBlockSeenTimeSecs(timeInSeconds);
+    }
+
+    /**
+     * Crea el registro de la bitácora de una transacción con la información de su bloque.
+     *
+     * @param tx Transacción a registrar.
+     * @return Registro de la transacción.
+     */
+    private static WalletJournal.TxRecord toRecord(BitcoinTransaction tx) {
+        final Transaction wtx = tx.getTx();
+        final String block = tx.getBlockHash();
+        final long height = block == null ? -1 : tx.getBlockHeight();
+        final Integer index = block == null || wtx.getAppearsInHashes() == null ? null
+                : wtx.getAppearsInHashes().get(Sha256Hash.wrap(block));
+
+        return new WalletJournal.TxRecord(wtx.bitcoinSerialize(), height < 0 ? null : block,
+                height, (int) (tx.getTime().getTime() / 1000L), index == null ? 0 : index);
+    }
 
-        Log.d(LOG_TAG, "New balance: " + mBitcoinJWallet.getBalance().toFriendlyString());
+    /**
+     * Crea una transacción a partir de su registro de la bitácora.
+     *
+     * @param record Registro de la transacción.
+     * @return Una transacción.
+     */
+    private BitcoinTransaction fromRecord(WalletJournal.TxRecord record) {
+        return BitcoinTransaction.fromRawData(record.mData, record.mBlock, record.mHeight,
+                record.mTime, record.mIndex, this);
     }
 
     /**
@@ -804,20 +1175,24 @@ public class BitcoinWallet extends AbstractWallet {
         for (TransactionInput input : tx.getInputs()) {
             if (input.getConnectedOutput() == null) {
                 final TransactionOutPoint outpoint = input.getOutpoint();
-                final String hash = outpoint.getHash().toString();
                 final long index = outpoint.getIndex();
 
-                BitcoinTransaction dep = dependencies.get(hash);
+                Transaction parent = mBitcoinJWallet.getTransaction(outpoint.getHash());
 
-                if (dep == null) continue;
+                if (parent == null) {
+                    BitcoinTransaction dep = dependencies.get(outpoint.getHash().toString());
 
-                TransactionOutput output = dep.getTx().getOutput(index);
-                Objects.requireNonNull(output, "Transaction is corrupted, missing output");
+                    if (dep == null) continue;
+
+                    parent = dep.getTx();
+
+                    if (!mBitcoinJWallet.isTransactionRelevant(parent))
+                        mBitcoinJWallet.addWalletTransaction(
+                                new WalletTransaction(WalletTransaction.Pool.SPENT, parent));
+                }
 
-                if (mBitcoinJWallet.getTransaction(dep.getTx().getTxId()) == null
-                        && !mBitcoinJWallet.isTransactionRelevant(dep.getTx()))
-                    mBitcoinJWallet.addWalletTransaction(
-                            new WalletTransaction(WalletTransaction.Pool.SPENT, dep.getTx()));
+                TransactionOutput output = parent.getOutput(index);
+                Objects.requireNonNull(output, "Transaction is corrupted, missing output");
 
                 input.connect(output);
             }
@@ -854,15 +1229,104 @@ public class BitcoinWallet extends AbstractWallet {
             this.onNewTransaction(tx);
         });
         mBitcoinJWallet.addChangeEventListener(wallet -> notifyBalanceChanged());
+
+        mBitcoinJWallet.addCoinsReceivedEventListener(Threading.SAME_THREAD,
+                (wallet, tx, prevBalance, newBalance) -> indexTransaction(tx));
+        mBitcoinJWallet.addCoinsSentEventListener(Threading.SAME_THREAD,
+                (wallet, tx, prevBalance, newBalance) -> indexTransaction(tx));
+        mBitcoinJWallet.addTransactionConfidenceEventListener(Threading.SAME_THREAD,
+                (wallet, tx) -> indexTransaction(tx));
+
+        rebuildUtxoIndex();
     }
 
+    /**
+     * Reconstruye el índice de las salidas sin gastar a partir de las salidas candidatas a
+     * gastarse de la billetera.
+     */
+    private void rebuildUtxoIndex() {
+        mUtxoIndex.clear();
+
+        for (TransactionOutput output : mBitcoinJWallet.calculateAllSpendCandidates())
+            indexOutput(output);
+
+        Log.d(LOG_TAG, String.format("Indexed %d unspent outputs", mUtxoIndex.size()));
+    }
 
     /**
-     * Dirección de recepción de la billetera.
+     * Actualiza en el índice las salidas de la transacción y las salidas que gastan sus entradas.
+     * Si la transacción fue descartada, las salidas de sus entradas vuelven a estar disponibles.
      *
-     * @return Dirección de recepción.
+     * @param tx Transacción que cambió.
      */
-    @Override
+    private void indexTransaction(Transaction tx) {
+        for (TransactionOutput output : tx.getOutputs())
+            indexOutput(output);
+
+        for (TransactionInput input : tx.getInputs()) {
+            final TransactionOutPoint outpoint = input.getOutpoint();
+            final Transaction parent = mBitcoinJWallet.getTransaction(outpoint.getHash());
+
+            if (parent != null && outpoint.getIndex() < parent.getOutputs().size())
+                indexOutput(parent.getOutput(outpoint.getIndex()));
+        }
+    }
+
+    /**
+     * Agrega la salida al índice si pertenece a la billetera y puede gastarse, en caso contrario
+     * la elimina del índice. Las salidas con un tipo de script que el modelo de tamaño no soporta
+     * se omiten, ya que no es posible estimar el costo de gastarlas.
+     *
+     * @param output Salida a indexar.
+     */
+    private void indexOutput(TransactionOutput output) {
+        final Transaction tx = Objects.requireNonNull(output.getParentTransaction());
+        final TransactionConfidence.ConfidenceType type = tx.getConfidence().getConfidenceType();
+        final boolean alive = type == TransactionConfidence.ConfidenceType.BUILDING
+                || type == TransactionConfidence.ConfidenceType.PENDING;
+
+        if (alive && output.isAvailableForSpending() && output.isMine(mBitcoinJWallet)) {
+            final Script script = output.getScriptPubKey();
+            final Script redeemScript = findRedeemScript(script);
+
+            if (!SizeModel.isSupportedInput(script, redeemScript)) {
+                Log.w(LOG_TAG, "Skipping output with unsupported script: "
+                        + output.getOutPointFor());
+                mUtxoIndex.remove(output.getOutPointFor());
+                return;
+            }
+
+            mUtxoIndex.put(output, SizeModel.getInputWeight(script, redeemScript),
+                    SizeModel.isWitnessInput(script, redeemScript),
+                    type != TransactionConfidence.ConfidenceType.BUILDING);
+        } else
+            mUtxoIndex.remove(output.getOutPointFor());
+    }
+
+    /**
+     * Obtiene el script de canje de una salida P2SH de la billetera.
+     *
+     * @param script Script de la salida.
+     * @return El script de canje o null si la salida no es P2SH.
+     */
+    @Nullable
+    private Script findRedeemScript(Script script) {
+        if (!ScriptPattern.isP2SH(script))
+            return null;
+
+        final RedeemData redeemData = mBitcoinJWallet.findRedeemDataFromScriptHash(
+                ScriptPattern.extractHashFromP2SH(script));
+
+        return Objects.requireNonNull(redeemData).redeemScript;
+    }
+
+
+    /**
+     * Dirección de recepción de la billetera.
+     *
+     * @return Dirección de recepción.
+     */
+    @Override
     public String getCurrentPublicAddress() {
         if (mBitcoinJWallet == null)
             throw new IllegalStateException("Wallet wasn't initialized");
@@ -887,7 +1351,7 @@ public class BitcoinWallet extends AbstractWallet {
 
             mBitcoinJWallet.decrypt(Hex.toHexString(currentToken));
             mBitcoinJWallet.encrypt(scrypt, scrypt.deriveKey(Hex.toHexString(newToken)));
-            mBitcoinJWallet.saveToFile(getWalletFile());
+            mPersister.save();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -944,20 +1408,112 @@ public class BitcoinWallet extends AbstractWallet {
         Objects.requireNonNull(btcAddress);
         Objects.requireNonNull(btcAmount);
 
+        return createTx(Collections.singletonList(
+                new TransactionOutput(mNetwork, null, btcAmount, btcAddress)), feeByKB);
+    }
+
+    /**
+     * Crea una transacción nueva que paga a varios destinatarios con una sola selección de
+     * entradas. Cada cantidad se valida contra el polvo y el máximo de la red; la suma de las
+     * cantidades se valida contra el máximo de la red. Si las salidas disponibles no cubren la
+     * suma y la comisión, la selección de entradas rechaza el pago.
+     *
+     * @param recipients Destinatarios del pago.
+     * @param feeByKB    Comisión por KB.
+     * @return Una transacción nueva.
+     */
+    @Override
+    public ITransaction createBatchTx(List<Recipient> recipients, long feeByKB) {
+        if (mBitcoinJWallet == null)
+            throw new IllegalStateException("Wallet wasn't initialized");
+
+        if (recipients.isEmpty())
+            throw new IllegalArgumentException("At least one recipient is required");
+
+        propagateBitcoinJ();
+
+        final List<TransactionOutput> payments = new ArrayList<>(recipients.size());
+        long total = 0;
+
+        for (Recipient recipient : recipients) {
+            final Address address = parseAddress(recipient.getAddress());
+
+            if (address == null)
+                throw new IllegalArgumentException(
+                        String.format("Invalid address: %s", recipient.getAddress()));
+
+            final Coin amount = Coin.valueOf(recipient.getAmount());
+
+            if (!amount.isGreaterThan(Transaction.MIN_NONDUST_OUTPUT))
+                throw new BitcoinDustException();
+
+            if (amount.isGreaterThan(mNetwork.getMaxMoney()))
+                throw new BitcoinOverflowException(recipient.getAmount());
+
+            total += recipient.getAmount();
+
+            if (Coin.valueOf(total).isGreaterThan(mNetwork.getMaxMoney()))
+                throw new BitcoinOverflowException(total);
+
+            payments.add(new TransactionOutput(mNetwork, null, amount, address));
+        }
+
+        return createTx(payments, feeByKB);
+    }
+
+    /**
+     * Crea una transacción con los pagos especificados, las salidas de comisión de la billetera y
+     * las entradas y el cambio que los cubren.
+     *
+     * @param payments Salidas de los pagos.
+     * @param feeByKB  Comisión por KB.
+     * @return Una transacción nueva.
+     */
+    private ITransaction createTx(List<TransactionOutput> payments, long feeByKB) {
         BitcoinTransaction tx = new BitcoinTransaction(this);
-        tx.getTx().addOutput(btcAmount, btcAddress);
+
+        for (TransactionOutput payment : payments)
+            tx.getTx().addOutput(payment);
 
         for (TransactionOutput feeOutput : getOutputToWalletFee())
             tx.getTx().addOutput(feeOutput);
 
         completeTx(tx, feeByKB);
 
-        Log.d(LOG_TAG, String.format("Created transaction [%s] (%s)",
-                tx.getID(), Utils.toSizeFriendlyString(tx.getSize())));
+        Log.d(LOG_TAG, String.format("Created transaction [%s] with %d payments (%s)",
+                tx.getID(), payments.size(), Utils.toSizeFriendlyString(tx.getSize())));
 
         return tx;
     }
 
+    /**
+     * Cotiza la comisión de un pago sin construir la transacción. Utiliza la misma selección de
+     * entradas de {@link #completeTx(BitcoinTransaction, long)}, por lo que la cotización coincide
+     * con la transacción creada.
+     *
+     * @param address Dirección del pago.
+     * @param amount  Cantidad a enviar.
+     * @param feeByKB Comisión por KB.
+     * @return La cotización del pago.
+     */
+    @Override
+    public FeeQuote quoteFee(String address, long amount, long feeByKB) {
+        if (mBitcoinJWallet == null)
+            throw new IllegalStateException("Wallet wasn't initialized");
+
+        propagateBitcoinJ();
+
+        final Address btcAddress = Objects.requireNonNull(parseAddress(address));
+        final List<TransactionOutput> outputs = new ArrayList<>(getOutputToWalletFee());
+
+        outputs.add(0, new TransactionOutput(mNetwork, null, Coin.valueOf(amount), btcAddress));
+
+        final CoinSelection<UtxoIndex.Entry> selection = selectInputs(outputs, feeByKB);
+        final long fee = selection.getInputsValue() - selection.getChange() - amount;
+
+        return new FeeQuote(fee, amount + fee, selection.getInputs().size());
+    }
+
     /**
      * Obtiene la dirección de bitcoin de la representación en base58 o bech32.
      *
@@ -1019,12 +1575,32 @@ public class BitcoinWallet extends AbstractWallet {
      * @param feeByKB Comisión por kilobyte.
      */
     private void completeTx(BitcoinTransaction tx, long feeByKB) {
-        final List<TransactionOutput> unspents = mBitcoinJWallet.calculateAllSpendCandidates();
-        final Address address = mBitcoinJWallet.currentChangeAddress();
+        final CoinSelection<UtxoIndex.Entry> selection
+                = selectInputs(tx.getTx().getOutputs(), feeByKB);
+
+        for (UtxoIndex.Entry entry : selection.getInputs())
+            tx.getTx().addInput(entry.getOutput());
+
+        if (selection.hasChange())
+            tx.getTx().addOutput(Coin.valueOf(selection.getChange()),
+                    mBitcoinJWallet.currentChangeAddress());
+    }
 
-        Coin value = Coin.ZERO;
+    /**
+     * Selecciona las entradas que cubren las salidas especificadas y la comisión. El tamaño de la
+     * transacción se calcula con {@link SizeModel} sin serializarla.
+     *
+     * @param outputs Salidas a pagar.
+     * @param feeByKB Comisión por kilobyte.
+     * @return El resultado de la selección.
+     * @throws InsufficientBalanceException Si el saldo no cubre las salidas y la comisión.
+     */
+    private CoinSelection<UtxoIndex.Entry> selectInputs(List<TransactionOutput> outputs,
+                                                        long feeByKB) {
+        final SelectionTarget.Builder builder = new SelectionTarget.Builder()
+                .setFeeByKB(feeByKB);
 
-        for (TransactionOutput output : tx.getTx().getOutputs())
+        for (TransactionOutput output : outputs)
             if (output.isDust())
                 throw new IllegalArgumentException(
                         String.format("Output is dust, %s to %s",
@@ -1032,101 +1608,25 @@ public class BitcoinWallet extends AbstractWallet {
                                 output.getScriptPubKey().getToAddress(mNetwork)
                         ));
             else
-                value = value.add(output.getValue());
-
-        Collections.sort(unspents, (left, right) -> left.getValue().compareTo(right.getValue()));
-
-        BitcoinTransaction temp;
-        Coin fee = Coin.ZERO;
-        List<TransactionOutput> candidates = new ArrayList<>();
-
-        while (true) {
-            temp = tx.copy();
-            candidates.clear();
-
-            Coin total = Coin.ZERO;
-            Coin valueNeeded = value;
-
-            valueNeeded = valueNeeded.add(fee);
-
-            for (TransactionOutput output : unspents) {
-                if (total.isGreaterThan(valueNeeded))
-                    break;
-
-                candidates.add(output);
-                total = total.add(output.getValue());
-            }
-
-            if (total.isLessThan(valueNeeded))
-                throw new InsufficientBalanceException(getCryptoAsset(), valueNeeded.getValue());
+                builder.addOutput(output.getValue().value, output.getScriptBytes().length);
 
-            Coin change = total.subtract(valueNeeded);
+        final TransactionOutput change = new TransactionOutput(mNetwork, null, Coin.ZERO,
+                mBitcoinJWallet.currentChangeAddress());
+        final Script changeScript = change.getScriptPubKey();
 
-            if (change.isGreaterThan(Coin.ZERO)) {
-                TransactionOutput txo = new TransactionOutput(
-                        mNetwork, temp.getTx(), change, address);
-                if (txo.isDust())
-                    fee = fee.add(change);
-                else
-                    temp.getTx().addOutput(txo);
-            }
-
-            for (TransactionOutput txo : candidates)
-                temp.getTx().addInput(txo);
-
-            int size = temp.getTx().bitcoinSerialize().length;
-            size += estimateSignSize(candidates);
-
-            Coin requiredFee = Coin.valueOf(feeByKB).divide(1024)
-                    .multiply(size);
-
-            if (!fee.isLessThan(requiredFee))
-                break;
-
-            fee = requiredFee;
-        }
+        builder.setChange(change.getScriptBytes().length,
+                SizeModel.getInputWeight(changeScript, findRedeemScript(changeScript)),
+                change.getMinNonDustValue().value);
 
-        tx.getTx().clearInputs();
+        final SelectionTarget target = builder.build();
+        final CoinSelection<UtxoIndex.Entry> selection
+                = mCoinSelection.select(mUtxoIndex.getEntries(), target);
 
-        for (TransactionOutput candidate : candidates)
-            tx.getTx().addInput(candidate);
+        if (selection == null)
+            throw new InsufficientBalanceException(getCryptoAsset(),
+                    target.getSelectionTarget());
 
-        tx.getTx().clearOutputs();
-
-        for (TransactionOutput output : temp.getTx().getOutputs())
-            tx.getTx().addOutput(output);
-    }
-
-    /**
-     * Calcula el tamaño de la firma de cada entrada.
-     *
-     * @param candidate Salidas candidatos a ser las entradas.
-     * @return El tamaño de la firma.
-     */
-    private int estimateSignSize(@NotNull List<TransactionOutput> candidate) {
-        int size = 0;
-
-        for (TransactionOutput output : candidate) {
-            Script script = output.getScriptPubKey();
-            ECKey key = null;
-            Script redeemScript = null;
-            if (ScriptPattern.isP2PKH(script)) {
-                key = mBitcoinJWallet.findKeyFromPubKeyHash(ScriptPattern.extractHashFromP2PKH(script),
-                        Script.ScriptType.P2PKH);
-                Objects.requireNonNull(key);
-            } else if (ScriptPattern.isP2WPKH(script)) {
-                key = mBitcoinJWallet.findKeyFromPubKeyHash(ScriptPattern.extractHashFromP2WH(script),
-                        Script.ScriptType.P2WPKH);
-                Objects.requireNonNull(key);
-            } else if (ScriptPattern.isP2SH(script)) {
-                redeemScript = Objects.requireNonNull(mBitcoinJWallet.findRedeemDataFromScriptHash(
-                        ScriptPattern.extractHashFromP2SH(script))).redeemScript;
-                Objects.requireNonNull(redeemScript);
-            }
-            size += script.getNumberOfBytesRequiredToSpend(key, redeemScript);
-        }
-
-        return size;
+        return selection;
     }
 
     /**
@@ -1189,24 +1689,25 @@ public class BitcoinWallet extends AbstractWallet {
     }
 
     /**
-     * Obtiene las comisiones de la red para realizar los envío de transacciones.
+     * Obtiene las comisiones de la red para realizar los envío de transacciones. Las comisiones
+     * se estiman a partir de las tasas de los bloques recientes sin bloquear al solicitante; si
+     * las tasas no están disponibles se devuelve la última estimación conocida.
      *
      * @return Comisión de la red.
      */
     @Override
     public IFees getCurrentFees() {
-        // TODO Request Fees
-        return new IFees() {
-            @Override
-            public long getAverage() {
-                return 39936;
-            }
+        return mFeeEstimator.getFees();
+    }
 
-            @Override
-            public long getFaster() {
-                return 40960;
-            }
-        };
+    /**
+     * Establece los objetivos de confirmación en bloques de las comisiones rápida y promedio.
+     *
+     * @param fasterTarget  Objetivo de la comisión rápida.
+     * @param averageTarget Objetivo de la comisión promedio.
+     */
+    public void setFeeTargets(int fasterTarget, int averageTarget) {
+        mFeeEstimator.setTargets(fasterTarget, averageTarget);
     }
 
     /**
@@ -1339,28 +1840,34 @@ public class BitcoinWallet extends AbstractWallet {
 
         final DeterministicKeyChain activeKeyChain = mBitcoinJWallet.getActiveKeyChain();
 
-        final Set<LegacyAddress> receiveAddresses = new Derivator(ChildNumber.ZERO)
-                .deriveAddresses(activeKeyChain.getIssuedExternalKeys()
-                        + MAX_ADDRESS_PER_REQUEST, 0);
-
-        final Set<LegacyAddress> changeAddresses = new Derivator(ChildNumber.ONE)
-                .deriveAddresses(activeKeyChain.getIssuedInternalKeys()
-                        + MAX_ADDRESS_PER_REQUEST, 0);
-
-        final HashSet<LegacyAddress> addresses = new HashSet<>();
-        addresses.addAll(receiveAddresses);
-        addresses.addAll(changeAddresses);
-
-        final byte[] binAdresses = serializeAddressesList(addresses);
+        final byte[] binAdresses = Bytes.concat(
+                getAddressIndex(ChildNumber.ZERO).getAddresses(0,
+                        activeKeyChain.getIssuedExternalKeys() + MAX_ADDRESS_PER_REQUEST),
+                getAddressIndex(ChildNumber.ONE).getAddresses(0,
+                        activeKeyChain.getIssuedInternalKeys() + MAX_ADDRESS_PER_REQUEST));
+
+        if (getWalletId() == null) return;
+
+        Futures.addCallback(BitcoinProvider.get(this)
+                        .subscribeAsync(token, Hex.toHexString(getWalletId()), binAdresses),
+                new FutureCallback<Boolean>() {
+                    @Override
+                    public void onSuccess(@Nullable Boolean subscribed) {
+                        if (subscribed == null || !subscribed)
+                            Log.w(LOG_TAG, "Fail to subscribe push token");
+                    }
 
-        if (getWalletId() != null && !BitcoinProvider.get(this)
-                .subscribe(token, Hex.toHexString(getWalletId()), binAdresses))
-            Log.w(LOG_TAG, "Fail to subscribe push token");
+                    @Override
+                    public void onFailure(@NonNull Throwable t) {
+                        Log.w(LOG_TAG, "Fail to subscribe push token: " + t.getMessage());
+                    }
+                }, MoreExecutors.directExecutor());
     }
 
     /**
      * Solicita la transacción especificada, si esta transacción no es relavante para la billetera,
-     * será descartada.
+     * será descartada. Si la transacción no puede obtenerse, se descarta la notificación; la
+     * transacción será recuperada con el siguiente bloque o la siguiente sincronización.
      *
      * @param txid Identificador de la transacción.
      */
@@ -1371,23 +1878,31 @@ public class BitcoinWallet extends AbstractWallet {
 
             if (!exists() || !isInitialized()) return;
 
-            if (mSynchronizing || mBitcoinJWallet.getLastBlockSeenHeight() < 0)
+            if (mSynchronizer.isRunning() || mBitcoinJWallet.getLastBlockSeenHeight() < 0)
                 return;
 
-            ChainTipInfo tip = BitcoinProvider.get(this).getChainTipInfo();
+            final BitcoinProvider provider = BitcoinProvider.get(this);
+            final ListenableFuture<ChainTipInfo> tipRequest = provider.getChainTipInfoAsync();
+            final ListenableFuture<BitcoinTransaction> txRequest = provider
+                    .getTransactionByTxIDAsync(Sha256Hash.wrap(txid).getReversedBytes());
+
+            ChainTipInfo tip = tipRequest.get();
 
             if (tip == null) {
-                requestNewTransaction(txid);
+                txRequest.cancel(true);
+                Log.w(LOG_TAG, "Unable to get the chain tip, discarding transaction: " + txid);
                 return;
             }
 
-            if ((tip.getHeight() - mBitcoinJWallet.getLastBlockSeenHeight()) > 0) return;
+            if ((tip.getHeight() - mBitcoinJWallet.getLastBlockSeenHeight()) > 0) {
+                txRequest.cancel(true);
+                return;
+            }
 
-            BitcoinTransaction tx = BitcoinProvider.get(this)
-                    .getTransactionByTxID(Sha256Hash.wrap(txid).getReversedBytes());
+            BitcoinTransaction tx = txRequest.get();
 
             if (tx == null) {
-                requestNewTransaction(txid);
+                Log.w(LOG_TAG, "Unable to get the transaction, discarding: " + txid);
                 return;
             }
 
@@ -1401,7 +1916,9 @@ public class BitcoinWallet extends AbstractWallet {
     }
 
     /**
-     * Solicita las transacciones relevantes que fueron incluidas en el bloque.
+     * Solicita las transacciones relevantes que fueron incluidas en el bloque. Antes de agregar el
+     * bloque siguiente se verifica que el último bloque visto siga en la cadena principal; si fue
+     * reemplazado, se revierte al punto de separación y se recuperan los bloques posteriores.
      *
      * @param height        Altura de la cadena.
      * @param hash          Hash del bloque en la punta de la cadena.
@@ -1411,35 +1928,274 @@ public class BitcoinWallet extends AbstractWallet {
     @Override
     public synchronized void requestNewBlock(int height, String hash, long timeInSeconds,
                                              String[] txs) {
+        BitcoinProvider.get(this).invalidateChainTip();
+        BitcoinProvider.get(this).invalidateFeeRates();
+
         Utils.tryNotThrow(() -> {
             propagateBitcoinJ();
 
             if (!exists() || !isInitialized()) return;
 
-            if (mSynchronizing || mBitcoinJWallet.getLastBlockSeenHeight() < 0)
+            if (mSynchronizer.isRunning() || mBitcoinJWallet.getLastBlockSeenHeight() < 0)
                 return;
 
             int diff = height - mBitcoinJWallet.getLastBlockSeenHeight();
 
-            if (diff > 1) {
+            if (mRescanRequired || diff > MAX_CATCH_UP_BLOCKS) {
                 syncWallet();
+            } else if (diff > 1) {
+                catchUp(height, true);
             } else if (diff == 1) {
-                Map<String, BitcoinTransaction> transactions = downloadTransactions(txs);
+                rollBackIfReorganized();
+
+                if (mRescanRequired) {
+                    syncWallet();
+                } else if (mBitcoinJWallet.getLastBlockSeenHeight() < height - 1) {
+                    catchUp(height, false);
+                } else {
+                    Map<String, BitcoinTransaction> transactions = downloadTransactions(txs);
+
+                    addTransactions(transactions);
 
-                addTransactions(transactions);
+                    final int previousHeight = mBitcoinJWallet.getLastBlockSeenHeight();
 
-                mBitcoinJWallet.setLastBlockSeenTimeSecs(timeInSeconds);
-                mBitcoinJWallet.setLastBlockSeenHeight(height);
-                mBitcoinJWallet.setLastBlockSeenHash(Sha256Hash.wrap(hash));
+                    setLastBlockSeen(hash, height, timeInSeconds);
+                    notifyConfirmations(previousHeight, height);
 
-                mBitcoinJWallet.saveToFile(getWalletFile());
+                    commit(new WalletJournal.Batch().setTip(hash, height, timeInSeconds));
 
-                Log.i(LOG_TAG, "Block added [hash: " + hash + " height: "
-                        + mBitcoinJWallet.getLastBlockSeenHeight() + "]");
+                    Log.i(LOG_TAG, "Block added [hash: " + hash + " height: "
+                            + mBitcoinJWallet.getLastBlockSeenHeight() + "]");
+                }
+            } else if (mBlockWindow.getHash(height) != null
+                    && !Sha256Hash.wrap(hash).equals(mBlockWindow.getHash(height))) {
+                recoverFromReorganization(height);
             }
         });
     }
 
+    /**
+     * Recupera los bloques posteriores al último bloque visto con una sola consulta de rango y
+     * aplica sus transacciones en orden. Si el rango no continúa el último bloque visto, la cadena
+     * fue reorganizada: se revierte hasta el punto de separación y se solicita únicamente el rango
+     * posterior. Si la consulta no está disponible se realiza una sincronización completa.
+     *
+     * @param height        Altura de la punta de la cadena.
+     * @param allowRollback True si se permite revertir la billetera al detectar una
+     *                      reorganización.
+     */
+    private void catchUp(int height, boolean allowRollback)
+            throws IOException, ExecutionException, InterruptedException {
+        final int previousHeight = mBitcoinJWallet.getLastBlockSeenHeight();
+        final Sha256Hash previousHash = mBitcoinJWallet.getLastBlockSeenHash();
+
+        if (previousHash == null) {
+            syncWallet();
+            return;
+        }
+
+        final BlockRange range = BitcoinProvider.get(this)
+                .getBlockRange(getWatchedAddresses(CATCH_UP_LOOKAHEAD), previousHeight, height);
+
+        if (range == null) {
+            Log.w(LOG_TAG, "Block range is not available, synchronizing wallet");
+            syncWallet();
+            return;
+        }
+
+        if (!range.isContinuationOf(previousHash.toString(), previousHeight)) {
+            Log.w(LOG_TAG, "Block range does not continue the last block seen [hash: "
+                    + previousHash + " height: " + previousHeight + "]");
+
+            if (allowRollback)
+                recoverFromReorganization(height);
+            else
+                syncWallet();
+
+            return;
+        }
+
+        final Map<String, BitcoinTransaction> transactions = new HashMap<>();
+
+        for (BitcoinTransaction tx : range.getTransactions())
+            transactions.put(tx.getID(), tx);
+
+        final List<BitcoinTransaction> orderedTx = sortTransactions(transactions);
+        final BlockRange.Header tip = range.getTip();
+
+        try {
+            final Map<String, BitcoinTransaction> dependencies = orderedTx.isEmpty()
+                    ? Collections.emptyMap() : new DependencyResolver(this).resolve(orderedTx);
+            final WalletJournal.Batch batch = applyTransactions(transactions, orderedTx,
+                    dependencies);
+
+            for (BlockRange.Header header : range.getHeaders())
+                mBlockWindow.add(header.getHeight(), Sha256Hash.wrap(header.getHash()),
+                        header.getTime());
+
+            setLastBlockSeen(tip.getHash(), tip.getHeight(), tip.getTime());
+            commit(batch.setTip(tip.getHash(), tip.getHeight(), tip.getTime()));
+        } catch (IOException | RuntimeException e) {
+            mPersister.markDirty();
+            Utils.tryNotThrow(mPersister::flush);
+
+            throw new RuntimeException(e);
+        }
+
+        notifyConfirmations(previousHeight, tip.getHeight());
+
+        Log.i(LOG_TAG, String.format("Caught up %d blocks [hash: %s height: %d, %d transactions]",
+                tip.getHeight() - previousHeight, tip.getHash(), tip.getHeight(),
+                transactions.size()));
+    }
+
+    /**
+     * Revierte la billetera hasta el punto de separación con la cadena principal y recupera los
+     * bloques posteriores hasta la altura especificada. Si el punto de separación no se encuentra
+     * en la ventana de bloques recientes se inicia el escaneo completo del historial; si la cadena
+     * no fue reorganizada y la billetera ya alcanzó la altura, no se realiza ninguna acción.
+     *
+     * @param height Altura de la punta de la cadena.
+     */
+    private void recoverFromReorganization(int height)
+            throws IOException, ExecutionException, InterruptedException {
+        rollBackIfReorganized();
+
+        final int forkHeight = mBitcoinJWallet.getLastBlockSeenHeight();
+
+        if (mRescanRequired || forkHeight <= 0)
+            syncWallet();
+        else if (forkHeight < height)
+            catchUp(height, false);
+    }
+
+    /**
+     * Verifica que el último bloque visto forme parte de la cadena principal. Si la cadena fue
+     * reorganizada, se busca el punto de separación entre los bloques de la ventana y se revierten
+     * solo las transacciones confirmadas en bloques posteriores; si el punto no se encuentra, se
+     * revierten todas para realizar un escaneo completo. Si el servidor no provee las cabeceras de
+     * los bloques, la verificación se omite.
+     *
+     * @throws IOException Si no se logra guardar la billetera revertida.
+     */
+    private void rollBackIfReorganized()
+            throws IOException, ExecutionException, InterruptedException {
+        final int lastHeight = mBitcoinJWallet.getLastBlockSeenHeight();
+        final Sha256Hash lastHash = mBitcoinJWallet.getLastBlockSeenHash();
+
+        if (lastHeight <= 0 || lastHash == null || mRescanRequired)
+            return;
+
+        final BitcoinProvider provider = BitcoinProvider.get(this);
+        final BlockRange last = provider.getBlockRange(new byte[0], lastHeight, lastHeight);
+
+        if (last == null || last.getTip() == null) {
+            Log.w(LOG_TAG, "Block headers are not available, skipping reorganization check");
+            return;
+        }
+
+        if (lastHash.toString().equalsIgnoreCase(last.getTip().getHash()))
+            return;
+
+        final int lowestHeight = mBlockWindow.getLowestHeight();
+        int forkHeight = -1;
+
+        if (lowestHeight >= 0 && lowestHeight < lastHeight) {
+            final BlockRange window = provider.getBlockRange(new byte[0], lowestHeight,
+                    lastHeight - 1);
+
+            if (window != null) {
+                final Map<Integer, Sha256Hash> chain = new HashMap<>();
+
+                for (BlockRange.Header header : window.getHeaders())
+                    if (header.getHash() != null)
+                        chain.put(header.getHeight(), Sha256Hash.wrap(header.getHash()));
+
+                forkHeight = mBlockWindow.findForkPoint(chain);
+            } else
+                Log.w(LOG_TAG, "Block headers are not available, fork point is unknown");
+        }
+
+        Log.w(LOG_TAG, String.format("Chain was reorganized [last block: %s height: %d], "
+                + "fork point: %d", lastHash, lastHeight, forkHeight));
+
+        rollBack(forkHeight);
+    }
+
+    /**
+     * Revierte a pendientes las transacciones confirmadas en bloques posteriores a la altura
+     * especificada y establece dicho bloque como el último visto. Si el bloque no se encuentra en
+     * la ventana, el último bloque visto se conserva y se marca la billetera para volver a escanear
+     * el historial completo en la siguiente sincronización. La billetera se guarda por completo,
+     * de esta forma la bitácora no vuelve a aplicar los bloques revertidos.
+     *
+     * @param forkHeight Altura del punto de separación o -1 para revertir todas las
+     *                   transacciones.
+     * @throws IOException Si no se logra guardar la billetera.
+     */
+    private void rollBack(int forkHeight) throws IOException {
+        final org.bitcoinj.core.Context context
+                = org.bitcoinj.core.Context.getOrCreate(getNetwork());
+        final List<Transaction> rolledBack = new ArrayList<>();
+
+        for (WalletTransaction wtx : mBitcoinJWallet.getWalletTransactions()) {
+            final Transaction tx = wtx.getTransaction();
+            final TransactionConfidence confidence = tx.getConfidence(context);
+
+            if (confidence.getConfidenceType() == TransactionConfidence.ConfidenceType.BUILDING
+                    && confidence.getAppearedAtChainHeight() > forkHeight) {
+                confidence.setConfidenceType(TransactionConfidence.ConfidenceType.PENDING);
+                mConfirmations.remove(tx.getTxId());
+                rolledBack.add(tx);
+            }
+        }
+
+        mBlockWindow.truncate(forkHeight);
+
+        final Sha256Hash forkHash = mBlockWindow.getHash(forkHeight);
+
+        if (forkHash == null) {
+            mBlockWindow.clear();
+            mRescanRequired = true;
+        } else {
+            mBitcoinJWallet.setLastBlockSeenHash(forkHash);
+            mBitcoinJWallet.setLastBlockSeenHeight(forkHeight);
+            mBitcoinJWallet.setLastBlockSeenTimeSecs(mBlockWindow.getTime(forkHeight));
+        }
+
+        mPersister.save();
+
+        if (mRescanRequired)
+            Log.i(LOG_TAG, String.format("Rolled back %d transactions, history will be rescanned",
+                    rolledBack.size()));
+        else
+            Log.i(LOG_TAG, String.format("Rolled back %d transactions to height %d",
+                    rolledBack.size(), mBitcoinJWallet.getLastBlockSeenHeight()));
+
+        for (Transaction tx : rolledBack)
+            indexTransaction(tx);
+
+        if (!rolledBack.isEmpty())
+            notifyBalanceChanged();
+    }
+
+    /**
+     * Obtiene las direcciones emitidas de ambas cadenas junto con las siguientes direcciones aún no
+     * emitidas.
+     *
+     * @param lookahead Direcciones no emitidas a incluir por cadena.
+     * @return Direcciones serializadas.
+     */
+    private byte[] getWatchedAddresses(int lookahead) {
+        final DeterministicKeyChain keyChain = mBitcoinJWallet.getActiveKeyChain();
+
+        return Bytes.concat(
+                getAddressIndex(ChildNumber.ZERO)
+                        .getAddresses(0, keyChain.getIssuedExternalKeys() + lookahead),
+                getAddressIndex(ChildNumber.ONE)
+                        .getAddresses(0, keyChain.getIssuedInternalKeys() + lookahead));
+    }
+
     /**
      * Obtiene el identificador del recurso utilizado para mostrar el logo del activo.
      *
@@ -1460,9 +2216,28 @@ public class BitcoinWallet extends AbstractWallet {
         return mInitialDownload;
     }
 
+    /**
+     * Guarda los cambios pendientes de la billetera sin bloquear el hilo principal.
+     */
+    @Override
+    public void onLeaveApp() {
+        mPersister.flushAsync();
+    }
 
     /**
-     * Obtiene el total del saldo de la billetera.
+     * Obtiene el programador del guardado de la billetera, el cual expone las métricas de los
+     * guardados realizados.
+     *
+     * @return Programador del guardado.
+     */
+    public WalletPersister getPersister() {
+        return mPersister;
+    }
+
+
+    /**
+     * Obtiene el total del saldo disponible de la billetera. El saldo se lee del índice de
+     * salidas sin recorrer las salidas de la billetera.
      *
      * @return Saldo de la billetera.
      */
@@ -1471,9 +2246,7 @@ public class BitcoinWallet extends AbstractWallet {
         if (mBitcoinJWallet == null)
             throw new IllegalStateException("Wallet wasn't initialized");
 
-        propagateBitcoinJ();
-
-        return mBitcoinJWallet.getBalance(AVAILABLE_SPENDABLE).value;
+        return mUtxoIndex.getSpendableTotal();
     }
 
     /**
@@ -1501,6 +2274,111 @@ public class BitcoinWallet extends AbstractWallet {
         return mNetwork;
     }
 
+    /**
+     * Obtiene la altura del último bloque procesado por la billetera.
+     *
+     * @return Altura del bloque o -1 si la billetera no ha sido sincronizada.
+     */
+    public int getLastBlockSeenHeight() {
+        final org.bitcoinj.wallet.Wallet wallet = mBitcoinJWallet;
+
+        return wallet == null ? -1 : wallet.getLastBlockSeenHeight();
+    }
+
+    /**
+     * Calcula las confirmaciones de una transacción a partir de la altura del último bloque
+     * procesado por la billetera.
+     *
+     * @param appearedAtHeight Altura del bloque donde aparece la transacción.
+     * @return Cantidad de confirmaciones.
+     */
+    int getDepth(int appearedAtHeight) {
+        return ConfirmationTracker.getDepth(appearedAtHeight, getLastBlockSeenHeight());
+    }
+
+    /**
+     * Establece los umbrales de confirmaciones que notifican a los escuchas registrados en
+     * {@link #addConfirmationListener}. De forma predeterminada son 1, 3 y 6.
+     *
+     * @param thresholds Umbrales de confirmaciones.
+     */
+    public void setConfirmationThresholds(int... thresholds) {
+        mConfirmations.setThresholds(thresholds);
+    }
+
+    /**
+     * Obtiene el directorio del caché de transacciones confirmadas de esta red.
+     *
+     * @return Directorio del caché.
+     */
+    public File getTxCacheDirectory() {
+        return new File(getWalletFile().getParentFile(),
+                "txcache-" + mNetwork.getPaymentProtocolId());
+    }
+
+    /**
+     * Obtiene el índice persistente de las direcciones de la cadena especificada. El índice se
+     * carga del archivo la primera vez que se solicita.
+     *
+     * @param purpose Cadena de las direcciones, {@link ChildNumber#ZERO} para recepción y
+     *                {@link ChildNumber#ONE} para cambio.
+     * @return Índice de direcciones.
+     */
+    private synchronized AddressIndex getAddressIndex(ChildNumber purpose) {
+        final boolean receive = purpose.equals(ChildNumber.ZERO);
+        AddressIndex index = receive ? mReceiveIndex : mChangeIndex;
+
+        if (index == null) {
+            final DeterministicKey chainKey = HDKeyDerivation
+                    .deriveChildKey(getAccountKey().dropPrivateBytes(), purpose);
+
+            index = new AddressIndex(chainKey, mNetwork, getAddressIndexFile(purpose));
+
+            if (receive)
+                mReceiveIndex = index;
+            else
+                mChangeIndex = index;
+        }
+
+        return index;
+    }
+
+    /**
+     * Obtiene el archivo del índice de direcciones de la cadena, ubicado junto al archivo de la
+     * billetera.
+     *
+     * @param purpose Cadena de las direcciones.
+     * @return Archivo del índice.
+     */
+    private File getAddressIndexFile(ChildNumber purpose) {
+        return new File(getWalletFile().getParentFile(), String.format("addresses-%s-%d.idx",
+                mNetwork.getPaymentProtocolId(), purpose.num()));
+    }
+
+    /**
+     * Obtiene la clave de la cuenta de la billetera activa (m/0').
+     *
+     * @return Una clave determinista.
+     */
+    private DeterministicKey getAccountKey() {
+        DeterministicKey receiveKey = mBitcoinJWallet.currentKey(KeyChain.KeyPurpose.RECEIVE_FUNDS);
+
+        if (receiveKey == null)
+            throw new UnsupportedOperationException();
+
+        DeterministicKey purposeKey = receiveKey.getParent();
+
+        if (purposeKey == null)
+            throw new UnsupportedOperationException();
+
+        DeterministicKey rootKey = purposeKey.getParent();
+
+        if (rootKey == null)
+            throw new UnsupportedOperationException();
+
+        return rootKey;
+    }
+
     /**
      * Recepción de una nueva transacción.
      *
@@ -1526,99 +2404,170 @@ public class BitcoinWallet extends AbstractWallet {
     }
 
     /**
-     * Define el derivador de llaves. Este es utilizado para generar las llaves publicas en una
-     * profundidad determinada. Con la ayuda del derivador, se realiza el escaneo de actividad en
-     * cada dirección derivada.
+     * Estado de un ciclo de sincronización.
      *
      * @author Ing. Javier Flores (jjflores@innsytech.com)
      * @version 1.0
      */
-    private class Derivator {
+    private static final class SyncCycle {
+
+        /**
+         * Punta de la cadena que se sincroniza en el ciclo.
+         */
+        private ChainTipInfo mTip;
+
+        /**
+         * Transacciones descargadas indexadas por su identificador.
+         */
+        private Map<String, BitcoinTransaction> mTransactions = Collections.emptyMap();
+
+        /**
+         * Transacciones descargadas ordenadas.
+         */
+        private List<BitcoinTransaction> mOrderedTx = Collections.emptyList();
 
         /**
-         * Jerarquía de claves.
+         * Dependencias indexadas por su identificador.
          */
-        private final DeterministicHierarchy mHierarchy;
+        private Map<String, BitcoinTransaction> mDependencies = Collections.emptyMap();
 
         /**
-         * Profundidad del tipo de clave a generar.
+         * Altura del último bloque observado antes de aplicar el ciclo.
          */
-        private final List<ChildNumber> mPath;
+        private int mPreviousHeight;
 
         /**
-         * Crea una instancia nueva del derivador.
+         * Crea un nuevo ciclo.
          *
-         * @param purpose Proposito de las claves generadas por este derivador.
+         * @param tip Punta de la cadena.
          */
-        Derivator(ChildNumber purpose) {
-            mHierarchy = new DeterministicHierarchy(getRootKey());
-            mPath = Collections.unmodifiableList(
-                    Lists.newArrayList(ChildNumber.ZERO_HARDENED, purpose));
+        private SyncCycle(ChainTipInfo tip) {
+            mTip = tip;
         }
+    }
+
+    /**
+     * Pasos de la sincronización de la billetera.
+     *
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    private final class SyncSteps implements WalletSynchronizer.Steps<SyncCycle> {
 
         /**
-         * Deriva una cantidad especificada de direcciones a partir de un indice.
+         * Consulta la punta de la cadena y determina si la billetera está al día.
          *
-         * @param size      Cantidad de direcciones a derivar.
-         * @param fromIndex Indice de partida para la derivación.
-         * @return Conjunto de direcciones derivadas.
+         * @return El estado de un ciclo nuevo o null si la billetera está al día.
+         * @throws IOException Si la punta no está disponible o el servidor no está sincronizado.
          */
-        Set<LegacyAddress> deriveAddresses(int size, int fromIndex) {
-            Set<LegacyAddress> addresses = new HashSet<>();
+        @Override
+        public SyncCycle checkTip()
+                throws IOException, ExecutionException, InterruptedException {
+            propagateBitcoinJ();
+
+            final ChainTipInfo tipInfo = BitcoinProvider.get(BitcoinWallet.this)
+                    .getChainTipInfo();
 
-            for (int i = fromIndex; i < (fromIndex + size); i++)
-                addresses.add(deriveAddress(i));
+            if (tipInfo == null || tipInfo.getStatus() != ChainTipInfo.NetworkStatus.SYNCHRONIZED)
+                throw new IOException("Chain tip is not available");
 
-            return addresses;
+            final Sha256Hash lastHash = mBitcoinJWallet.getLastBlockSeenHash();
+
+            if (tipInfo.getHeight() == mBitcoinJWallet.getLastBlockSeenHeight()
+                    && lastHash != null && tipInfo.getHash().equalsIgnoreCase(lastHash.toString()))
+                return null;
+
+            return new SyncCycle(tipInfo);
         }
 
         /**
-         * Deriva la dirección del indice especificado.
+         * Descarga el historial de transacciones del ciclo. Si la descarga inicial continúa desde
+         * un punto de control, el ciclo se sincroniza hasta la punta registrada en él.
          *
-         * @param index Indice de la dirección.
-         * @return Dirección derivada.
+         * @param cycle Estado del ciclo.
          */
-        LegacyAddress deriveAddress(int index) {
-            ECKey key = derive(index);
-
-            return LegacyAddress.fromKey(mNetwork, key);
+        @Override
+        public void downloadHistory(SyncCycle cycle)
+                throws IOException, ExecutionException, InterruptedException {
+            cycle.mTransactions = BitcoinWallet.this.downloadHistory(cycle.mTip);
+            cycle.mOrderedTx = sortTransactions(cycle.mTransactions);
+
+            if (mInitialDownload && mScanCheckpoint.getTip() != null)
+                cycle.mTip = mScanCheckpoint.getTip();
         }
 
         /**
-         * Deriva una clave del indice especificado.
+         * Descarga las dependencias de las transacciones del ciclo.
          *
-         * @param index Indice de la clave.
-         * @return Una clave derivada.
+         * @param cycle Estado del ciclo.
          */
-        ECKey derive(int index) {
-            ArrayList<ChildNumber> path = Lists.newArrayList(mPath);
-            path.add(new ChildNumber(index));
-
-            return mHierarchy.get(path, false, true);
+        @Override
+        public void resolveDependencies(SyncCycle cycle)
+                throws IOException, ExecutionException, InterruptedException {
+            if (!cycle.mOrderedTx.isEmpty())
+                cycle.mDependencies = new DependencyResolver(BitcoinWallet.this)
+                        .resolve(cycle.mOrderedTx);
         }
 
         /**
-         * Obtiene la clave raiz de la billetera activa.
+         * Aplica las transacciones y la punta del ciclo y las agrega a la bitácora en un solo
+         * lote.
          *
-         * @return Una clave determinista.
+         * @param cycle Estado del ciclo.
          */
-        private DeterministicKey getRootKey() {
-            DeterministicKey receiveKey = mBitcoinJWallet.currentKey(KeyChain.KeyPurpose.RECEIVE_FUNDS);
+        @Override
+        public void persist(SyncCycle cycle) {
+            propagateBitcoinJ();
+
+            final ChainTipInfo tipInfo = cycle.mTip;
+            final long tipTime = tipInfo.getTime().getTime() / 1000L;
+
+            try {
+                final WalletJournal.Batch batch = applyTransactions(cycle.mTransactions,
+                        cycle.mOrderedTx, cycle.mDependencies);
+
+                cycle.mPreviousHeight = mBitcoinJWallet.getLastBlockSeenHeight();
 
-            if (receiveKey == null)
-                throw new UnsupportedOperationException();
+                setLastBlockSeen(tipInfo.getHash(), tipInfo.getHeight(), tipTime);
+                commit(batch.setTip(tipInfo.getHash(), tipInfo.getHeight(), tipTime));
 
-            DeterministicKey purposeKey = receiveKey.getParent();
+                mRescanRequired = false;
 
-            if (purposeKey == null)
-                throw new UnsupportedOperationException();
+                if (mInitialDownload && !mScanCheckpoint.delete())
+                    Log.d(LOG_TAG, "No scan checkpoint to delete");
+            } catch (RuntimeException e) {
+                mPersister.markDirty();
+                Utils.tryNotThrow(mPersister::flush);
 
-            DeterministicKey rootKey = purposeKey.getParent();
+                throw e;
+            }
+        }
 
-            if (rootKey == null)
-                throw new UnsupportedOperationException();
+        /**
+         * Notifica las transacciones que alcanzan un umbral de confirmaciones.
+         *
+         * @param cycle Estado del ciclo.
+         */
+        @Override
+        public void notifyChanges(SyncCycle cycle) {
+            notifyConfirmations(cycle.mPreviousHeight, cycle.mTip.getHeight());
+
+            Log.d(LOG_TAG, String.format(
+                    "Synchronized to %d [%d transactions], balance: %s, pending: %s",
+                    cycle.mTip.getHeight(), cycle.mTransactions.size(),
+                    Coin.valueOf(mUtxoIndex.getSpendableTotal()).toFriendlyString(),
+                    Coin.valueOf(mUtxoIndex.getPendingTotal()).toFriendlyString()));
+        }
+
+        /**
+         * Notifica que la billetera alcanzó la punta de la cadena.
+         */
+        @Override
+        public void onSynchronized() {
+            Log.i(LOG_TAG, "Sync is completed: current height "
+                    + mBitcoinJWallet.getLastBlockSeenHeight());
 
-            return rootKey;
+            notifyFullSync();
         }
     }
 }
@@ -0,0 +1,322 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet;
+
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.wallet.Wallet;
+import org.bitcoinj.wallet.WalletExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Ventana de los hashes de los últimos bloques observados por la billetera. Se almacena en un
+ * búfer circular de capacidad fija ordenado por altura, de esta forma es posible determinar el
+ * punto donde la cadena local se separa de la cadena principal sin conservar todas las cabeceras.
+ * <p>
+ * La ventana se guarda dentro del archivo de la billetera como una extensión de bitcoinj con el
+ * siguiente formato:
+ * <pre>
+ * int32     Cantidad de bloques.
+ * bloques, de la menor a la mayor altura:
+ *   int32     Altura del bloque.
+ *   byte[32]  Hash del bloque.
+ *   int64     Fecha y hora del bloque en segundos.
+ * </pre>
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class BlockWindow implements WalletExtension {
+
+    /**
+     * Identificador de la extensión en el archivo de la billetera.
+     */
+    static final String EXTENSION_ID = "com.cryptowallet.assets.bitcoin.wallet.BlockWindow";
+
+    /**
+     * Altura de los bloques, de forma circular.
+     */
+    private final int[] mHeights;
+
+    /**
+     * Hash de los bloques, de forma circular.
+     */
+    private final Sha256Hash[] mHashes;
+
+    /**
+     * Fecha y hora de los bloques en segundos, de forma circular.
+     */
+    private final long[] mTimes;
+
+    /**
+     * Posición del bloque de menor altura.
+     */
+    private int mHead;
+
+    /**
+     * Cantidad de bloques en la ventana.
+     */
+    private int mSize;
+
+    /**
+     * Crea una ventana vacía.
+     *
+     * @param capacity Cantidad máxima de bloques.
+     */
+    public BlockWindow(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Requires at least one block");
+
+        mHeights = new int[capacity];
+        mHashes = new Sha256Hash[capacity];
+        mTimes = new long[capacity];
+    }
+
+    /**
+     * Agrega un bloque a la ventana. Los bloques con una altura igual o mayor son descartados, ya
+     * que pertenecen a una rama reemplazada; si la ventana está llena se descarta el bloque más
+     * antiguo.
+     *
+     * @param height        Altura del bloque.
+     * @param hash          Hash del bloque.
+     * @param timeInSeconds Fecha y hora del bloque en segundos.
+     */
+    public synchronized void add(int height, Sha256Hash hash, long timeInSeconds) {
+        truncate(height - 1);
+
+        if (mSize == mHeights.length) {
+            mHead = (mHead + 1) % mHeights.length;
+            mSize--;
+        }
+
+        final int position = (mHead + mSize) % mHeights.length;
+
+        mHeights[position] = height;
+        mHashes[position] = hash;
+        mTimes[position] = timeInSeconds;
+        mSize++;
+    }
+
+    /**
+     * Descarta los bloques posteriores a la altura especificada.
+     *
+     * @param height Altura del último bloque que se conserva.
+     */
+    public synchronized void truncate(int height) {
+        while (mSize > 0 && mHeights[position(mSize - 1)] > height)
+            mSize--;
+    }
+
+    /**
+     * Descarta todos los bloques de la ventana.
+     */
+    public synchronized void clear() {
+        mHead = 0;
+        mSize = 0;
+    }
+
+    /**
+     * Obtiene el hash del bloque a la altura especificada.
+     *
+     * @param height Altura del bloque.
+     * @return Hash del bloque o null si no se encuentra en la ventana.
+     */
+    public synchronized Sha256Hash getHash(int height) {
+        final int index = indexOf(height);
+
+        return index < 0 ? null : mHashes[position(index)];
+    }
+
+    /**
+     * Obtiene la fecha y hora del bloque a la altura especificada.
+     *
+     * @param height Altura del bloque.
+     * @return Fecha y hora en segundos o -1 si no se encuentra en la ventana.
+     */
+    public synchronized long getTime(int height) {
+        final int index = indexOf(height);
+
+        return index < 0 ? -1 : mTimes[position(index)];
+    }
+
+    /**
+     * Obtiene la altura del bloque más antiguo de la ventana.
+     *
+     * @return Altura del bloque o -1 si la ventana está vacía.
+     */
+    public synchronized int getLowestHeight() {
+        return mSize == 0 ? -1 : mHeights[mHead];
+    }
+
+    /**
+     * Obtiene la altura del bloque más reciente de la ventana.
+     *
+     * @return Altura del bloque o -1 si la ventana está vacía.
+     */
+    public synchronized int getHighestHeight() {
+        return mSize == 0 ? -1 : mHeights[position(mSize - 1)];
+    }
+
+    /**
+     * Obtiene la cantidad de bloques en la ventana.
+     *
+     * @return Cantidad de bloques.
+     */
+    public synchronized int size() {
+        return mSize;
+    }
+
+    /**
+     * Busca el bloque más reciente de la ventana que también forma parte de la cadena
+     * especificada, es decir, el punto donde ambas cadenas se separan.
+     *
+     * @param chain Hash de los bloques de la cadena principal indexados por su altura.
+     * @return Altura del punto de separación o -1 si ningún bloque de la ventana forma parte de la
+     * cadena.
+     */
+    public synchronized int findForkPoint(Map<Integer, Sha256Hash> chain) {
+        for (int index = mSize - 1; index >= 0; index--) {
+            final int position = position(index);
+
+            if (mHashes[position].equals(chain.get(mHeights[position])))
+                return mHeights[position];
+        }
+
+        return -1;
+    }
+
+    /**
+     * Obtiene el identificador de la extensión.
+     *
+     * @return Identificador de la extensión.
+     */
+    @Override
+    public String getWalletExtensionID() {
+        return EXTENSION_ID;
+    }
+
+    /**
+     * Indica si la billetera requiere la extensión para ser cargada. La ventana se reconstruye en
+     * las siguientes sincronizaciones, por lo que no es obligatoria.
+     *
+     * @return Siempre false.
+     */
+    @Override
+    public boolean isWalletExtensionMandatory() {
+        return false;
+    }
+
+    /**
+     * Serializa la ventana para almacenarla en el archivo de la billetera.
+     *
+     * @return Ventana serializada.
+     */
+    @Override
+    public synchronized byte[] serializeWalletExtension() {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(4 + mSize * 44);
+
+        try (DataOutputStream output = new DataOutputStream(buffer)) {
+            output.writeInt(mSize);
+
+            for (int index = 0; index < mSize; index++) {
+                final int position = position(index);
+
+                output.writeInt(mHeights[position]);
+                output.write(mHashes[position].getBytes());
+                output.writeLong(mTimes[position]);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Carga la ventana almacenada en el archivo de la billetera. Si la ventana almacenada es más
+     * grande que la capacidad, se conservan los bloques más recientes.
+     *
+     * @param wallet Billetera que contiene la extensión.
+     * @param data   Ventana serializada.
+     * @throws IOException Si los datos están truncados o no tienen el formato esperado.
+     */
+    @Override
+    public synchronized void deserializeWalletExtension(Wallet wallet, byte[] data)
+            throws IOException {
+        clear();
+
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(data))) {
+            final int size = input.readInt();
+
+            if (size < 0)
+                throw new IOException("Invalid block window size: " + size);
+
+            final byte[] hash = new byte[Sha256Hash.LENGTH];
+
+            for (int i = 0; i < size; i++) {
+                final int height = input.readInt();
+
+                input.readFully(hash);
+
+                add(height, Sha256Hash.wrap(hash.clone()), input.readLong());
+            }
+        }
+    }
+
+    /**
+     * Busca la posición lógica del bloque a la altura especificada.
+     *
+     * @param height Altura del bloque.
+     * @return Posición lógica o -1 si no se encuentra en la ventana.
+     */
+    private int indexOf(int height) {
+        int low = 0;
+        int high = mSize - 1;
+
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int value = mHeights[position(middle)];
+
+            if (value < height)
+                low = middle + 1;
+            else if (value > height)
+                high = middle - 1;
+            else
+                return middle;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Convierte una posición lógica, contada desde el bloque más antiguo, en una posición del
+     * búfer circular.
+     *
+     * @param index Posición lógica.
+     * @return Posición en el búfer.
+     */
+    private int position(int index) {
+        return (mHead + index) % mHeights.length;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet;
+
+import org.bitcoinj.core.Sha256Hash;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Determina las transacciones que alcanzan un umbral de confirmaciones cuando avanza la punta de
+ * la cadena. La profundidad de una transacción no se almacena: se calcula a partir de la altura de
+ * la punta y de la altura del bloque donde aparece, de esta forma un bloque nuevo no modifica
+ * cada transacción de la billetera.
+ * <p>
+ * Las transacciones se indexan por la altura de su bloque. Una transacción que aparece a la altura
+ * {@code a} alcanza el umbral {@code t} cuando la punta pasa de {@code h0} a {@code h1} si
+ * {@code h0 - t + 1 < a <= h1 - t + 1}, por lo que cada avance solo explora un rango del índice por
+ * umbral.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+class ConfirmationTracker {
+
+    /**
+     * Umbrales de confirmaciones predeterminados.
+     */
+    static final int[] DEFAULT_THRESHOLDS = {1, 3, 6};
+
+    /**
+     * Transacciones indexadas por la altura del bloque donde aparecen.
+     */
+    private final NavigableMap<Integer, Set<Sha256Hash>> mByHeight = new TreeMap<>();
+
+    /**
+     * Altura del bloque de cada transacción.
+     */
+    private final Map<Sha256Hash, Integer> mHeights = new HashMap<>();
+
+    /**
+     * Umbrales de confirmaciones ordenados de forma ascendente.
+     */
+    private int[] mThresholds = DEFAULT_THRESHOLDS.clone();
+
+    /**
+     * Calcula la profundidad de una transacción.
+     *
+     * @param appearedAtHeight Altura del bloque donde aparece la transacción.
+     * @param tipHeight        Altura de la punta de la cadena.
+     * @return Cantidad de confirmaciones, 0 si la punta es anterior al bloque.
+     */
+    static int getDepth(int appearedAtHeight, int tipHeight) {
+        return Math.max(0, tipHeight - appearedAtHeight + 1);
+    }
+
+    /**
+     * Establece los umbrales de confirmaciones que generan una notificación.
+     *
+     * @param thresholds Umbrales mayores a cero.
+     */
+    synchronized void setThresholds(int... thresholds) {
+        final int[] sorted = thresholds.clone();
+
+        Arrays.sort(sorted);
+
+        for (int threshold : sorted)
+            if (threshold <= 0)
+                throw new IllegalArgumentException("Invalid threshold: " + threshold);
+
+        mThresholds = sorted;
+    }
+
+    /**
+     * Obtiene los umbrales de confirmaciones.
+     *
+     * @return Umbrales ordenados de forma ascendente.
+     */
+    synchronized int[] getThresholds() {
+        return mThresholds.clone();
+    }
+
+    /**
+     * Registra la altura del bloque donde aparece la transacción. Si la transacción ya estaba
+     * registrada en otra altura, se mueve.
+     *
+     * @param txid   Identificador de la transacción.
+     * @param height Altura del bloque.
+     */
+    synchronized void put(Sha256Hash txid, int height) {
+        final Integer previous = mHeights.put(txid, height);
+
+        if (previous != null) {
+            if (previous == height)
+                return;
+
+            removeFromHeight(txid, previous);
+        }
+
+        Set<Sha256Hash> txids = mByHeight.get(height);
+
+        if (txids == null)
+            mByHeight.put(height, txids = new HashSet<>());
+
+        txids.add(txid);
+    }
+
+    /**
+     * Elimina la transacción del índice.
+     *
+     * @param txid Identificador de la transacción.
+     */
+    synchronized void remove(Sha256Hash txid) {
+        final Integer height = mHeights.remove(txid);
+
+        if (height != null)
+            removeFromHeight(txid, height);
+    }
+
+    /**
+     * Obtiene la cantidad de transacciones registradas.
+     *
+     * @return Cantidad de transacciones.
+     */
+    synchronized int size() {
+        return mHeights.size();
+    }
+
+    /**
+     * Obtiene las transacciones que alcanzan algún umbral cuando la punta avanza entre las alturas
+     * especificadas. Si una transacción alcanza varios umbrales en el mismo avance, solo se
+     * reporta el mayor.
+     *
+     * @param fromHeight Altura anterior de la punta.
+     * @param toHeight   Altura nueva de la punta.
+     * @return Un mapa de las transacciones y el mayor umbral alcanzado.
+     */
+    synchronized Map<Sha256Hash, Integer> advance(int fromHeight, int toHeight) {
+        final Map<Sha256Hash, Integer> crossed = new LinkedHashMap<>();
+
+        if (toHeight <= fromHeight)
+            return crossed;
+
+        for (int threshold : mThresholds) {
+            final NavigableMap<Integer, Set<Sha256Hash>> range = mByHeight.subMap(
+                    fromHeight - threshold + 1, false, toHeight - threshold + 1, true);
+
+            for (Set<Sha256Hash> txids : range.values())
+                for (Sha256Hash txid : txids)
+                    crossed.put(txid, threshold);
+        }
+
+        return crossed;
+    }
+
+    /**
+     * Elimina la transacción del conjunto de su altura.
+     *
+     * @param txid   Identificador de la transacción.
+     * @param height Altura del bloque.
+     */
+    private void removeFromHeight(Sha256Hash txid, int height) {
+        final Set<Sha256Hash> txids = mByHeight.get(height);
+
+        if (txids == null)
+            return;
+
+        txids.remove(txid);
+
+        if (txids.isEmpty())
+            mByHeight.remove(height);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet;
+
+import android.util.Log;
+
+import com.cryptowallet.assets.bitcoin.services.BitcoinProvider;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Resuelve las dependencias de un lote de transacciones. Primero reúne las entradas sin conectar
+ * de todo el lote, descarta aquellas cuya transacción de origen se encuentra en el mismo lote o en
+ * la billetera, y descarga las restantes en peticiones por lotes.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ * @see BitcoinProvider#getTransactionsAsync(Collection)
+ */
+class DependencyResolver {
+
+    /**
+     * Etiqueta del log.
+     */
+    private static final String LOG_TAG = "DependencyResolver";
+
+    /**
+     * Billetera que recibe las transacciones.
+     */
+    private final BitcoinWallet mWallet;
+
+    /**
+     * Crea una nueva instancia del resolutor.
+     *
+     * @param wallet Billetera que recibe las transacciones.
+     */
+    DependencyResolver(BitcoinWallet wallet) {
+        mWallet = wallet;
+    }
+
+    /**
+     * Obtiene las transacciones de origen de las entradas sin conectar del lote. El mapa resultante
+     * incluye las transacciones del mismo lote y las descargadas desde el servidor.
+     *
+     * @param batch Lote de transacciones.
+     * @return Un mapa de las dependencias indexadas por su identificador.
+     * @throws IOException Si no se logró descargar alguna dependencia.
+     */
+    Map<String, BitcoinTransaction> resolve(Collection<BitcoinTransaction> batch)
+            throws IOException, ExecutionException, InterruptedException {
+        try {
+            return resolveAsync(batch).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+
+            throw e;
+        }
+    }
+
+    /**
+     * Obtiene las transacciones de origen de las entradas sin conectar del lote de forma
+     * asíncrona. Las entradas se exploran en el hilo que invoca el método; la descarga de las
+     * dependencias no bloquea ningún hilo.
+     *
+     * @param batch Lote de transacciones.
+     * @return Una tarea que devuelve un mapa de las dependencias indexadas por su identificador o
+     * falla con {@link IOException} si no se logró descargar alguna dependencia.
+     */
+    ListenableFuture<Map<String, BitcoinTransaction>> resolveAsync(
+            Collection<BitcoinTransaction> batch) {
+        final Map<String, BitcoinTransaction> dependencies = new HashMap<>();
+
+        for (BitcoinTransaction tx : batch)
+            dependencies.put(tx.getID(), tx);
+
+        final Set<Sha256Hash> missing = new LinkedHashSet<>();
+        final org.bitcoinj.wallet.Wallet wallet = mWallet.getBitcoinJWallet();
+
+        for (BitcoinTransaction tx : batch)
+            for (TransactionInput input : tx.getTx().getInputs()) {
+                if (input.isCoinBase() || input.getConnectedOutput() != null)
+                    continue;
+
+                final Sha256Hash hash = input.getOutpoint().getHash();
+
+                if (dependencies.containsKey(hash.toString())
+                        || wallet.getTransaction(hash) != null)
+                    continue;
+
+                missing.add(hash);
+            }
+
+        if (missing.isEmpty())
+            return Futures.immediateFuture(dependencies);
+
+        Log.d(LOG_TAG, String.format("Resolving %d dependencies for %d transactions",
+                missing.size(), batch.size()));
+
+        final List<byte[]> txids = new ArrayList<>();
+
+        for (Sha256Hash hash : missing)
+            txids.add(hash.getReversedBytes());
+
+        return Futures.transformAsync(BitcoinProvider.get(mWallet).getTransactionsAsync(txids),
+                downloaded -> {
+                    if (downloaded == null)
+                        throw new IOException("Fail to download dependencies");
+
+                    for (Sha256Hash hash : missing)
+                        if (!downloaded.containsKey(hash.toString()))
+                            throw new IOException("Fail to download dependency: " + hash);
+
+                    dependencies.putAll(downloaded);
+
+                    return Futures.immediateFuture(dependencies);
+                }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Obtiene las transacciones de origen de la transacción especificada.
+     *
+     * @param tx           Transacción a explorar.
+     * @param dependencies Dependencias resueltas.
+     * @return Lista de transacciones de origen.
+     */
+    static List<Transaction> collect(Transaction tx, Map<String, BitcoinTransaction> dependencies) {
+        final Map<String, Transaction> parents = new HashMap<>();
+
+        for (TransactionInput input : tx.getInputs()) {
+            final String hash = input.getOutpoint().getHash().toString();
+            final BitcoinTransaction parent = dependencies.get(hash);
+
+            if (parent != null)
+                parents.put(hash, parent.getTx());
+        }
+
+        return new ArrayList<>(parents.values());
+    }
+}
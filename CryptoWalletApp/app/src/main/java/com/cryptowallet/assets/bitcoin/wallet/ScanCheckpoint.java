@@ -0,0 +1,200 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet;
+
+import com.cryptowallet.utils.Consumer;
+import com.cryptowallet.wallet.ChainTipInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Punto de control de la descarga inicial. Registra la posición del escaneo de cada cadena de
+ * direcciones y las transacciones encontradas hasta el momento en una bitácora propia, separada de
+ * la bitácora de la billetera, de esta forma si la aplicación se detiene durante la descarga, el
+ * escaneo continúa desde el último bloque de direcciones registrado y las transacciones solo se
+ * aplican en la billetera al finalizar.
+ * <p>
+ * El primer lote registra la punta de la cadena al iniciar la descarga. Las transacciones
+ * encontradas corresponden a esa punta, por lo que la billetera debe sincronizarse a partir de
+ * ella al finalizar.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ * @see WalletJournal
+ */
+class ScanCheckpoint {
+
+    /**
+     * Cantidad de cadenas de direcciones: recepción y cambio.
+     */
+    private static final int CHAINS = 2;
+
+    /**
+     * Bitácora del punto de control.
+     */
+    private final WalletJournal mJournal;
+
+    /**
+     * Índice de la siguiente dirección a escanear por cadena.
+     */
+    private final int[] mNextIndex = new int[CHAINS];
+
+    /**
+     * Bloques consecutivos sin actividad al final del escaneo por cadena.
+     */
+    private final int[] mInactive = new int[CHAINS];
+
+    /**
+     * Punta de la cadena al iniciar la descarga o null si no ha iniciado.
+     */
+    private ChainTipInfo mTip;
+
+    /**
+     * Crea un nuevo punto de control.
+     *
+     * @param file Archivo del punto de control.
+     */
+    ScanCheckpoint(File file) {
+        mJournal = new WalletJournal(file);
+    }
+
+    /**
+     * Carga el punto de control y entrega al receptor las transacciones encontradas. Si el archivo
+     * no existe, el escaneo inicia desde la primera dirección.
+     *
+     * @param receiver Receptor de las transacciones.
+     * @return Cantidad de lotes leídos.
+     */
+    synchronized int load(Consumer<WalletJournal.TxRecord> receiver) {
+        clear();
+
+        return mJournal.replay(batch -> {
+            if (batch.hasTip())
+                mTip = new ChainTipInfo.Builder()
+                        .setHash(batch.getTipHash())
+                        .setHeight(batch.getTipHeight())
+                        .setTime((int) batch.getTipTime())
+                        .build();
+
+            for (WalletJournal.TxRecord record : batch.getTransactions())
+                receiver.accept(record);
+
+            final int chain = batch.getScanChain();
+
+            if (batch.hasScanPosition() && chain < CHAINS) {
+                mNextIndex[chain] = batch.getScanIndex();
+                mInactive[chain] = batch.getScanInactive();
+            }
+        });
+    }
+
+    /**
+     * Registra la punta de la cadena al iniciar la descarga. Si la descarga ya había iniciado, se
+     * conserva la punta registrada.
+     *
+     * @param tip Punta de la cadena.
+     * @throws IOException Si no se logra escribir el punto de control.
+     */
+    synchronized void start(ChainTipInfo tip) throws IOException {
+        if (mTip != null)
+            return;
+
+        mJournal.append(new WalletJournal.Batch().setTip(tip.getHash(), tip.getHeight(),
+                tip.getTime().getTime() / 1000L));
+        mTip = tip;
+    }
+
+    /**
+     * Registra un bloque de direcciones escaneado junto con sus transacciones.
+     *
+     * @param chain          Número de la cadena de direcciones.
+     * @param nextIndex      Índice de la siguiente dirección a escanear.
+     * @param inactiveBlocks Bloques consecutivos sin actividad al final del escaneo.
+     * @param transactions   Transacciones encontradas en el bloque.
+     * @throws IOException Si no se logra escribir el punto de control.
+     */
+    synchronized void append(int chain, int nextIndex, int inactiveBlocks,
+                             List<WalletJournal.TxRecord> transactions) throws IOException {
+        final WalletJournal.Batch batch = new WalletJournal.Batch()
+                .setScanPosition(chain, nextIndex, inactiveBlocks);
+
+        for (WalletJournal.TxRecord record : transactions)
+            batch.addTransaction(record);
+
+        mJournal.append(batch);
+
+        mNextIndex[chain] = nextIndex;
+        mInactive[chain] = inactiveBlocks;
+    }
+
+    /**
+     * Obtiene la punta de la cadena registrada al iniciar la descarga.
+     *
+     * @return Punta de la cadena o null si la descarga no ha iniciado.
+     */
+    synchronized ChainTipInfo getTip() {
+        return mTip;
+    }
+
+    /**
+     * Obtiene el índice de la siguiente dirección a escanear de la cadena.
+     *
+     * @param chain Número de la cadena de direcciones.
+     * @return Índice de la dirección.
+     */
+    synchronized int getNextIndex(int chain) {
+        return mNextIndex[chain];
+    }
+
+    /**
+     * Obtiene los bloques consecutivos sin actividad al final del escaneo de la cadena.
+     *
+     * @param chain Número de la cadena de direcciones.
+     * @return Cantidad de bloques.
+     */
+    synchronized int getInactiveBlocks(int chain) {
+        return mInactive[chain];
+    }
+
+    /**
+     * Elimina el punto de control, utilizado al aplicar la descarga en la billetera o al eliminar
+     * la billetera.
+     *
+     * @return Un true si el archivo fue eliminado.
+     */
+    synchronized boolean delete() {
+        clear();
+
+        return mJournal.delete();
+    }
+
+    /**
+     * Reinicia la posición del escaneo de todas las cadenas.
+     */
+    private void clear() {
+        mTip = null;
+
+        for (int chain = 0; chain < CHAINS; chain++) {
+            mNextIndex[chain] = 0;
+            mInactive[chain] = 0;
+        }
+    }
+}
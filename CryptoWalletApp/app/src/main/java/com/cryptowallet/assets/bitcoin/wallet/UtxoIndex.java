@@ -0,0 +1,291 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet;
+
+import com.cryptowallet.assets.bitcoin.wallet.coinselection.Candidate;
+
+import org.bitcoinj.core.TransactionOutPoint;
+import org.bitcoinj.core.TransactionOutput;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Índice de las salidas sin gastar de la billetera ordenadas por valor de forma ascendente. El
+ * índice se actualiza por cada transacción que cambia, de esta forma la selección de entradas no
+ * ordena las salidas en cada pago y los saldos disponible y pendiente se mantienen como totales
+ * que se consultan sin recorrer las salidas.
+ * <p>
+ * Una salida es disponible si su transacción está confirmada y pendiente en caso contrario. Junto
+ * con cada salida se almacena el peso de la entrada que la gasta, el cual se calcula una sola vez
+ * al agregarla, de esta forma las salidas son candidatas de la selección de entradas.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+class UtxoIndex {
+
+    /**
+     * Orden de las salidas: valor, identificador de la transacción e índice de la salida.
+     */
+    private static final Comparator<Entry> BY_VALUE = (left, right) -> {
+        int compare = Long.compare(left.mValue, right.mValue);
+
+        if (compare == 0)
+            compare = left.mOutPoint.getHash().compareTo(right.mOutPoint.getHash());
+
+        if (compare == 0)
+            compare = Long.compare(left.mOutPoint.getIndex(), right.mOutPoint.getIndex());
+
+        return compare;
+    };
+
+    /**
+     * Salidas indexadas por su referencia.
+     */
+    private final Map<TransactionOutPoint, Entry> mEntries = new HashMap<>();
+
+    /**
+     * Salidas ordenadas por valor.
+     */
+    private final TreeSet<Entry> mOrdered = new TreeSet<>(BY_VALUE);
+
+    /**
+     * Suma de los valores de las salidas disponibles.
+     */
+    private long mSpendable;
+
+    /**
+     * Suma de los valores de las salidas pendientes.
+     */
+    private long mPending;
+
+    /**
+     * Salidas ordenadas de la última consulta o null si el índice cambió.
+     */
+    private List<Entry> mSnapshot;
+
+    /**
+     * Agrega o reemplaza una salida.
+     *
+     * @param output      Salida sin gastar.
+     * @param inputWeight Peso de la entrada que gasta la salida.
+     * @param witness     Indica si la entrada que gasta la salida utiliza testigo.
+     * @param pending     Indica si la transacción de la salida no está confirmada.
+     */
+    synchronized void put(TransactionOutput output, int inputWeight, boolean witness,
+                          boolean pending) {
+        final Entry entry = new Entry(output, inputWeight, witness, pending);
+
+        remove(entry.mOutPoint);
+
+        mEntries.put(entry.mOutPoint, entry);
+        mOrdered.add(entry);
+        mSnapshot = null;
+
+        if (pending)
+            mPending += entry.mValue;
+        else
+            mSpendable += entry.mValue;
+    }
+
+    /**
+     * Elimina una salida del índice.
+     *
+     * @param outPoint Referencia de la salida.
+     * @return Un true si la salida se encontraba en el índice.
+     */
+    synchronized boolean remove(TransactionOutPoint outPoint) {
+        final Entry entry = mEntries.remove(outPoint);
+
+        if (entry == null)
+            return false;
+
+        mOrdered.remove(entry);
+        mSnapshot = null;
+
+        if (entry.mPending)
+            mPending -= entry.mValue;
+        else
+            mSpendable -= entry.mValue;
+
+        return true;
+    }
+
+    /**
+     * Elimina todas las salidas del índice.
+     */
+    synchronized void clear() {
+        mEntries.clear();
+        mOrdered.clear();
+        mSnapshot = null;
+        mSpendable = 0;
+        mPending = 0;
+    }
+
+    /**
+     * Obtiene la suma de los valores de las salidas disponibles.
+     *
+     * @return Saldo disponible.
+     */
+    synchronized long getSpendableTotal() {
+        return mSpendable;
+    }
+
+    /**
+     * Obtiene la suma de los valores de las salidas pendientes.
+     *
+     * @return Saldo pendiente.
+     */
+    synchronized long getPendingTotal() {
+        return mPending;
+    }
+
+    /**
+     * Obtiene la cantidad de salidas del índice.
+     *
+     * @return Cantidad de salidas.
+     */
+    synchronized int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * Obtiene las salidas ordenadas por valor de forma ascendente, incluyendo las pendientes. La
+     * lista se reutiliza mientras el índice no cambie.
+     *
+     * @return Una lista inmutable de las salidas.
+     */
+    synchronized List<Entry> getEntries() {
+        if (mSnapshot == null)
+            mSnapshot = Collections.unmodifiableList(new ArrayList<>(mOrdered));
+
+        return mSnapshot;
+    }
+
+    /**
+     * Salida indexada.
+     *
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    static final class Entry implements Candidate {
+
+        /**
+         * Salida sin gastar.
+         */
+        private final TransactionOutput mOutput;
+
+        /**
+         * Referencia de la salida.
+         */
+        private final TransactionOutPoint mOutPoint;
+
+        /**
+         * Valor de la salida.
+         */
+        private final long mValue;
+
+        /**
+         * Peso de la entrada que gasta la salida.
+         */
+        private final int mInputWeight;
+
+        /**
+         * Indica si la entrada que gasta la salida utiliza testigo.
+         */
+        private final boolean mWitness;
+
+        /**
+         * Indica si la transacción de la salida no está confirmada.
+         */
+        private final boolean mPending;
+
+        /**
+         * Crea una nueva entrada.
+         *
+         * @param output      Salida sin gastar.
+         * @param inputWeight Peso de la entrada que gasta la salida.
+         * @param witness     Indica si la entrada utiliza testigo.
+         * @param pending     Indica si la transacción no está confirmada.
+         */
+        private Entry(TransactionOutput output, int inputWeight, boolean witness,
+                      boolean pending) {
+            mOutput = output;
+            mOutPoint = output.getOutPointFor();
+            mValue = output.getValue().value;
+            mInputWeight = inputWeight;
+            mWitness = witness;
+            mPending = pending;
+        }
+
+        /**
+         * Obtiene la salida sin gastar.
+         *
+         * @return Salida de la transacción.
+         */
+        TransactionOutput getOutput() {
+            return mOutput;
+        }
+
+        /**
+         * Obtiene el valor de la salida.
+         *
+         * @return Valor en satoshis.
+         */
+        @Override
+        public long getValue() {
+            return mValue;
+        }
+
+        /**
+         * Obtiene el peso de la entrada que gasta la salida.
+         *
+         * @return Peso en unidades.
+         */
+        @Override
+        public int getInputWeight() {
+            return mInputWeight;
+        }
+
+        /**
+         * Indica si la entrada que gasta la salida utiliza testigo.
+         *
+         * @return Un true si la entrada tiene testigo.
+         */
+        @Override
+        public boolean isWitness() {
+            return mWitness;
+        }
+
+        /**
+         * Indica si la transacción de la salida no está confirmada.
+         *
+         * @return Un true si está pendiente.
+         */
+        boolean isPending() {
+            return mPending;
+        }
+    }
+}
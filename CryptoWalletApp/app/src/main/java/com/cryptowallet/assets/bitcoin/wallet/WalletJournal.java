@@ -0,0 +1,656 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet;
+
+import android.util.Log;
+
+import com.cryptowallet.assets.bitcoin.services.retrofit.TxDataFormat;
+
+import org.bouncycastle.util.encoders.Hex;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Bitácora de solo agregación de los cambios de la billetera. Cada lote de transacciones recibido
+ * y cada cambio del último bloque observado se agrega como un registro pequeño, de esta forma
+ * persistir un bloque cuesta en proporción a sus cambios y no al tamaño de la billetera. Al cargar
+ * la billetera se aplican los lotes sobre la última instantánea; cuando la bitácora supera un
+ * tamaño límite se compacta en una instantánea nueva.
+ * <p>
+ * El archivo se compone de una cabecera y de lotes con su suma de verificación:
+ * <pre>
+ * int32     Número mágico.
+ * byte      Versión del formato.
+ * lotes:
+ *   int32     Longitud del contenido del lote.
+ *   int32     CRC32 del contenido del lote.
+ *   contenido:
+ *     byte      Tipo de registro.
+ *     TX, DEPENDENCY: registro de {@link TxDataFormat}.
+ *     TIP: byte[32] hash del bloque, int32 altura, int64 fecha y hora en segundos.
+ *     SCAN: byte cadena de direcciones, int32 índice siguiente, int32 bloques sin actividad.
+ * </pre>
+ * Un lote incompleto o con una suma de verificación inválida se considera una escritura
+ * interrumpida: se descarta junto con lo que le sigue.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+class WalletJournal {
+
+    /**
+     * Etiqueta del log.
+     */
+    private static final String LOG_TAG = "WalletJournal";
+
+    /**
+     * Número mágico del archivo ("WJNL").
+     */
+    private static final int MAGIC = 0x574A4E4C;
+
+    /**
+     * Versión del formato.
+     */
+    private static final byte VERSION = 1;
+
+    /**
+     * Longitud de la cabecera.
+     */
+    private static final int HEADER_LENGTH = 4 + 1;
+
+    /**
+     * Longitud máxima del contenido de un lote.
+     */
+    private static final int MAX_BATCH_LENGTH = 64 * 1024 * 1024;
+
+    /**
+     * Longitud del hash del bloque.
+     */
+    private static final int HASH_LENGTH = 32;
+
+    /**
+     * Registro de una transacción recibida.
+     */
+    private static final byte RECORD_TX = 1;
+
+    /**
+     * Registro de una transacción de dependencia.
+     */
+    private static final byte RECORD_DEPENDENCY = 2;
+
+    /**
+     * Registro del último bloque observado.
+     */
+    private static final byte RECORD_TIP = 3;
+
+    /**
+     * Registro de la posición del escaneo de una cadena de direcciones.
+     */
+    private static final byte RECORD_SCAN = 4;
+
+    /**
+     * Archivo de la bitácora.
+     */
+    private final File mFile;
+
+    /**
+     * Longitud del archivo.
+     */
+    private long mSize;
+
+    /**
+     * Crea una nueva instancia.
+     *
+     * @param file Archivo de la bitácora.
+     */
+    WalletJournal(File file) {
+        mFile = file;
+        mSize = file.exists() ? file.length() : 0;
+    }
+
+    /**
+     * Obtiene la longitud de la bitácora en bytes.
+     *
+     * @return Longitud del archivo.
+     */
+    synchronized long size() {
+        return mSize;
+    }
+
+    /**
+     * Agrega un lote al final de la bitácora y lo sincroniza con el disco.
+     *
+     * @param batch Lote a agregar.
+     * @throws IOException Si ocurre un error al escribir el archivo.
+     */
+    synchronized void append(Batch batch) throws IOException {
+        if (batch.isEmpty())
+            return;
+
+        final byte[] payload = batch.encode();
+        final CRC32 crc = new CRC32();
+
+        crc.update(payload, 0, payload.length);
+
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(payload.length + 13);
+        final DataOutputStream output = new DataOutputStream(buffer);
+
+        if (mSize == 0) {
+            output.writeInt(MAGIC);
+            output.writeByte(VERSION);
+        }
+
+        output.writeInt(payload.length);
+        output.writeInt((int) crc.getValue());
+        output.write(payload);
+
+        try (FileOutputStream stream = new FileOutputStream(mFile, mSize > 0)) {
+            buffer.writeTo(stream);
+            stream.flush();
+            stream.getFD().sync();
+        }
+
+        mSize += buffer.size();
+    }
+
+    /**
+     * Lee los lotes de la bitácora y los entrega al receptor en el orden en el que fueron
+     * agregados. Si el archivo tiene un formato desconocido, se descarta; si el último lote está
+     * incompleto o dañado, se trunca.
+     *
+     * @param receiver Receptor de los lotes.
+     * @return Cantidad de lotes leídos.
+     */
+    synchronized int replay(BatchReceiver receiver) {
+        if (!mFile.exists())
+            return 0;
+
+        long validLength = 0;
+        int count = 0;
+
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(mFile)))) {
+
+            if (input.readInt() != MAGIC || input.readByte() != VERSION)
+                throw new IOException("Unknown format");
+
+            validLength = HEADER_LENGTH;
+
+            while (true) {
+                final int length;
+
+                try {
+                    length = input.readInt();
+                } catch (EOFException ignored) {
+                    break;
+                }
+
+                if (length <= 0 || length > MAX_BATCH_LENGTH)
+                    throw new IOException("Invalid batch length: " + length);
+
+                final long checksum = input.readInt() & 0xFFFFFFFFL;
+                final byte[] payload = new byte[length];
+
+                input.readFully(payload);
+
+                final CRC32 crc = new CRC32();
+                crc.update(payload, 0, payload.length);
+
+                if (crc.getValue() != checksum)
+                    throw new IOException("Corrupted batch at " + validLength);
+
+                final Batch batch = Batch.decode(payload);
+
+                validLength += 8 + length;
+                count++;
+
+                receiver.onBatch(batch);
+            }
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Discarding " + mFile.getName() + " from " + validLength + ": "
+                    + e.getMessage());
+        }
+
+        if (validLength < mFile.length())
+            try (RandomAccessFile file = new RandomAccessFile(mFile, "rw")) {
+                file.setLength(validLength);
+            } catch (IOException e) {
+                Log.w(LOG_TAG, "Unable to truncate " + mFile.getName() + ": " + e.getMessage());
+            }
+
+        mSize = mFile.length();
+
+        return count;
+    }
+
+    /**
+     * Vacía la bitácora, utilizado después de guardar una instantánea que incluye todos sus
+     * cambios.
+     *
+     * @throws IOException Si no se logró vaciar el archivo.
+     */
+    synchronized void reset() throws IOException {
+        if (mFile.exists() && !mFile.delete())
+            throw new IOException("Unable to delete " + mFile.getName());
+
+        mSize = 0;
+    }
+
+    /**
+     * Elimina el archivo de la bitácora.
+     *
+     * @return Un true si el archivo fue eliminado.
+     */
+    synchronized boolean delete() {
+        mSize = 0;
+
+        return mFile.delete();
+    }
+
+    /**
+     * Receptor de los lotes leídos de la bitácora.
+     *
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    interface BatchReceiver {
+
+        /**
+         * Recibe un lote de la bitácora.
+         *
+         * @param batch Lote leído.
+         */
+        void onBatch(Batch batch);
+    }
+
+    /**
+     * Registro de una transacción con la información de su bloque.
+     *
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    static final class TxRecord {
+
+        /**
+         * Transacción serializada.
+         */
+        final byte[] mData;
+
+        /**
+         * Hash del bloque o null si se encuentra en el pool de memoria.
+         */
+        final String mBlock;
+
+        /**
+         * Altura del bloque o -1 si se encuentra en el pool de memoria.
+         */
+        final long mHeight;
+
+        /**
+         * Fecha y hora del bloque en segundos.
+         */
+        final int mTime;
+
+        /**
+         * Posición de la transacción en el bloque.
+         */
+        final int mIndex;
+
+        /**
+         * Crea un nuevo registro.
+         *
+         * @param data   Transacción serializada.
+         * @param block  Hash del bloque o null si se encuentra en el pool de memoria.
+         * @param height Altura del bloque o -1 si se encuentra en el pool de memoria.
+         * @param time   Fecha y hora del bloque en segundos.
+         * @param index  Posición de la transacción en el bloque.
+         */
+        TxRecord(byte[] data, String block, long height, int time, int index) {
+            mData = data;
+            mBlock = block;
+            mHeight = height;
+            mTime = time;
+            mIndex = index;
+        }
+    }
+
+    /**
+     * Lote de cambios de la billetera que se escribe de forma atómica en la bitácora.
+     *
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    static final class Batch {
+
+        /**
+         * Transacciones recibidas en el orden en que fueron aplicadas.
+         */
+        private final List<TxRecord> mTransactions = new ArrayList<>();
+
+        /**
+         * Transacciones de origen utilizadas para conectar las entradas.
+         */
+        private final List<TxRecord> mDependencies = new ArrayList<>();
+
+        /**
+         * Hash del último bloque observado o null si el lote no lo modifica.
+         */
+        private String mTipHash;
+
+        /**
+         * Altura del último bloque observado.
+         */
+        private int mTipHeight;
+
+        /**
+         * Fecha y hora del último bloque observado en segundos.
+         */
+        private long mTipTime;
+
+        /**
+         * Cadena de direcciones escaneada o -1 si el lote no modifica la posición del escaneo.
+         */
+        private int mScanChain = -1;
+
+        /**
+         * Índice de la siguiente dirección a escanear.
+         */
+        private int mScanIndex;
+
+        /**
+         * Bloques consecutivos sin actividad al final del escaneo.
+         */
+        private int mScanInactive;
+
+        /**
+         * Agrega una transacción recibida.
+         *
+         * @param record Registro de la transacción.
+         * @return Este lote.
+         */
+        Batch addTransaction(TxRecord record) {
+            mTransactions.add(record);
+            return this;
+        }
+
+        /**
+         * Agrega una transacción de dependencia.
+         *
+         * @param record Registro de la transacción.
+         * @return Este lote.
+         */
+        Batch addDependency(TxRecord record) {
+            mDependencies.add(record);
+            return this;
+        }
+
+        /**
+         * Establece el último bloque observado.
+         *
+         * @param hash   Hash del bloque.
+         * @param height Altura del bloque.
+         * @param time   Fecha y hora del bloque en segundos.
+         * @return Este lote.
+         */
+        Batch setTip(String hash, int height, long time) {
+            mTipHash = hash;
+            mTipHeight = height;
+            mTipTime = time;
+            return this;
+        }
+
+        /**
+         * Establece la posición del escaneo de una cadena de direcciones.
+         *
+         * @param chain          Número de la cadena de direcciones.
+         * @param nextIndex      Índice de la siguiente dirección a escanear.
+         * @param inactiveBlocks Bloques consecutivos sin actividad al final del escaneo.
+         * @return Este lote.
+         */
+        Batch setScanPosition(int chain, int nextIndex, int inactiveBlocks) {
+            if (chain < 0 || chain > Byte.MAX_VALUE)
+                throw new IllegalArgumentException("Invalid chain: " + chain);
+
+            mScanChain = chain;
+            mScanIndex = nextIndex;
+            mScanInactive = inactiveBlocks;
+            return this;
+        }
+
+        /**
+         * Obtiene las transacciones recibidas.
+         *
+         * @return Lista de registros.
+         */
+        List<TxRecord> getTransactions() {
+            return Collections.unmodifiableList(mTransactions);
+        }
+
+        /**
+         * Obtiene las transacciones de dependencia.
+         *
+         * @return Lista de registros.
+         */
+        List<TxRecord> getDependencies() {
+            return Collections.unmodifiableList(mDependencies);
+        }
+
+        /**
+         * Indica si el lote modifica el último bloque observado.
+         *
+         * @return Un true si el lote incluye el último bloque observado.
+         */
+        boolean hasTip() {
+            return mTipHash != null;
+        }
+
+        /**
+         * Obtiene el hash del último bloque observado.
+         *
+         * @return Hash del bloque.
+         */
+        String getTipHash() {
+            return mTipHash;
+        }
+
+        /**
+         * Obtiene la altura del último bloque observado.
+         *
+         * @return Altura del bloque.
+         */
+        int getTipHeight() {
+            return mTipHeight;
+        }
+
+        /**
+         * Obtiene la fecha y hora del último bloque observado.
+         *
+         * @return Fecha y hora en segundos.
+         */
+        long getTipTime() {
+            return mTipTime;
+        }
+
+        /**
+         * Indica si el lote modifica la posición del escaneo.
+         *
+         * @return Un true si el lote incluye la posición del escaneo.
+         */
+        boolean hasScanPosition() {
+            return mScanChain >= 0;
+        }
+
+        /**
+         * Obtiene la cadena de direcciones escaneada.
+         *
+         * @return Número de la cadena.
+         */
+        int getScanChain() {
+            return mScanChain;
+        }
+
+        /**
+         * Obtiene el índice de la siguiente dirección a escanear.
+         *
+         * @return Índice de la dirección.
+         */
+        int getScanIndex() {
+            return mScanIndex;
+        }
+
+        /**
+         * Obtiene los bloques consecutivos sin actividad al final del escaneo.
+         *
+         * @return Cantidad de bloques.
+         */
+        int getScanInactive() {
+            return mScanInactive;
+        }
+
+        /**
+         * Indica si el lote no contiene cambios.
+         *
+         * @return Un true si el lote está vacío.
+         */
+        boolean isEmpty() {
+            return mTransactions.isEmpty() && mDependencies.isEmpty() && !hasTip()
+                    && !hasScanPosition();
+        }
+
+        /**
+         * Codifica el contenido del lote.
+         *
+         * @return Contenido del lote.
+         * @throws IOException Si ocurre un error al codificar.
+         */
+        private byte[] encode() throws IOException {
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            final DataOutputStream output = new DataOutputStream(buffer);
+
+            for (TxRecord record : mDependencies)
+                write(output, RECORD_DEPENDENCY, record);
+
+            for (TxRecord record : mTransactions)
+                write(output, RECORD_TX, record);
+
+            if (hasTip()) {
+                final byte[] hash = Hex.decode(mTipHash);
+
+                if (hash.length != HASH_LENGTH)
+                    throw new IllegalArgumentException("Invalid block hash: " + mTipHash);
+
+                output.writeByte(RECORD_TIP);
+                output.write(hash);
+                output.writeInt(mTipHeight);
+                output.writeLong(mTipTime);
+            }
+
+            if (hasScanPosition()) {
+                output.writeByte(RECORD_SCAN);
+                output.writeByte(mScanChain);
+                output.writeInt(mScanIndex);
+                output.writeInt(mScanInactive);
+            }
+
+            output.flush();
+
+            return buffer.toByteArray();
+        }
+
+        /**
+         * Escribe el registro de una transacción.
+         *
+         * @param output Flujo de destino.
+         * @param type   Tipo de registro.
+         * @param record Registro de la transacción.
+         * @throws IOException Si ocurre un error al escribir.
+         */
+        private static void write(DataOutputStream output, byte type, TxRecord record)
+                throws IOException {
+            output.writeByte(type);
+            TxDataFormat.write(output, record.mData, record.mBlock, record.mHeight,
+                    record.mTime, record.mIndex);
+        }
+
+        /**
+         * Decodifica el contenido de un lote.
+         *
+         * @param payload Contenido del lote.
+         * @return Un lote.
+         * @throws IOException Si el contenido no tiene el formato esperado.
+         */
+        private static Batch decode(byte[] payload) throws IOException {
+            final Batch batch = new Batch();
+            final DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+
+            while (input.available() > 0) {
+                final byte type = input.readByte();
+
+                switch (type) {
+                    case RECORD_TX:
+                    case RECORD_DEPENDENCY:
+                        final List<TxRecord> records = type == RECORD_TX
+                                ? batch.mTransactions : batch.mDependencies;
+
+                        if (!TxDataFormat.readRecord(input, (data, block, height, time, index) ->
+                                records.add(new TxRecord(data, block, height, time, index))))
+                            throw new EOFException();
+                        break;
+                    case RECORD_TIP:
+                        final byte[] hash = new byte[HASH_LENGTH];
+
+                        input.readFully(hash);
+
+                        final int height = input.readInt();
+                        final long time = input.readLong();
+
+                        batch.setTip(Hex.toHexString(hash), height, time);
+                        break;
+                    case RECORD_SCAN:
+                        final int chain = input.readByte();
+                        final int nextIndex = input.readInt();
+
+                        if (chain < 0)
+                            throw new IOException("Invalid chain: " + chain);
+
+                        batch.setScanPosition(chain, nextIndex, input.readInt());
+                        break;
+                    default:
+                        throw new IOException("Unknown record: " + type);
+                }
+            }
+
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Programa el guardado de la billetera en disco. Los cambios marcan la billetera como modificada
+ * y los guardados se agrupan: se escribe una sola vez al confirmar un lote, al transcurrir el
+ * tiempo de espera o cuando la aplicación pasa a segundo plano.
+ * <p>
+ * La escritura se realiza en un archivo temporal que se sincroniza con el disco y posteriormente
+ * reemplaza al archivo de la billetera, de esta forma una interrupción nunca deja el archivo a
+ * medio escribir.
+ * <p>
+ * Si la billetera cuenta con una {@link WalletJournal}, cada instantánea guardada incluye todos los
+ * cambios de la bitácora, por lo que esta se vacía al terminar el guardado.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class WalletPersister {
+
+    /**
+     * Etiqueta del log.
+     */
+    private static final String LOG_TAG = "WalletPersister";
+
+    /**
+     * Extensión del archivo temporal.
+     */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Archivo de la billetera.
+     */
+    private final File mFile;
+
+    /**
+     * Escritor del contenido de la billetera.
+     */
+    private final WalletWriter mWriter;
+
+    /**
+     * Bitácora que se vacía después de cada instantánea o null si no se utiliza.
+     */
+    private final WalletJournal mJournal;
+
+    /**
+     * Tiempo de espera en milisegundos antes de guardar los cambios pendientes.
+     */
+    private final long mDelay;
+
+    /**
+     * Ejecutor del guardado programado.
+     */
+    private final ScheduledExecutorService mExecutor;
+
+    /**
+     * Bloqueo que serializa las escrituras al archivo.
+     */
+    private final Object mWriteLock = new Object();
+
+    /**
+     * Indica si existen cambios sin guardar.
+     */
+    private boolean mDirty;
+
+    /**
+     * Guardado programado pendiente.
+     */
+    private ScheduledFuture<?> mScheduled;
+
+    /**
+     * Cantidad de veces que la billetera fue marcada como modificada.
+     */
+    private long mMarkCount;
+
+    /**
+     * Cantidad de guardados realizados.
+     */
+    private long mSaveCount;
+
+    /**
+     * Cantidad de guardados fallidos.
+     */
+    private long mFailureCount;
+
+    /**
+     * Total de bytes escritos.
+     */
+    private long mBytesWritten;
+
+    /**
+     * Tamaño del último guardado en bytes.
+     */
+    private long mLastSaveBytes;
+
+    /**
+     * Duración del último guardado en milisegundos.
+     */
+    private long mLastSaveMillis;
+
+    /**
+     * Duración máxima de un guardado en milisegundos.
+     */
+    private long mMaxSaveMillis;
+
+    /**
+     * Duración total de los guardados en milisegundos.
+     */
+    private long mTotalSaveMillis;
+
+    /**
+     * Crea una nueva instancia.
+     *
+     * @param file    Archivo de la billetera.
+     * @param writer  Escritor del contenido de la billetera.
+     * @param journal Bitácora de cambios o null si no se utiliza.
+     * @param delay   Tiempo de espera en milisegundos antes de guardar los cambios pendientes.
+     */
+    WalletPersister(File file, WalletWriter writer, WalletJournal journal, long delay) {
+        mFile = file;
+        mWriter = writer;
+        mJournal = journal;
+        mDelay = delay;
+        mExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, LOG_TAG);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Marca la billetera como modificada. Si no existe un guardado programado, se programa uno al
+     * transcurrir el tiempo de espera; las marcas posteriores se agrupan en ese mismo guardado.
+     */
+    synchronized void markDirty() {
+        mDirty = true;
+        mMarkCount++;
+
+        if (mScheduled == null)
+            mScheduled = mExecutor.schedule(this::flushQuietly, mDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Guarda los cambios pendientes en el hilo que invoca el método. Si no hay cambios, no se
+     * realiza ninguna escritura.
+     *
+     * @throws IOException Si ocurre un error al escribir el archivo. Los cambios permanecen
+     *                     pendientes y se reintenta en el siguiente guardado programado.
+     */
+    void flush() throws IOException {
+        synchronized (this) {
+            if (!mDirty) return;
+
+            mDirty = false;
+
+            if (mScheduled != null) {
+                mScheduled.cancel(false);
+                mScheduled = null;
+            }
+        }
+
+        try {
+            synchronized (mWriteLock) {
+                if (mJournal == null)
+                    write();
+                else
+                    synchronized (mJournal) {
+                        write();
+                        mJournal.reset();
+                    }
+            }
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                mFailureCount++;
+            }
+
+            markDirty();
+            throw e;
+        }
+    }
+
+    /**
+     * Guarda los cambios pendientes en el hilo del programador sin bloquear al que invoca el
+     * método.
+     */
+    void flushAsync() {
+        mExecutor.execute(this::flushQuietly);
+    }
+
+    /**
+     * Compacta la bitácora en una instantánea nueva en el hilo del programador.
+     */
+    void compactAsync() {
+        markDirty();
+        flushAsync();
+    }
+
+    /**
+     * Marca la billetera como modificada y la guarda inmediatamente.
+     *
+     * @throws IOException Si ocurre un error al escribir el archivo.
+     */
+    void save() throws IOException {
+        markDirty();
+        flush();
+    }
+
+    /**
+     * Descarta los cambios pendientes y el guardado programado, utilizado al eliminar la
+     * billetera.
+     */
+    synchronized void discard() {
+        mDirty = false;
+
+        if (mScheduled != null) {
+            mScheduled.cancel(false);
+            mScheduled = null;
+        }
+    }
+
+    /**
+     * Indica si existen cambios sin guardar.
+     *
+     * @return Un true si la billetera fue modificada después del último guardado.
+     */
+    public synchronized boolean isDirty() {
+        return mDirty;
+    }
+
+    /**
+     * Obtiene la cantidad de veces que la billetera fue marcada como modificada.
+     *
+     * @return Cantidad de marcas.
+     */
+    public synchronized long getMarkCount() {
+        return mMarkCount;
+    }
+
+    /**
+     * Obtiene la cantidad de guardados realizados.
+     *
+     * @return Cantidad de guardados.
+     */
+    public synchronized long getSaveCount() {
+        return mSaveCount;
+    }
+
+    /**
+     * Obtiene la cantidad de guardados fallidos.
+     *
+     * @return Cantidad de fallos.
+     */
+    public synchronized long getFailureCount() {
+        return mFailureCount;
+    }
+
+    /**
+     * Obtiene el total de bytes escritos en los guardados.
+     *
+     * @return Cantidad de bytes.
+     */
+    public synchronized long getBytesWritten() {
+        return mBytesWritten;
+    }
+
+    /**
+     * Obtiene el tamaño del último guardado.
+     *
+     * @return Cantidad de bytes.
+     */
+    public synchronized long getLastSaveBytes() {
+        return mLastSaveBytes;
+    }
+
+    /**
+     * Obtiene la duración del último guardado.
+     *
+     * @return Duración en milisegundos.
+     */
+    public synchronized long getLastSaveMillis() {
+        return mLastSaveMillis;
+    }
+
+    /**
+     * Obtiene la duración máxima de un guardado.
+     *
+     * @return Duración en milisegundos.
+     */
+    public synchronized long getMaxSaveMillis() {
+        return mMaxSaveMillis;
+    }
+
+    /**
+     * Obtiene la duración promedio de los guardados.
+     *
+     * @return Duración en milisegundos.
+     */
+    public synchronized long getAverageSaveMillis() {
+        return mSaveCount == 0 ? 0 : mTotalSaveMillis / mSaveCount;
+    }
+
+    /**
+     * Guarda los cambios pendientes registrando el error en el log.
+     */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            Log.w(LOG_TAG, "Unable to save " + mFile.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Escribe la billetera en el archivo temporal, lo sincroniza con el disco y reemplaza el
+     * archivo de la billetera.
+     *
+     * @throws IOException Si ocurre un error al escribir o al reemplazar el archivo.
+     */
+    private void write() throws IOException {
+        final File temp = new File(mFile.getPath() + TEMP_SUFFIX);
+        final long start = System.nanoTime();
+        final long size;
+
+        try (FileOutputStream stream = new FileOutputStream(temp)) {
+            mWriter.write(stream);
+            stream.flush();
+            stream.getFD().sync();
+            size = stream.getChannel().size();
+        } catch (IOException | RuntimeException e) {
+            if (temp.exists() && !temp.delete())
+                Log.w(LOG_TAG, "Unable to delete " + temp.getName());
+
+            throw e;
+        }
+
+        if (!temp.renameTo(mFile)) {
+            if (!temp.delete())
+                Log.w(LOG_TAG, "Unable to delete " + temp.getName());
+
+            throw new IOException("Unable to replace " + mFile.getName());
+        }
+
+        final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        synchronized (this) {
+            mSaveCount++;
+            mBytesWritten += size;
+            mLastSaveBytes = size;
+            mLastSaveMillis = elapsed;
+            mMaxSaveMillis = Math.max(mMaxSaveMillis, elapsed);
+            mTotalSaveMillis += elapsed;
+        }
+
+        Log.d(LOG_TAG, String.format("Saved %s [%d bytes, %d ms, %d marks]",
+                mFile.getName(), size, elapsed, getMarkCount()));
+    }
+
+    /**
+     * Escritor del contenido de la billetera.
+     *
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    interface WalletWriter {
+
+        /**
+         * Escribe la billetera en el flujo especificado.
+         *
+         * @param stream Flujo de destino.
+         * @throws IOException Si ocurre un error al escribir.
+         */
+        void write(OutputStream stream) throws IOException;
+    }
+}
@@ -0,0 +1,543 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet;
+
+import android.util.Log;
+
+import com.cryptowallet.utils.Consumer;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Máquina de estados de la sincronización de la billetera. Cada ciclo recorre las fases
+ * {@link Phase#TIP_CHECK}, {@link Phase#HISTORY}, {@link Phase#DEPENDENCIES},
+ * {@link Phase#PERSIST} y {@link Phase#NOTIFY}; al finalizar se vuelve a consultar la punta y, si
+ * avanzó durante el ciclo, se inicia otro. Al alcanzar el máximo de ciclos consecutivos, la
+ * sincronización espera el tiempo de reintento antes de continuar con un nuevo límite de ciclos,
+ * de esta forma solo finaliza al alcanzar la punta, al fallar o al ser cancelada.
+ * <p>
+ * Las fases se ejecutan en un único hilo del programador: nunca hay dos sincronizaciones en curso,
+ * los reintentos se programan en lugar de dormir el hilo y los ciclos se encadenan sin recursión.
+ * Se registra la duración de cada fase y la sincronización puede cancelarse en cualquier momento.
+ *
+ * @param <C> Tipo del estado de un ciclo.
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class WalletSynchronizer<C> {
+
+    /**
+     * Etiqueta del log.
+     */
+    private static final String LOG_TAG = "WalletSynchronizer";
+
+    /**
+     * Pasos de la sincronización.
+     */
+    private final Steps<C> mSteps;
+
+    /**
+     * Tiempo de espera en milisegundos antes de reintentar después de un fallo.
+     */
+    private final long mRetryDelay;
+
+    /**
+     * Cantidad máxima de ciclos consecutivos antes de esperar.
+     */
+    private final int mMaxCycles;
+
+    /**
+     * Cantidad máxima de fallos consecutivos antes de abandonar la sincronización.
+     */
+    private final int mMaxAttempts;
+
+    /**
+     * Ejecutor de las fases.
+     */
+    private final ScheduledExecutorService mExecutor;
+
+    /**
+     * Duración de la última ejecución de cada fase en milisegundos.
+     */
+    private final Map<Phase, Long> mLastMillis = new EnumMap<>(Phase.class);
+
+    /**
+     * Duración acumulada de cada fase en milisegundos.
+     */
+    private final Map<Phase, Long> mTotalMillis = new EnumMap<>(Phase.class);
+
+    /**
+     * Escucha del progreso o null si no hay.
+     */
+    private Consumer<Phase> mProgressListener;
+
+    /**
+     * Resultado de la sincronización en curso o null si no hay.
+     */
+    private SettableFuture<Void> mRun;
+
+    /**
+     * Tarea programada de la fase siguiente.
+     */
+    private Future<?> mTask;
+
+    /**
+     * Fase actual.
+     */
+    private Phase mPhase = Phase.IDLE;
+
+    /**
+     * Estado del ciclo en curso.
+     */
+    private C mCycle;
+
+    /**
+     * Cantidad de ciclos desde el inicio de la sincronización en curso o desde la última espera.
+     */
+    private int mCycles;
+
+    /**
+     * Cantidad de fallos consecutivos.
+     */
+    private int mAttempts;
+
+    /**
+     * Crea una nueva instancia.
+     *
+     * @param steps       Pasos de la sincronización.
+     * @param retryDelay  Tiempo de espera en milisegundos antes de reintentar después de un fallo.
+     * @param maxCycles   Cantidad máxima de ciclos consecutivos antes de esperar.
+     * @param maxAttempts Cantidad máxima de fallos consecutivos.
+     */
+    WalletSynchronizer(Steps<C> steps, long retryDelay, int maxCycles, int maxAttempts) {
+        mSteps = steps;
+        mRetryDelay = retryDelay;
+        mMaxCycles = maxCycles;
+        mMaxAttempts = maxAttempts;
+        mExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, LOG_TAG);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Inicia la sincronización. Si ya hay una en curso, devuelve la misma tarea; la sincronización
+     * en curso consulta la punta al terminar cada ciclo, por lo que alcanza los bloques nuevos.
+     *
+     * @return Una tarea que finaliza con la sincronización.
+     */
+    public synchronized ListenableFuture<Void> start() {
+        if (mRun != null)
+            return mRun;
+
+        mRun = SettableFuture.create();
+        mCycles = 0;
+        mAttempts = 0;
+
+        schedule(mRun, Phase.TIP_CHECK, 0);
+
+        return mRun;
+    }
+
+    /**
+     * Cancela la sincronización en curso. La fase en ejecución es interrumpida y las siguientes no
+     * se ejecutan.
+     *
+     * @return Un true si había una sincronización en curso.
+     */
+    public synchronized boolean cancel() {
+        if (mRun == null)
+            return false;
+
+        final SettableFuture<Void> run = mRun;
+
+        if (mTask != null)
+            mTask.cancel(true);
+
+        finish(run);
+        run.cancel(false);
+
+        Log.i(LOG_TAG, "Sync cancelled");
+
+        return true;
+    }
+
+    /**
+     * Indica si hay una sincronización en curso.
+     *
+     * @return Un true si la sincronización está en curso.
+     */
+    public synchronized boolean isRunning() {
+        return mRun != null;
+    }
+
+    /**
+     * Obtiene la fase actual.
+     *
+     * @return Fase de la sincronización.
+     */
+    public synchronized Phase getPhase() {
+        return mPhase;
+    }
+
+    /**
+     * Obtiene la cantidad de ciclos de la sincronización en curso o de la última.
+     *
+     * @return Cantidad de ciclos.
+     */
+    public synchronized int getCycles() {
+        return mCycles;
+    }
+
+    /**
+     * Obtiene la duración de la última ejecución de la fase.
+     *
+     * @param phase Fase de la sincronización.
+     * @return Duración en milisegundos.
+     */
+    public synchronized long getLastMillis(Phase phase) {
+        final Long millis = mLastMillis.get(phase);
+        return millis == null ? 0 : millis;
+    }
+
+    /**
+     * Obtiene la duración acumulada de la fase.
+     *
+     * @param phase Fase de la sincronización.
+     * @return Duración en milisegundos.
+     */
+    public synchronized long getTotalMillis(Phase phase) {
+        final Long millis = mTotalMillis.get(phase);
+        return millis == null ? 0 : millis;
+    }
+
+    /**
+     * Establece el escucha del progreso, el cual es invocado en el hilo de la sincronización al
+     * iniciar cada fase.
+     *
+     * @param listener Escucha del progreso o null para removerlo.
+     */
+    public synchronized void setProgressListener(Consumer<Phase> listener) {
+        mProgressListener = listener;
+    }
+
+    /**
+     * Programa la ejecución de una fase.
+     *
+     * @param run   Sincronización a la que pertenece la fase.
+     * @param phase Fase a ejecutar.
+     * @param delay Tiempo de espera en milisegundos.
+     */
+    private synchronized void schedule(SettableFuture<Void> run, Phase phase, long delay) {
+        if (mRun != run)
+            return;
+
+        mPhase = delay > 0 ? Phase.WAITING : phase;
+        mTask = mExecutor.schedule(() -> execute(run, phase), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Ejecuta una fase y programa la siguiente.
+     *
+     * @param run   Sincronización a la que pertenece la fase.
+     * @param phase Fase a ejecutar.
+     */
+    private void execute(SettableFuture<Void> run, Phase phase) {
+        final C cycle;
+        final Consumer<Phase> listener;
+
+        synchronized (this) {
+            if (mRun != run)
+                return;
+
+            mPhase = phase;
+            cycle = mCycle;
+            listener = mProgressListener;
+        }
+
+        if (listener != null)
+            listener.accept(phase);
+
+        final long start = System.nanoTime();
+        final Phase next;
+
+        try {
+            next = step(phase, cycle);
+        } catch (Exception e) {
+            record(phase, start);
+            fail(run, phase, e);
+            return;
+        }
+
+        record(phase, start);
+
+        synchronized (this) {
+            if (mRun != run)
+                return;
+
+            if (next != null) {
+                schedule(run, next, phase == next ? mRetryDelay : 0);
+                return;
+            }
+
+            finish(run);
+        }
+
+        run.set(null);
+    }
+
+    /**
+     * Ejecuta el paso correspondiente a la fase.
+     *
+     * @param phase Fase a ejecutar.
+     * @param cycle Estado del ciclo en curso.
+     * @return La fase siguiente, la misma fase si debe repetirse después del tiempo de espera o
+     * null si la sincronización finalizó.
+     * @throws Exception Si ocurre un error en el paso.
+     */
+    private Phase step(Phase phase, C cycle) throws Exception {
+        switch (phase) {
+            case TIP_CHECK:
+                final C next = mSteps.checkTip();
+
+                if (next == null) {
+                    mSteps.onSynchronized();
+                    return null;
+                }
+
+                synchronized (this) {
+                    if (mCycles >= mMaxCycles) {
+                        Log.w(LOG_TAG, String.format(
+                                "Catch-up limit reached after %d cycles, resuming in %d ms",
+                                mCycles, mRetryDelay));
+                        mCycles = 0;
+                        return Phase.TIP_CHECK;
+                    }
+
+                    mCycle = next;
+                    mCycles++;
+                }
+
+                return Phase.HISTORY;
+            case HISTORY:
+                mSteps.downloadHistory(cycle);
+                return Phase.DEPENDENCIES;
+            case DEPENDENCIES:
+                mSteps.resolveDependencies(cycle);
+                return Phase.PERSIST;
+            case PERSIST:
+                mSteps.persist(cycle);
+
+                synchronized (this) {
+                    mAttempts = 0;
+                }
+
+                return Phase.NOTIFY;
+            case NOTIFY:
+                mSteps.notifyChanges(cycle);
+
+                synchronized (this) {
+                    logTimings();
+                    mCycle = null;
+                }
+
+                return Phase.TIP_CHECK;
+            default:
+                throw new IllegalStateException("Unexpected phase: " + phase);
+        }
+    }
+
+    /**
+     * Registra el fallo de una fase. Se reintenta desde la consulta de la punta después del tiempo
+     * de espera, hasta alcanzar la cantidad máxima de fallos consecutivos.
+     *
+     * @param run   Sincronización a la que pertenece la fase.
+     * @param phase Fase que falló.
+     * @param e     Error de la fase.
+     */
+    private void fail(SettableFuture<Void> run, Phase phase, Exception e) {
+        synchronized (this) {
+            if (mRun != run)
+                return;
+
+            mCycle = null;
+
+            if (++mAttempts < mMaxAttempts) {
+                Log.w(LOG_TAG, String.format("%s failed (attempt %d of %d), retrying in %d ms: %s",
+                        phase, mAttempts, mMaxAttempts, mRetryDelay, e.getMessage()));
+
+                schedule(run, Phase.TIP_CHECK, mRetryDelay);
+                return;
+            }
+
+            finish(run);
+        }
+
+        Log.e(LOG_TAG, String.format("%s failed, giving up after %d attempts", phase,
+                mMaxAttempts), e);
+
+        run.setException(e);
+    }
+
+    /**
+     * Finaliza la sincronización en curso.
+     *
+     * @param run Sincronización a finalizar.
+     */
+    private synchronized void finish(SettableFuture<Void> run) {
+        if (mRun != run)
+            return;
+
+        mRun = null;
+        mTask = null;
+        mCycle = null;
+        mPhase = Phase.IDLE;
+    }
+
+    /**
+     * Registra la duración de una fase.
+     *
+     * @param phase Fase ejecutada.
+     * @param start Inicio de la fase en nanosegundos.
+     */
+    private synchronized void record(Phase phase, long start) {
+        final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        mLastMillis.put(phase, millis);
+        mTotalMillis.put(phase, getTotalMillis(phase) + millis);
+    }
+
+    /**
+     * Escribe en el log la duración de las fases del último ciclo.
+     */
+    private void logTimings() {
+        Log.d(LOG_TAG, String.format("Cycle %d [tip: %d ms, history: %d ms, dependencies: %d ms,"
+                        + " persist: %d ms, notify: %d ms]", mCycles,
+                getLastMillis(Phase.TIP_CHECK), getLastMillis(Phase.HISTORY),
+                getLastMillis(Phase.DEPENDENCIES), getLastMillis(Phase.PERSIST),
+                getLastMillis(Phase.NOTIFY)));
+    }
+
+    /**
+     * Fases de la sincronización.
+     *
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    public enum Phase {
+
+        /**
+         * Sin sincronización en curso.
+         */
+        IDLE,
+
+        /**
+         * En espera de reintentar después de un fallo.
+         */
+        WAITING,
+
+        /**
+         * Consulta de la punta de la cadena.
+         */
+        TIP_CHECK,
+
+        /**
+         * Descarga del historial de transacciones.
+         */
+        HISTORY,
+
+        /**
+         * Descarga de las dependencias de las transacciones.
+         */
+        DEPENDENCIES,
+
+        /**
+         * Aplicación de las transacciones y persistencia de los cambios.
+         */
+        PERSIST,
+
+        /**
+         * Notificación de los cambios a los escuchas.
+         */
+        NOTIFY
+    }
+
+    /**
+     * Pasos de la sincronización, implementados por la billetera.
+     *
+     * @param <C> Tipo del estado de un ciclo.
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    interface Steps<C> {
+
+        /**
+         * Consulta la punta de la cadena.
+         *
+         * @return El estado de un ciclo nuevo o null si la billetera está al día.
+         * @throws Exception Si la punta no está disponible.
+         */
+        C checkTip() throws Exception;
+
+        /**
+         * Descarga el historial de transacciones del ciclo.
+         *
+         * @param cycle Estado del ciclo.
+         * @throws Exception Si ocurre un error en la descarga.
+         */
+        void downloadHistory(C cycle) throws Exception;
+
+        /**
+         * Descarga las dependencias de las transacciones del ciclo.
+         *
+         * @param cycle Estado del ciclo.
+         * @throws Exception Si ocurre un error en la descarga.
+         */
+        void resolveDependencies(C cycle) throws Exception;
+
+        /**
+         * Aplica las transacciones del ciclo en la billetera y persiste los cambios.
+         *
+         * @param cycle Estado del ciclo.
+         * @throws Exception Si ocurre un error al aplicar los cambios.
+         */
+        void persist(C cycle) throws Exception;
+
+        /**
+         * Notifica los cambios del ciclo a los escuchas.
+         *
+         * @param cycle Estado del ciclo.
+         * @throws Exception Si ocurre un error al notificar.
+         */
+        void notifyChanges(C cycle) throws Exception;
+
+        /**
+         * Invocado cuando la billetera alcanza la punta de la cadena.
+         */
+        void onSynchronized();
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet.coinselection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Selección por ramificación y poda. Busca en profundidad un subconjunto de salidas cuyo valor
+ * efectivo cubra el objetivo sin exceder el costo del cambio, de esta forma la transacción no
+ * requiere salida de cambio. Entre las soluciones encontradas se elige la de menor excedente.
+ * <p>
+ * Las salidas se recorren de mayor a menor valor efectivo. Una rama se poda cuando el valor
+ * restante no alcanza el objetivo o cuando el valor seleccionado excede el objetivo más el costo
+ * del cambio. Las salidas con el mismo valor efectivo que la anterior omitida también se omiten,
+ * ya que producen las mismas soluciones.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public final class BranchAndBoundSelector implements CoinSelector {
+
+    /**
+     * Cantidad máxima predeterminada de pasos de la búsqueda.
+     */
+    public static final int DEFAULT_MAX_TRIES = 100000;
+
+    /**
+     * Cantidad máxima de pasos de la búsqueda.
+     */
+    private final int mMaxTries;
+
+    /**
+     * Crea una nueva instancia con la cantidad predeterminada de pasos.
+     */
+    public BranchAndBoundSelector() {
+        this(DEFAULT_MAX_TRIES);
+    }
+
+    /**
+     * Crea una nueva instancia.
+     *
+     * @param maxTries Cantidad máxima de pasos de la búsqueda.
+     */
+    public BranchAndBoundSelector(int maxTries) {
+        mMaxTries = maxTries;
+    }
+
+    /**
+     * Selecciona las entradas que cubren el objetivo sin requerir salida de cambio.
+     *
+     * @param candidates Salidas candidatas ordenadas por valor de forma ascendente.
+     * @param target     Objetivo de la selección.
+     * @param <T>        Tipo de las salidas candidatas.
+     * @return Las entradas seleccionadas o null si no hay una solución sin cambio.
+     */
+    @Override
+    public <T extends Candidate> List<T> select(List<T> candidates, SelectionTarget target) {
+        final List<T> pool = new ArrayList<>();
+        final long[] values = sortByEffectiveValue(candidates, target, pool);
+        long available = 0;
+
+        for (long value : values)
+            available += value;
+
+        final long selectionTarget = target.getSelectionTarget();
+        final long upperBound = selectionTarget + target.getCostOfChange();
+
+        if (available < selectionTarget)
+            return null;
+
+        final boolean[] selection = new boolean[pool.size()];
+        boolean[] best = null;
+        long bestWaste = Long.MAX_VALUE;
+        long current = 0;
+        int depth = 0;
+
+        for (int tries = 0; tries < mMaxTries; tries++) {
+            boolean backtrack = false;
+
+            if (current + available < selectionTarget || current > upperBound)
+                backtrack = true;
+            else if (current >= selectionTarget) {
+                final long waste = current - selectionTarget;
+
+                if (waste <= bestWaste) {
+                    best = selection.clone();
+                    bestWaste = waste;
+
+                    if (waste == 0)
+                        break;
+                }
+
+                backtrack = true;
+            }
+
+            if (backtrack) {
+                while (depth > 0 && !selection[depth - 1]) {
+                    depth--;
+                    available += values[depth];
+                }
+
+                if (depth == 0)
+                    break;
+
+                selection[depth - 1] = false;
+                current -= values[depth - 1];
+            } else {
+                final long value = values[depth];
+
+                available -= value;
+
+                if (depth > 0 && !selection[depth - 1] && value == values[depth - 1])
+                    selection[depth] = false;
+                else {
+                    selection[depth] = true;
+                    current += value;
+                }
+
+                depth++;
+            }
+        }
+
+        if (best == null)
+            return null;
+
+        final List<T> inputs = new ArrayList<>();
+
+        for (int i = 0; i < best.length; i++)
+            if (best[i])
+                inputs.add(pool.get(i));
+
+        return inputs;
+    }
+
+    /**
+     * Ordena las salidas con valor efectivo positivo de mayor a menor valor efectivo.
+     *
+     * @param candidates Salidas candidatas.
+     * @param target     Objetivo de la selección.
+     * @param pool       Lista que recibe las salidas ordenadas.
+     * @param <T>        Tipo de las salidas candidatas.
+     * @return Valor efectivo de cada salida de la lista.
+     */
+    private static <T extends Candidate> long[] sortByEffectiveValue(List<T> candidates,
+                                                                     SelectionTarget target,
+                                                                     List<T> pool) {
+        final List<Integer> order = new ArrayList<>();
+        final long[] effective = new long[candidates.size()];
+
+        for (int i = 0; i < effective.length; i++) {
+            effective[i] = target.getEffectiveValue(candidates.get(i));
+
+            if (effective[i] > 0)
+                order.add(i);
+        }
+
+        Collections.sort(order, (left, right) -> Long.compare(effective[right], effective[left]));
+
+        final long[] values = new long[order.size()];
+
+        for (int i = 0; i < values.length; i++) {
+            pool.add(candidates.get(order.get(i)));
+            values[i] = effective[order.get(i)];
+        }
+
+        return values;
+    }
+}
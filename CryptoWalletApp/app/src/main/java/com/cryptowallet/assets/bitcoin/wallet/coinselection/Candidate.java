@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet.coinselection;
+
+/**
+ * Salida candidata a ser gastada como entrada de una transacción.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ * @see CoinSelector
+ */
+public interface Candidate {
+
+    /**
+     * Obtiene el valor de la salida.
+     *
+     * @return Valor en satoshis.
+     */
+    long getValue();
+
+    /**
+     * Obtiene el peso de la entrada que gasta la salida, incluyendo su testigo.
+     *
+     * @return Peso en unidades.
+     * @see SizeModel
+     */
+    int getInputWeight();
+
+    /**
+     * Indica si la entrada que gasta la salida utiliza testigo.
+     *
+     * @return Un true si la entrada tiene testigo.
+     */
+    boolean isWitness();
+}
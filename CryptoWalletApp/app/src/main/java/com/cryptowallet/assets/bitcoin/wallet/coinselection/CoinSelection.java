@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet.coinselection;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de la selección de entradas de una transacción.
+ *
+ * @param <T> Tipo de las salidas candidatas.
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public final class CoinSelection<T extends Candidate> {
+
+    /**
+     * Entradas seleccionadas.
+     */
+    private final List<T> mInputs;
+
+    /**
+     * Valor de las entradas seleccionadas.
+     */
+    private final long mInputsValue;
+
+    /**
+     * Comisión de la transacción.
+     */
+    private final long mFee;
+
+    /**
+     * Valor de la salida de cambio o 0 si la transacción no tiene cambio.
+     */
+    private final long mChange;
+
+    /**
+     * Tamaño virtual de la transacción firmada.
+     */
+    private final int mVirtualSize;
+
+    /**
+     * Crea un nuevo resultado.
+     *
+     * @param inputs      Entradas seleccionadas.
+     * @param inputsValue Valor de las entradas.
+     * @param fee         Comisión de la transacción.
+     * @param change      Valor del cambio.
+     * @param virtualSize Tamaño virtual de la transacción.
+     */
+    CoinSelection(List<T> inputs, long inputsValue, long fee, long change, int virtualSize) {
+        mInputs = Collections.unmodifiableList(inputs);
+        mInputsValue = inputsValue;
+        mFee = fee;
+        mChange = change;
+        mVirtualSize = virtualSize;
+    }
+
+    /**
+     * Obtiene las entradas seleccionadas.
+     *
+     * @return Lista de entradas.
+     */
+    public List<T> getInputs() {
+        return mInputs;
+    }
+
+    /**
+     * Obtiene el valor de las entradas seleccionadas.
+     *
+     * @return Valor en satoshis.
+     */
+    public long getInputsValue() {
+        return mInputsValue;
+    }
+
+    /**
+     * Obtiene la comisión de la transacción, incluye el excedente cuando no hay cambio.
+     *
+     * @return Comisión en satoshis.
+     */
+    public long getFee() {
+        return mFee;
+    }
+
+    /**
+     * Obtiene el valor de la salida de cambio.
+     *
+     * @return Valor en satoshis o 0 si la transacción no tiene cambio.
+     */
+    public long getChange() {
+        return mChange;
+    }
+
+    /**
+     * Indica si la transacción tiene salida de cambio.
+     *
+     * @return Un true si tiene cambio.
+     */
+    public boolean hasChange() {
+        return mChange > 0;
+    }
+
+    /**
+     * Obtiene el tamaño virtual de la transacción firmada.
+     *
+     * @return Tamaño en bytes virtuales.
+     */
+    public int getVirtualSize() {
+        return mVirtualSize;
+    }
+}
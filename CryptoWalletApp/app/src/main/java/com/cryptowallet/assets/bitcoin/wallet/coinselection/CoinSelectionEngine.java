@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet.coinselection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Motor de selección de entradas. Aplica las estrategias en orden y devuelve la primera selección
+ * que cubre el pago y la comisión. La selección predeterminada busca primero una combinación sin
+ * cambio por ramificación y poda, y recurre a la aproximación de la mochila y a la selección de
+ * mayor a menor valor.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ * @see CoinSelector
+ */
+public final class CoinSelectionEngine {
+
+    /**
+     * Estrategias de selección en orden de preferencia.
+     */
+    private final List<CoinSelector> mSelectors;
+
+    /**
+     * Crea una nueva instancia.
+     *
+     * @param selectors Estrategias de selección en orden de preferencia.
+     */
+    public CoinSelectionEngine(CoinSelector... selectors) {
+        if (selectors.length == 0)
+            throw new IllegalArgumentException("At least one selector is required");
+
+        mSelectors = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(selectors)));
+    }
+
+    /**
+     * Crea el motor con las estrategias predeterminadas.
+     *
+     * @return Un motor de selección.
+     */
+    public static CoinSelectionEngine createDefault() {
+        return new CoinSelectionEngine(
+                new BranchAndBoundSelector(),
+                new KnapsackSelector(),
+                new LargestFirstSelector()
+        );
+    }
+
+    /**
+     * Obtiene las estrategias de selección.
+     *
+     * @return Lista de estrategias.
+     */
+    public List<CoinSelector> getSelectors() {
+        return mSelectors;
+    }
+
+    /**
+     * Selecciona las entradas que cubren el objetivo.
+     *
+     * @param candidates Salidas candidatas ordenadas por valor de forma ascendente.
+     * @param target     Objetivo de la selección.
+     * @param <T>        Tipo de las salidas candidatas.
+     * @return El resultado de la selección o null si las salidas no cubren el pago y la comisión.
+     */
+    public <T extends Candidate> CoinSelection<T> select(List<T> candidates,
+                                                         SelectionTarget target) {
+        final SelectionTarget poolTarget = target.forCandidates(candidates);
+
+        for (CoinSelector selector : mSelectors) {
+            final List<T> inputs = selector.select(candidates, poolTarget);
+
+            if (inputs == null || inputs.isEmpty())
+                continue;
+
+            final CoinSelection<T> selection = poolTarget.complete(inputs);
+
+            if (selection != null)
+                return selection;
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet.coinselection;
+
+import java.util.List;
+
+/**
+ * Estrategia de selección de las entradas de una transacción. La estrategia solo elige las
+ * entradas, la comisión y el cambio se calculan con {@link SelectionTarget#complete(List)}.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ * @see CoinSelectionEngine
+ */
+public interface CoinSelector {
+
+    /**
+     * Selecciona las entradas que cubren el objetivo.
+     *
+     * @param candidates Salidas candidatas ordenadas por valor de forma ascendente.
+     * @param target     Objetivo de la selección.
+     * @param <T>        Tipo de las salidas candidatas.
+     * @return Las entradas seleccionadas o null si la estrategia no encuentra una solución.
+     */
+    <T extends Candidate> List<T> select(List<T> candidates, SelectionTarget target);
+}
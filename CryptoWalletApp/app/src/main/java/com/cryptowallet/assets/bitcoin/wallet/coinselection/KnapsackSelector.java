@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet.coinselection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Selección por aproximación de la mochila. Si una salida cubre el objetivo de forma exacta se
+ * elige, en caso contrario se busca de forma aleatoria el subconjunto de las salidas menores que
+ * cubra el objetivo con el menor excedente, procurando dejar un cambio que no sea polvo, y se
+ * compara con la menor de las salidas mayores.
+ * <p>
+ * La búsqueda utiliza una semilla fija, de esta forma la misma billetera produce la misma
+ * selección para el mismo pago y la cotización coincide con la transacción creada.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public final class KnapsackSelector implements CoinSelector {
+
+    /**
+     * Iteraciones de la búsqueda aleatoria.
+     */
+    private static final int ITERATIONS = 1000;
+
+    /**
+     * Semilla predeterminada de la búsqueda aleatoria.
+     */
+    private static final long DEFAULT_SEED = 0x6b6e617073616bL;
+
+    /**
+     * Semilla de la búsqueda aleatoria.
+     */
+    private final long mSeed;
+
+    /**
+     * Crea una nueva instancia con la semilla predeterminada.
+     */
+    public KnapsackSelector() {
+        this(DEFAULT_SEED);
+    }
+
+    /**
+     * Crea una nueva instancia.
+     *
+     * @param seed Semilla de la búsqueda aleatoria.
+     */
+    public KnapsackSelector(long seed) {
+        mSeed = seed;
+    }
+
+    /**
+     * Selecciona las entradas que cubren el objetivo.
+     *
+     * @param candidates Salidas candidatas ordenadas por valor de forma ascendente.
+     * @param target     Objetivo de la selección.
+     * @param <T>        Tipo de las salidas candidatas.
+     * @return Las entradas seleccionadas o null si el valor de las salidas no cubre el objetivo.
+     */
+    @Override
+    public <T extends Candidate> List<T> select(List<T> candidates, SelectionTarget target) {
+        final long selectionTarget = target.getSelectionTarget();
+        final long minChange = target.getMinChange();
+        final List<T> lower = new ArrayList<>();
+        final List<Long> lowerValues = new ArrayList<>();
+        T lowestLarger = null;
+        long lowestLargerValue = 0;
+        long totalLower = 0;
+
+        for (T candidate : candidates) {
+            final long value = target.getEffectiveValue(candidate);
+
+            if (value <= 0)
+                continue;
+
+            if (value == selectionTarget)
+                return Collections.singletonList(candidate);
+
+            if (value < selectionTarget + minChange) {
+                lower.add(candidate);
+                lowerValues.add(value);
+                totalLower += value;
+            } else if (lowestLarger == null || value < lowestLargerValue) {
+                lowestLarger = candidate;
+                lowestLargerValue = value;
+            }
+        }
+
+        if (totalLower == selectionTarget)
+            return lower;
+
+        if (totalLower < selectionTarget)
+            return lowestLarger == null ? null : Collections.singletonList(lowestLarger);
+
+        final long[] values = new long[lowerValues.size()];
+
+        for (int i = 0; i < values.length; i++)
+            values[values.length - 1 - i] = lowerValues.get(i);
+
+        Collections.reverse(lower);
+
+        final Random random = new Random(mSeed);
+        boolean[] best = approximateBestSubset(random, values, totalLower, selectionTarget);
+        long bestValue = sum(values, best);
+
+        if (bestValue != selectionTarget && totalLower >= selectionTarget + minChange) {
+            best = approximateBestSubset(random, values, totalLower, selectionTarget + minChange);
+            bestValue = sum(values, best);
+        }
+
+        if (lowestLarger != null && ((bestValue != selectionTarget
+                && bestValue < selectionTarget + minChange) || lowestLargerValue <= bestValue))
+            return Collections.singletonList(lowestLarger);
+
+        final List<T> inputs = new ArrayList<>();
+
+        for (int i = 0; i < best.length; i++)
+            if (best[i])
+                inputs.add(lower.get(i));
+
+        return inputs;
+    }
+
+    /**
+     * Busca de forma aleatoria el subconjunto con la menor suma que alcanza el objetivo. Cada
+     * iteración agrega salidas al azar y en una segunda pasada las restantes hasta alcanzarlo.
+     *
+     * @param random Generador de números aleatorios.
+     * @param values Valores efectivos ordenados de forma descendente.
+     * @param total  Suma de los valores.
+     * @param target Valor objetivo.
+     * @return Las salidas del mejor subconjunto.
+     */
+    private static boolean[] approximateBestSubset(Random random, long[] values, long total,
+                                                   long target) {
+        boolean[] best = new boolean[values.length];
+        long bestValue = total;
+
+        Arrays.fill(best, true);
+
+        for (int iteration = 0; iteration < ITERATIONS && bestValue != target; iteration++) {
+            final boolean[] included = new boolean[values.length];
+            long current = 0;
+            boolean reached = false;
+
+            for (int pass = 0; pass < 2 && !reached; pass++) {
+                for (int i = 0; i < values.length; i++) {
+                    if (pass == 0 ? !random.nextBoolean() : included[i])
+                        continue;
+
+                    current += values[i];
+                    included[i] = true;
+
+                    if (current >= target) {
+                        reached = true;
+
+                        if (current < bestValue) {
+                            bestValue = current;
+                            best = included.clone();
+                        }
+
+                        current -= values[i];
+                        included[i] = false;
+                    }
+                }
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Suma los valores incluidos.
+     *
+     * @param values   Valores.
+     * @param included Valores incluidos.
+     * @return Suma de los valores.
+     */
+    private static long sum(long[] values, boolean[] included) {
+        long total = 0;
+
+        for (int i = 0; i < values.length; i++)
+            if (included[i])
+                total += values[i];
+
+        return total;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet.coinselection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Selección de mayor a menor valor. Agrega las salidas de mayor valor efectivo hasta cubrir el
+ * objetivo más un cambio que no sea polvo, o el objetivo si no alcanza para el cambio. Produce la
+ * transacción con menos entradas y es la última opción cuando las demás estrategias no encuentran
+ * una solución.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public final class LargestFirstSelector implements CoinSelector {
+
+    /**
+     * Selecciona las entradas que cubren el objetivo.
+     *
+     * @param candidates Salidas candidatas ordenadas por valor de forma ascendente.
+     * @param target     Objetivo de la selección.
+     * @param <T>        Tipo de las salidas candidatas.
+     * @return Las entradas seleccionadas o null si el valor de las salidas no cubre el objetivo.
+     */
+    @Override
+    public <T extends Candidate> List<T> select(List<T> candidates, SelectionTarget target) {
+        final long selectionTarget = target.getSelectionTarget();
+        final long withChange = selectionTarget + target.getMinChange();
+        final List<T> inputs = new ArrayList<>();
+        long total = 0;
+
+        for (int i = candidates.size() - 1; i >= 0 && total < withChange; i--) {
+            final T candidate = candidates.get(i);
+            final long value = target.getEffectiveValue(candidate);
+
+            if (value <= 0)
+                continue;
+
+            inputs.add(candidate);
+            total += value;
+        }
+
+        return total >= selectionTarget ? inputs : null;
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet.coinselection;
+
+import java.util.List;
+
+/**
+ * Objetivo de la selección de entradas: las salidas a pagar, la salida de cambio y la comisión por
+ * KB. Las estrategias comparan las salidas por su valor efectivo, el valor menos la comisión de la
+ * entrada que la gasta, y el resultado se completa calculando el peso exacto de la transacción.
+ * <ul>
+ *     <li><b>Amount</b> - Valor de las salidas a pagar.</li>
+ *     <li><b>Outputs</b> - Cantidad y peso de las salidas a pagar.</li>
+ *     <li><b>Change</b> - Peso de la salida de cambio, peso de la entrada que la gastará y valor
+ *                         mínimo para no ser considerada polvo.</li>
+ *     <li><b>FeeByKB</b> - Comisión por KB de tamaño virtual.</li>
+ * </ul>
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ * @see SizeModel
+ */
+public final class SelectionTarget {
+
+    /**
+     * Bytes por KB.
+     */
+    private static final int KB = 1024;
+
+    /**
+     * Valor de las salidas a pagar.
+     */
+    private long mAmount;
+
+    /**
+     * Cantidad de salidas a pagar.
+     */
+    private int mOutputs;
+
+    /**
+     * Peso de las salidas a pagar.
+     */
+    private int mOutputsWeight;
+
+    /**
+     * Peso de la salida de cambio.
+     */
+    private int mChangeWeight;
+
+    /**
+     * Peso de la entrada que gastará la salida de cambio.
+     */
+    private int mChangeSpendWeight;
+
+    /**
+     * Valor mínimo de la salida de cambio.
+     */
+    private long mChangeDust;
+
+    /**
+     * Comisión por KB.
+     */
+    private long mFeeByKB;
+
+    /**
+     * Indica si alguna de las salidas candidatas utiliza testigo.
+     */
+    private boolean mWitness;
+
+    /**
+     * Constructor privado, utilizar {@link Builder}.
+     */
+    private SelectionTarget() {
+    }
+
+    /**
+     * Crea una copia del objetivo indicando si las salidas candidatas utilizan testigo, de esta
+     * forma el valor efectivo de las entradas sin testigo incluye su testigo vacío.
+     *
+     * @param candidates Salidas candidatas.
+     * @return Un objetivo para las salidas candidatas.
+     */
+    SelectionTarget forCandidates(List<? extends Candidate> candidates) {
+        boolean witness = false;
+
+        for (Candidate candidate : candidates)
+            if (candidate.isWitness()) {
+                witness = true;
+                break;
+            }
+
+        if (witness == mWitness)
+            return this;
+
+        final SelectionTarget target = new SelectionTarget();
+
+        target.mAmount = mAmount;
+        target.mOutputs = mOutputs;
+        target.mOutputsWeight = mOutputsWeight;
+        target.mChangeWeight = mChangeWeight;
+        target.mChangeSpendWeight = mChangeSpendWeight;
+        target.mChangeDust = mChangeDust;
+        target.mFeeByKB = mFeeByKB;
+        target.mWitness = witness;
+
+        return target;
+    }
+
+    /**
+     * Obtiene el valor de las salidas a pagar.
+     *
+     * @return Valor en satoshis.
+     */
+    public long getAmount() {
+        return mAmount;
+    }
+
+    /**
+     * Obtiene la comisión por KB.
+     *
+     * @return Comisión en satoshis.
+     */
+    public long getFeeByKB() {
+        return mFeeByKB;
+    }
+
+    /**
+     * Calcula la comisión correspondiente al peso especificado.
+     *
+     * @param weight Peso en unidades.
+     * @return Comisión en satoshis.
+     */
+    public long getFee(int weight) {
+        return (mFeeByKB * SizeModel.getVirtualSize(weight) + KB - 1) / KB;
+    }
+
+    /**
+     * Calcula el valor efectivo de la salida: su valor menos la comisión de la entrada que la
+     * gasta.
+     *
+     * @param candidate Salida candidata.
+     * @return Valor efectivo, puede ser negativo.
+     */
+    public long getEffectiveValue(Candidate candidate) {
+        final int emptyWitness = mWitness && !candidate.isWitness() ? 1 : 0;
+
+        return candidate.getValue() - getFee(candidate.getInputWeight() + emptyWitness);
+    }
+
+    /**
+     * Obtiene el valor efectivo que deben cubrir las entradas: el valor de las salidas más la
+     * comisión de la transacción sin entradas ni cambio.
+     *
+     * @return Valor en satoshis.
+     */
+    public long getSelectionTarget() {
+        return mAmount + getFee(SizeModel.getTransactionWeight(0, 0, 0, mOutputs, mOutputsWeight)
+                + (mWitness ? SizeModel.WITNESS_HEADER_WEIGHT : 0));
+    }
+
+    /**
+     * Obtiene el costo de crear la salida de cambio y gastarla posteriormente. Un excedente menor
+     * a este costo es preferible agregarlo a la comisión.
+     *
+     * @return Costo en satoshis.
+     */
+    public long getCostOfChange() {
+        return getFee(mChangeWeight) + getFee(mChangeSpendWeight);
+    }
+
+    /**
+     * Obtiene el excedente mínimo que produce una salida de cambio que no es polvo.
+     *
+     * @return Valor en satoshis.
+     */
+    public long getMinChange() {
+        return getFee(mChangeWeight) + mChangeDust;
+    }
+
+    /**
+     * Completa la selección calculando el peso exacto de la transacción, la comisión y el
+     * cambio. Si el excedente no alcanza para una salida de cambio que no sea polvo, se agrega a
+     * la comisión.
+     *
+     * @param inputs Entradas seleccionadas.
+     * @param <T>    Tipo de las salidas candidatas.
+     * @return El resultado de la selección o null si las entradas no cubren el pago y la
+     * comisión.
+     */
+    public <T extends Candidate> CoinSelection<T> complete(List<T> inputs) {
+        long value = 0;
+        int inputsWeight = 0;
+        int witnessInputs = 0;
+
+        for (Candidate input : inputs) {
+            value += input.getValue();
+            inputsWeight += input.getInputWeight();
+
+            if (input.isWitness())
+                witnessInputs++;
+        }
+
+        final int weight = SizeModel.getTransactionWeight(inputs.size(), witnessInputs,
+                inputsWeight, mOutputs, mOutputsWeight);
+
+        if (value < mAmount + getFee(weight))
+            return null;
+
+        final int changeWeight = SizeModel.getTransactionWeight(inputs.size(), witnessInputs,
+                inputsWeight, mOutputs + 1, mOutputsWeight + mChangeWeight);
+        final long changeFee = getFee(changeWeight);
+        final long change = value - mAmount - changeFee;
+
+        if (change > 0 && change >= mChangeDust)
+            return new CoinSelection<>(inputs, value, changeFee, change,
+                    SizeModel.getVirtualSize(changeWeight));
+
+        return new CoinSelection<>(inputs, value, value - mAmount, 0,
+                SizeModel.getVirtualSize(weight));
+    }
+
+    /**
+     * Constructor de objetivos de selección.
+     *
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    public static final class Builder {
+
+        /**
+         * Instancia a construir.
+         */
+        private final SelectionTarget mInstance = new SelectionTarget();
+
+        /**
+         * Agrega una salida a pagar.
+         *
+         * @param value      Valor de la salida.
+         * @param scriptSize Tamaño del script de la salida.
+         * @return Este constructor.
+         */
+        public Builder addOutput(long value, int scriptSize) {
+            mInstance.mAmount += value;
+            mInstance.mOutputs++;
+            mInstance.mOutputsWeight += SizeModel.getOutputWeight(scriptSize);
+
+            return this;
+        }
+
+        /**
+         * Establece la salida de cambio.
+         *
+         * @param scriptSize  Tamaño del script de la salida de cambio.
+         * @param spendWeight Peso de la entrada que gastará la salida de cambio.
+         * @param dust        Valor mínimo de la salida de cambio para no ser considerada polvo.
+         * @return Este constructor.
+         */
+        public Builder setChange(int scriptSize, int spendWeight, long dust) {
+            mInstance.mChangeWeight = SizeModel.getOutputWeight(scriptSize);
+            mInstance.mChangeSpendWeight = spendWeight;
+            mInstance.mChangeDust = dust;
+
+            return this;
+        }
+
+        /**
+         * Establece la comisión por KB de tamaño virtual.
+         *
+         * @param feeByKB Comisión en satoshis.
+         * @return Este constructor.
+         */
+        public Builder setFeeByKB(long feeByKB) {
+            mInstance.mFeeByKB = feeByKB;
+
+            return this;
+        }
+
+        /**
+         * Construye el objetivo de selección.
+         *
+         * @return Un objetivo de selección.
+         */
+        public SelectionTarget build() {
+            return mInstance;
+        }
+    }
+}
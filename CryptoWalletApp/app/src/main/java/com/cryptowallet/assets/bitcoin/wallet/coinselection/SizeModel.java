@@ -0,0 +1,268 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet.coinselection;
+
+import org.bitcoinj.core.VarInt;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.script.ScriptPattern;
+
+/**
+ * Modelo del tamaño virtual de las transacciones. El tamaño se calcula en unidades de peso a
+ * partir de la estructura de la transacción firmada, sin construirla ni serializarla:
+ * <ul>
+ *     <li><b>Peso</b> - Cuatro unidades por byte fuera del testigo y una por byte del testigo.</li>
+ *     <li><b>Tamaño virtual</b> - El peso entre cuatro redondeado hacia arriba.</li>
+ * </ul>
+ * Las firmas se consideran de 72 bytes incluyendo el tipo de hash, el tamaño máximo de una firma
+ * DER con S bajo, y las claves públicas comprimidas, por lo que el tamaño calculado es el máximo
+ * que puede ocupar la transacción firmada.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public final class SizeModel {
+
+    /**
+     * Unidades de peso por byte fuera del testigo.
+     */
+    public static final int WITNESS_SCALE_FACTOR = 4;
+
+    /**
+     * Peso del marcador y la bandera de una transacción con testigo.
+     */
+    public static final int WITNESS_HEADER_WEIGHT = 2;
+
+    /**
+     * Tamaño de una firma con el tipo de hash.
+     */
+    private static final int SIGNATURE_SIZE = 72;
+
+    /**
+     * Tamaño de una clave pública comprimida.
+     */
+    private static final int PUBLIC_KEY_SIZE = 33;
+
+    /**
+     * Tamaño de una entrada sin script: salida referenciada y secuencia.
+     */
+    private static final int INPUT_BASE_SIZE = 32 + 4 + 4;
+
+    /**
+     * Tamaño de la versión y el tiempo de bloqueo.
+     */
+    private static final int TX_BASE_SIZE = 4 + 4;
+
+    /**
+     * Tamaño del script de firma de P2PKH: firma y clave pública con sus longitudes.
+     */
+    private static final int P2PKH_SCRIPT_SIG_SIZE = 1 + SIGNATURE_SIZE + 1 + PUBLIC_KEY_SIZE;
+
+    /**
+     * Tamaño del script de firma de P2PK: firma con su longitud.
+     */
+    private static final int P2PK_SCRIPT_SIG_SIZE = 1 + SIGNATURE_SIZE;
+
+    /**
+     * Peso del testigo de P2WPKH: cantidad de elementos, firma y clave pública con sus longitudes.
+     */
+    private static final int P2WPKH_WITNESS_WEIGHT = 1 + 1 + SIGNATURE_SIZE + 1 + PUBLIC_KEY_SIZE;
+
+    /**
+     * Tamaño del script de firma de P2SH-P2WPKH: el programa de testigo de 22 bytes con su
+     * longitud.
+     */
+    private static final int P2SH_P2WPKH_SCRIPT_SIG_SIZE = 1 + 22;
+
+    /**
+     * Peso de una entrada P2PKH.
+     */
+    public static final int P2PKH_INPUT_WEIGHT = scriptSigWeight(P2PKH_SCRIPT_SIG_SIZE);
+
+    /**
+     * Peso de una entrada P2PK.
+     */
+    public static final int P2PK_INPUT_WEIGHT = scriptSigWeight(P2PK_SCRIPT_SIG_SIZE);
+
+    /**
+     * Peso de una entrada P2WPKH incluyendo su testigo.
+     */
+    public static final int P2WPKH_INPUT_WEIGHT = scriptSigWeight(0) + P2WPKH_WITNESS_WEIGHT;
+
+    /**
+     * Peso de una entrada P2SH-P2WPKH incluyendo su testigo.
+     */
+    public static final int P2SH_P2WPKH_INPUT_WEIGHT = scriptSigWeight(P2SH_P2WPKH_SCRIPT_SIG_SIZE)
+            + P2WPKH_WITNESS_WEIGHT;
+
+    /**
+     * Peso de una salida P2PKH.
+     */
+    public static final int P2PKH_OUTPUT_WEIGHT = getOutputWeight(25);
+
+    /**
+     * Peso de una salida P2WPKH.
+     */
+    public static final int P2WPKH_OUTPUT_WEIGHT = getOutputWeight(22);
+
+    /**
+     * Peso de una salida P2SH.
+     */
+    public static final int P2SH_OUTPUT_WEIGHT = getOutputWeight(23);
+
+    /**
+     * Constructor privado.
+     */
+    private SizeModel() {
+    }
+
+    /**
+     * Calcula el peso de una entrada fuera del testigo.
+     *
+     * @param scriptSigSize Tamaño del script de firma.
+     * @return Peso de la entrada.
+     */
+    private static int scriptSigWeight(int scriptSigSize) {
+        return (INPUT_BASE_SIZE + VarInt.sizeOf(scriptSigSize) + scriptSigSize)
+                * WITNESS_SCALE_FACTOR;
+    }
+
+    /**
+     * Calcula el tamaño de la instrucción que agrega datos a la pila.
+     *
+     * @param size Tamaño de los datos.
+     * @return Tamaño de la instrucción sin incluir los datos.
+     */
+    private static int pushSize(int size) {
+        if (size < 76)
+            return 1;
+
+        return size <= 0xff ? 2 : 3;
+    }
+
+    /**
+     * Calcula el peso de una salida.
+     *
+     * @param scriptSize Tamaño del script de la salida.
+     * @return Peso de la salida.
+     */
+    public static int getOutputWeight(int scriptSize) {
+        return (8 + VarInt.sizeOf(scriptSize) + scriptSize) * WITNESS_SCALE_FACTOR;
+    }
+
+    /**
+     * Calcula el peso de la entrada que gasta una salida P2SH multifirma.
+     *
+     * @param redeemScript Script de canje.
+     * @return Peso de la entrada.
+     */
+    public static int getP2shInputWeight(Script redeemScript) {
+        if (ScriptPattern.isP2WPKH(redeemScript))
+            return P2SH_P2WPKH_INPUT_WEIGHT;
+
+        final int redeemSize = redeemScript.getProgram().length;
+        final int signatures = redeemScript.getNumberOfSignaturesRequiredToSpend();
+        final int scriptSigSize = 1 + signatures * (1 + SIGNATURE_SIZE)
+                + pushSize(redeemSize) + redeemSize;
+
+        return scriptSigWeight(scriptSigSize);
+    }
+
+    /**
+     * Calcula el peso de la entrada que gasta la salida con el script especificado.
+     *
+     * @param scriptPubKey Script de la salida.
+     * @param redeemScript Script de canje de las salidas P2SH o null para otros tipos.
+     * @return Peso de la entrada.
+     * @throws IllegalArgumentException Si el tipo de script no es soportado.
+     * @see #isSupportedInput(Script, Script)
+     */
+    public static int getInputWeight(Script scriptPubKey, Script redeemScript) {
+        if (ScriptPattern.isP2PKH(scriptPubKey))
+            return P2PKH_INPUT_WEIGHT;
+
+        if (ScriptPattern.isP2PK(scriptPubKey))
+            return P2PK_INPUT_WEIGHT;
+
+        if (ScriptPattern.isP2WPKH(scriptPubKey))
+            return P2WPKH_INPUT_WEIGHT;
+
+        if (ScriptPattern.isP2SH(scriptPubKey) && redeemScript != null)
+            return getP2shInputWeight(redeemScript);
+
+        throw new IllegalArgumentException("Unsupported script: " + scriptPubKey);
+    }
+
+    /**
+     * Indica si el modelo puede calcular el peso de la entrada que gasta la salida con el script
+     * especificado.
+     *
+     * @param scriptPubKey Script de la salida.
+     * @param redeemScript Script de canje de las salidas P2SH o null para otros tipos.
+     * @return Un true si el tipo de script es soportado.
+     */
+    public static boolean isSupportedInput(Script scriptPubKey, Script redeemScript) {
+        return ScriptPattern.isP2PKH(scriptPubKey) || ScriptPattern.isP2PK(scriptPubKey)
+                || ScriptPattern.isP2WPKH(scriptPubKey)
+                || (ScriptPattern.isP2SH(scriptPubKey) && redeemScript != null);
+    }
+
+    /**
+     * Indica si la entrada que gasta la salida con el script especificado utiliza testigo.
+     *
+     * @param scriptPubKey Script de la salida.
+     * @param redeemScript Script de canje de las salidas P2SH o null para otros tipos.
+     * @return Un true si la entrada tiene testigo.
+     */
+    public static boolean isWitnessInput(Script scriptPubKey, Script redeemScript) {
+        return ScriptPattern.isP2WPKH(scriptPubKey) || (ScriptPattern.isP2SH(scriptPubKey)
+                && redeemScript != null && ScriptPattern.isP2WPKH(redeemScript));
+    }
+
+    /**
+     * Calcula el peso de una transacción. Si alguna entrada utiliza testigo, se agregan el
+     * marcador, la bandera y un testigo vacío por cada entrada sin testigo.
+     *
+     * @param inputs        Cantidad de entradas.
+     * @param witnessInputs Cantidad de entradas con testigo.
+     * @param inputsWeight  Suma del peso de las entradas.
+     * @param outputs       Cantidad de salidas.
+     * @param outputsWeight Suma del peso de las salidas.
+     * @return Peso de la transacción.
+     */
+    public static int getTransactionWeight(int inputs, int witnessInputs, int inputsWeight,
+                                           int outputs, int outputsWeight) {
+        int weight = (TX_BASE_SIZE + VarInt.sizeOf(inputs) + VarInt.sizeOf(outputs))
+                * WITNESS_SCALE_FACTOR + inputsWeight + outputsWeight;
+
+        if (witnessInputs > 0)
+            weight += WITNESS_HEADER_WEIGHT + inputs - witnessInputs;
+
+        return weight;
+    }
+
+    /**
+     * Convierte el peso al tamaño virtual.
+     *
+     * @param weight Peso en unidades.
+     * @return Tamaño virtual en bytes.
+     */
+    public static int getVirtualSize(int weight) {
+        return (weight + WITNESS_SCALE_FACTOR - 1) / WITNESS_SCALE_FACTOR;
+    }
+}
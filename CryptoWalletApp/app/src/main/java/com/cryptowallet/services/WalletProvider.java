@@ -436,6 +436,14 @@ public final class WalletProvider {
             wallet.loadWallet();
     }
 
+    /**
+     * Notifica a las billeteras inicializadas que la aplicación pasó a segundo plano, para que
+     * guarden los cambios pendientes.
+     */
+    public void onLeaveApp() {
+        forEachWallet(AbstractWallet::onLeaveApp);
+    }
+
     /**
      * Obtiene el token de las notificaciones push (FCM).
      *
@@ -20,6 +20,7 @@ package com.cryptowallet.services.coinmarket.pricetrackers;
 
 import com.cryptowallet.services.coinmarket.Book;
 import com.cryptowallet.services.coinmarket.PriceTracker;
+import com.cryptowallet.services.network.NetworkClient;
 import com.cryptowallet.wallet.SupportedAssets;
 
 import org.jetbrains.annotations.NotNull;
@@ -76,6 +77,7 @@ public class BitfinexPriceTracker extends PriceTracker {
         super(book);
         this.mService = new Retrofit.Builder()
                 .baseUrl(API_URL)
+                .client(NetworkClient.get())
                 .addConverterFactory(GsonConverterFactory.create())
                 .build()
                 .create(BitfinexService.class);
@@ -20,6 +20,7 @@ package com.cryptowallet.services.coinmarket.pricetrackers;
 
 import com.cryptowallet.services.coinmarket.Book;
 import com.cryptowallet.services.coinmarket.PriceTracker;
+import com.cryptowallet.services.network.NetworkClient;
 import com.cryptowallet.wallet.SupportedAssets;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
@@ -77,6 +78,7 @@ public class BitsoPriceTracker extends PriceTracker {
         super(book);
         this.mService = new Retrofit.Builder()
                 .baseUrl(API_URL)
+                .client(NetworkClient.get())
                 .addConverterFactory(GsonConverterFactory.create())
                 .build()
                 .create(BitsoService.class);
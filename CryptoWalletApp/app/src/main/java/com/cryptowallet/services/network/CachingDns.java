@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cryptowallet.services.network;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Dns;
+
+/**
+ * Resolutor de nombres que conserva las direcciones resueltas durante un tiempo determinado. Si
+ * la resolución falla y existe una entrada vencida, esta es utilizada para no interrumpir las
+ * peticiones durante fallos temporales del DNS.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+class CachingDns implements Dns {
+
+    /**
+     * Resolutor utilizado cuando la entrada no se encuentra en el caché.
+     */
+    private final Dns mDelegate;
+
+    /**
+     * Tiempo de vida de las entradas en milisegundos.
+     */
+    private final long mTtl;
+
+    /**
+     * Entradas del caché indexadas por el nombre del host.
+     */
+    private final Map<String, Entry> mEntries;
+
+    /**
+     * Crea una nueva instancia del resolutor.
+     *
+     * @param delegate Resolutor utilizado cuando la entrada no se encuentra en el caché.
+     * @param ttl      Tiempo de vida de las entradas en milisegundos.
+     */
+    CachingDns(Dns delegate, long ttl) {
+        mDelegate = delegate;
+        mTtl = ttl;
+        mEntries = new HashMap<>();
+    }
+
+    /**
+     * Obtiene las direcciones del host especificado.
+     *
+     * @param hostname Nombre del host.
+     * @return Lista de direcciones.
+     * @throws UnknownHostException Si el host no puede ser resuelto.
+     */
+    @NonNull
+    @Override
+    public List<InetAddress> lookup(@NonNull String hostname) throws UnknownHostException {
+        final long now = SystemClock.elapsedRealtime();
+        final Entry cached;
+
+        synchronized (mEntries) {
+            cached = mEntries.get(hostname);
+        }
+
+        if (cached != null && cached.mExpiresAt > now)
+            return cached.mAddresses;
+
+        final List<InetAddress> addresses;
+
+        try {
+            addresses = mDelegate.lookup(hostname);
+        } catch (UnknownHostException e) {
+            if (cached != null)
+                return cached.mAddresses;
+
+            throw e;
+        }
+
+        synchronized (mEntries) {
+            mEntries.put(hostname, new Entry(addresses, now + mTtl));
+        }
+
+        return addresses;
+    }
+
+    /**
+     * Entrada del caché.
+     */
+    private static class Entry {
+
+        /**
+         * Direcciones resueltas.
+         */
+        private final List<InetAddress> mAddresses;
+
+        /**
+         * Momento en el que vence la entrada.
+         */
+        private final long mExpiresAt;
+
+        /**
+         * Crea una nueva entrada.
+         *
+         * @param addresses Direcciones resueltas.
+         * @param expiresAt Momento en el que vence la entrada.
+         */
+        Entry(List<InetAddress> addresses, long expiresAt) {
+            mAddresses = addresses;
+            mExpiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cryptowallet.services.network;
+
+/**
+ * Interruptor de circuito de un endpoint. Después de una cantidad de fallos consecutivos el
+ * circuito se abre y las peticiones fallan de inmediato; transcurrido el tiempo de espera se
+ * permite una petición de prueba que cierra el circuito si es exitosa o lo abre nuevamente si
+ * falla.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class CircuitBreaker {
+
+    /**
+     * Estados del circuito.
+     */
+    public enum State {
+
+        /**
+         * Las peticiones son permitidas.
+         */
+        CLOSED,
+
+        /**
+         * Las peticiones fallan de inmediato.
+         */
+        OPEN,
+
+        /**
+         * Se permite una sola petición de prueba.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Reloj utilizado para medir el tiempo de espera.
+     */
+    private final Clock mClock;
+
+    /**
+     * Fallos consecutivos necesarios para abrir el circuito.
+     */
+    private final int mFailureThreshold;
+
+    /**
+     * Tiempo que permanece abierto el circuito en milisegundos.
+     */
+    private final long mOpenMillis;
+
+    /**
+     * Estado actual.
+     */
+    private State mState;
+
+    /**
+     * Fallos consecutivos.
+     */
+    private int mFailures;
+
+    /**
+     * Momento en el que el circuito permite una petición de prueba.
+     */
+    private long mRetryAt;
+
+    /**
+     * Crea un nuevo interruptor cerrado.
+     *
+     * @param clock            Reloj utilizado para medir el tiempo de espera.
+     * @param failureThreshold Fallos consecutivos necesarios para abrir el circuito.
+     * @param openMillis       Tiempo que permanece abierto el circuito en milisegundos.
+     */
+    public CircuitBreaker(Clock clock, int failureThreshold, long openMillis) {
+        if (failureThreshold < 1)
+            throw new IllegalArgumentException("Requires at least one failure");
+
+        mClock = clock;
+        mFailureThreshold = failureThreshold;
+        mOpenMillis = openMillis;
+        mState = State.CLOSED;
+    }
+
+    /**
+     * Determina si una petición puede realizarse. Si el tiempo de espera finalizó, el circuito
+     * pasa a semiabierto y solo la primera petición es permitida.
+     *
+     * @return Un true si la petición puede realizarse.
+     */
+    public synchronized boolean allowRequest() {
+        switch (mState) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (mClock.currentTimeMillis() < mRetryAt)
+                    return false;
+
+                mState = State.HALF_OPEN;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Registra una petición exitosa y cierra el circuito.
+     */
+    public synchronized void onSuccess() {
+        mFailures = 0;
+        mState = State.CLOSED;
+    }
+
+    /**
+     * Registra una petición que finalizó sin una respuesta del servidor que indique su estado,
+     * por ejemplo, al ser cancelada. No altera los fallos consecutivos; si era la petición de
+     * prueba, el circuito permite realizar otra.
+     */
+    public synchronized void onAbort() {
+        if (mState == State.HALF_OPEN)
+            mState = State.OPEN;
+    }
+
+    /**
+     * Registra una petición fallida. El circuito se abre si se alcanza el límite de fallos o si
+     * la petición de prueba falló.
+     */
+    public synchronized void onFailure() {
+        mFailures++;
+
+        if (mState == State.HALF_OPEN || mFailures >= mFailureThreshold)
+            open(mOpenMillis);
+    }
+
+    /**
+     * Abre el circuito durante el tiempo especificado, por ejemplo, cuando el servidor solicita
+     * esperar a través de la cabecera Retry-After.
+     *
+     * @param millis Tiempo en milisegundos.
+     */
+    public synchronized void trip(long millis) {
+        mFailures = Math.max(mFailures, mFailureThreshold);
+        open(Math.max(millis, mOpenMillis));
+    }
+
+    /**
+     * Obtiene el estado actual del circuito.
+     *
+     * @return Estado del circuito.
+     */
+    public synchronized State getState() {
+        if (mState == State.OPEN && mClock.currentTimeMillis() >= mRetryAt)
+            return State.HALF_OPEN;
+
+        return mState;
+    }
+
+    /**
+     * Abre el circuito.
+     *
+     * @param millis Tiempo que permanece abierto.
+     */
+    private void open(long millis) {
+        mState = State.OPEN;
+        mRetryAt = Math.max(mRetryAt, mClock.currentTimeMillis() + millis);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cryptowallet.services.network;
+
+/**
+ * Fuente de tiempo utilizada por las políticas de reintento. Permite sustituir el reloj del
+ * sistema durante las pruebas.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public interface Clock {
+
+    /**
+     * Reloj del sistema.
+     */
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public void sleep(long millis) throws InterruptedException {
+            Thread.sleep(millis);
+        }
+    };
+
+    /**
+     * Obtiene la fecha y hora actual en milisegundos.
+     *
+     * @return Fecha y hora actual.
+     */
+    long currentTimeMillis();
+
+    /**
+     * Suspende el hilo actual durante el tiempo especificado.
+     *
+     * @param millis Tiempo en milisegundos.
+     * @throws InterruptedException Si el hilo es interrumpido.
+     */
+    void sleep(long millis) throws InterruptedException;
+}
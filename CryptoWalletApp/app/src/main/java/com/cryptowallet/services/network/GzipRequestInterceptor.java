@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cryptowallet.services.network;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+import retrofit2.Invocation;
+
+/**
+ * Interceptor que comprime con gzip los cuerpos de las peticiones marcadas con
+ * {@link CompressedBody}. Los cuerpos pequeños se envían sin comprimir, ya que la cabecera de gzip
+ * anularía el beneficio.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public final class GzipRequestInterceptor implements Interceptor {
+
+    /**
+     * Tamaño mínimo del cuerpo para ser comprimido.
+     */
+    private static final long MIN_COMPRESS_LENGTH = 1024;
+
+    /**
+     * Comprime el cuerpo de la petición si el endpoint lo admite.
+     *
+     * @param chain Cadena de la petición.
+     * @return La respuesta de la petición.
+     * @throws IOException Si ocurre un error en la petición.
+     */
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        final Request request = chain.request();
+        final RequestBody body = request.body();
+        final Invocation invocation = request.tag(Invocation.class);
+
+        if (body == null || request.header("Content-Encoding") != null || invocation == null
+                || !invocation.method().isAnnotationPresent(CompressedBody.class)
+                || body.contentLength() < MIN_COMPRESS_LENGTH)
+            return chain.proceed(request);
+
+        return chain.proceed(request.newBuilder()
+                .header("Content-Encoding", "gzip")
+                .method(request.method(), gzip(body))
+                .build());
+    }
+
+    /**
+     * Comprime el cuerpo de la petición. El resultado se almacena en memoria para conocer su
+     * longitud y permitir reintentos.
+     *
+     * @param body Cuerpo de la petición.
+     * @return Cuerpo comprimido.
+     * @throws IOException Si ocurre un error al comprimir.
+     */
+    private static RequestBody gzip(RequestBody body) throws IOException {
+        final Buffer buffer = new Buffer();
+
+        try (BufferedSink sink = Okio.buffer(new GzipSink(buffer))) {
+            body.writeTo(sink);
+        }
+
+        final MediaType contentType = body.contentType();
+
+        return RequestBody.create(buffer.readByteString(), contentType);
+    }
+}
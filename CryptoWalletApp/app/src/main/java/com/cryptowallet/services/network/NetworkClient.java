@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cryptowallet.services.network;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dns;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Pila de red compartida por todos los clientes de la aplicación. Todos los clientes de Retrofit
+ * deben utilizar {@link #get()} o un cliente derivado con {@link OkHttpClient#newBuilder()}, de
+ * esta forma comparten el grupo de conexiones, las sesiones TLS y el caché de DNS.
+ * <p>
+ * Las respuestas se solicitan comprimidas con gzip y son descomprimidas de forma transparente por
+ * OkHttp. Los cuerpos de las peticiones marcadas con {@link CompressedBody} son comprimidos por
+ * {@link GzipRequestInterceptor}.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public final class NetworkClient {
+
+    /**
+     * Conexiones inactivas máximas en el grupo.
+     */
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+
+    /**
+     * Tiempo que permanece viva una conexión inactiva.
+     */
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    /**
+     * Tiempo máximo para establecer una conexión.
+     */
+    private static final long CONNECT_TIMEOUT_SECONDS = 10;
+
+    /**
+     * Tiempo máximo de inactividad al leer una respuesta.
+     */
+    private static final long READ_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Tiempo máximo de inactividad al enviar una petición.
+     */
+    private static final long WRITE_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Tiempo máximo de una llamada completa, incluyendo redirecciones.
+     */
+    private static final long CALL_TIMEOUT_SECONDS = 120;
+
+    /**
+     * Tiempo de vida de las entradas del caché de DNS.
+     */
+    private static final long DNS_TTL_SECONDS = 300;
+
+    /**
+     * Instancia del singletón.
+     */
+    private static OkHttpClient mInstance;
+
+    /**
+     * No es posible crear instancias.
+     */
+    private NetworkClient() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Obtiene el cliente compartido.
+     *
+     * @return Cliente HTTP.
+     */
+    public static synchronized OkHttpClient get() {
+        if (mInstance == null)
+            mInstance = new OkHttpClient.Builder()
+                    .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES,
+                            TimeUnit.MINUTES))
+                    .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                    .dns(new CachingDns(Dns.SYSTEM, TimeUnit.SECONDS.toMillis(DNS_TTL_SECONDS)))
+                    .connectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .writeTimeout(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .callTimeout(CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .retryOnConnectionFailure(true)
+                    .addInterceptor(new GzipRequestInterceptor())
+                    .build();
+
+        return mInstance;
+    }
+}
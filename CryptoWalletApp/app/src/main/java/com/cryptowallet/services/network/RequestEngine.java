@@ -0,0 +1,278 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.services.network;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Motor de peticiones que mantiene un número limitado de llamadas en curso. Las peticiones son
+ * atendidas en el orden en el que fueron encoladas; si el endpoint de una petición alcanzó su
+ * límite de concurrencia, esta es omitida temporalmente y se continúa con la siguiente, sin perder
+ * su posición en la cola.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class RequestEngine {
+
+    /**
+     * Tiempo que permanece vivo un hilo inactivo.
+     */
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    /**
+     * Cola de peticiones en espera.
+     */
+    private final ArrayDeque<Request<?>> mQueue;
+
+    /**
+     * Peticiones en curso por endpoint.
+     */
+    private final Map<String, Integer> mRunningByEndpoint;
+
+    /**
+     * Límites de concurrencia por endpoint.
+     */
+    private final Map<String, Integer> mEndpointLimits;
+
+    /**
+     * Ejecutor de las peticiones.
+     */
+    private final ExecutorService mExecutor;
+
+    /**
+     * Nombre de los hilos del motor.
+     */
+    private final String mName;
+
+    /**
+     * Peticiones máximas en curso.
+     */
+    private int mMaxRequests;
+
+    /**
+     * Peticiones en curso.
+     */
+    private int mRunning;
+
+    /**
+     * Crea una nueva instancia del motor de peticiones.
+     *
+     * @param name        Nombre utilizado para los hilos del motor.
+     * @param maxRequests Peticiones máximas en curso.
+     */
+    public RequestEngine(String name, int maxRequests) {
+        if (maxRequests < 1)
+            throw new IllegalArgumentException("Requires at least one request in flight");
+
+        mName = name;
+        mMaxRequests = maxRequests;
+        mQueue = new ArrayDeque<>();
+        mRunningByEndpoint = new HashMap<>();
+        mEndpointLimits = new HashMap<>();
+        mExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> new Thread(runnable, mName));
+    }
+
+    /**
+     * Establece la cantidad de peticiones máximas en curso.
+     *
+     * @param maxRequests Peticiones máximas.
+     */
+    public void setMaxRequests(int maxRequests) {
+        if (maxRequests < 1)
+            throw new IllegalArgumentException("Requires at least one request in flight");
+
+        synchronized (this) {
+            mMaxRequests = maxRequests;
+        }
+
+        promote();
+    }
+
+    /**
+     * Obtiene la cantidad de peticiones máximas en curso.
+     *
+     * @return Peticiones máximas.
+     */
+    public synchronized int getMaxRequests() {
+        return mMaxRequests;
+    }
+
+    /**
+     * Establece la cantidad de peticiones máximas en curso para un endpoint. Los endpoints sin
+     * límite configurado solo son limitados por {@link #getMaxRequests()}.
+     *
+     * @param endpoint    Nombre del endpoint.
+     * @param maxRequests Peticiones máximas para el endpoint.
+     */
+    public void setMaxRequestsPerEndpoint(String endpoint, int maxRequests) {
+        if (maxRequests < 1)
+            throw new IllegalArgumentException("Requires at least one request in flight");
+
+        synchronized (this) {
+            mEndpointLimits.put(endpoint, maxRequests);
+        }
+
+        promote();
+    }
+
+    /**
+     * Obtiene la cantidad de peticiones en espera de ser atendidas.
+     *
+     * @return Peticiones en espera.
+     */
+    public synchronized int getQueuedCount() {
+        return mQueue.size();
+    }
+
+    /**
+     * Obtiene la cantidad de peticiones en curso.
+     *
+     * @return Peticiones en curso.
+     */
+    public synchronized int getRunningCount() {
+        return mRunning;
+    }
+
+    /**
+     * Encola una petición para el endpoint especificado.
+     *
+     * @param endpoint Nombre del endpoint al cual pertenece la petición.
+     * @param request  Petición a realizar.
+     * @param <T>      Tipo del resultado de la petición.
+     * @return Una tarea encargada de gestionar la petición.
+     */
+    public <T> ListenableFuture<T> submit(String endpoint, Callable<T> request) {
+        final ListenableFutureTask<T> task = ListenableFutureTask.create(request);
+
+        synchronized (this) {
+            mQueue.add(new Request<>(endpoint, task));
+        }
+
+        promote();
+
+        return task;
+    }
+
+    /**
+     * Inicia las peticiones en espera mientras no se excedan los límites de concurrencia.
+     */
+    private void promote() {
+        ArrayDeque<Request<?>> ready = new ArrayDeque<>();
+
+        synchronized (this) {
+            Iterator<Request<?>> iterator = mQueue.iterator();
+
+            while (iterator.hasNext() && mRunning < mMaxRequests) {
+                Request<?> request = iterator.next();
+
+                if (request.mTask.isCancelled()) {
+                    iterator.remove();
+                    continue;
+                }
+
+                int running = getRunning(request.mEndpoint);
+                Integer limit = mEndpointLimits.get(request.mEndpoint);
+
+                if (limit != null && running >= limit)
+                    continue;
+
+                iterator.remove();
+                mRunningByEndpoint.put(request.mEndpoint, running + 1);
+                mRunning++;
+                ready.add(request);
+            }
+        }
+
+        for (Request<?> request : ready)
+            mExecutor.execute(() -> execute(request));
+    }
+
+    /**
+     * Ejecuta la petición y libera su lugar al finalizar.
+     *
+     * @param request Petición a ejecutar.
+     */
+    private void execute(Request<?> request) {
+        try {
+            request.mTask.run();
+        } finally {
+            synchronized (this) {
+                mRunning--;
+                mRunningByEndpoint.put(request.mEndpoint, getRunning(request.mEndpoint) - 1);
+            }
+
+            promote();
+        }
+    }
+
+    /**
+     * Obtiene las peticiones en curso del endpoint.
+     *
+     * @param endpoint Nombre del endpoint.
+     * @return Peticiones en curso.
+     */
+    private int getRunning(String endpoint) {
+        Integer running = mRunningByEndpoint.get(endpoint);
+
+        return running == null ? 0 : running;
+    }
+
+    /**
+     * Petición encolada en el motor.
+     *
+     * @param <T> Tipo del resultado de la petición.
+     */
+    private static class Request<T> {
+
+        /**
+         * Endpoint de la petición.
+         */
+        private final String mEndpoint;
+
+        /**
+         * Tarea de la petición.
+         */
+        private final ListenableFutureTask<T> mTask;
+
+        /**
+         * Crea una nueva petición.
+         *
+         * @param endpoint Endpoint de la petición.
+         * @param task     Tarea de la petición.
+         */
+        Request(String endpoint, ListenableFutureTask<T> task) {
+            mEndpoint = endpoint;
+            mTask = task;
+        }
+    }
+}
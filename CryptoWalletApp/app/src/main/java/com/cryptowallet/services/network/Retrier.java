@@ -0,0 +1,170 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cryptowallet.services.network;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+
+import retrofit2.HttpException;
+
+/**
+ * Ejecuta peticiones aplicando una {@link RetryPolicy} y un {@link CircuitBreaker} por endpoint.
+ * Mientras el circuito de un endpoint se encuentra abierto, las peticiones fallan de inmediato con
+ * {@link CircuitOpenException}.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class Retrier {
+
+    /**
+     * Fallos consecutivos por defecto para abrir el circuito.
+     */
+    private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    /**
+     * Tiempo por defecto que permanece abierto el circuito en milisegundos.
+     */
+    private static final long DEFAULT_OPEN_MILLIS = 30000;
+
+    /**
+     * Política de reintentos.
+     */
+    private final RetryPolicy mPolicy;
+
+    /**
+     * Reloj utilizado para las esperas.
+     */
+    private final Clock mClock;
+
+    /**
+     * Interruptores de circuito por endpoint.
+     */
+    private final Map<String, CircuitBreaker> mBreakers;
+
+    /**
+     * Fallos consecutivos para abrir el circuito.
+     */
+    private final int mFailureThreshold;
+
+    /**
+     * Tiempo que permanece abierto el circuito en milisegundos.
+     */
+    private final long mOpenMillis;
+
+    /**
+     * Crea una nueva instancia con los valores por defecto del circuito.
+     *
+     * @param policy Política de reintentos.
+     * @param clock  Reloj utilizado para las esperas.
+     */
+    public Retrier(RetryPolicy policy, Clock clock) {
+        this(policy, clock, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MILLIS);
+    }
+
+    /**
+     * Crea una nueva instancia.
+     *
+     * @param policy           Política de reintentos.
+     * @param clock            Reloj utilizado para las esperas.
+     * @param failureThreshold Fallos consecutivos para abrir el circuito.
+     * @param openMillis       Tiempo que permanece abierto el circuito en milisegundos.
+     */
+    public Retrier(RetryPolicy policy, Clock clock, int failureThreshold, long openMillis) {
+        mPolicy = policy;
+        mClock = clock;
+        mFailureThreshold = failureThreshold;
+        mOpenMillis = openMillis;
+        mBreakers = new HashMap<>();
+    }
+
+    /**
+     * Obtiene el interruptor de circuito del endpoint.
+     *
+     * @param endpoint Nombre del endpoint.
+     * @return Interruptor de circuito.
+     */
+    public synchronized CircuitBreaker getCircuitBreaker(String endpoint) {
+        CircuitBreaker breaker = mBreakers.get(endpoint);
+
+        if (breaker == null) {
+            breaker = new CircuitBreaker(mClock, mFailureThreshold, mOpenMillis);
+            mBreakers.put(endpoint, breaker);
+        }
+
+        return breaker;
+    }
+
+    /**
+     * Ejecuta la petición reintentándola mientras el error sea reintentable y no se agoten los
+     * intentos. Solo las respuestas del servidor cuentan como éxito para el circuito; las
+     * cancelaciones y los errores locales no lo modifican.
+     *
+     * @param endpoint Nombre del endpoint.
+     * @param request  Petición a realizar.
+     * @param <T>      Tipo del resultado de la petición.
+     * @return El resultado de la petición.
+     * @throws Exception El error del último intento, {@link CircuitOpenException} si el circuito
+     *                   se encuentra abierto o {@link InterruptedException} si el hilo fue
+     *                   interrumpido durante la espera.
+     */
+    public <T> T call(String endpoint, Callable<T> request) throws Exception {
+        final CircuitBreaker breaker = getCircuitBreaker(endpoint);
+
+        for (int attempt = 1; ; attempt++) {
+            if (!breaker.allowRequest())
+                throw new CircuitOpenException(endpoint);
+
+            try {
+                final T result = request.call();
+                breaker.onSuccess();
+
+                return result;
+            } catch (CancellationException | InterruptedException e) {
+                breaker.onAbort();
+                throw e;
+            } catch (Exception e) {
+                if (!mPolicy.isRetryable(e)) {
+                    if (e instanceof HttpException)
+                        breaker.onSuccess();
+                    else
+                        breaker.onAbort();
+
+                    throw e;
+                }
+
+                final long now = mClock.currentTimeMillis();
+                final long retryAfter = mPolicy.getRetryAfter(e, now);
+
+                if (retryAfter > mPolicy.getMaxRetryAfter()) {
+                    breaker.trip(retryAfter);
+                    throw e;
+                }
+
+                breaker.onFailure();
+
+                if (attempt >= mPolicy.getMaxAttempts())
+                    throw e;
+
+                mClock.sleep(mPolicy.getDelay(attempt, e, now));
+            }
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cryptowallet.services.network;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Random;
+
+import okhttp3.Headers;
+import retrofit2.HttpException;
+
+/**
+ * Política de reintentos de las peticiones. Clasifica los errores en reintentables y no
+ * reintentables, y calcula el tiempo de espera entre intentos con retroceso exponencial y
+ * variación aleatoria, respetando la cabecera Retry-After enviada por el servidor.
+ * <p>
+ * Son reintentables los errores de transporte ({@link IOException}) y las respuestas 408, 423,
+ * 425, 429 y 5xx, excepto 501 y 505. El resto de las respuestas de error y los errores al
+ * decodificar una respuesta no son reintentables.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ * @see Retrier
+ */
+public class RetryPolicy {
+
+    /**
+     * Intentos máximos por defecto.
+     */
+    private static final int DEFAULT_MAX_ATTEMPTS = 4;
+
+    /**
+     * Espera base por defecto en milisegundos.
+     */
+    private static final long DEFAULT_BASE_DELAY = 500;
+
+    /**
+     * Espera máxima por defecto entre intentos en milisegundos.
+     */
+    private static final long DEFAULT_MAX_DELAY = 8000;
+
+    /**
+     * Espera máxima por defecto solicitada por Retry-After que se realiza dentro de la misma
+     * llamada.
+     */
+    private static final long DEFAULT_MAX_RETRY_AFTER = 30000;
+
+    /**
+     * Intentos máximos.
+     */
+    private int mMaxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+    /**
+     * Espera base en milisegundos.
+     */
+    private long mBaseDelay = DEFAULT_BASE_DELAY;
+
+    /**
+     * Espera máxima entre intentos en milisegundos.
+     */
+    private long mMaxDelay = DEFAULT_MAX_DELAY;
+
+    /**
+     * Espera máxima solicitada por Retry-After que se realiza dentro de la misma llamada.
+     */
+    private long mMaxRetryAfter = DEFAULT_MAX_RETRY_AFTER;
+
+    /**
+     * Generador de la variación aleatoria.
+     */
+    private Random mRandom = new Random();
+
+    /**
+     * Crea una política con los valores por defecto.
+     */
+    private RetryPolicy() {
+    }
+
+    /**
+     * Obtiene los intentos máximos de una llamada.
+     *
+     * @return Intentos máximos.
+     */
+    public int getMaxAttempts() {
+        return mMaxAttempts;
+    }
+
+    /**
+     * Obtiene la espera máxima solicitada por Retry-After que se realiza dentro de la misma
+     * llamada.
+     *
+     * @return Espera máxima en milisegundos.
+     */
+    public long getMaxRetryAfter() {
+        return mMaxRetryAfter;
+    }
+
+    /**
+     * Determina si el error puede ser reintentado.
+     *
+     * @param error Error de la petición.
+     * @return Un true si la petición puede reintentarse.
+     */
+    public boolean isRetryable(Throwable error) {
+        if (error instanceof HttpException)
+            return isRetryable(((HttpException) error).code());
+
+        if (error instanceof MalformedJsonException)
+            return false;
+
+        return error instanceof IOException && !(error.getCause() instanceof JsonParseException);
+    }
+
+    /**
+     * Determina si el código de respuesta HTTP puede ser reintentado.
+     *
+     * @param code Código de respuesta.
+     * @return Un true si la petición puede reintentarse.
+     */
+    public boolean isRetryable(int code) {
+        switch (code) {
+            case 408:
+            case 423:
+            case 425:
+            case 429:
+                return true;
+            case 501:
+            case 505:
+                return false;
+            default:
+                return code >= 500 && code < 600;
+        }
+    }
+
+    /**
+     * Obtiene el tiempo de espera solicitado por el servidor a través de la cabecera Retry-After.
+     *
+     * @param error Error de la petición.
+     * @param now   Fecha y hora actual en milisegundos.
+     * @return Tiempo de espera en milisegundos o -1 si el servidor no lo especificó.
+     */
+    public long getRetryAfter(Throwable error, long now) {
+        if (!(error instanceof HttpException))
+            return -1;
+
+        final retrofit2.Response<?> response = ((HttpException) error).response();
+
+        if (response == null)
+            return -1;
+
+        final Headers headers = response.headers();
+        final String value = headers.get("Retry-After");
+
+        if (value == null)
+            return -1;
+
+        try {
+            return Math.max(0, Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException ignored) {
+            final Date date = headers.getDate("Retry-After");
+
+            return date == null ? -1 : Math.max(0, date.getTime() - now);
+        }
+    }
+
+    /**
+     * Obtiene el tiempo de espera antes del siguiente intento. Se utiliza el retroceso
+     * exponencial con la mitad del intervalo variando aleatoriamente, o el tiempo indicado por
+     * Retry-After si es mayor.
+     *
+     * @param attempt Número del intento fallido, iniciando en 1.
+     * @param error   Error del intento.
+     * @param now     Fecha y hora actual en milisegundos.
+     * @return Tiempo de espera en milisegundos.
+     */
+    public long getDelay(int attempt, Throwable error, long now) {
+        final long exponential = Math.min(mMaxDelay,
+                mBaseDelay << Math.min(attempt - 1, 30));
+        final long half = exponential / 2;
+        final long backoff = half + (long) (mRandom.nextDouble() * (exponential - half));
+
+        return Math.max(backoff, getRetryAfter(error, now));
+    }
+
+    /**
+     * Constructor de la política de reintentos.
+     *
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * Instancia local del constructor.
+         */
+        private final RetryPolicy mInstance;
+
+        /**
+         * Crea una nueva instancia del constructor.
+         */
+        public Builder() {
+            mInstance = new RetryPolicy();
+        }
+
+        /**
+         * Establece los intentos máximos de una llamada.
+         *
+         * @param maxAttempts Intentos máximos.
+         * @return La instancia del constructor.
+         */
+        public Builder setMaxAttempts(int maxAttempts) {
+            if (maxAttempts < 1)
+                throw new IllegalArgumentException("Requires at least one attempt");
+
+            mInstance.mMaxAttempts = maxAttempts;
+
+            return this;
+        }
+
+        /**
+         * Establece la espera base y la espera máxima entre intentos.
+         *
+         * @param baseDelay Espera base en milisegundos.
+         * @param maxDelay  Espera máxima en milisegundos.
+         * @return La instancia del constructor.
+         */
+        public Builder setDelay(long baseDelay, long maxDelay) {
+            if (baseDelay < 0 || maxDelay < baseDelay)
+                throw new IllegalArgumentException("Invalid delay");
+
+            mInstance.mBaseDelay = baseDelay;
+            mInstance.mMaxDelay = maxDelay;
+
+            return this;
+        }
+
+        /**
+         * Establece la espera máxima solicitada por Retry-After que se realiza dentro de la misma
+         * llamada. Esperas mayores abren el circuito del endpoint durante el tiempo solicitado.
+         *
+         * @param maxRetryAfter Espera máxima en milisegundos.
+         * @return La instancia del constructor.
+         */
+        public Builder setMaxRetryAfter(long maxRetryAfter) {
+            mInstance.mMaxRetryAfter = maxRetryAfter;
+
+            return this;
+        }
+
+        /**
+         * Establece el generador de la variación aleatoria.
+         *
+         * @param random Generador de números aleatorios.
+         * @return La instancia del constructor.
+         */
+        public Builder setRandom(Random random) {
+            mInstance.mRandom = random;
+
+            return this;
+        }
+
+        /**
+         * Obtiene la política configurada.
+         *
+         * @return Una política de reintentos.
+         */
+        public RetryPolicy build() {
+            return mInstance;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.services.network;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Caché de un solo valor que agrupa las consultas concurrentes. Mientras una consulta se encuentra
+ * en curso, los demás solicitantes reciben la misma tarea; una vez completada, el valor se sirve
+ * desde memoria durante el tiempo de vida configurado. Los valores nulos no son almacenados.
+ *
+ * @param <T> Tipo del valor almacenado.
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class SingleFlightCache<T> {
+
+    /**
+     * Reloj utilizado para el tiempo de vida.
+     */
+    private final Clock mClock;
+
+    /**
+     * Tiempo de vida del valor en milisegundos.
+     */
+    private long mTtl;
+
+    /**
+     * Valor almacenado.
+     */
+    private T mValue;
+
+    /**
+     * Momento en el que vence el valor almacenado.
+     */
+    private long mExpiresAt;
+
+    /**
+     * Consulta en curso.
+     */
+    private ListenableFuture<T> mInFlight;
+
+    /**
+     * Generación del caché, incrementada en cada invalidación.
+     */
+    private long mGeneration;
+
+    /**
+     * Crea un nuevo caché.
+     *
+     * @param clock Reloj utilizado para el tiempo de vida.
+     * @param ttl   Tiempo de vida del valor en milisegundos.
+     */
+    public SingleFlightCache(Clock clock, long ttl) {
+        mClock = clock;
+        mTtl = ttl;
+    }
+
+    /**
+     * Establece el tiempo de vida del valor. Un valor de cero deshabilita el almacenamiento, pero
+     * las consultas concurrentes continúan agrupándose.
+     *
+     * @param ttl Tiempo de vida en milisegundos.
+     */
+    public synchronized void setTtl(long ttl) {
+        if (ttl < 0)
+            throw new IllegalArgumentException("TTL can't be negative");
+
+        mTtl = ttl;
+    }
+
+    /**
+     * Obtiene el valor almacenado o inicia la consulta si no existe una en curso.
+     *
+     * @param loader Función que inicia la consulta.
+     * @return Una tarea que devuelve el valor.
+     * @throws Exception Si la consulta no puede iniciarse.
+     */
+    public ListenableFuture<T> get(Callable<ListenableFuture<T>> loader) throws Exception {
+        final ListenableFuture<T> request;
+        final long generation;
+
+        synchronized (this) {
+            if (mValue != null && mClock.currentTimeMillis() < mExpiresAt)
+                return Futures.immediateFuture(mValue);
+
+            if (mInFlight != null)
+                return Futures.nonCancellationPropagating(mInFlight);
+
+            request = loader.call();
+            generation = mGeneration;
+            mInFlight = request;
+        }
+
+        Futures.addCallback(request, new FutureCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                complete(generation, request, result);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                complete(generation, request, null);
+            }
+        }, MoreExecutors.directExecutor());
+
+        return Futures.nonCancellationPropagating(request);
+    }
+
+    /**
+     * Descarta el valor almacenado y la consulta en curso. Las siguientes solicitudes inician una
+     * nueva consulta.
+     */
+    public synchronized void invalidate() {
+        mGeneration++;
+        mValue = null;
+        mInFlight = null;
+    }
+
+    /**
+     * Almacena el resultado de la consulta si el caché no fue invalidado mientras se realizaba.
+     *
+     * @param generation Generación en la que inició la consulta.
+     * @param request    Consulta completada.
+     * @param result     Resultado de la consulta.
+     */
+    private synchronized void complete(long generation, ListenableFuture<T> request, T result) {
+        if (mInFlight == request)
+            mInFlight = null;
+
+        if (generation != mGeneration || result == null)
+            return;
+
+        mValue = result;
+        mExpiresAt = mClock.currentTimeMillis() + mTtl;
+    }
+}
@@ -33,6 +33,7 @@ import com.cryptowallet.utils.Consumer;
 import com.cryptowallet.utils.ExecutableCommand;
 import com.cryptowallet.utils.ExecutableConsumer;
 import com.cryptowallet.utils.Utils;
+import com.cryptowallet.wallet.exceptions.InsufficientBalanceException;
 import com.cryptowallet.wallet.exceptions.InvalidAmountException;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 
@@ -98,6 +99,11 @@ public abstract class AbstractWallet {
      */
     private CopyOnWriteArraySet<ExecutableConsumer<ITransaction>> mNewTransactionListeners;
 
+    /**
+     * Conjunto de escuchas para cuando una transacción alcanza un umbral de confirmaciones.
+     */
+    private CopyOnWriteArraySet<ExecutableConsumer<ITransaction>> mConfirmationListeners;
+
     /**
      * Conjunto de escuchas para cuando se finaliza la sincronización.
      */
@@ -123,6 +129,7 @@ public abstract class AbstractWallet {
         mPriceTrackers = new HashMap<>();
         mFullSyncListener = new CopyOnWriteArraySet<>();
         mNewTransactionListeners = new CopyOnWriteArraySet<>();
+        mConfirmationListeners = new CopyOnWriteArraySet<>();
         mBalanceChangedListeners = new CopyOnWriteArraySet<>();
         mPreference = mContext.getSharedPreferences(
                 String.format("%s.PREFERENCE", this.getClass().getName()), Context.MODE_PRIVATE);
@@ -180,6 +187,16 @@ public abstract class AbstractWallet {
             executable.execute(tx);
     }
 
+    /**
+     * Notifica a los escuchas que una transacción alcanzó un umbral de confirmaciones.
+     *
+     * @param tx Transacción confirmada.
+     */
+    protected void notifyConfirmation(ITransaction tx) {
+        for (ExecutableConsumer<ITransaction> executable : mConfirmationListeners)
+            executable.execute(tx);
+    }
+
     /**
      * Notifica a los escuchas que la billetera a finalizado la descarga de los datos desde el
      * servidor.
@@ -326,6 +343,33 @@ public abstract class AbstractWallet {
                 mNewTransactionListeners.remove(executable);
     }
 
+    /**
+     * Agrega un escucha del evento de confirmación. Este evento es lanzado cuando una transacción
+     * de la billetera alcanza alguno de los umbrales de confirmaciones configurados, no en cada
+     * bloque nuevo.
+     *
+     * @param executor Ejecutor del escucha del evento.
+     * @param listener Función a llamar cuando el evento sea generado.
+     */
+    public void addConfirmationListener(Executor executor, Consumer<ITransaction> listener) {
+        for (ExecutableConsumer<ITransaction> executable : mConfirmationListeners)
+            if (executable.getConsumer().equals(listener))
+                return;
+
+        mConfirmationListeners.add(new ExecutableConsumer<>(executor, listener));
+    }
+
+    /**
+     * Remueve el escucha del evento de confirmación.
+     *
+     * @param listener Función a llamar cuando el evento sea generado.
+     */
+    public void removeConfirmationListener(Consumer<ITransaction> listener) {
+        for (ExecutableConsumer<ITransaction> executable : mConfirmationListeners)
+            if (executable.getConsumer().equals(listener))
+                mConfirmationListeners.remove(executable);
+    }
+
 
     /**
      * Obtiene el seguidor del precio según el activo utilizado para visualizarlo.
@@ -416,6 +460,33 @@ public abstract class AbstractWallet {
      */
     public abstract ITransaction createTx(String address, long amount, long feeByKB);
 
+    /**
+     * Crea una transacción nueva que paga a varios destinatarios. Las entradas se seleccionan una
+     * sola vez para todos los pagos, de esta forma se paga una sola comisión de transacción en
+     * lugar de una por destinatario.
+     *
+     * @param recipients Destinatarios del pago.
+     * @param feeByKB    Comisión por KB.
+     * @return Una transacción nueva.
+     * @throws InvalidAmountException       Si la cantidad de algún destinatario o la suma de las
+     *                                      cantidades no es válida.
+     * @throws InsufficientBalanceException Si el saldo no cubre los pagos y la comisión.
+     */
+    public abstract ITransaction createBatchTx(List<Recipient> recipients, long feeByKB);
+
+    /**
+     * Cotiza la comisión de un pago sin construir la transacción. La cotización debe coincidir con
+     * la comisión de la transacción creada por {@link #createTx(String, long, long)} con los mismos
+     * parámetros y puede invocarse con frecuencia, por ejemplo, mientras se captura la cantidad.
+     *
+     * @param address Dirección del pago.
+     * @param amount  Cantidad a enviar.
+     * @param feeByKB Comisión por KB.
+     * @return La cotización del pago.
+     * @throws InsufficientBalanceException Si el saldo no cubre la cantidad y la comisión.
+     */
+    public abstract FeeQuote quoteFee(String address, long amount, long feeByKB);
+
     /**
      * Obtiene las comisiones de la red para realizar los envío de transacciones. Este método realiza
      * la petición al servidor y calcula las comisiones actuales de la red, para mejor rendimiento
@@ -520,6 +591,13 @@ public abstract class AbstractWallet {
      */
     public abstract void requestNewBlock(int height, String hash, long timeInSeconds, String[] txs);
 
+    /**
+     * Este método es invocado cuando la aplicación pasa a segundo plano. Las billeteras que
+     * posponen el guardado deberán persistir los cambios pendientes.
+     */
+    public void onLeaveApp() {
+    }
+
     /**
      * Obtiene el identificador del recurso utilizado para mostrar el logo del cripto-activo.
      *
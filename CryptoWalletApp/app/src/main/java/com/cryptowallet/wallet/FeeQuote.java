@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.wallet;
+
+/**
+ * Cotización de la comisión de un pago, calculada sin construir la transacción.
+ * <ul>
+ *     <li><b>Fee</b> - Comisión total del pago.</li>
+ *     <li><b>Total</b> - Cantidad enviada más la comisión.</li>
+ *     <li><b>Inputs</b> - Cantidad de entradas seleccionadas.</li>
+ * </ul>
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ * @see AbstractWallet#quoteFee(String, long, long)
+ */
+public final class FeeQuote {
+
+    /**
+     * Comisión total del pago.
+     */
+    private final long mFee;
+
+    /**
+     * Cantidad enviada más la comisión.
+     */
+    private final long mTotal;
+
+    /**
+     * Cantidad de entradas seleccionadas.
+     */
+    private final int mInputs;
+
+    /**
+     * Crea una nueva cotización.
+     *
+     * @param fee    Comisión total del pago.
+     * @param total  Cantidad enviada más la comisión.
+     * @param inputs Cantidad de entradas seleccionadas.
+     */
+    public FeeQuote(long fee, long total, int inputs) {
+        mFee = fee;
+        mTotal = total;
+        mInputs = inputs;
+    }
+
+    /**
+     * Obtiene la comisión total del pago.
+     *
+     * @return Comisión en la unidad mínima del activo.
+     */
+    public long getFee() {
+        return mFee;
+    }
+
+    /**
+     * Obtiene la cantidad enviada más la comisión.
+     *
+     * @return Total en la unidad mínima del activo.
+     */
+    public long getTotal() {
+        return mTotal;
+    }
+
+    /**
+     * Obtiene la cantidad de entradas seleccionadas para cubrir el pago.
+     *
+     * @return Cantidad de entradas.
+     */
+    public int getInputs() {
+        return mInputs;
+    }
+}
@@ -22,7 +22,8 @@ import com.cryptowallet.services.WalletProvider;
 
 /**
  * Representa una estructura para proveer las comisiones según la velocidad de envío que se require
- * para que la transacción sera aceptada.
+ * para que la transacción sera aceptada. Cada comisión corresponde a un objetivo de confirmación
+ * expresado en bloques.
  *
  * @author Ing. Javier Flores (jjflores@innsytech.com)
  * @version 1.0
@@ -45,4 +46,18 @@ public interface IFees {
      * @return Comisión de transacción.
      */
     long getFaster();
+
+    /**
+     * Obtiene el objetivo de confirmación de la comisión promedio.
+     *
+     * @return Cantidad de bloques.
+     */
+    int getAverageTarget();
+
+    /**
+     * Obtiene el objetivo de confirmación de la comisión rápida.
+     *
+     * @return Cantidad de bloques.
+     */
+    int getFasterTarget();
 }
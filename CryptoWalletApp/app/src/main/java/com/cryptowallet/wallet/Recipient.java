@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.wallet;
+
+/**
+ * Destinatario de un pago en lote.
+ * <ul>
+ *     <li><b>Address</b> - Dirección del destinatario.</li>
+ *     <li><b>Amount</b> - Cantidad a enviar en la unidad mínima del activo.</li>
+ * </ul>
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ * @see AbstractWallet#createBatchTx(java.util.List, long)
+ */
+public final class Recipient {
+
+    /**
+     * Dirección del destinatario.
+     */
+    private final String mAddress;
+
+    /**
+     * Cantidad a enviar.
+     */
+    private final long mAmount;
+
+    /**
+     * Crea un nuevo destinatario.
+     *
+     * @param address Dirección del destinatario.
+     * @param amount  Cantidad a enviar.
+     */
+    public Recipient(String address, long amount) {
+        mAddress = address;
+        mAmount = amount;
+    }
+
+    /**
+     * Obtiene la dirección del destinatario.
+     *
+     * @return Dirección del destinatario.
+     */
+    public String getAddress() {
+        return mAddress;
+    }
+
+    /**
+     * Obtiene la cantidad a enviar.
+     *
+     * @return Cantidad en la unidad mínima del activo.
+     */
+    public long getAmount() {
+        return mAmount;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services;
+
+import com.cryptowallet.services.network.FakeClock;
+import com.cryptowallet.wallet.IFees;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pruebas de la estimación de comisiones.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class FeeEstimatorTest {
+
+    /**
+     * Directorio temporal.
+     */
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    /**
+     * Archivo de la última estimación.
+     */
+    private File mFile;
+
+    /**
+     * Configuración inicial.
+     */
+    @Before
+    public void setUp() {
+        mFile = new File(mFolder.getRoot(), "wallet.fees");
+    }
+
+    /**
+     * Prueba que las tasas se suavicen dando mayor peso a los bloques recientes y que los
+     * objetivos sin tasa utilicen el objetivo menor más cercano.
+     */
+    @Test
+    public void smoothsRecentBlocks() {
+        final FeeRates rates = createRates(
+                buckets(1, 30 * 1024, 6, 10 * 1024),
+                buckets(1, 60 * 1024, 6, 10 * 1024));
+
+        assertEquals(40 * 1024, rates.getRate(1));
+        assertEquals(40 * 1024, rates.getRate(3));
+        assertEquals(10 * 1024, rates.getRate(6));
+        assertEquals(10 * 1024, rates.getRate(144));
+        assertEquals(0, createRates().getRate(1));
+    }
+
+    /**
+     * Prueba que la estimación utilice los objetivos configurados.
+     */
+    @Test
+    public void usesConfiguredTargets() {
+        final FeeEstimator estimator = new FeeEstimator(() -> Futures.immediateFuture(
+                createRates(buckets(1, 50 * 1024, 3, 20 * 1024, 12, 2 * 1024))), mFile);
+
+        IFees fees = estimator.getFees();
+
+        assertEquals(50 * 1024, fees.getFaster());
+        assertEquals(20 * 1024, fees.getAverage());
+        assertEquals(FeeEstimator.DEFAULT_FASTER_TARGET, fees.getFasterTarget());
+
+        estimator.setTargets(3, 12);
+        fees = estimator.getLastKnown();
+
+        assertEquals(20 * 1024, fees.getFaster());
+        assertEquals(2 * 1024, fees.getAverage());
+        assertEquals(12, fees.getAverageTarget());
+    }
+
+    /**
+     * Prueba que sin conexión se utilice la última estimación conocida, incluso en una nueva
+     * instancia, y que sin estimaciones previas se utilicen las predeterminadas.
+     */
+    @Test
+    public void fallsBackToLastKnown() {
+        final IOException offline = new IOException("offline");
+        final FeeEstimator first = new FeeEstimator(
+                () -> Futures.immediateFailedFuture(offline), mFile);
+
+        assertEquals(FeeEstimator.DEFAULT_FASTER_FEE, first.getFees().getFaster());
+        assertEquals(FeeEstimator.DEFAULT_AVERAGE_FEE, first.getFees().getAverage());
+
+        final FeeEstimator online = new FeeEstimator(() -> Futures.immediateFuture(
+                createRates(buckets(1, 8 * 1024, 6, 3 * 1024))), mFile);
+
+        assertEquals(8 * 1024, online.getFees().getFaster());
+
+        final FeeEstimator second = new FeeEstimator(
+                () -> Futures.immediateFailedFuture(offline), mFile);
+
+        assertEquals(8 * 1024, second.getFees().getFaster());
+        assertEquals(3 * 1024, second.getFees().getAverage());
+    }
+
+    /**
+     * Prueba que la consulta no espere a la fuente y que la comisión rápida nunca sea menor a la
+     * promedio ni a la mínima de la red.
+     */
+    @Test
+    public void doesNotBlockAndClampsFees() {
+        final SettableFuture<FeeRates> pending = SettableFuture.create();
+        final FeeEstimator estimator = new FeeEstimator(() -> pending, mFile);
+
+        assertEquals(FeeEstimator.DEFAULT_FASTER_FEE, estimator.getFees().getFaster());
+
+        pending.set(createRates(buckets(1, 100, 6, 2 * 1024)));
+
+        assertEquals(2 * 1024, estimator.getLastKnown().getFaster());
+        assertEquals(2 * 1024, estimator.getLastKnown().getAverage());
+
+        estimator.setTargets(1, 1);
+
+        assertEquals(FeeEstimator.MIN_FEE_BY_KB, estimator.getLastKnown().getAverage());
+    }
+
+    /**
+     * Prueba que después de una actualización fallida las consultas no soliciten las tasas hasta
+     * que transcurra la espera, y que una respuesta sin tasas también cuente como fallo.
+     */
+    @Test
+    public void backsOffAfterFailure() {
+        final FakeClock clock = new FakeClock();
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicReference<FeeRates> rates = new AtomicReference<>();
+        final FeeEstimator estimator = new FeeEstimator(() -> {
+            requests.incrementAndGet();
+
+            return Futures.immediateFuture(rates.get());
+        }, mFile, clock);
+
+        assertEquals(FeeEstimator.DEFAULT_FASTER_FEE, estimator.getFees().getFaster());
+        assertEquals(FeeEstimator.DEFAULT_FASTER_FEE, estimator.getFees().getFaster());
+        assertEquals(1, requests.get());
+
+        rates.set(createRates(buckets(1, 8 * 1024, 6, 3 * 1024)));
+        clock.advance(FeeEstimator.FAILURE_BACKOFF - 1);
+
+        assertEquals(FeeEstimator.DEFAULT_FASTER_FEE, estimator.getFees().getFaster());
+        assertEquals(1, requests.get());
+
+        clock.advance(1);
+
+        assertEquals(8 * 1024, estimator.getFees().getFaster());
+        assertEquals(8 * 1024, estimator.getFees().getFaster());
+        assertEquals(3, requests.get());
+    }
+
+    /**
+     * Crea tasas de bloques consecutivos.
+     *
+     * @param blocks Tasas por objetivo de cada bloque, del más reciente al más antiguo.
+     * @return Tasas de los bloques.
+     */
+    @SafeVarargs
+    private static FeeRates createRates(NavigableMap<Integer, Long>... blocks) {
+        final List<NavigableMap<Integer, Long>> list = new ArrayList<>();
+
+        for (NavigableMap<Integer, Long> block : blocks)
+            list.add(block);
+
+        return new FeeRates(700000, list);
+    }
+
+    /**
+     * Crea las tasas por objetivo de un bloque.
+     *
+     * @param pairs Pares de objetivo y comisión por KB.
+     * @return Tasas por objetivo.
+     */
+    private static NavigableMap<Integer, Long> buckets(long... pairs) {
+        final NavigableMap<Integer, Long> buckets = new TreeMap<>();
+
+        for (int i = 0; i + 1 < pairs.length; i += 2)
+            buckets.put((int) pairs[i], pairs[i + 1]);
+
+        return buckets;
+    }
+}
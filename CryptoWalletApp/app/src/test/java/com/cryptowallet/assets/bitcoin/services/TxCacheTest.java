@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas del caché de transacciones confirmadas.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class TxCacheTest {
+
+    /**
+     * Hash de bloque utilizado en las pruebas.
+     */
+    private static final String BLOCK
+            = "00000000000000000007878ec04bb2b2e12317804810f4c26033585b3f81ffaa";
+
+    /**
+     * Tamaño de la transacción de prueba.
+     */
+    private static final int TX_LENGTH = 200;
+
+    /**
+     * Bytes adicionales de cada registro en disco: longitud, hash del bloque, altura, fecha e
+     * índice.
+     */
+    private static final int RECORD_OVERHEAD = 4 + 32 + 4 + 4 + 4;
+
+    /**
+     * Directorio temporal.
+     */
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    /**
+     * Directorio del caché.
+     */
+    private File mDirectory;
+
+    /**
+     * Configuración inicial.
+     */
+    @Before
+    public void setUp() {
+        mDirectory = new File(mFolder.getRoot(), "txcache");
+    }
+
+    /**
+     * Prueba que las entradas se sirvan desde memoria y desde disco con sus contadores.
+     */
+    @Test
+    public void servesFromMemoryAndDisk() {
+        final TxCache cache = new TxCache(mDirectory, 16, 1024 * 1024);
+
+        assertNull(cache.get("a"));
+        cache.put("a", data(1), BLOCK, 650000, 1600000000, 3);
+
+        final TxCache.Entry entry = cache.get("a");
+
+        assertNotNull(entry);
+        assertArrayEquals(data(1), entry.getData());
+        assertEquals(1, cache.getMemoryHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        final TxCache reopened = new TxCache(mDirectory, 16, 1024 * 1024);
+        final TxCache.Entry fromDisk = reopened.get("a");
+
+        assertNotNull(fromDisk);
+        assertArrayEquals(data(1), fromDisk.getData());
+        assertEquals(BLOCK, fromDisk.getBlock());
+        assertEquals(650000, fromDisk.getHeight());
+        assertEquals(1600000000, fromDisk.getTime());
+        assertEquals(3, fromDisk.getIndex());
+        assertEquals(1, reopened.getDiskHitCount());
+
+        reopened.get("a");
+        assertEquals(1, reopened.getMemoryHitCount());
+    }
+
+    /**
+     * Prueba que se desaloje la entrada usada menos recientemente en ambos niveles.
+     */
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        final long recordLength = TX_LENGTH + RECORD_OVERHEAD;
+        final TxCache cache = new TxCache(mDirectory, 2, recordLength * 2);
+
+        cache.put("a", data(1), BLOCK, 1, 1, 0);
+        cache.put("b", data(2), BLOCK, 2, 2, 0);
+
+        assertNotNull(cache.get("a"));
+
+        cache.put("c", data(3), BLOCK, 3, 3, 0);
+
+        assertTrue(cache.getDiskBytes() <= recordLength * 2);
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertEquals(2, mDirectory.list().length);
+    }
+
+    /**
+     * Crea una transacción de prueba.
+     *
+     * @param seed Valor de los bytes.
+     * @return Transacción serializada.
+     */
+    private static byte[] data(int seed) {
+        final byte[] data = new byte[TX_LENGTH];
+
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) (seed + i);
+
+        return data;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.services.retrofit;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compara el formato binario de transacciones contra el formato JSON decodificado con
+ * {@link GsonConverterFactory}, midiendo los bytes transferidos y el tiempo de decodificación de
+ * un historial de 5,000 transacciones.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class TxDataFormatBenchmark {
+
+    /**
+     * Transacciones del historial.
+     */
+    private static final int TRANSACTIONS = 5000;
+
+    /**
+     * Iteraciones de calentamiento.
+     */
+    private static final int WARMUP = 5;
+
+    /**
+     * Iteraciones medidas.
+     */
+    private static final int ITERATIONS = 20;
+
+    /**
+     * Tipo de la respuesta.
+     */
+    private static final Type LIST_TYPE = new TypeToken<List<TxDataResponse>>() {
+    }.getType();
+
+    /**
+     * Transacciones serializadas.
+     */
+    private static byte[][] mTransactions;
+
+    /**
+     * Respuesta en formato JSON.
+     */
+    private static byte[] mJson;
+
+    /**
+     * Respuesta en formato binario.
+     */
+    private static byte[] mBinary;
+
+    /**
+     * Genera el historial en ambos formatos.
+     */
+    @BeforeClass
+    public static void setUp() throws IOException {
+        final Random random = new Random(42);
+        final JsonArray array = new JsonArray();
+        final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+
+        mTransactions = new byte[TRANSACTIONS][];
+
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            final byte[] data = new byte[192 + random.nextInt(320)];
+            final byte[] block = new byte[32];
+
+            random.nextBytes(data);
+            random.nextBytes(block);
+            mTransactions[i] = data;
+
+            final JsonObject json = new JsonObject();
+
+            json.addProperty("txid", Hex.toHexString(block));
+            json.addProperty("data", Hex.toHexString(data));
+            json.addProperty("block", Hex.toHexString(block));
+            json.addProperty("time", 1600000000 + i);
+            json.addProperty("height", 600000 + i / 100);
+            json.addProperty("index", i % 100);
+            array.add(json);
+
+            TxDataFormat.write(binary, data, Hex.toHexString(block), 600000 + i / 100,
+                    1600000000 + i, i % 100);
+        }
+
+        mJson = array.toString().getBytes(StandardCharsets.UTF_8);
+        mBinary = binary.toByteArray();
+    }
+
+    /**
+     * Compara los bytes transferidos y el tiempo de decodificación de ambos formatos.
+     */
+    @Test
+    public void compareFormats() throws IOException {
+        final Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl("http://localhost/")
+                .addConverterFactory(TxDataConverterFactory.create())
+                .addConverterFactory(GsonConverterFactory.create())
+                .build();
+        @SuppressWarnings("unchecked")
+        final Converter<ResponseBody, List<TxDataResponse>> gson
+                = (Converter<ResponseBody, List<TxDataResponse>>) GsonConverterFactory.create()
+                .responseBodyConverter(LIST_TYPE, new Annotation[0], retrofit);
+        final Converter<ResponseBody, List<TxDataResponse>> binary = retrofit
+                .responseBodyConverter(LIST_TYPE, new Annotation[0]);
+        final MediaType jsonType = MediaType.get("application/json");
+        final MediaType binaryType = MediaType.get(TxDataFormat.CONTENT_TYPE);
+
+        verify(gson.convert(ResponseBody.create(mJson, jsonType)));
+        verify(binary.convert(ResponseBody.create(mBinary, binaryType)));
+
+        final long jsonNanos = measure(gson, mJson, jsonType);
+        final long binaryNanos = measure(binary, mBinary, binaryType);
+
+        System.out.println(String.format("TxDataFormat %d txs: json %d bytes %.2f ms, "
+                        + "binary %d bytes %.2f ms", TRANSACTIONS, mJson.length,
+                jsonNanos / 1e6, mBinary.length, binaryNanos / 1e6));
+
+        assertTrue(mBinary.length * 2 < mJson.length);
+    }
+
+    /**
+     * Mide el tiempo promedio de decodificación de la respuesta, incluyendo la obtención de los
+     * datos de cada transacción.
+     *
+     * @param converter Convertidor de la respuesta.
+     * @param body      Cuerpo de la respuesta.
+     * @param type      Tipo del contenido.
+     * @return Tiempo promedio en nanosegundos.
+     */
+    private static long measure(Converter<ResponseBody, List<TxDataResponse>> converter,
+                                byte[] body, MediaType type) throws IOException {
+        long total = 0;
+        long checksum = 0;
+
+        for (int i = 0; i < WARMUP + ITERATIONS; i++) {
+            final long start = System.nanoTime();
+
+            for (TxDataResponse tx : converter.convert(ResponseBody.create(body, type)))
+                checksum += tx.getDataAsBuffer().length;
+
+            if (i >= WARMUP)
+                total += System.nanoTime() - start;
+        }
+
+        assertTrue(checksum > 0);
+
+        return total / ITERATIONS;
+    }
+
+    /**
+     * Verifica que la respuesta decodificada corresponda al historial generado.
+     *
+     * @param transactions Transacciones decodificadas.
+     */
+    private static void verify(List<TxDataResponse> transactions) {
+        assertEquals(TRANSACTIONS, transactions.size());
+
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            final TxDataResponse tx = transactions.get(i);
+
+            assertArrayEquals(mTransactions[i], tx.getDataAsBuffer());
+            assertEquals(600000 + i / 100, tx.getHeight());
+            assertEquals(1600000000 + i, (int) tx.getTime());
+            assertEquals(i % 100, tx.getBlockIndex());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet;
+
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.LegacyAddress;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.SegwitAddress;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutPoint;
+import org.bitcoinj.params.TestNet3Params;
+import org.bitcoinj.script.ScriptBuilder;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas del índice de actividad de las direcciones.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class AddressActivityTest {
+
+    /**
+     * Parametros de la red.
+     */
+    private final NetworkParameters mNetwork = TestNet3Params.get();
+
+    /**
+     * Prueba que se indexen las salidas legadas y segwit, y se ignoren los demás scripts.
+     */
+    @Test
+    public void indexesPubKeyHashOutputs() {
+        final ECKey legacy = new ECKey();
+        final ECKey segwit = new ECKey();
+        final ECKey unused = new ECKey();
+        final AddressActivity activity = new AddressActivity();
+
+        final Transaction first = createTransaction(0);
+        first.addOutput(Coin.COIN, LegacyAddress.fromKey(mNetwork, legacy));
+        first.addOutput(Coin.COIN, SegwitAddress.fromKey(mNetwork, segwit));
+        first.addOutput(Coin.ZERO, ScriptBuilder.createOpReturnScript(new byte[]{1, 2, 3, 4}));
+
+        final Transaction second = createTransaction(1);
+        second.addOutput(Coin.COIN, LegacyAddress.fromKey(mNetwork, legacy));
+
+        activity.add(first.getTxId().toString(), first);
+        activity.add(second.getTxId().toString(), second);
+
+        assertEquals(2, activity.size());
+        assertTrue(activity.hasActivity(legacy.getPubKeyHash()));
+        assertTrue(activity.hasActivity(segwit.getPubKeyHash()));
+        assertFalse(activity.hasActivity(unused.getPubKeyHash()));
+        assertEquals(new HashSet<>(Arrays.asList(first.getTxId().toString(),
+                second.getTxId().toString())), activity.getTxids(legacy.getPubKeyHash()));
+        assertTrue(activity.getTxids(unused.getPubKeyHash()).isEmpty());
+    }
+
+    /**
+     * Crea una transacción con una entrada.
+     *
+     * @param index Índice de la salida gastada.
+     * @return Transacción sin salidas.
+     */
+    private Transaction createTransaction(int index) {
+        final Transaction tx = new Transaction(mNetwork);
+        tx.addInput(new TransactionInput(mNetwork, tx, new byte[0],
+                new TransactionOutPoint(mNetwork, index, Sha256Hash.ZERO_HASH)));
+
+        return tx;
+    }
+}
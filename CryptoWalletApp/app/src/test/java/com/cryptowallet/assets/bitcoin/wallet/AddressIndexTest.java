@@ -0,0 +1,182 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet;
+
+import com.google.common.collect.ImmutableList;
+
+import org.bitcoinj.core.LegacyAddress;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.crypto.ChildNumber;
+import org.bitcoinj.crypto.DeterministicHierarchy;
+import org.bitcoinj.crypto.DeterministicKey;
+import org.bitcoinj.crypto.HDKeyDerivation;
+import org.bitcoinj.params.TestNet3Params;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pruebas del índice persistente de direcciones.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class AddressIndexTest {
+
+    /**
+     * Longitud de la cabecera del archivo.
+     */
+    private static final int HEADER_LENGTH = 25;
+
+    /**
+     * Longitud de cada registro del archivo.
+     */
+    private static final int RECORD_LENGTH = 25;
+
+    /**
+     * Direcciones derivadas en las pruebas, suficientes para derivar en paralelo.
+     */
+    private static final int ADDRESSES = 600;
+
+    /**
+     * Directorio temporal.
+     */
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    /**
+     * Parametros de la red.
+     */
+    private final NetworkParameters mNetwork = TestNet3Params.get();
+
+    /**
+     * Clave de la cuenta (m/0').
+     */
+    private DeterministicKey mAccountKey;
+
+    /**
+     * Archivo del índice.
+     */
+    private File mFile;
+
+    /**
+     * Configuración inicial.
+     */
+    @Before
+    public void setUp() {
+        final byte[] seed = new byte[32];
+        Arrays.fill(seed, (byte) 7);
+
+        mAccountKey = HDKeyDerivation.deriveChildKey(
+                HDKeyDerivation.createMasterPrivateKey(seed), ChildNumber.ZERO_HARDENED);
+        mFile = new File(mFolder.getRoot(), "addresses-test-0.idx");
+    }
+
+    /**
+     * Prueba que las direcciones coincidan con las derivadas por la jerarquía de BitcoinJ.
+     */
+    @Test
+    public void matchesHierarchyDerivation() {
+        final AddressIndex index = createIndex(ChildNumber.ZERO);
+        final DeterministicHierarchy hierarchy = new DeterministicHierarchy(mAccountKey);
+        final byte[] addresses = index.getAddresses(0, ADDRESSES);
+
+        for (int i = 0; i < ADDRESSES; i++) {
+            final DeterministicKey key = hierarchy.get(ImmutableList.of(ChildNumber.ZERO_HARDENED,
+                    ChildNumber.ZERO, new ChildNumber(i)), false, true);
+
+            assertEquals(LegacyAddress.fromKey(mNetwork, key), index.getAddress(i));
+            assertEquals((byte) mNetwork.getAddressHeader(), addresses[i * 21]);
+            assertArrayEquals(key.getPubKeyHash(),
+                    Arrays.copyOfRange(addresses, i * 21 + 1, (i + 1) * 21));
+        }
+    }
+
+    /**
+     * Prueba que el índice se cargue del archivo y solo derive las entradas faltantes.
+     */
+    @Test
+    public void extendsIncrementally() {
+        final byte[] expected = createIndex(ChildNumber.ZERO).getAddresses(0, ADDRESSES);
+        final AddressIndex reloaded = createIndex(ChildNumber.ZERO);
+
+        assertEquals(ADDRESSES, reloaded.size());
+        assertArrayEquals(expected, reloaded.getAddresses(0, ADDRESSES));
+        assertEquals(0, reloaded.getDerivedCount());
+
+        reloaded.ensure(ADDRESSES + 50);
+
+        assertEquals(50, reloaded.getDerivedCount());
+        assertEquals(HEADER_LENGTH + (ADDRESSES + 50) * RECORD_LENGTH, mFile.length());
+    }
+
+    /**
+     * Prueba que un índice de otra cadena sea descartado.
+     */
+    @Test
+    public void discardsOtherChain() {
+        createIndex(ChildNumber.ZERO).ensure(10);
+
+        final AddressIndex other = createIndex(ChildNumber.ONE);
+
+        assertEquals(0, other.size());
+
+        other.ensure(5);
+
+        assertEquals(5, other.getDerivedCount());
+        assertEquals(HEADER_LENGTH + 5 * RECORD_LENGTH, mFile.length());
+    }
+
+    /**
+     * Prueba que un registro incompleto al final del archivo sea truncado.
+     */
+    @Test
+    public void truncatesPartialRecord() throws IOException {
+        createIndex(ChildNumber.ZERO).ensure(10);
+
+        try (FileOutputStream stream = new FileOutputStream(mFile, true)) {
+            stream.write(new byte[RECORD_LENGTH - 3]);
+        }
+
+        final AddressIndex reloaded = createIndex(ChildNumber.ZERO);
+
+        assertEquals(10, reloaded.size());
+        assertEquals(HEADER_LENGTH + 10 * RECORD_LENGTH, mFile.length());
+    }
+
+    /**
+     * Crea el índice de la cadena especificada sobre el archivo de prueba.
+     *
+     * @param purpose Cadena de las direcciones.
+     * @return Índice de direcciones.
+     */
+    private AddressIndex createIndex(ChildNumber purpose) {
+        return new AddressIndex(HDKeyDerivation.deriveChildKey(mAccountKey, purpose), mNetwork,
+                mFile);
+    }
+}
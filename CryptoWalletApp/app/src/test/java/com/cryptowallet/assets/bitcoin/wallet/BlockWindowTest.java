@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet;
+
+import org.bitcoinj.core.Sha256Hash;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Pruebas de la ventana de bloques recientes.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class BlockWindowTest {
+
+    /**
+     * Al llenarse la ventana se descartan los bloques más antiguos.
+     */
+    @Test
+    public void evictsOldestBlocks() {
+        final BlockWindow window = new BlockWindow(4);
+
+        for (int height = 1; height <= 6; height++)
+            window.add(height, hash("main", height), height * 600L);
+
+        assertEquals(4, window.size());
+        assertEquals(3, window.getLowestHeight());
+        assertEquals(6, window.getHighestHeight());
+        assertNull(window.getHash(2));
+        assertEquals(hash("main", 5), window.getHash(5));
+        assertEquals(5 * 600L, window.getTime(5));
+    }
+
+    /**
+     * Un bloque a una altura conocida reemplaza a los bloques de la rama anterior.
+     */
+    @Test
+    public void replacesBlocksOfReplacedBranch() {
+        final BlockWindow window = new BlockWindow(10);
+
+        for (int height = 1; height <= 5; height++)
+            window.add(height, hash("main", height), 0);
+
+        window.add(4, hash("fork", 4), 0);
+
+        assertEquals(4, window.getHighestHeight());
+        assertEquals(hash("fork", 4), window.getHash(4));
+        assertNull(window.getHash(5));
+
+        window.add(8, hash("fork", 8), 0);
+        window.truncate(6);
+
+        assertEquals(4, window.getHighestHeight());
+    }
+
+    /**
+     * El punto de separación es el bloque más reciente que comparten ambas cadenas.
+     */
+    @Test
+    public void findsForkPoint() {
+        final BlockWindow window = new BlockWindow(8);
+        final Map<Integer, Sha256Hash> chain = new HashMap<>();
+
+        for (int height = 10; height <= 20; height++) {
+            window.add(height, hash("main", height), 0);
+            chain.put(height, hash(height < 17 ? "main" : "fork", height));
+        }
+
+        assertEquals(16, window.findForkPoint(chain));
+
+        chain.clear();
+
+        for (int height = 10; height <= 20; height++)
+            chain.put(height, hash("fork", height));
+
+        assertEquals(-1, window.findForkPoint(chain));
+    }
+
+    /**
+     * La ventana se conserva al guardarse como extensión de la billetera; si la capacidad es
+     * menor se conservan los bloques más recientes.
+     */
+    @Test
+    public void serializesAsWalletExtension() throws Exception {
+        final BlockWindow window = new BlockWindow(8);
+
+        for (int height = 1; height <= 6; height++)
+            window.add(height, hash("main", height), height);
+
+        final BlockWindow restored = new BlockWindow(8);
+        restored.deserializeWalletExtension(null, window.serializeWalletExtension());
+
+        assertEquals(6, restored.size());
+
+        for (int height = 1; height <= 6; height++) {
+            assertEquals(hash("main", height), restored.getHash(height));
+            assertEquals(height, restored.getTime(height));
+        }
+
+        final BlockWindow smaller = new BlockWindow(3);
+        smaller.deserializeWalletExtension(null, window.serializeWalletExtension());
+
+        assertEquals(4, smaller.getLowestHeight());
+        assertEquals(6, smaller.getHighestHeight());
+    }
+
+    /**
+     * Crea el hash de un bloque de prueba.
+     *
+     * @param branch Nombre de la rama.
+     * @param height Altura del bloque.
+     * @return Hash del bloque.
+     */
+    private static Sha256Hash hash(String branch, int height) {
+        return Sha256Hash.of((branch + height).getBytes());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet;
+
+import org.bitcoinj.core.Sha256Hash;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas del seguimiento de los umbrales de confirmaciones.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class ConfirmationTrackerTest {
+
+    /**
+     * La profundidad se calcula a partir de la punta y de la altura del bloque.
+     */
+    @Test
+    public void computesDepth() {
+        assertEquals(1, ConfirmationTracker.getDepth(100, 100));
+        assertEquals(6, ConfirmationTracker.getDepth(100, 105));
+        assertEquals(0, ConfirmationTracker.getDepth(101, 100));
+    }
+
+    /**
+     * Cada bloque solo reporta las transacciones que cruzan un umbral.
+     */
+    @Test
+    public void reportsOnlyCrossings() {
+        final ConfirmationTracker tracker = new ConfirmationTracker();
+        final Sha256Hash tx = txid(1);
+
+        tracker.put(tx, 100);
+
+        final Map<Integer, Integer> reported = new HashMap<>();
+
+        for (int tip = 99; tip < 110; tip++) {
+            final Map<Sha256Hash, Integer> crossed = tracker.advance(tip, tip + 1);
+
+            if (!crossed.isEmpty())
+                reported.put(ConfirmationTracker.getDepth(100, tip + 1), crossed.get(tx));
+        }
+
+        final Map<Integer, Integer> expected = new HashMap<>();
+        expected.put(1, 1);
+        expected.put(3, 3);
+        expected.put(6, 6);
+
+        assertEquals(expected, reported);
+    }
+
+    /**
+     * Si la punta avanza varios bloques, solo se reporta el mayor umbral alcanzado.
+     */
+    @Test
+    public void reportsHighestThresholdOnJump() {
+        final ConfirmationTracker tracker = new ConfirmationTracker();
+
+        tracker.put(txid(1), 100);
+        tracker.put(txid(2), 104);
+        tracker.put(txid(3), 90);
+
+        final Map<Sha256Hash, Integer> crossed = tracker.advance(99, 105);
+
+        assertEquals(2, crossed.size());
+        assertEquals(Integer.valueOf(6), crossed.get(txid(1)));
+        assertEquals(Integer.valueOf(1), crossed.get(txid(2)));
+    }
+
+    /**
+     * Mover o eliminar una transacción actualiza el índice y los umbrales son configurables.
+     */
+    @Test
+    public void movesAndRemovesTransactions() {
+        final ConfirmationTracker tracker = new ConfirmationTracker();
+
+        tracker.setThresholds(2, 1);
+        tracker.put(txid(1), 100);
+        tracker.put(txid(1), 101);
+        tracker.put(txid(2), 101);
+
+        assertEquals(2, tracker.size());
+        assertTrue(tracker.advance(100, 100).isEmpty());
+        assertEquals(2, tracker.advance(100, 101).size());
+
+        tracker.remove(txid(2));
+
+        assertEquals(Collections.singletonMap(txid(1), 2), tracker.advance(101, 102));
+    }
+
+    /**
+     * Crea un identificador de prueba.
+     *
+     * @param value Valor del identificador.
+     * @return Un identificador de transacción.
+     */
+    private static Sha256Hash txid(int value) {
+        return Sha256Hash.of(new byte[]{(byte) value});
+    }
+}
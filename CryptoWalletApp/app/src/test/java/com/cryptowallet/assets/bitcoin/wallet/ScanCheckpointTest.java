@@ -0,0 +1,191 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet;
+
+import com.cryptowallet.wallet.ChainTipInfo;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Pruebas del punto de control de la descarga inicial.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class ScanCheckpointTest {
+
+    /**
+     * Hash de un bloque de prueba.
+     */
+    private static final String BLOCK
+            = "00000000000000000001a2b3c4d5e6f708192a3b4c5d6e7f8091a2b3c4d5e6f7";
+
+    /**
+     * Directorio temporal.
+     */
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    /**
+     * Archivo del punto de control.
+     */
+    private File mFile;
+
+    @Before
+    public void setUp() {
+        mFile = new File(mFolder.getRoot(), "wallet.bitcoin.scan");
+    }
+
+    /**
+     * Al cargar el punto de control se recupera la posición de cada cadena y las transacciones
+     * encontradas.
+     */
+    @Test
+    public void resumesPositionsAndTransactions() throws IOException {
+        final ScanCheckpoint checkpoint = new ScanCheckpoint(mFile);
+
+        assertEquals(0, checkpoint.load(record -> {
+        }));
+
+        checkpoint.start(tip(500));
+        checkpoint.append(0, 100, 0, Collections.singletonList(record(1)));
+        checkpoint.append(1, 100, 1, Collections.emptyList());
+        checkpoint.append(0, 200, 1, Arrays.asList(record(2), record(3)));
+
+        final ScanCheckpoint reopened = new ScanCheckpoint(mFile);
+        final List<WalletJournal.TxRecord> staged = new ArrayList<>();
+
+        assertEquals(4, reopened.load(staged::add));
+        assertEquals(500, reopened.getTip().getHeight());
+        assertEquals(BLOCK, reopened.getTip().getHash());
+        assertEquals(200, reopened.getNextIndex(0));
+        assertEquals(1, reopened.getInactiveBlocks(0));
+        assertEquals(100, reopened.getNextIndex(1));
+        assertEquals(1, reopened.getInactiveBlocks(1));
+        assertEquals(3, staged.size());
+        assertArrayEquals(record(3).mData, staged.get(2).mData);
+    }
+
+    /**
+     * Al continuar una descarga se conserva la punta registrada al iniciarla.
+     */
+    @Test
+    public void keepsTipOfInterruptedDownload() throws IOException {
+        final ScanCheckpoint checkpoint = new ScanCheckpoint(mFile);
+
+        checkpoint.start(tip(500));
+
+        final ScanCheckpoint reopened = new ScanCheckpoint(mFile);
+
+        reopened.load(record -> {
+        });
+        reopened.start(tip(510));
+
+        assertEquals(500, reopened.getTip().getHeight());
+
+        reopened.load(record -> {
+        });
+
+        assertEquals(500, reopened.getTip().getHeight());
+    }
+
+    /**
+     * Un bloque registrado de forma incompleta se descarta y el escaneo continúa desde el último
+     * bloque completo.
+     */
+    @Test
+    public void discardsIncompleteBlock() throws IOException {
+        final ScanCheckpoint checkpoint = new ScanCheckpoint(mFile);
+
+        checkpoint.start(tip(500));
+        checkpoint.append(0, 100, 0, Collections.singletonList(record(1)));
+        checkpoint.append(0, 200, 0, Collections.singletonList(record(2)));
+
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        final ScanCheckpoint reopened = new ScanCheckpoint(mFile);
+        final List<WalletJournal.TxRecord> staged = new ArrayList<>();
+
+        assertEquals(2, reopened.load(staged::add));
+        assertEquals(100, reopened.getNextIndex(0));
+        assertEquals(1, staged.size());
+    }
+
+    /**
+     * Al eliminar el punto de control, la siguiente descarga inicia desde la primera dirección.
+     */
+    @Test
+    public void deleteRestartsScan() throws IOException {
+        final ScanCheckpoint checkpoint = new ScanCheckpoint(mFile);
+
+        checkpoint.start(tip(500));
+        checkpoint.append(1, 300, 2, Collections.singletonList(record(1)));
+        checkpoint.delete();
+
+        assertFalse(mFile.exists());
+        assertEquals(0, checkpoint.load(record -> {
+        }));
+        assertNull(checkpoint.getTip());
+        assertEquals(0, checkpoint.getNextIndex(1));
+        assertEquals(0, checkpoint.getInactiveBlocks(1));
+    }
+
+    /**
+     * Crea la punta de la cadena de prueba.
+     *
+     * @param height Altura de la punta.
+     * @return Punta de la cadena.
+     */
+    private static ChainTipInfo tip(int height) {
+        return new ChainTipInfo.Builder()
+                .setHash(BLOCK)
+                .setHeight(height)
+                .setTime(1600000000)
+                .build();
+    }
+
+    /**
+     * Crea un registro de prueba.
+     *
+     * @param fill Valor de los bytes de la transacción.
+     * @return Registro de la transacción.
+     */
+    private static WalletJournal.TxRecord record(int fill) {
+        return new WalletJournal.TxRecord(new byte[]{(byte) fill, (byte) fill, (byte) fill},
+                BLOCK, 450, 1600000000, fill);
+    }
+}
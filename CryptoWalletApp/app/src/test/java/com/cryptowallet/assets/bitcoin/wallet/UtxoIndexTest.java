@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet;
+
+import com.cryptowallet.assets.bitcoin.wallet.coinselection.SizeModel;
+
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.LegacyAddress;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.params.TestNet3Params;
+import org.bitcoinj.script.ScriptBuilder;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas del índice de salidas sin gastar.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class UtxoIndexTest {
+
+    /**
+     * Parámetros de la red de pruebas.
+     */
+    private static final NetworkParameters NETWORK = TestNet3Params.get();
+
+    /**
+     * Las salidas se obtienen ordenadas por valor sin importar el orden en que se agregan.
+     */
+    @Test
+    public void keepsOutputsOrderedByValue() {
+        final UtxoIndex index = new UtxoIndex();
+        final Transaction tx = transaction(50_000, 10_000, 30_000, 10_000);
+
+        for (TransactionOutput output : tx.getOutputs())
+            index.put(output, SizeModel.P2PKH_INPUT_WEIGHT, false, false);
+
+        final List<UtxoIndex.Entry> entries = index.getEntries();
+
+        assertEquals(4, entries.size());
+        assertEquals(10_000, entries.get(0).getValue());
+        assertEquals(10_000, entries.get(1).getValue());
+        assertEquals(30_000, entries.get(2).getValue());
+        assertEquals(50_000, entries.get(3).getValue());
+        assertEquals(SizeModel.P2PKH_INPUT_WEIGHT, entries.get(0).getInputWeight());
+    }
+
+    /**
+     * Los totales disponible y pendiente se actualizan al confirmar y al gastar una salida.
+     */
+    @Test
+    public void maintainsSpendableAndPendingTotals() {
+        final UtxoIndex index = new UtxoIndex();
+        final Transaction confirmed = transaction(40_000);
+        final Transaction pending = transaction(25_000, 5_000);
+
+        index.put(confirmed.getOutput(0), SizeModel.P2PKH_INPUT_WEIGHT, false, false);
+        index.put(pending.getOutput(0), SizeModel.P2PKH_INPUT_WEIGHT, false, true);
+        index.put(pending.getOutput(1), SizeModel.P2PKH_INPUT_WEIGHT, false, true);
+
+        assertEquals(40_000, index.getSpendableTotal());
+        assertEquals(30_000, index.getPendingTotal());
+
+        index.put(pending.getOutput(0), SizeModel.P2PKH_INPUT_WEIGHT, false, false);
+
+        assertEquals(3, index.size());
+        assertEquals(65_000, index.getSpendableTotal());
+        assertEquals(5_000, index.getPendingTotal());
+
+        assertTrue(index.remove(confirmed.getOutput(0).getOutPointFor()));
+        assertFalse(index.remove(confirmed.getOutput(0).getOutPointFor()));
+
+        assertEquals(25_000, index.getSpendableTotal());
+        assertEquals(2, index.getEntries().size());
+
+        index.clear();
+
+        assertEquals(0, index.size());
+        assertEquals(0, index.getSpendableTotal());
+        assertEquals(0, index.getPendingTotal());
+    }
+
+    /**
+     * Crea una transacción con salidas de los valores especificados.
+     *
+     * @param values Valores de las salidas.
+     * @return Una transacción.
+     */
+    private static Transaction transaction(long... values) {
+        final Transaction tx = new Transaction(NETWORK);
+        tx.addInput(Sha256Hash.of(new byte[]{(byte) values.length}), 0,
+                new ScriptBuilder().build());
+
+        for (long value : values)
+            tx.addOutput(Coin.valueOf(value), LegacyAddress.fromKey(NETWORK, new ECKey()));
+
+        return tx;
+    }
+}
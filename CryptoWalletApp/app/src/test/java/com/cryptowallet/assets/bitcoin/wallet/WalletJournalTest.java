@@ -0,0 +1,218 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de la bitácora de cambios de la billetera.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class WalletJournalTest {
+
+    /**
+     * Hash de un bloque de prueba.
+     */
+    private static final String BLOCK
+            = "00000000000000000001a2b3c4d5e6f708192a3b4c5d6e7f8091a2b3c4d5e6f7";
+
+    /**
+     * Directorio temporal.
+     */
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    /**
+     * Archivo de la bitácora.
+     */
+    private File mFile;
+
+    @Before
+    public void setUp() {
+        mFile = new File(mFolder.getRoot(), "wallet.bitcoin.journal");
+    }
+
+    /**
+     * Los lotes se leen en el orden en que fueron agregados y con el mismo contenido.
+     */
+    @Test
+    public void replaysBatchesInOrder() throws IOException {
+        final WalletJournal journal = new WalletJournal(mFile);
+
+        journal.append(new WalletJournal.Batch()
+                .addDependency(record(1, null, -1))
+                .addTransaction(record(2, BLOCK, 100))
+                .addTransaction(record(3, null, -1)));
+        journal.append(new WalletJournal.Batch().setTip(BLOCK, 101, 1600000000L));
+
+        final List<WalletJournal.Batch> batches = new ArrayList<>();
+
+        assertEquals(2, new WalletJournal(mFile).replay(batches::add));
+
+        final WalletJournal.Batch first = batches.get(0);
+
+        assertFalse(first.hasTip());
+        assertEquals(1, first.getDependencies().size());
+        assertEquals(2, first.getTransactions().size());
+        assertArrayEquals(new byte[]{1, 1, 1}, first.getDependencies().get(0).mData);
+        assertNull(first.getDependencies().get(0).mBlock);
+        assertEquals(BLOCK, first.getTransactions().get(0).mBlock);
+        assertEquals(100, first.getTransactions().get(0).mHeight);
+        assertEquals(-1, first.getTransactions().get(1).mHeight);
+
+        final WalletJournal.Batch second = batches.get(1);
+
+        assertTrue(second.hasTip());
+        assertEquals(BLOCK, second.getTipHash());
+        assertEquals(101, second.getTipHeight());
+        assertEquals(1600000000L, second.getTipTime());
+    }
+
+    /**
+     * Un lote incompleto al final de la bitácora se descarta y el archivo se trunca, de forma que
+     * los lotes posteriores se agregan después del último lote válido.
+     */
+    @Test
+    public void discardsInterruptedBatch() throws IOException {
+        final WalletJournal journal = new WalletJournal(mFile);
+
+        journal.append(new WalletJournal.Batch().addTransaction(record(1, BLOCK, 10)));
+
+        final long valid = mFile.length();
+
+        journal.append(new WalletJournal.Batch().addTransaction(record(2, BLOCK, 11)));
+
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        final WalletJournal reopened = new WalletJournal(mFile);
+
+        assertEquals(1, reopened.replay(batch -> {
+        }));
+        assertEquals(valid, mFile.length());
+        assertEquals(valid, reopened.size());
+
+        reopened.append(new WalletJournal.Batch().setTip(BLOCK, 12, 0));
+
+        assertEquals(2, new WalletJournal(mFile).replay(batch -> {
+        }));
+    }
+
+    /**
+     * Un lote con una suma de verificación inválida se descarta junto con lo que le sigue.
+     */
+    @Test
+    public void discardsCorruptedBatch() throws IOException {
+        final WalletJournal journal = new WalletJournal(mFile);
+
+        journal.append(new WalletJournal.Batch().setTip(BLOCK, 1, 0));
+
+        final long valid = mFile.length();
+
+        journal.append(new WalletJournal.Batch().setTip(BLOCK, 2, 0));
+        journal.append(new WalletJournal.Batch().setTip(BLOCK, 3, 0));
+
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "rw")) {
+            file.seek(valid + 8 + 1);
+            file.write(0xFF);
+        }
+
+        final List<WalletJournal.Batch> batches = new ArrayList<>();
+
+        assertEquals(1, new WalletJournal(mFile).replay(batches::add));
+        assertEquals(1, batches.get(0).getTipHeight());
+        assertEquals(valid, mFile.length());
+    }
+
+    /**
+     * Un archivo con un formato desconocido se descarta.
+     */
+    @Test
+    public void discardsUnknownFormat() throws IOException {
+        try (FileOutputStream stream = new FileOutputStream(mFile)) {
+            stream.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        }
+
+        final WalletJournal journal = new WalletJournal(mFile);
+
+        assertEquals(0, journal.replay(batch -> {
+        }));
+        assertEquals(0, journal.size());
+
+        journal.append(new WalletJournal.Batch().setTip(BLOCK, 1, 0));
+
+        assertEquals(1, new WalletJournal(mFile).replay(batch -> {
+        }));
+    }
+
+    /**
+     * Guardar una instantánea vacía la bitácora.
+     */
+    @Test
+    public void snapshotResetsJournal() throws IOException {
+        final WalletJournal journal = new WalletJournal(mFile);
+        final WalletPersister persister = new WalletPersister(
+                new File(mFolder.getRoot(), "wallet.bitcoin"),
+                stream -> stream.write(new byte[]{1, 2, 3}), journal,
+                TimeUnit.MINUTES.toMillis(10));
+
+        journal.append(new WalletJournal.Batch().setTip(BLOCK, 1, 0));
+
+        assertTrue(journal.size() > 0);
+
+        persister.save();
+
+        assertEquals(0, journal.size());
+        assertEquals(0, new WalletJournal(mFile).replay(batch -> {
+        }));
+    }
+
+    /**
+     * Crea un registro de prueba.
+     *
+     * @param fill   Valor de los bytes de la transacción.
+     * @param block  Hash del bloque.
+     * @param height Altura del bloque.
+     * @return Un registro.
+     */
+    private static WalletJournal.TxRecord record(int fill, String block, long height) {
+        return new WalletJournal.TxRecord(new byte[]{(byte) fill, (byte) fill, (byte) fill},
+                block, height, 1600000000, fill);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Pruebas del programador del guardado de la billetera.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class WalletPersisterTest {
+
+    /**
+     * Contenido escrito por la billetera simulada.
+     */
+    private static final byte[] CONTENT = {1, 2, 3, 4, 5, 6, 7, 8};
+
+    /**
+     * Directorio temporal.
+     */
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    /**
+     * Archivo de la billetera.
+     */
+    private File mFile;
+
+    /**
+     * Cantidad de escrituras de la billetera simulada.
+     */
+    private AtomicInteger mWrites;
+
+    @Before
+    public void setUp() {
+        mFile = new File(mFolder.getRoot(), "wallet.dat");
+        mWrites = new AtomicInteger();
+    }
+
+    /**
+     * Las marcas de un lote se agrupan en un único guardado al confirmar el lote.
+     */
+    @Test
+    public void coalescesMarksIntoOneSave() throws IOException {
+        final WalletPersister persister = new WalletPersister(mFile, stream -> {
+            mWrites.incrementAndGet();
+            stream.write(CONTENT);
+        }, null, TimeUnit.MINUTES.toMillis(10));
+
+        for (int i = 0; i < 1000; i++)
+            persister.markDirty();
+
+        assertTrue(persister.isDirty());
+        assertFalse(mFile.exists());
+
+        persister.flush();
+        persister.flush();
+
+        assertFalse(persister.isDirty());
+        assertEquals(1, mWrites.get());
+        assertEquals(1000, persister.getMarkCount());
+        assertEquals(1, persister.getSaveCount());
+        assertEquals(CONTENT.length, persister.getBytesWritten());
+        assertEquals(CONTENT.length, persister.getLastSaveBytes());
+        assertArrayEquals(CONTENT, Files.readAllBytes(mFile.toPath()));
+        assertFalse(new File(mFile.getPath() + ".tmp").exists());
+    }
+
+    /**
+     * Los cambios pendientes se guardan al transcurrir el tiempo de espera.
+     */
+    @Test
+    public void savesAfterDelay() throws InterruptedException {
+        final CountDownLatch saved = new CountDownLatch(1);
+        final WalletPersister persister = new WalletPersister(mFile, stream -> {
+            stream.write(CONTENT);
+            saved.countDown();
+        }, null, 50);
+
+        persister.markDirty();
+        persister.markDirty();
+
+        assertTrue(saved.await(5, TimeUnit.SECONDS));
+
+        final long deadline = System.currentTimeMillis() + 5000;
+
+        while (persister.getSaveCount() == 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+
+        assertEquals(1, persister.getSaveCount());
+        assertFalse(persister.isDirty());
+        assertTrue(mFile.exists());
+    }
+
+    /**
+     * Una escritura fallida conserva el archivo anterior y deja los cambios pendientes.
+     */
+    @Test
+    public void failedWriteKeepsPreviousFile() throws IOException {
+        final WalletPersister persister = new WalletPersister(mFile, stream -> {
+            stream.write(CONTENT, 0, 4);
+
+            if (mWrites.incrementAndGet() > 1)
+                throw new IOException("Disk full");
+
+            stream.write(CONTENT, 4, 4);
+        }, null, TimeUnit.MINUTES.toMillis(10));
+
+        persister.save();
+
+        try {
+            persister.save();
+            fail("Expected failure");
+        } catch (IOException ignored) {
+        }
+
+        assertTrue(persister.isDirty());
+        assertEquals(1, persister.getSaveCount());
+        assertEquals(1, persister.getFailureCount());
+        assertArrayEquals(CONTENT, Files.readAllBytes(mFile.toPath()));
+        assertFalse(new File(mFile.getPath() + ".tmp").exists());
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Pruebas de la máquina de estados de la sincronización.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class WalletSynchronizerTest {
+
+    /**
+     * Tiempo máximo de espera de cada prueba en segundos.
+     */
+    private static final int TIMEOUT = 5;
+
+    /**
+     * Cada ciclo recorre las fases en orden y la sincronización continúa mientras la punta
+     * avanza.
+     */
+    @Test
+    public void catchesUpWhileTipMoves() throws Exception {
+        final FakeChain chain = new FakeChain(3);
+        final WalletSynchronizer<Integer> synchronizer
+                = new WalletSynchronizer<>(chain, 10, 8, 3);
+
+        synchronizer.start().get(TIMEOUT, TimeUnit.SECONDS);
+
+        assertEquals(3, chain.mHeight);
+        assertEquals(3, synchronizer.getCycles());
+        assertTrue(chain.mSynchronized);
+        assertEquals(Arrays.asList("tip", "history 1", "dependencies 1", "persist 1", "notify 1"),
+                chain.mEvents.subList(0, 5));
+        assertEquals("tip", chain.mEvents.get(chain.mEvents.size() - 1));
+        assertEquals(WalletSynchronizer.Phase.IDLE, synchronizer.getPhase());
+        assertFalse(synchronizer.isRunning());
+    }
+
+    /**
+     * Los ciclos consecutivos están acotados: al alcanzar el límite la sincronización espera y
+     * continúa con un nuevo límite hasta alcanzar la punta.
+     */
+    @Test
+    public void boundsCatchUpCycles() throws Exception {
+        final FakeChain chain = new FakeChain(12);
+        final WalletSynchronizer<Integer> synchronizer
+                = new WalletSynchronizer<>(chain, 50, 4, 3);
+        final long start = System.nanoTime();
+
+        synchronizer.start().get(TIMEOUT, TimeUnit.SECONDS);
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+        assertEquals(12, chain.mHeight);
+        assertTrue(chain.mSynchronized);
+        assertEquals(15, Collections.frequency(chain.mEvents, "tip"));
+        assertFalse(synchronizer.isRunning());
+    }
+
+    /**
+     * Un fallo se reintenta desde la consulta de la punta y, al agotar los intentos, la tarea
+     * falla.
+     */
+    @Test
+    public void retriesAndGivesUp() throws Exception {
+        final FakeChain chain = new FakeChain(1);
+        chain.mFailures.set(2);
+
+        final WalletSynchronizer<Integer> synchronizer
+                = new WalletSynchronizer<>(chain, 10, 8, 3);
+
+        synchronizer.start().get(TIMEOUT, TimeUnit.SECONDS);
+
+        assertEquals(1, chain.mHeight);
+
+        chain.mTip = 2;
+        chain.mFailures.set(3);
+
+        try {
+            synchronizer.start().get(TIMEOUT, TimeUnit.SECONDS);
+            fail("Expected failure");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+
+        assertEquals(1, chain.mHeight);
+        assertFalse(synchronizer.isRunning());
+    }
+
+    /**
+     * Solo hay una sincronización en curso y puede cancelarse mientras una fase está bloqueada.
+     */
+    @Test
+    public void singleRunnerAndCancel() throws Exception {
+        final FakeChain chain = new FakeChain(1);
+        chain.mBlockHistory = new CountDownLatch(1);
+
+        final WalletSynchronizer<Integer> synchronizer
+                = new WalletSynchronizer<>(chain, 10, 8, 3);
+        final ListenableFuture<Void> run = synchronizer.start();
+
+        assertSame(run, synchronizer.start());
+        assertTrue(chain.mInHistory.await(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(WalletSynchronizer.Phase.HISTORY, synchronizer.getPhase());
+        assertTrue(synchronizer.cancel());
+        assertTrue(run.isCancelled());
+        assertTrue(chain.mInterrupted.await(TIMEOUT, TimeUnit.SECONDS));
+
+        Thread.sleep(50);
+
+        assertEquals(0, chain.mHeight);
+        assertFalse(synchronizer.isRunning());
+
+        chain.mBlockHistory = null;
+        synchronizer.start().get(TIMEOUT, TimeUnit.SECONDS);
+
+        assertEquals(1, chain.mHeight);
+    }
+
+    /**
+     * Cadena simulada: la punta avanza un bloque cada vez que la billetera aplica uno, hasta la
+     * altura final.
+     */
+    private static final class FakeChain implements WalletSynchronizer.Steps<Integer> {
+
+        /**
+         * Eventos de los pasos.
+         */
+        final List<String> mEvents = Collections.synchronizedList(new ArrayList<>());
+
+        /**
+         * Fallos pendientes de la consulta de la punta.
+         */
+        final AtomicInteger mFailures = new AtomicInteger();
+
+        /**
+         * Señal de que la descarga del historial inició.
+         */
+        final CountDownLatch mInHistory = new CountDownLatch(1);
+
+        /**
+         * Señal de que la descarga del historial fue interrumpida.
+         */
+        final CountDownLatch mInterrupted = new CountDownLatch(1);
+
+        /**
+         * Bloqueo de la descarga del historial o null.
+         */
+        volatile CountDownLatch mBlockHistory;
+
+        /**
+         * Altura final de la cadena.
+         */
+        volatile int mTip;
+
+        /**
+         * Altura de la billetera.
+         */
+        volatile int mHeight;
+
+        /**
+         * Indica si la billetera alcanzó la punta.
+         */
+        volatile boolean mSynchronized;
+
+        FakeChain(int tip) {
+            mTip = tip;
+        }
+
+        @Override
+        public Integer checkTip() throws IOException {
+            mEvents.add("tip");
+
+            if (mFailures.getAndDecrement() > 0)
+                throw new IOException("Chain tip is not available");
+
+            return mHeight >= mTip ? null : mHeight + 1;
+        }
+
+        @Override
+        public void downloadHistory(Integer cycle) throws InterruptedException {
+            mEvents.add("history " + cycle);
+            mInHistory.countDown();
+
+            final CountDownLatch block = mBlockHistory;
+
+            if (block != null)
+                try {
+                    block.await();
+                } catch (InterruptedException e) {
+                    mInterrupted.countDown();
+                    throw e;
+                }
+        }
+
+        @Override
+        public void resolveDependencies(Integer cycle) {
+            mEvents.add("dependencies " + cycle);
+        }
+
+        @Override
+        public void persist(Integer cycle) {
+            mEvents.add("persist " + cycle);
+            mHeight = cycle;
+        }
+
+        @Override
+        public void notifyChanges(Integer cycle) {
+            mEvents.add("notify " + cycle);
+        }
+
+        @Override
+        public void onSynchronized() {
+            mSynchronized = true;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet.coinselection;
+
+import com.cryptowallet.assets.bitcoin.wallet.coinselection.CoinSelectionEngineTest.TestCandidate;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Mide el tiempo de selección del motor predeterminado sobre conjuntos sintéticos de 10 a 10,000
+ * salidas y compara el tamaño virtual y la comisión de las transacciones resultantes contra la
+ * selección de menor a mayor valor que utilizaba la billetera.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class CoinSelectionBenchmark {
+
+    /**
+     * Tamaños de los conjuntos de salidas.
+     */
+    private static final int[] SIZES = {10, 100, 1_000, 10_000};
+
+    /**
+     * Pagos por conjunto.
+     */
+    private static final int PAYMENTS = 20;
+
+    /**
+     * Iteraciones de calentamiento.
+     */
+    private static final int WARMUP = 2;
+
+    /**
+     * Iteraciones medidas.
+     */
+    private static final int ITERATIONS = 5;
+
+    /**
+     * Comisión por KB.
+     */
+    private static final long FEE_BY_KB = 20480;
+
+    /**
+     * Orden ascendente por valor.
+     */
+    private static final Comparator<Candidate> BY_VALUE
+            = (left, right) -> Long.compare(left.getValue(), right.getValue());
+
+    /**
+     * Compara el motor contra la selección de menor a mayor valor en cada conjunto.
+     */
+    @Test
+    public void compareSelection() {
+        final CoinSelectionEngine engine = CoinSelectionEngine.createDefault();
+        final Random random = new Random(42);
+        long engineFees = 0;
+        long baselineFees = 0;
+
+        for (int size : SIZES) {
+            final List<TestCandidate> candidates = createCandidates(random, size);
+            final List<SelectionTarget> targets = createTargets(random, candidates);
+            long engineSize = 0;
+            long baselineSize = 0;
+            long nanos = 0;
+
+            for (SelectionTarget target : targets) {
+                final CoinSelection<TestCandidate> selection = engine.select(candidates, target);
+                final CoinSelection<TestCandidate> baseline = selectSmallestFirst(candidates,
+                        target);
+
+                assertNotNull(selection);
+                assertNotNull(baseline);
+
+                engineSize += selection.getVirtualSize();
+                baselineSize += baseline.getVirtualSize();
+                engineFees += selection.getFee();
+                baselineFees += baseline.getFee();
+            }
+
+            for (int i = 0; i < WARMUP + ITERATIONS; i++) {
+                final long start = System.nanoTime();
+
+                for (SelectionTarget target : targets)
+                    engine.select(candidates, target);
+
+                if (i >= WARMUP)
+                    nanos += System.nanoTime() - start;
+            }
+
+            System.out.println(String.format("CoinSelection %d utxos: %.3f ms/select, "
+                            + "vsize %d vs smallest-first %d", size,
+                    nanos / 1e6 / ITERATIONS / PAYMENTS, engineSize / PAYMENTS,
+                    baselineSize / PAYMENTS));
+        }
+
+        System.out.println(String.format("CoinSelection fees: %d vs smallest-first %d",
+                engineFees, baselineFees));
+
+        assertTrue(engineFees < baselineFees);
+    }
+
+    /**
+     * Selecciona las salidas de menor a mayor valor hasta cubrir el pago y la comisión.
+     *
+     * @param candidates Salidas ordenadas por valor de forma ascendente.
+     * @param target     Objetivo de la selección.
+     * @return El resultado de la selección o null si el saldo no es suficiente.
+     */
+    private static CoinSelection<TestCandidate> selectSmallestFirst(
+            List<TestCandidate> candidates, SelectionTarget target) {
+        final List<TestCandidate> inputs = new ArrayList<>();
+
+        for (TestCandidate candidate : candidates) {
+            inputs.add(candidate);
+
+            final CoinSelection<TestCandidate> selection = target.complete(inputs);
+
+            if (selection != null)
+                return selection;
+        }
+
+        return null;
+    }
+
+    /**
+     * Crea salidas con valores distribuidos de forma logarítmica entre 1,000 y 10,000,000
+     * satoshis, la mitad P2WPKH y la mitad P2PKH.
+     *
+     * @param random Generador de números aleatorios.
+     * @param size   Cantidad de salidas.
+     * @return Salidas ordenadas por valor de forma ascendente.
+     */
+    private static List<TestCandidate> createCandidates(Random random, int size) {
+        final List<TestCandidate> candidates = new ArrayList<>();
+
+        for (int i = 0; i < size; i++)
+            candidates.add(new TestCandidate((long) Math.pow(10, 3 + random.nextDouble() * 4),
+                    random.nextBoolean()));
+
+        Collections.sort(candidates, BY_VALUE);
+
+        return candidates;
+    }
+
+    /**
+     * Crea pagos de hasta la mitad del saldo de las salidas.
+     *
+     * @param random     Generador de números aleatorios.
+     * @param candidates Salidas disponibles.
+     * @return Objetivos de selección.
+     */
+    private static List<SelectionTarget> createTargets(Random random,
+                                                       List<TestCandidate> candidates) {
+        final List<SelectionTarget> targets = new ArrayList<>();
+        long balance = 0;
+
+        for (Candidate candidate : candidates)
+            balance += candidate.getValue();
+
+        for (int i = 0; i < PAYMENTS; i++)
+            targets.add(new SelectionTarget.Builder()
+                    .addOutput(10_000 + (long) (random.nextDouble() * balance / 2), 22)
+                    .setChange(22, SizeModel.P2WPKH_INPUT_WEIGHT, 546)
+                    .setFeeByKB(FEE_BY_KB)
+                    .build());
+
+        return targets;
+    }
+}
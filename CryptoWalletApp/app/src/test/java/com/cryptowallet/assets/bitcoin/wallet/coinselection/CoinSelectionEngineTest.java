@@ -0,0 +1,215 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet.coinselection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas del motor de selección de entradas.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class CoinSelectionEngineTest {
+
+    /**
+     * Comisión por KB.
+     */
+    private static final long FEE_BY_KB = 10240;
+
+    /**
+     * Valor mínimo del cambio.
+     */
+    private static final long DUST = 546;
+
+    /**
+     * Si un subconjunto cubre el pago y la comisión de forma exacta, se elige sin cambio.
+     */
+    @Test
+    public void findsChangelessMatch() {
+        final List<TestCandidate> candidates = createCandidates(5_000, 20_000, 35_000, 80_000,
+                150_000);
+        final SelectionTarget probe = createTarget(0).forCandidates(candidates);
+        final long baseFee = probe.getSelectionTarget();
+        final long amount = probe.getEffectiveValue(candidates.get(1))
+                + probe.getEffectiveValue(candidates.get(3)) - baseFee;
+
+        final CoinSelection<TestCandidate> selection = CoinSelectionEngine.createDefault()
+                .select(candidates, createTarget(amount));
+
+        assertNotNull(selection);
+        assertFalse(selection.hasChange());
+        assertEquals(Arrays.asList(candidates.get(3), candidates.get(1)), selection.getInputs());
+        assertEquals(selection.getInputsValue() - amount, selection.getFee());
+    }
+
+    /**
+     * Si no existe una combinación sin cambio, se selecciona con cambio prefiriendo las salidas
+     * menores sobre la menor de las salidas mayores, y el valor de las entradas cubre el pago, la
+     * comisión y el cambio.
+     */
+    @Test
+    public void fallsBackWithChange() {
+        final List<TestCandidate> candidates = createCandidates(100_000, 200_000, 400_000);
+        final SelectionTarget target = createTarget(250_000);
+
+        final CoinSelection<TestCandidate> selection = CoinSelectionEngine.createDefault()
+                .select(candidates, target);
+
+        assertNotNull(selection);
+        assertTrue(selection.hasChange());
+        assertEquals(Arrays.asList(candidates.get(1), candidates.get(0)), selection.getInputs());
+        assertEquals(300_000, selection.getInputsValue());
+        assertEquals(target.getFee(selection.getVirtualSize() * SizeModel.WITNESS_SCALE_FACTOR),
+                selection.getFee());
+        assertEquals(selection.getInputsValue(),
+                250_000 + selection.getFee() + selection.getChange());
+    }
+
+    /**
+     * Un excedente menor al polvo se agrega a la comisión.
+     */
+    @Test
+    public void addsDustExcessToFee() {
+        final List<TestCandidate> candidates = createCandidates(100_000);
+        final SelectionTarget target = createTarget(0).forCandidates(candidates);
+        final long amount = target.getEffectiveValue(candidates.get(0))
+                - target.getSelectionTarget() - DUST / 2;
+
+        final CoinSelection<TestCandidate> selection = CoinSelectionEngine.createDefault()
+                .select(candidates, createTarget(amount));
+
+        assertNotNull(selection);
+        assertFalse(selection.hasChange());
+        assertEquals(100_000 - amount, selection.getFee());
+    }
+
+    /**
+     * Si el valor de las salidas no cubre el pago y la comisión no hay selección.
+     */
+    @Test
+    public void returnsNullWhenInsufficient() {
+        final List<TestCandidate> candidates = createCandidates(10_000, 20_000);
+
+        assertNull(CoinSelectionEngine.createDefault().select(candidates, createTarget(30_000)));
+        assertNull(new BranchAndBoundSelector().select(candidates, createTarget(30_000)));
+        assertNull(new KnapsackSelector().select(candidates, createTarget(30_000)));
+        assertNull(new LargestFirstSelector().select(candidates, createTarget(30_000)));
+    }
+
+    /**
+     * La selección por aproximación es determinista para la misma semilla.
+     */
+    @Test
+    public void knapsackIsDeterministic() {
+        final List<TestCandidate> candidates = new ArrayList<>();
+
+        for (int i = 1; i <= 50; i++)
+            candidates.add(new TestCandidate(i * 7_919L, i % 2 == 0));
+
+        final SelectionTarget target = createTarget(123_457).forCandidates(candidates);
+
+        assertEquals(new KnapsackSelector(7).select(candidates, target),
+                new KnapsackSelector(7).select(candidates, target));
+    }
+
+    /**
+     * Crea un objetivo con un pago P2WPKH y cambio P2WPKH.
+     *
+     * @param amount Valor del pago.
+     * @return Un objetivo de selección.
+     */
+    private static SelectionTarget createTarget(long amount) {
+        return new SelectionTarget.Builder()
+                .addOutput(amount, 22)
+                .setChange(22, SizeModel.P2WPKH_INPUT_WEIGHT, DUST)
+                .setFeeByKB(FEE_BY_KB)
+                .build();
+    }
+
+    /**
+     * Crea salidas candidatas P2WPKH ordenadas por valor.
+     *
+     * @param values Valores de las salidas de forma ascendente.
+     * @return Lista de salidas.
+     */
+    private static List<TestCandidate> createCandidates(long... values) {
+        final List<TestCandidate> candidates = new ArrayList<>();
+
+        for (long value : values)
+            candidates.add(new TestCandidate(value, true));
+
+        return candidates;
+    }
+
+    /**
+     * Salida candidata de pruebas.
+     *
+     * @author Ing. Javier Flores (jjflores@innsytech.com)
+     * @version 1.0
+     */
+    static final class TestCandidate implements Candidate {
+
+        /**
+         * Valor de la salida.
+         */
+        private final long mValue;
+
+        /**
+         * Indica si la entrada utiliza testigo.
+         */
+        private final boolean mWitness;
+
+        /**
+         * Crea una nueva salida.
+         *
+         * @param value   Valor de la salida.
+         * @param witness Indica si es P2WPKH, en caso contrario es P2PKH.
+         */
+        TestCandidate(long value, boolean witness) {
+            mValue = value;
+            mWitness = witness;
+        }
+
+        @Override
+        public long getValue() {
+            return mValue;
+        }
+
+        @Override
+        public int getInputWeight() {
+            return mWitness ? SizeModel.P2WPKH_INPUT_WEIGHT : SizeModel.P2PKH_INPUT_WEIGHT;
+        }
+
+        @Override
+        public boolean isWitness() {
+            return mWitness;
+        }
+    }
+}
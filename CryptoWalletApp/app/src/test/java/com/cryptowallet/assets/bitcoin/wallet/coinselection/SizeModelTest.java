@@ -0,0 +1,249 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.assets.bitcoin.wallet.coinselection;
+
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.LegacyAddress;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.SegwitAddress;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutPoint;
+import org.bitcoinj.core.TransactionWitness;
+import org.bitcoinj.core.VarInt;
+import org.bitcoinj.crypto.TransactionSignature;
+import org.bitcoinj.params.TestNet3Params;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.script.ScriptBuilder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas del modelo de tamaño contra transacciones firmadas.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class SizeModelTest {
+
+    /**
+     * Red de pruebas.
+     */
+    private static final NetworkParameters NETWORK = TestNet3Params.get();
+
+    /**
+     * Valor de las salidas gastadas.
+     */
+    private static final Coin VALUE = Coin.valueOf(100_000);
+
+    /**
+     * Bytes en que una firma DER puede ser menor a la modelada.
+     */
+    private static final int SIGNATURE_VARIANCE = 2;
+
+    /**
+     * El tamaño de las salidas coincide con las salidas serializadas.
+     */
+    @Test
+    public void outputWeightMatchesSerialization() {
+        final ECKey key = new ECKey();
+        final Transaction tx = new Transaction(NETWORK);
+
+        tx.addOutput(VALUE, LegacyAddress.fromKey(NETWORK, key));
+        tx.addOutput(VALUE, SegwitAddress.fromKey(NETWORK, key));
+        tx.addOutput(VALUE, ScriptBuilder.createP2SHOutputScript(new byte[20]));
+
+        assertEquals(SizeModel.P2PKH_OUTPUT_WEIGHT,
+                tx.getOutput(0).bitcoinSerialize().length * SizeModel.WITNESS_SCALE_FACTOR);
+        assertEquals(SizeModel.P2WPKH_OUTPUT_WEIGHT,
+                tx.getOutput(1).bitcoinSerialize().length * SizeModel.WITNESS_SCALE_FACTOR);
+        assertEquals(SizeModel.P2SH_OUTPUT_WEIGHT,
+                tx.getOutput(2).bitcoinSerialize().length * SizeModel.WITNESS_SCALE_FACTOR);
+    }
+
+    /**
+     * El tamaño virtual de una transacción P2PKH firmada no excede el modelo y la diferencia se
+     * limita a la variación de la longitud de las firmas.
+     */
+    @Test
+    public void legacyTransactionSize() {
+        for (int inputs = 1; inputs <= 5; inputs++) {
+            final List<ECKey> keys = createKeys(inputs);
+            final Transaction tx = new Transaction(NETWORK);
+
+            tx.addOutput(VALUE, LegacyAddress.fromKey(NETWORK, new ECKey()));
+
+            for (int i = 0; i < inputs; i++)
+                tx.addSignedInput(new TransactionOutPoint(NETWORK, i, Sha256Hash.ZERO_HASH),
+                        ScriptBuilder.createP2PKHOutputScript(keys.get(i)), keys.get(i));
+
+            final int weight = SizeModel.getTransactionWeight(inputs, 0,
+                    inputs * SizeModel.P2PKH_INPUT_WEIGHT, 1, SizeModel.P2PKH_OUTPUT_WEIGHT);
+
+            assertSize(tx, weight, inputs);
+        }
+    }
+
+    /**
+     * El tamaño virtual de una transacción P2PK firmada no excede el modelo y la diferencia se
+     * limita a la variación de la longitud de las firmas.
+     */
+    @Test
+    public void payToPubKeyTransactionSize() {
+        for (int inputs = 1; inputs <= 5; inputs++) {
+            final List<ECKey> keys = createKeys(inputs);
+            final Transaction tx = new Transaction(NETWORK);
+
+            tx.addOutput(VALUE, LegacyAddress.fromKey(NETWORK, new ECKey()));
+
+            for (int i = 0; i < inputs; i++)
+                tx.addSignedInput(new TransactionOutPoint(NETWORK, i, Sha256Hash.ZERO_HASH),
+                        ScriptBuilder.createP2PKOutputScript(keys.get(i)), keys.get(i));
+
+            final int weight = SizeModel.getTransactionWeight(inputs, 0,
+                    inputs * SizeModel.P2PK_INPUT_WEIGHT, 1, SizeModel.P2PKH_OUTPUT_WEIGHT);
+
+            assertSize(tx, weight, inputs);
+        }
+    }
+
+    /**
+     * El tamaño virtual de una transacción P2WPKH firmada no excede el modelo y la diferencia se
+     * limita a la variación de la longitud de las firmas.
+     */
+    @Test
+    public void witnessTransactionSize() {
+        for (int inputs = 1; inputs <= 5; inputs++) {
+            final List<ECKey> keys = createKeys(inputs);
+            final Transaction tx = new Transaction(NETWORK);
+
+            tx.addOutput(VALUE, SegwitAddress.fromKey(NETWORK, new ECKey()));
+
+            for (int i = 0; i < inputs; i++)
+                tx.addInput(new TransactionInput(NETWORK, tx, new byte[0],
+                        new TransactionOutPoint(NETWORK, i, Sha256Hash.ZERO_HASH), VALUE));
+
+            for (int i = 0; i < inputs; i++) {
+                final ECKey key = keys.get(i);
+                final TransactionSignature signature = tx.calculateWitnessSignature(i, key,
+                        ScriptBuilder.createP2PKHOutputScript(key), VALUE,
+                        Transaction.SigHash.ALL, false);
+
+                tx.getInput(i).setWitness(TransactionWitness.redeemP2WPKH(signature, key));
+            }
+
+            final int weight = SizeModel.getTransactionWeight(inputs, inputs,
+                    inputs * SizeModel.P2WPKH_INPUT_WEIGHT, 1, SizeModel.P2WPKH_OUTPUT_WEIGHT);
+
+            assertSize(tx, weight, inputs);
+        }
+    }
+
+    /**
+     * El peso de las entradas depende del tipo de script de la salida gastada.
+     */
+    @Test
+    public void inputWeightByScript() {
+        final ECKey key = new ECKey();
+        final Script p2pkh = ScriptBuilder.createP2PKHOutputScript(key);
+        final Script p2wpkh = ScriptBuilder.createP2WPKHOutputScript(key);
+        final Script p2sh = ScriptBuilder.createP2SHOutputScript(p2wpkh);
+        final Script p2pk = ScriptBuilder.createP2PKOutputScript(key);
+        final Script multisig = ScriptBuilder.createMultiSigOutputScript(1,
+                Collections.singletonList(key));
+
+        assertEquals(SizeModel.P2PKH_INPUT_WEIGHT, SizeModel.getInputWeight(p2pkh, null));
+        assertEquals(SizeModel.P2PK_INPUT_WEIGHT, SizeModel.getInputWeight(p2pk, null));
+        assertEquals(SizeModel.P2WPKH_INPUT_WEIGHT, SizeModel.getInputWeight(p2wpkh, null));
+        assertEquals(SizeModel.P2SH_P2WPKH_INPUT_WEIGHT, SizeModel.getInputWeight(p2sh, p2wpkh));
+        assertFalse(SizeModel.isWitnessInput(p2pkh, null));
+        assertTrue(SizeModel.isWitnessInput(p2wpkh, null));
+        assertTrue(SizeModel.isWitnessInput(p2sh, p2wpkh));
+        assertTrue(SizeModel.isSupportedInput(p2pk, null));
+        assertFalse(SizeModel.isSupportedInput(p2sh, null));
+        assertFalse(SizeModel.isSupportedInput(multisig, null));
+    }
+
+    /**
+     * El peso de una entrada con un tipo de script no soportado no puede calcularse.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedInputWeight() {
+        SizeModel.getInputWeight(ScriptBuilder.createMultiSigOutputScript(1,
+                Collections.singletonList(new ECKey())), null);
+    }
+
+    /**
+     * Verifica que el tamaño virtual modelado no sea menor al real ni lo exceda por más de
+     * {@link #SIGNATURE_VARIANCE} bytes por entrada.
+     *
+     * @param tx     Transacción firmada.
+     * @param weight Peso modelado.
+     * @param inputs Cantidad de entradas.
+     */
+    private static void assertSize(Transaction tx, int weight, int inputs) {
+        final int total = tx.bitcoinSerialize().length;
+        int witness = 0;
+
+        if (tx.hasWitnesses()) {
+            witness = 2;
+
+            for (TransactionInput input : tx.getInputs()) {
+                final TransactionWitness inputWitness = input.getWitness();
+
+                witness += VarInt.sizeOf(inputWitness.getPushCount());
+
+                for (int i = 0; i < inputWitness.getPushCount(); i++)
+                    witness += VarInt.sizeOf(inputWitness.getPush(i).length)
+                            + inputWitness.getPush(i).length;
+            }
+        }
+
+        final int actual = SizeModel.getVirtualSize((total - witness)
+                * (SizeModel.WITNESS_SCALE_FACTOR - 1) + total);
+        final int modeled = SizeModel.getVirtualSize(weight);
+
+        assertTrue(modeled + " < " + actual, modeled >= actual);
+        assertTrue(modeled + " > " + actual, modeled - actual <= inputs * SIGNATURE_VARIANCE);
+    }
+
+    /**
+     * Crea claves nuevas.
+     *
+     * @param count Cantidad de claves.
+     * @return Lista de claves.
+     */
+    private static List<ECKey> createKeys(int count) {
+        final List<ECKey> keys = new ArrayList<>();
+
+        for (int i = 0; i < count; i++)
+            keys.add(new ECKey());
+
+        return keys;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.services.network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reloj simulado para las pruebas. El tiempo solo avanza al esperar o al modificarlo de forma
+ * explícita.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class FakeClock implements Clock {
+
+    /**
+     * Esperas solicitadas.
+     */
+    final List<Long> mSleeps = new ArrayList<>();
+
+    /**
+     * Fecha y hora actual.
+     */
+    long mNow = 1600000000000L;
+
+    /**
+     * Avanza el reloj.
+     *
+     * @param millis Tiempo en milisegundos.
+     */
+    public synchronized void advance(long millis) {
+        mNow += millis;
+    }
+
+    @Override
+    public synchronized long currentTimeMillis() {
+        return mNow;
+    }
+
+    @Override
+    public synchronized void sleep(long millis) {
+        mSleeps.add(millis);
+        mNow += millis;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.services.network;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas del motor de peticiones.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class RequestEngineTest {
+
+    /**
+     * Tiempo máximo de espera de cada paso en segundos.
+     */
+    private static final int TIMEOUT = 5;
+
+    /**
+     * Peticiones en el orden en el que iniciaron.
+     */
+    private List<String> mStarted;
+
+    /**
+     * Señal que libera las peticiones bloqueadas.
+     */
+    private CountDownLatch mRelease;
+
+    /**
+     * Configuración inicial.
+     */
+    @Before
+    public void setUp() {
+        mStarted = Collections.synchronizedList(new ArrayList<>());
+        mRelease = new CountDownLatch(1);
+    }
+
+    /**
+     * Libera las peticiones que continúen bloqueadas.
+     */
+    @After
+    public void tearDown() {
+        mRelease.countDown();
+    }
+
+    /**
+     * Un endpoint no excede su límite de peticiones en curso aunque el motor tenga lugares libres.
+     */
+    @Test
+    public void limitsRequestsPerEndpoint() throws Exception {
+        final RequestEngine engine = new RequestEngine("test", 4);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(2);
+        final List<ListenableFuture<String>> requests = new ArrayList<>();
+
+        engine.setMaxRequestsPerEndpoint("tx", 2);
+
+        for (int i = 0; i < 5; i++) {
+            final String name = "tx " + i;
+
+            requests.add(engine.submit("tx", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                started.countDown();
+
+                try {
+                    return new LatchedCall(name).call();
+                } finally {
+                    running.decrementAndGet();
+                }
+            }));
+        }
+
+        assertTrue(started.await(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(2, engine.getRunningCount());
+        assertEquals(3, engine.getQueuedCount());
+
+        mRelease.countDown();
+
+        for (ListenableFuture<String> request : requests)
+            request.get(TIMEOUT, TimeUnit.SECONDS);
+
+        assertEquals(2, maxRunning.get());
+        assertEquals(5, mStarted.size());
+    }
+
+    /**
+     * Las peticiones en espera inician en el orden en el que fueron encoladas.
+     */
+    @Test
+    public void startsInSubmissionOrder() throws Exception {
+        final RequestEngine engine = new RequestEngine("test", 1);
+        final LatchedCall blocker = new LatchedCall("blocker");
+        final List<ListenableFuture<String>> requests = new ArrayList<>();
+
+        requests.add(engine.submit("history", blocker));
+
+        assertTrue(blocker.mStartedSignal.await(TIMEOUT, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 5; i++)
+            requests.add(engine.submit(i % 2 == 0 ? "tx" : "history",
+                    new LatchedCall("request " + i)));
+
+        assertEquals(5, engine.getQueuedCount());
+
+        mRelease.countDown();
+
+        for (ListenableFuture<String> request : requests)
+            request.get(TIMEOUT, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList("blocker", "request 0", "request 1", "request 2",
+                "request 3", "request 4"), mStarted);
+    }
+
+    /**
+     * Una petición de un endpoint saturado no bloquea a las peticiones de otros endpoints que
+     * fueron encoladas después, y conserva su lugar hasta que el endpoint se libera.
+     */
+    @Test
+    public void skipsSaturatedEndpoint() throws Exception {
+        final RequestEngine engine = new RequestEngine("test", 2);
+        final LatchedCall first = new LatchedCall("blocks 0");
+        final LatchedCall second = new LatchedCall("blocks 1");
+
+        engine.setMaxRequestsPerEndpoint("blocks", 1);
+
+        final ListenableFuture<String> firstRequest = engine.submit("blocks", first);
+        final ListenableFuture<String> secondRequest = engine.submit("blocks", second);
+        final ListenableFuture<String> other = engine.submit("chaininfo", () -> "chaininfo");
+
+        assertTrue(first.mStartedSignal.await(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals("chaininfo", other.get(TIMEOUT, TimeUnit.SECONDS));
+        assertFalse(firstRequest.isDone());
+        assertEquals(1, second.mStartedSignal.getCount());
+        assertEquals(1, engine.getQueuedCount());
+
+        mRelease.countDown();
+
+        assertEquals("blocks 0", firstRequest.get(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals("blocks 1", secondRequest.get(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("blocks 0", "blocks 1"), mStarted);
+    }
+
+    /**
+     * Petición que registra su inicio y espera a ser liberada.
+     */
+    private final class LatchedCall implements Callable<String> {
+
+        /**
+         * Señal de que la petición inició.
+         */
+        final CountDownLatch mStartedSignal = new CountDownLatch(1);
+
+        /**
+         * Nombre de la petición.
+         */
+        private final String mName;
+
+        LatchedCall(String name) {
+            mName = name;
+        }
+
+        @Override
+        public String call() throws InterruptedException {
+            mStarted.add(mName);
+            mStartedSignal.countDown();
+
+            if (!mRelease.await(TIMEOUT, TimeUnit.SECONDS))
+                throw new IllegalStateException("Request was not released: " + mName);
+
+            return mName;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cryptowallet.services.network;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Pruebas de la política de reintentos y del circuito por endpoint utilizando un reloj simulado.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class RetrierTest {
+
+    /**
+     * Endpoint utilizado en las pruebas.
+     */
+    private static final String ENDPOINT = "history";
+
+    /**
+     * Reloj simulado.
+     */
+    private FakeClock mClock;
+
+    /**
+     * Ejecutor de reintentos.
+     */
+    private Retrier mRetrier;
+
+    /**
+     * Configuración inicial.
+     */
+    @Before
+    public void setUp() {
+        mClock = new FakeClock();
+        mRetrier = new Retrier(new RetryPolicy.Builder()
+                .setMaxAttempts(4)
+                .setDelay(1000, 8000)
+                .setMaxRetryAfter(30000)
+                .setRandom(new Random(7))
+                .build(), mClock, 3, 60000);
+    }
+
+    /**
+     * Prueba que los errores de transporte sean reintentados con esperas crecientes dentro del
+     * intervalo de variación.
+     */
+    @Test
+    public void retriesWithExponentialBackoff() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+
+        final String result = mRetrier.call("tx", () -> {
+            if (calls.incrementAndGet() < 3)
+                throw new ConnectException("Connection refused");
+
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, calls.get());
+        assertEquals(2, mClock.mSleeps.size());
+
+        for (int i = 0; i < 2; i++) {
+            final long expected = 1000L << i;
+            final long sleep = mClock.mSleeps.get(i);
+
+            assertTrue(sleep >= expected / 2 && sleep <= expected);
+        }
+    }
+
+    /**
+     * Prueba que las respuestas de error del cliente no sean reintentadas.
+     */
+    @Test
+    public void doesNotRetryClientErrors() {
+        final AtomicInteger calls = new AtomicInteger();
+
+        try {
+            mRetrier.call(ENDPOINT, () -> {
+                calls.incrementAndGet();
+                throw httpError(400, null);
+            });
+            fail();
+        } catch (Exception e) {
+            assertTrue(e instanceof HttpException);
+        }
+
+        assertEquals(1, calls.get());
+        assertTrue(mClock.mSleeps.isEmpty());
+        assertEquals(CircuitBreaker.State.CLOSED,
+                mRetrier.getCircuitBreaker(ENDPOINT).getState());
+    }
+
+    /**
+     * Prueba que se respete la espera indicada por Retry-After en una respuesta 429.
+     */
+    @Test
+    public void honorsRetryAfter() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+
+        final String result = mRetrier.call(ENDPOINT, () -> {
+            if (calls.incrementAndGet() == 1)
+                throw httpError(429, "12");
+
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(1, mClock.mSleeps.size());
+        assertEquals(12000L, (long) mClock.mSleeps.get(0));
+    }
+
+    /**
+     * Prueba que una espera de Retry-After mayor al límite abra el circuito durante ese tiempo.
+     */
+    @Test
+    public void longRetryAfterTripsCircuit() {
+        try {
+            mRetrier.call(ENDPOINT, () -> {
+                throw httpError(503, "120");
+            });
+            fail();
+        } catch (Exception e) {
+            assertTrue(e instanceof HttpException);
+        }
+
+        assertTrue(mClock.mSleeps.isEmpty());
+        assertEquals(CircuitBreaker.State.OPEN, mRetrier.getCircuitBreaker(ENDPOINT).getState());
+
+        mClock.advance(119000);
+        assertEquals(CircuitBreaker.State.OPEN, mRetrier.getCircuitBreaker(ENDPOINT).getState());
+
+        mClock.advance(1000);
+        assertEquals(CircuitBreaker.State.HALF_OPEN,
+                mRetrier.getCircuitBreaker(ENDPOINT).getState());
+    }
+
+    /**
+     * Prueba que el circuito se abra tras los fallos consecutivos, falle de inmediato mientras
+     * está abierto y se cierre cuando la petición de prueba es exitosa.
+     */
+    @Test
+    public void circuitBreakerFailsFast() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+
+        try {
+            mRetrier.call(ENDPOINT, () -> {
+                calls.incrementAndGet();
+                throw httpError(502, null);
+            });
+            fail();
+        } catch (CircuitOpenException ignored) {
+            // El circuito se abre antes de agotar los intentos.
+        }
+
+        assertEquals(3, calls.get());
+        assertEquals(CircuitBreaker.State.OPEN, mRetrier.getCircuitBreaker(ENDPOINT).getState());
+
+        try {
+            mRetrier.call(ENDPOINT, () -> {
+                calls.incrementAndGet();
+                return "ok";
+            });
+            fail();
+        } catch (CircuitOpenException ignored) {
+            // Falla sin realizar la petición.
+        }
+
+        assertEquals(3, calls.get());
+        assertEquals(CircuitBreaker.State.CLOSED, mRetrier.getCircuitBreaker("tx").getState());
+
+        mClock.advance(60000);
+
+        assertEquals("ok", mRetrier.call(ENDPOINT, () -> "ok"));
+        assertEquals(CircuitBreaker.State.CLOSED, mRetrier.getCircuitBreaker(ENDPOINT).getState());
+    }
+
+    /**
+     * Prueba que un fallo de la petición de prueba abra nuevamente el circuito.
+     */
+    @Test
+    public void halfOpenFailureReopensCircuit() {
+        final CircuitBreaker breaker = mRetrier.getCircuitBreaker(ENDPOINT);
+
+        breaker.trip(60000);
+        mClock.advance(60000);
+
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    /**
+     * Prueba que una cancelación no cuente como éxito para el circuito y que, si era la petición
+     * de prueba, se permita realizar otra.
+     */
+    @Test
+    public void cancellationDoesNotCloseCircuit() {
+        final CircuitBreaker breaker = mRetrier.getCircuitBreaker(ENDPOINT);
+
+        breaker.trip(60000);
+        mClock.advance(60000);
+
+        try {
+            mRetrier.call(ENDPOINT, () -> {
+                throw new CancellationException("Request was cancelled");
+            });
+            fail();
+        } catch (Exception e) {
+            assertTrue(e instanceof CancellationException);
+        }
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        try {
+            mRetrier.call(ENDPOINT, () -> {
+                throw new IllegalStateException();
+            });
+            fail();
+        } catch (Exception e) {
+            assertTrue(e instanceof IllegalStateException);
+        }
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        try {
+            mRetrier.call(ENDPOINT, () -> {
+                throw httpError(404, null);
+            });
+            fail();
+        } catch (Exception e) {
+            assertTrue(e instanceof HttpException);
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    /**
+     * Prueba la clasificación de los errores.
+     */
+    @Test
+    public void classifiesErrors() {
+        final RetryPolicy policy = new RetryPolicy.Builder().build();
+
+        assertTrue(policy.isRetryable(new IOException()));
+        assertTrue(policy.isRetryable(httpError(500, null)));
+        assertTrue(policy.isRetryable(httpError(423, null)));
+        assertFalse(policy.isRetryable(httpError(404, null)));
+        assertFalse(policy.isRetryable(httpError(501, null)));
+        assertFalse(policy.isRetryable(new IllegalStateException()));
+        assertFalse(policy.isRetryable(
+                new com.google.gson.stream.MalformedJsonException("Bad json")));
+    }
+
+    /**
+     * Crea un error HTTP con la cabecera Retry-After opcional.
+     *
+     * @param code       Código de respuesta.
+     * @param retryAfter Valor de Retry-After o null.
+     * @return Error HTTP.
+     */
+    private static HttpException httpError(int code, String retryAfter) {
+        final okhttp3.Response.Builder raw = new okhttp3.Response.Builder()
+                .code(code)
+                .message("Error")
+                .protocol(Protocol.HTTP_1_1)
+                .request(new Request.Builder().url("http://localhost/").build());
+
+        if (retryAfter != null)
+            raw.header("Retry-After", retryAfter);
+
+        return new HttpException(Response.error(ResponseBody.create(new byte[0], null),
+                raw.build()));
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2020. Criptoactivo
+ * Copyright © 2020. InnSy Tech
+ * Copyright © 2020. Ing. Javier de Jesús Flores Mondragón
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cryptowallet.services.network;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas del caché de consultas agrupadas.
+ *
+ * @author Ing. Javier Flores (jjflores@innsytech.com)
+ * @version 1.0
+ */
+public class SingleFlightCacheTest {
+
+    /**
+     * Reloj simulado.
+     */
+    private FakeClock mClock;
+
+    /**
+     * Caché a evaluar.
+     */
+    private SingleFlightCache<Integer> mCache;
+
+    /**
+     * Consultas iniciadas por el caché.
+     */
+    private List<SettableFuture<Integer>> mRequests;
+
+    /**
+     * Función que inicia las consultas.
+     */
+    private Callable<ListenableFuture<Integer>> mLoader;
+
+    /**
+     * Configuración inicial.
+     */
+    @Before
+    public void setUp() {
+        mClock = new FakeClock();
+        mCache = new SingleFlightCache<>(mClock, 5000);
+        mRequests = new ArrayList<>();
+        mLoader = () -> {
+            SettableFuture<Integer> request = SettableFuture.create();
+            mRequests.add(request);
+            return request;
+        };
+    }
+
+    /**
+     * Prueba que las consultas concurrentes compartan la misma petición y que el resultado se
+     * sirva desde memoria hasta que venza.
+     */
+    @Test
+    public void coalescesConcurrentRequests() throws Exception {
+        final ListenableFuture<Integer> first = mCache.get(mLoader);
+        final ListenableFuture<Integer> second = mCache.get(mLoader);
+
+        assertEquals(1, mRequests.size());
+
+        mRequests.get(0).set(100);
+
+        assertEquals(100, (int) first.get());
+        assertEquals(100, (int) second.get());
+
+        mClock.advance(4999);
+        assertEquals(100, (int) mCache.get(mLoader).get());
+        assertEquals(1, mRequests.size());
+
+        mClock.advance(1);
+        mCache.get(mLoader);
+        assertEquals(2, mRequests.size());
+    }
+
+    /**
+     * Prueba que la invalidación descarte el valor y que el resultado de una consulta iniciada
+     * antes de la invalidación no sea almacenado.
+     */
+    @Test
+    public void invalidateDiscardsInFlightResult() throws Exception {
+        mCache.get(mLoader);
+        mCache.invalidate();
+
+        final ListenableFuture<Integer> fresh = mCache.get(mLoader);
+
+        assertEquals(2, mRequests.size());
+
+        mRequests.get(0).set(100);
+        mRequests.get(1).set(101);
+
+        assertEquals(101, (int) fresh.get());
+        assertEquals(101, (int) mCache.get(mLoader).get());
+        assertEquals(2, mRequests.size());
+    }
+
+    /**
+     * Prueba que los resultados fallidos no sean almacenados y que cancelar una consulta no
+     * afecte a los demás solicitantes.
+     */
+    @Test
+    public void failuresAreNotCached() throws Exception {
+        final ListenableFuture<Integer> first = mCache.get(mLoader);
+        final ListenableFuture<Integer> second = mCache.get(mLoader);
+
+        first.cancel(true);
+
+        assertFalse(second.isDone());
+
+        mRequests.get(0).set(null);
+
+        assertTrue(second.isDone());
+
+        mCache.get(mLoader);
+        assertEquals(2, mRequests.size());
+    }
+}
@@ -105,6 +105,10 @@ export class Blockchain {
         return this._store.getHeight(hash)
     }
 
+    public async getHash(height: number): Promise<Buffer> {
+        return this._store.getHash(height)
+    }
+
     public async addBlock(block: Block): Promise<boolean> {
         if (!(await this._validateBlock(block))) {
             Logger.warn("Bad block [Hash=%s]", block.hash)
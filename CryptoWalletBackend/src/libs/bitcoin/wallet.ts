@@ -1,5 +1,5 @@
 import { Networks, Transaction, Output, Address, Block, PublicKey, Script } from "bitcore-lib"
-import { TxData, IWalletProvider, ChainInfo } from "../../resources/iwalletprovider"
+import { TxData, IWalletProvider, ChainInfo, BlockRange, BlockHeaderData, BlockFeeRates, FeeBucket } from "../../resources/iwalletprovider"
 import { MongoClient, Db, Collection } from "mongodb"
 import { Blockchain } from "./chain/blockchain"
 import { Network } from "./network"
@@ -18,6 +18,10 @@ const ASSET = "btc"
 const Logger = LoggerFactory.getLogger('Bitcoin (Wallet)')
 const MESSAGING_SCOPE = 'https://www.googleapis.com/auth/firebase.messaging'
 const SCOPES = [MESSAGING_SCOPE]
+const KB = 1024
+const FEE_TARGETS = [1, 2, 3, 6, 12, 24]
+const FEE_SAMPLE_SIZE = 200
+const FEE_CACHE_SIZE = 48
 
 export default class WalletProvider implements IWalletProvider {
 
@@ -37,6 +41,7 @@ export default class WalletProvider implements IWalletProvider {
     }
 
     private _db: MongoManager
+    private _feeBuckets = new Map<string, FeeBucket[]>()
 
     public async subscribeWallet(walletId: string, addresses: string, chain: string, network: string, pushToken: string) {
         if (!this._db.connected)
@@ -358,6 +363,119 @@ export default class WalletProvider implements IWalletProvider {
         return dependencies
     }
 
+    public async getBlockRange(addresses: string, network: string, fromHeight: number, toHeight: number): Promise<BlockRange> {
+        if (network !== Networks.defaultNetwork.name)
+            return null
+
+        const tip = await this.chain.getLocalTip()
+        const blocks = new Array<BlockHeaderData>()
+
+        toHeight = Math.min(toHeight, tip.height)
+
+        for (let height = fromHeight; height <= toHeight; height++) {
+            const hash = await this.chain.getHash(height)
+            const block = hash ? await this.chain.getBlock(hash) : null
+
+            if (!block) break
+
+            blocks.push({
+                hash: block.hash,
+                prev: block.header.prevHash.toReverseHex(),
+                height,
+                time: block.header.time
+            })
+        }
+
+        if (blocks.length < 2 || addresses.length < 42)
+            return { blocks, txs: [] }
+
+        const lastHeight = blocks[blocks.length - 1].height
+        const txs = (await this.getHistory(addresses, network, fromHeight + 1))
+            .filter(tx => tx.height > fromHeight && tx.height <= lastHeight)
+
+        return { blocks, txs }
+    }
+
+    public async getFeeRates(blocks: number, network: string): Promise<BlockFeeRates[]> {
+        if (network !== Networks.defaultNetwork.name)
+            return null
+
+        const tip = await this.chain.getLocalTip()
+        const feeRates = new Array<BlockFeeRates>()
+
+        for (let height = tip.height; height > Math.max(0, tip.height - blocks); height--) {
+            const hash = await this.chain.getHash(height)
+
+            if (!hash) break
+
+            feeRates.push({ height, buckets: await this._getFeeBuckets(hash) })
+        }
+
+        return feeRates
+    }
+
+    private async _getFeeBuckets(hash: Buffer): Promise<FeeBucket[]> {
+        const key = hash.toHex()
+
+        if (this._feeBuckets.has(key))
+            return this._feeBuckets.get(key)
+
+        const block = await this.chain.getBlock(hash)
+
+        if (!block) return []
+
+        const txs = block.transactions.filter(tx => !tx.isCoinbase())
+        const step = Math.max(1, txs.length / FEE_SAMPLE_SIZE)
+        const rates = new Array<number>()
+
+        for (let i = 0; i < txs.length; i += step) {
+            const tx = txs[Math.floor(i)]
+            let inputAmount = 0
+
+            for (const txi of tx.inputs) {
+                const value = await this._getOutputValue(txi.prevTxId, txi.outputIndex)
+
+                if (value == null) {
+                    inputAmount = -1
+                    break
+                }
+
+                inputAmount += value
+            }
+
+            if (inputAmount < tx.outputAmount) continue
+
+            rates.push(Math.floor((inputAmount - tx.outputAmount) * KB / tx.toBuffer().length))
+        }
+
+        rates.sort((left, right) => left - right)
+
+        const buckets = rates.length == 0 ? [] : FEE_TARGETS.map(target => {
+            return { target, rate: rates[Math.floor((rates.length - 1) * 0.5 / target)] }
+        })
+
+        this._feeBuckets.set(key, buckets)
+
+        if (this._feeBuckets.size > FEE_CACHE_SIZE)
+            this._feeBuckets.delete(this._feeBuckets.keys().next().value)
+
+        return buckets
+    }
+
+    private async _getOutputValue(prevTxId: Buffer, index: number): Promise<number> {
+        const prevTxIdx = await this.chain.TxIndex.getIndexByHash(Buffer.from(prevTxId).reverse())
+
+        if (!prevTxIdx) return null
+
+        const block = await this.chain.getBlock(prevTxIdx.blockHash)
+
+        if (!block) return null
+
+        const txo = block.transactions[prevTxIdx.index].outputs[index]
+
+        return txo ? txo.satoshis : null
+    }
+
     public async getChainInfo(network: string): Promise<ChainInfo> {
         if (network !== Networks.defaultNetwork.name)
             return null
@@ -398,6 +516,26 @@ export default class WalletProvider implements IWalletProvider {
         }
     }
 
+    public async getTransactions(txids: string, network: string): Promise<TxData[]> {
+        if (network !== Networks.defaultNetwork.name)
+            return null
+
+        const txs = new Array<TxData>()
+
+        while (txids.length >= 64) {
+            const txid = txids.substr(0, 64)
+
+            txids = txids.substr(64)
+
+            const tx = await this.getTransaction(txid, network)
+                || await this.getTransactionFromMempool(txid, network)
+
+            if (tx) txs.push(tx)
+        }
+
+        return txs
+    }
+
     public async getHistoryByAddress(address: string, network: string, fromHeight: number): Promise<TxData[]> {
         if (network !== Networks.defaultNetwork.name)
             return null
@@ -8,6 +8,7 @@ import NetworkStatus from "../libs/bitcoin/network/networkstatus"
 import WalletProvider from "../libs/bitcoin/wallet"
 import LoggerFactory from 'log4js'
 import { Mempool } from "../libs/bitcoin/store/leveldb/mempool"
+import { TxData } from "./iwalletprovider"
 
 type ParamValid = { message?: string, error: boolean, code?: number }
 
@@ -15,6 +16,11 @@ const VERSION = "v0.6-beta" // 2020-02-29
 const VERSION_API = "v1" // 2020-04-01
 const ASSET = "btc"
 const URL_BASE = `/api/${VERSION_API}/${ASSET}/`
+const MAX_BLOCK_RANGE = 1008
+const MAX_TXS_PER_REQUEST = 500
+const MAX_FEE_BLOCKS = 24
+const TXDATA_CONTENT_TYPE = "application/vnd.cryptowallet.txdata"
+const EMPTY_HASH = Buffer.alloc(32, 0)
 
 const Logger = LoggerFactory.getLogger('(Bitcoin) Service')
 
@@ -97,6 +103,30 @@ function validateHash(hash: string): ParamValid {
     return { error: false }
 }
 
+function encodeTxData(txs: TxData[]): Buffer {
+    return Buffer.concat(txs.filter(tx => tx != null).map(tx => {
+        const data = Buffer.from(tx.data, 'hex')
+        const length = Buffer.alloc(4)
+        const fields = Buffer.alloc(12)
+        const block = tx.height >= 0 && new RegExp("^[0-9A-Fa-f]{64}$").test(tx.block) ?
+            Buffer.from(tx.block, 'hex') : EMPTY_HASH
+
+        length.writeInt32BE(data.length, 0)
+        fields.writeInt32BE(tx.height, 0)
+        fields.writeInt32BE(tx.time, 4)
+        fields.writeInt32BE(tx.index, 8)
+
+        return Buffer.concat([length, data, block, fields])
+    }))
+}
+
+function sendTxData(req: Request, res: Response, txs: TxData | TxData[]) {
+    if (txs == null || req.accepts([TXDATA_CONTENT_TYPE, "application/json"]) !== TXDATA_CONTENT_TYPE)
+        res.status(200).json(txs)
+    else
+        res.status(200).type(TXDATA_CONTENT_TYPE).send(encodeTxData(Array.isArray(txs) ? txs : [txs]))
+}
+
 process.on('SIGINT', exitHandler)
 process.on('SIGTERM', exitHandler)
 process.on('uncaughtException', errorHandler)
@@ -125,6 +155,17 @@ const router = Router()
 
         res.status(200).json(await wallet.getChainInfo(network))
     })
+    .get(URL_BASE + ":network/fees", async (req: Request, res: Response, next: NextFunction) => {
+        const blocks = parseInt(req.query.blocks as string) >> 0
+        const network: string = req.params.network
+
+        Logger.debug("Request received [Op=fees, Param={ blocks: %d, network: %s }]", blocks, network)
+
+        if (blocks < 1 || blocks > MAX_FEE_BLOCKS)
+            res.status(400).json({ message: "The number of blocks isn't valid" })
+        else
+            res.status(200).json({ blocks: await wallet.getFeeRates(blocks, network) })
+    })
     .get(URL_BASE + ":network/block/:hash", async (req: Request, res: Response, next: NextFunction) => {
         const hash = req.params.hash
         const network = req.params.network
@@ -146,7 +187,7 @@ const router = Router()
         if (validAddress.error)
             res.status(validAddress.code).json({ message: validAddress.message })
         else
-            res.status(200).json(await wallet.getHistoryByAddress(address, network, height))
+            sendTxData(req, res, await wallet.getHistoryByAddress(address, network, height))
     })
     .get(URL_BASE + ":network/tx/:txid", async (req: Request, res: Response, next: NextFunction) => {
         const txid: string = req.params.txid
@@ -162,9 +203,23 @@ const router = Router()
 
             tx = tx || await wallet.getTransactionFromMempool(txid, network)
 
-            res.status(200).json(tx)
+            sendTxData(req, res, tx)
         }
     })
+    .post(URL_BASE + ":network/txs", async (req: Request, res: Response, next: NextFunction) => {
+        const txids: string = req.body.txids || ""
+        const network: string = req.params.network
+
+        Logger.debug("Request received [Op=txs, Param={ txids: %s, network: %s }]",
+            "byte[" + txids.length / 2 + "]", network)
+
+        if (txids.length < 64 || !new RegExp("^[0-9A-Fa-f]+$").test(txids))
+            res.status(400).json({ message: "Any transaction wasn't specified" })
+        else if (txids.length / 64 > MAX_TXS_PER_REQUEST)
+            res.status(400).json({ message: "Too many transactions were specified" })
+        else
+            sendTxData(req, res, await wallet.getTransactions(txids, network))
+    })
     .get(URL_BASE + ":network/txdeps/:txid", async (req: Request, res: Response, next: NextFunction) => {
         const txid: string = req.params.txid
         const network: string = req.params.network
@@ -175,7 +230,7 @@ const router = Router()
         if (validHash.error)
             res.status(validHash.code).json({ message: validHash.message })
         else
-            res.status(200).json(await wallet.getTxDependencies(txid, network))
+            sendTxData(req, res, await wallet.getTxDependencies(txid, network))
     })
     .post(URL_BASE + ":network/subscribe", async (req: Request, res: Response, next: NextFunction) => {
         const walletId = req.body.walletId
@@ -205,9 +260,23 @@ const router = Router()
         if (addresses.length < 42)
             res.status(400).json({ message: "Any address wasn't specified" })
         else
-            res.status(200).json(await wallet.getHistory(addresses, network, height))
+            sendTxData(req, res, await wallet.getHistory(addresses, network, height))
 
     })
+    .post(URL_BASE + ":network/blocks", async (req: Request, res: Response, next: NextFunction) => {
+        const fromHeight = parseInt(req.query.from as string) >> 0
+        const toHeight = parseInt(req.query.to as string) >> 0
+        const addresses: string = req.body.addresses || ""
+        const network = req.params.network
+
+        Logger.debug("Request received [Op=blocks, Param={ addresses: %s, from: %d, to: %d, network: %s }]",
+            "byte[" + addresses.length / 2 + "]", fromHeight, toHeight, network)
+
+        if (fromHeight < 0 || toHeight < fromHeight || toHeight - fromHeight > MAX_BLOCK_RANGE)
+            res.status(400).json({ message: "The block range isn't valid" })
+        else
+            res.status(200).json(await wallet.getBlockRange(addresses, network, fromHeight, toHeight))
+    })
     .put(URL_BASE + ":network/broadcast", async (req: Request, res: Response, next: NextFunction) => {
         const raw = req.body.hex || ""
         const network = req.params.network
@@ -29,6 +29,15 @@ export interface IWalletProvider {
      */
     getTransactionFromMempool(txid: string, network: string): Promise<TxData>   
 
+    /**
+     * Obtiene las transacciones confirmadas o pendientes de los hashes especificados. Las
+     * transacciones que no se encuentran se omiten.
+     * 
+     * @param txids Hashes únicos de las transacciones concatenados en hexadecimal.
+     * @param network Tipo de red a consultar.
+     */
+    getTransactions(txids: string, network: string): Promise<TxData[]>
+
     /**
      * Obtiene la información de punta de la cadena.
      * 
@@ -52,6 +61,25 @@ export interface IWalletProvider {
      */
     getTxDependencies(txid: string, network: string): Promise<TxData[]>
 
+    /**
+     * Obtiene las cabeceras de los bloques comprendidos entre dos alturas y las transacciones de
+     * las direcciones incluidas en ellos. La primera cabecera corresponde a la altura inicial.
+     * 
+     * @param addresses Direcciones a consultar, puede estar vacía para solo obtener las cabeceras.
+     * @param network Tipo de red a consultar.
+     * @param fromHeight Altura del primer bloque.
+     * @param toHeight Altura del último bloque.
+     */
+    getBlockRange(addresses: string, network: string, fromHeight: number, toHeight: number): Promise<BlockRange>
+
+    /**
+     * Obtiene las tasas de comisión por objetivo de confirmación de los bloques más recientes.
+     * 
+     * @param blocks Cantidad de bloques recientes.
+     * @param network Tipo de red a consultar.
+     */
+    getFeeRates(blocks: number, network: string): Promise<BlockFeeRates[]>
+
 }
 
 export type ChainInfo = {
@@ -63,6 +91,28 @@ export type ChainInfo = {
     status: string
 }
 
+export type BlockHeaderData = {
+    hash: string,
+    prev: string,
+    height: number,
+    time: number
+}
+
+export type BlockRange = {
+    blocks: BlockHeaderData[],
+    txs: TxData[]
+}
+
+export type FeeBucket = {
+    target: number,
+    rate: number
+}
+
+export type BlockFeeRates = {
+    height: number,
+    buckets: FeeBucket[]
+}
+
 export type TxData = {
     height: number,
     block: string,